@@ -7,6 +7,8 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 public interface TrainRouteController {
     @PostMapping
     Mono<TrainRouteResponse> createTrainRoute(@RequestBody @Valid TrainRouteRequest trainRouteRequest);
@@ -14,6 +16,8 @@ public interface TrainRouteController {
     Mono<TrainRouteResponse> updateTrainRoute(@RequestBody @Valid TrainRouteRequest trainRouteRequest);
     @GetMapping
     Flux<TrainRouteResponse> getTrainRoute(@RequestParam(required = false) String trainNumber);
+    @GetMapping("bulk")
+    Flux<TrainRouteResponse> getTrainRoutesByNumbers(@RequestParam Set<String> trainNumbers);
     @DeleteMapping
     Mono<Void> deleteTrainRoute(@RequestParam(required = true) String trainNumber);
 }
@@ -7,6 +7,8 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 public interface TrainStationController {
     @PostMapping
     Mono<TrainStationResponse> createTrainStation(@RequestBody @Valid TrainStationRequest trainStationRequest);
@@ -14,6 +16,8 @@ public interface TrainStationController {
     Mono<TrainStationResponse> updateTrainStation(@RequestBody @Valid TrainStationRequest trainStationRequest);
     @GetMapping
     Flux<TrainStationResponse> getTrainStations(@RequestParam(required = false) String stationCode);
+    @GetMapping("bulk")
+    Flux<TrainStationResponse> getTrainStationsByCodes(@RequestParam Set<String> stationCodes);
     @PatchMapping("fetch/{trainStationCode}")
     Mono<Void> fetchGeolocationForTrainStation(@PathVariable String trainStationCode, @RequestParam boolean force);
     @PatchMapping("fetch/all")
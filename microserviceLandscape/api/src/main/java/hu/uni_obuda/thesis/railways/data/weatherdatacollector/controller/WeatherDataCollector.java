@@ -2,13 +2,21 @@ package hu.uni_obuda.thesis.railways.data.weatherdatacollector.controller;
 
 
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfoRequest;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface WeatherDataCollector {
     @GetMapping("/collect-weather-info")
     Mono<WeatherInfo> getWeatherInfo(@RequestParam String stationName, @RequestParam Double latitude, @RequestParam Double longitude, @RequestParam LocalDateTime dateTime);
+
+    @PostMapping("/collect-weather-info/batch")
+    Flux<WeatherInfo> getWeatherInfoBatch(@RequestBody List<WeatherInfoRequest> requests);
 }
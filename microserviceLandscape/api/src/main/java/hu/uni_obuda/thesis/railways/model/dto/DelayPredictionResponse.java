@@ -1,5 +1,6 @@
 package hu.uni_obuda.thesis.railways.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,4 +14,7 @@ public class DelayPredictionResponse {
     private String trainNumber;
     private String stationCode;
     private Double predictedDelay;
+
+    @JsonIgnore
+    private boolean fallback;
 }
@@ -29,6 +29,7 @@ public class RouteResponse {
         private String toTimeActual;
         private String fromTimePredicted;
         private String toTimePredicted;
+        private Boolean predictionsUnavailable;
     }
 
     private List<Train> trains;
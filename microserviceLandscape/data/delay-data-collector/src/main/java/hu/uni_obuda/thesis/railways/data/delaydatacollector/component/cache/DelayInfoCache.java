@@ -1,8 +1,11 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache;
 
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface DelayInfoCache {
 
     String CACHE_PREFIX = "delayInfo";
@@ -10,6 +13,7 @@ public interface DelayInfoCache {
 
     Mono<Boolean> isDuplicate(DelayInfo delay);
     Mono<Void> cacheDelay(DelayInfo delay);
+    Flux<DelayInfo> filterNew(List<DelayInfo> delays);
     Mono<Void> evict(DelayInfo delay);
     Mono<Void> evictAll();
 
@@ -0,0 +1,14 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Keeps the in-process near caches of every collector instance consistent with Redis. Changes made by one instance
+ * are broadcast to the others, which drop the affected entries so their next lookup goes back to Redis.
+ */
+public interface NearCacheInvalidationBus {
+
+    void register(String cacheName, Cache<String, ?> cache);
+    void publishInvalidation(String cacheName, String key);
+    void publishInvalidateAll(String cacheName);
+}
@@ -0,0 +1,129 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces concurrent cache writes into micro-batches and stores each batch, together with the key-set index
+ * registrations, using a single Lua script call, so a write costs one round trip instead of a SET followed by a SADD.
+ * <p>
+ * Disposing the writer cancels the batching pipeline, fails every write that has not been confirmed yet and rejects
+ * later writes.
+ */
+@Slf4j
+public class RedisBatchWriter<V> implements Disposable {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofMillis(5);
+
+    private static final RedisScript<Long> SET_AND_INDEX_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/set-and-index.lua"), Long.class);
+    private static final RedisElementWriter<byte[]> RAW_WRITER = RedisElementWriter.from(RedisSerializer.byteArray());
+    private static final RedisElementReader<Long> RESULT_READER = RedisElementReader.from(new GenericToStringSerializer<>(Long.class));
+
+    private final ReactiveRedisTemplate<String, V> template;
+    private final RedisSerializationContext.SerializationPair<V> valueSerializer;
+    private final String keySetKey;
+    private final Disposable subscription;
+    private final Set<PendingWrite> outstandingWrites = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private FluxSink<PendingWrite> pendingWrites;
+    private volatile boolean disposed;
+
+    public RedisBatchWriter(ReactiveRedisTemplate<String, V> template, String keySetKey) {
+        this(template, keySetKey, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_WAIT);
+    }
+
+    public RedisBatchWriter(ReactiveRedisTemplate<String, V> template, String keySetKey, int maxBatchSize, Duration maxWait) {
+        this.template = template;
+        this.valueSerializer = template.getSerializationContext().getValueSerializationPair();
+        this.keySetKey = keySetKey;
+        this.subscription = Flux.<PendingWrite>create(sink -> this.pendingWrites = sink)
+                .bufferTimeout(maxBatchSize, maxWait, true)
+                .concatMap(this::flush)
+                .subscribe();
+    }
+
+    public Mono<Void> write(String key, V value, Duration timeToLive) {
+        return Mono.defer(() -> {
+            if (disposed) {
+                return Mono.error(disposedException());
+            }
+            byte[] serialized = ByteUtils.getBytes(valueSerializer.write(value));
+            PendingWrite write = new PendingWrite(key, serialized, timeToLive.toSeconds(), Sinks.empty());
+            outstandingWrites.add(write);
+            pendingWrites.next(write);
+            if (disposed) {
+                failOutstandingWrites();
+            }
+            return write.result().asMono();
+        });
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        failOutstandingWrites();
+        subscription.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    private void failOutstandingWrites() {
+        IllegalStateException exception = disposedException();
+        outstandingWrites.removeIf(write -> {
+            write.result().tryEmitError(exception);
+            return true;
+        });
+    }
+
+    private IllegalStateException disposedException() {
+        return new IllegalStateException("Batch writer of " + keySetKey + " is disposed");
+    }
+
+    private Mono<Void> flush(List<PendingWrite> batch) {
+        List<String> keys = new ArrayList<>(batch.size() + 1);
+        List<byte[]> args = new ArrayList<>(batch.size() * 2);
+        keys.add(keySetKey);
+        for (PendingWrite write : batch) {
+            keys.add(write.key());
+            args.add(Long.toString(write.timeToLiveSeconds()).getBytes(StandardCharsets.UTF_8));
+            args.add(write.value());
+        }
+        return template.execute(SET_AND_INDEX_SCRIPT, keys, args, RAW_WRITER, RESULT_READER)
+                .then()
+                .doOnSuccess(_ -> batch.forEach(write -> write.result().tryEmitEmpty()))
+                .onErrorResume(throwable -> {
+                    log.warn("Failed to write batch of {} entries indexed by {}", batch.size(), keySetKey, throwable);
+                    batch.forEach(write -> write.result().tryEmitError(throwable));
+                    return Mono.empty();
+                })
+                .doFinally(_ -> batch.forEach(outstandingWrites::remove));
+    }
+
+    private record PendingWrite(String key, byte[] value, long timeToLiveSeconds, Sinks.Empty<Void> result) {
+    }
+}
@@ -1,19 +1,28 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.CoordinatesCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.batch.RedisBatchWriter;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-@RequiredArgsConstructor
+import java.time.Duration;
+
 @Component
 public class CoordinatesCacheImpl implements CoordinatesCache {
 
     private final ReactiveRedisTemplate<String, GeocodingResponse> coordinatesRedisTemplate;
     private final ReactiveRedisTemplate<String, String> keysRedisTemplate;
+    private final RedisBatchWriter<GeocodingResponse> batchWriter;
+
+    public CoordinatesCacheImpl(ReactiveRedisTemplate<String, GeocodingResponse> coordinatesRedisTemplate, ReactiveRedisTemplate<String, String> keysRedisTemplate) {
+        this.coordinatesRedisTemplate = coordinatesRedisTemplate;
+        this.keysRedisTemplate = keysRedisTemplate;
+        this.batchWriter = new RedisBatchWriter<>(coordinatesRedisTemplate, KEY_SET_PREFIX);
+    }
 
     @Override
     public Mono<Boolean> isCached(String stationName) {
@@ -22,12 +31,7 @@ public class CoordinatesCacheImpl implements CoordinatesCache {
 
     @Override
     public Mono<Void> cache(String stationName, GeocodingResponse coordinates) {
-        String key = toKey(stationName);
-        return coordinatesRedisTemplate
-                .opsForValue()
-                .set(key, coordinates)
-                .then(keysRedisTemplate.opsForSet().add(KEY_SET_PREFIX, key))
-                .then();
+        return batchWriter.write(toKey(stationName), coordinates, Duration.ZERO);
     }
 
     @Override
@@ -45,9 +49,10 @@ public class CoordinatesCacheImpl implements CoordinatesCache {
     @Override
     public Mono<Void> evict(String stationName) {
         String key = toKey(stationName);
-        return coordinatesRedisTemplate.delete(key)
-                .then(keysRedisTemplate.opsForSet().remove(KEY_SET_PREFIX, key))
-                .then();
+        return Mono.when(
+                coordinatesRedisTemplate.delete(key),
+                keysRedisTemplate.opsForSet().remove(KEY_SET_PREFIX, key)
+        );
     }
 
     @Override
@@ -63,4 +68,9 @@ public class CoordinatesCacheImpl implements CoordinatesCache {
                             .then();
                 });
     }
+
+    @PreDestroy
+    public void shutdown() {
+        batchWriter.dispose();
+    }
 }
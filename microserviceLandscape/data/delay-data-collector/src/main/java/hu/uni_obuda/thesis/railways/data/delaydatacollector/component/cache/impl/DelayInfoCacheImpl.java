@@ -1,49 +1,112 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.DelayInfoCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.NearCacheInvalidationBus;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.batch.RedisBatchWriter;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
-@RequiredArgsConstructor
 public class DelayInfoCacheImpl implements DelayInfoCache {
 
+    private static final RedisScript<String> CLAIM_NEW_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/redis/claim-new.lua"), String.class);
+
     private final ReactiveRedisTemplate<String, String> delaysRedisTemplate;
     private final ReactiveRedisTemplate<String, String> keysRedisTemplate;
+    private final RedisBatchWriter<String> batchWriter;
+    private final Cache<String, Boolean> nearCache;
+    private final NearCacheInvalidationBus invalidationBus;
 
     @Value("${caching.delay.cache-duration:6}")
     private Integer cacheDuration;
 
+    public DelayInfoCacheImpl(ReactiveRedisTemplate<String, String> delaysRedisTemplate, ReactiveRedisTemplate<String, String> keysRedisTemplate,
+                              @Qualifier("delayInfoNearCache") Cache<String, Boolean> nearCache,
+                              NearCacheInvalidationBus invalidationBus) {
+        this.delaysRedisTemplate = delaysRedisTemplate;
+        this.keysRedisTemplate = keysRedisTemplate;
+        this.batchWriter = new RedisBatchWriter<>(delaysRedisTemplate, KEY_SET_PREFIX);
+        this.nearCache = nearCache;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(CACHE_PREFIX, nearCache);
+    }
+
     @Override
     public Mono<Boolean> isDuplicate(DelayInfo delay) {
         String key = toKey(delay);
-        return delaysRedisTemplate.opsForValue()
-                .get(key)
-                .hasElement();
+        return Mono.fromSupplier(() -> nearCache.getIfPresent(key))
+                .switchIfEmpty(Mono.defer(() -> delaysRedisTemplate.opsForValue()
+                        .get(key)
+                        .hasElement()
+                        .doOnNext(duplicate -> nearCache.put(key, duplicate))));
     }
 
     @Override
     public Mono<Void> cacheDelay(DelayInfo delay) {
         String key = toKey(delay);
-        return delaysRedisTemplate.opsForValue()
-                .set(key, "1", Duration.ofHours(cacheDuration))
-                .then(keysRedisTemplate.opsForSet().add(KEY_SET_PREFIX, key))
-                .then();
+        return batchWriter.write(key, "1", Duration.ofHours(cacheDuration))
+                .doOnSuccess(_ -> {
+                    nearCache.put(key, true);
+                    invalidationBus.publishInvalidation(CACHE_PREFIX, key);
+                });
+    }
+
+    @Override
+    public Flux<DelayInfo> filterNew(List<DelayInfo> delays) {
+        return Flux.defer(() -> {
+            List<DelayInfo> candidates = new ArrayList<>(delays.size());
+            List<String> keys = new ArrayList<>(delays.size() + 1);
+            keys.add(KEY_SET_PREFIX);
+            for (DelayInfo delay : delays) {
+                String key = toKey(delay);
+                if (!Boolean.TRUE.equals(nearCache.getIfPresent(key))) {
+                    candidates.add(delay);
+                    keys.add(key);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return Flux.empty();
+            }
+            List<String> args = List.of(Long.toString(Duration.ofHours(cacheDuration).toSeconds()), "1");
+            return delaysRedisTemplate.execute(CLAIM_NEW_SCRIPT, keys, args)
+                    .next()
+                    .flatMapIterable(claimed -> {
+                        List<DelayInfo> newDelays = new ArrayList<>(candidates.size());
+                        for (int i = 0; i < candidates.size(); i++) {
+                            String key = keys.get(i + 1);
+                            nearCache.put(key, true);
+                            if (claimed.charAt(i) == '1') {
+                                newDelays.add(candidates.get(i));
+                                invalidationBus.publishInvalidation(CACHE_PREFIX, key);
+                            }
+                        }
+                        return newDelays;
+                    });
+        });
     }
 
     @Override
     public Mono<Void> evict(DelayInfo delay) {
         String key = toKey(delay);
-        return delaysRedisTemplate.delete(key)
-                .then(keysRedisTemplate.opsForSet().remove(KEY_SET_PREFIX, key))
-                .then();
+        return Mono.when(
+                        delaysRedisTemplate.delete(key),
+                        keysRedisTemplate.opsForSet().remove(KEY_SET_PREFIX, key))
+                .doFirst(() -> nearCache.invalidate(key))
+                .doOnSuccess(_ -> invalidationBus.publishInvalidation(CACHE_PREFIX, key));
     }
 
     @Override
@@ -59,6 +122,13 @@ public class DelayInfoCacheImpl implements DelayInfoCache {
                                 .then(keysRedisTemplate.delete(KEY_SET_PREFIX))
                                 .then();
                     }
-                });
+                })
+                .doFirst(nearCache::invalidateAll)
+                .doOnSuccess(_ -> invalidationBus.publishInvalidateAll(CACHE_PREFIX));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchWriter.dispose();
     }
 }
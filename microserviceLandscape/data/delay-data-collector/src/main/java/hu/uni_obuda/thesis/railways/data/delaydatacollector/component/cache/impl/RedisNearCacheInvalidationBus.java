@@ -0,0 +1,131 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.NearCacheInvalidationBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Broadcasts near cache invalidations over a Redis pub/sub channel. Invalidations are coalesced per cache into short
+ * batches, so a burst of writes costs a single PUBLISH. Messages carry the id of the publishing instance, which
+ * ignores its own messages since it has already updated its near cache locally.
+ */
+@Slf4j
+@Component
+public class RedisNearCacheInvalidationBus implements NearCacheInvalidationBus {
+
+    public static final String CHANNEL = "nearCache:invalidations";
+    public static final String ALL_KEYS = "*";
+
+    private static final String SEPARATOR = "\n";
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final Duration MAX_WAIT = Duration.ofMillis(10);
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Cache<String, ?>> caches = new ConcurrentHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+    private FluxSink<Invalidation> pendingInvalidations;
+
+    public RedisNearCacheInvalidationBus(ReactiveRedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        subscriptions.add(Flux.<Invalidation>create(sink -> this.pendingInvalidations = sink)
+                .bufferTimeout(MAX_BATCH_SIZE, MAX_WAIT, true)
+                .concatMap(this::publish)
+                .subscribe());
+        subscriptions.add(Flux.defer(() -> redisTemplate.listenToChannel(CHANNEL))
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(this::onMessage)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Near cache invalidation subscription failed, resubscribing", signal.failure())))
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pendingInvalidations != null) {
+            pendingInvalidations.complete();
+        }
+        subscriptions.dispose();
+    }
+
+    @Override
+    public void register(String cacheName, Cache<String, ?> cache) {
+        caches.put(cacheName, cache);
+    }
+
+    @Override
+    public void publishInvalidation(String cacheName, String key) {
+        if (pendingInvalidations != null) {
+            pendingInvalidations.next(new Invalidation(cacheName, key));
+        }
+    }
+
+    @Override
+    public void publishInvalidateAll(String cacheName) {
+        publishInvalidation(cacheName, ALL_KEYS);
+    }
+
+    void onMessage(String message) {
+        String[] parts = message.split(SEPARATOR);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        Cache<String, ?> cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        for (int i = 2; i < parts.length; i++) {
+            if (ALL_KEYS.equals(parts[i])) {
+                cache.invalidateAll();
+                return;
+            }
+            cache.invalidate(parts[i]);
+        }
+        log.debug("Invalidated {} near cache entries of {} on request of instance {}", parts.length - 2, parts[1], parts[0]);
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+
+    private Mono<Void> publish(List<Invalidation> batch) {
+        Map<String, List<String>> keysByCache = batch.stream()
+                .collect(Collectors.groupingBy(Invalidation::cacheName, Collectors.mapping(Invalidation::key, Collectors.toList())));
+        return Flux.fromIterable(keysByCache.entrySet())
+                .concatMap(entry -> Mono.defer(() -> redisTemplate.convertAndSend(CHANNEL, toMessage(entry.getKey(), entry.getValue())))
+                        .onErrorResume(throwable -> {
+                            log.warn("Failed to publish {} near cache invalidations for {}", entry.getValue().size(), entry.getKey(), throwable);
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private String toMessage(String cacheName, List<String> keys) {
+        return instanceId + SEPARATOR + cacheName + SEPARATOR + String.join(SEPARATOR, keys);
+    }
+
+    private record Invalidation(String cacheName, String key) {
+    }
+}
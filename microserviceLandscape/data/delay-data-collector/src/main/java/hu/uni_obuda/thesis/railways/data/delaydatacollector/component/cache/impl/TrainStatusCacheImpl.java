@@ -1,7 +1,11 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.NearCacheInvalidationBus;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.TrainStatusCache;
-import lombok.RequiredArgsConstructor;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.batch.RedisBatchWriter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
@@ -12,47 +16,55 @@ import java.time.Duration;
 import java.time.LocalDate;
 
 @Component
-@RequiredArgsConstructor
 public class TrainStatusCacheImpl implements TrainStatusCache {
 
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final RedisBatchWriter<String> batchWriter;
+    private final Cache<String, Boolean> nearCache;
+    private final NearCacheInvalidationBus invalidationBus;
 
     @Value("${caching.train-status.cache-duration:12}")
     private Integer cacheDuration;
 
+    public TrainStatusCacheImpl(ReactiveRedisTemplate<String, String> redisTemplate,
+                                @Qualifier("trainStatusNearCache") Cache<String, Boolean> nearCache,
+                                NearCacheInvalidationBus invalidationBus) {
+        this.redisTemplate = redisTemplate;
+        this.batchWriter = new RedisBatchWriter<>(redisTemplate, KEY_SET_PREFIX);
+        this.nearCache = nearCache;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(CACHE_PREFIX, nearCache);
+    }
+
     @Override
     public Mono<Boolean> isComplete(String trainNumber, LocalDate date) {
         String key = toKey(trainNumber, date);
-        return redisTemplate.opsForValue()
-                .get(key)
-                .map("complete"::equalsIgnoreCase)
-                .defaultIfEmpty(false);
+        return Mono.fromSupplier(() -> nearCache.getIfPresent(key))
+                .switchIfEmpty(Mono.defer(() -> redisTemplate.opsForValue()
+                        .get(key)
+                        .map("complete"::equalsIgnoreCase)
+                        .defaultIfEmpty(false)
+                        .doOnNext(complete -> nearCache.put(key, complete))));
     }
 
     @Override
     public Mono<Void> markComplete(String trainNumber, LocalDate date) {
-        String key = toKey(trainNumber, date);
-        return redisTemplate.opsForValue()
-                .set(key, "complete", Duration.ofHours(cacheDuration))
-                .then(redisTemplate.opsForSet().add(KEY_SET_PREFIX, key))
-                .then();
+        return mark(toKey(trainNumber, date), true);
     }
 
     @Override
     public Mono<Void> markIncomplete(String trainNumber, LocalDate date) {
-        String key = toKey(trainNumber, date);
-        return redisTemplate.opsForValue()
-                .set(key, "incomplete", Duration.ofHours(cacheDuration))
-                .then(redisTemplate.opsForSet().add(KEY_SET_PREFIX, key))
-                .then();
+        return mark(toKey(trainNumber, date), false);
     }
 
     @Override
     public Mono<Void> evict(String trainNumber, LocalDate date) {
         String key = toKey(trainNumber, date);
-        return redisTemplate.opsForValue().delete(key)
-                .then(redisTemplate.opsForSet().remove(KEY_SET_PREFIX, key))
-                .then();
+        return Mono.when(
+                        redisTemplate.opsForValue().delete(key),
+                        redisTemplate.opsForSet().remove(KEY_SET_PREFIX, key))
+                .doFirst(() -> nearCache.invalidate(key))
+                .doOnSuccess(_ -> invalidationBus.publishInvalidation(CACHE_PREFIX, key));
     }
 
     @Override
@@ -68,6 +80,21 @@ public class TrainStatusCacheImpl implements TrainStatusCache {
                                 .then(redisTemplate.delete(KEY_SET_PREFIX))
                                 .then();
                     }
+                })
+                .doFirst(nearCache::invalidateAll)
+                .doOnSuccess(_ -> invalidationBus.publishInvalidateAll(CACHE_PREFIX));
+    }
+
+    private Mono<Void> mark(String key, boolean complete) {
+        return batchWriter.write(key, complete ? "complete" : "incomplete", Duration.ofHours(cacheDuration))
+                .doOnSuccess(_ -> {
+                    nearCache.put(key, complete);
+                    invalidationBus.publishInvalidation(CACHE_PREFIX, key);
                 });
     }
+
+    @PreDestroy
+    public void shutdown() {
+        batchWriter.dispose();
+    }
 }
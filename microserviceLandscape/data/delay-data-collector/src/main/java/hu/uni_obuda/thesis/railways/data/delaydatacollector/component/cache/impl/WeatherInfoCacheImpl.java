@@ -1,8 +1,9 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.WeatherInfoCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.batch.RedisBatchWriter;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
@@ -13,15 +14,21 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Component
-@RequiredArgsConstructor
 public class WeatherInfoCacheImpl implements WeatherInfoCache {
 
     private final ReactiveRedisTemplate<String, WeatherInfo> weatherInfosRedisTemplate;
     private final ReactiveRedisTemplate<String, String> keysRedisTemplate;
+    private final RedisBatchWriter<WeatherInfo> batchWriter;
 
     @Value("${caching.weather.cache-duration:12}")
     private Integer cacheDuration;
 
+    public WeatherInfoCacheImpl(ReactiveRedisTemplate<String, WeatherInfo> weatherInfosRedisTemplate, ReactiveRedisTemplate<String, String> keysRedisTemplate) {
+        this.weatherInfosRedisTemplate = weatherInfosRedisTemplate;
+        this.keysRedisTemplate = keysRedisTemplate;
+        this.batchWriter = new RedisBatchWriter<>(weatherInfosRedisTemplate, KEY_SET_PREFIX);
+    }
+
     @Override
     public Mono<Boolean> isCached(String stationName, LocalDateTime dateTime) {
         return weatherInfosRedisTemplate.hasKey(toKey(stationName, dateTime));
@@ -29,11 +36,7 @@ public class WeatherInfoCacheImpl implements WeatherInfoCache {
 
     @Override
     public Mono<Void> cacheWeatherInfo(WeatherInfo weatherInfo) {
-        String key = toKey(weatherInfo);
-        return weatherInfosRedisTemplate.opsForValue()
-                .set(key, weatherInfo, Duration.ofHours(cacheDuration))
-                .then(keysRedisTemplate.opsForSet().add(KEY_SET_PREFIX, key))
-                .then();
+        return batchWriter.write(toKey(weatherInfo), weatherInfo, Duration.ofHours(cacheDuration));
     }
 
     @Override
@@ -44,9 +47,10 @@ public class WeatherInfoCacheImpl implements WeatherInfoCache {
     @Override
     public Mono<Void> evict(String stationName, LocalDateTime dateTime) {
         String key = toKey(stationName, dateTime);
-        return weatherInfosRedisTemplate.opsForValue().delete(key)
-                .then(keysRedisTemplate.opsForSet().remove(KEY_SET_PREFIX, key))
-                .then();
+        return Mono.when(
+                weatherInfosRedisTemplate.opsForValue().delete(key),
+                keysRedisTemplate.opsForSet().remove(KEY_SET_PREFIX, key)
+        );
     }
 
     @Override
@@ -64,4 +68,9 @@ public class WeatherInfoCacheImpl implements WeatherInfoCache {
                     }
                 });
     }
+
+    @PreDestroy
+    public void shutdown() {
+        batchWriter.dispose();
+    }
 }
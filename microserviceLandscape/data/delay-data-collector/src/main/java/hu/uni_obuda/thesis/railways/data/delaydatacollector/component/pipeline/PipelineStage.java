@@ -0,0 +1,69 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A step of a reactive processing pipeline with a fixed concurrency limit. The stage requests at most as many
+ * elements from upstream as it may work on at once, so a saturated stage slows down everything in front of it
+ * rather than queueing work internally. An element whose processing fails is logged and dropped, so that a single bad
+ * element cannot terminate the whole pipeline. Reports its in-flight, completed and failed element counts.
+ */
+@Slf4j
+public class PipelineStage {
+
+    private final String stage;
+    private final int concurrency;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+
+    public PipelineStage(String pipeline, String stage, int concurrency, MeterRegistry registry) {
+        this.stage = stage;
+        this.concurrency = concurrency;
+        Gauge.builder(pipeline + ".stage.in.flight", inFlight, AtomicInteger::get)
+                .description("Elements currently being processed by the stage")
+                .tag("stage", stage)
+                .register(registry);
+        Gauge.builder(pipeline + ".stage.concurrency", () -> concurrency)
+                .description("Maximum number of elements processed by the stage at once")
+                .tag("stage", stage)
+                .register(registry);
+        this.processedCounter = Counter.builder(pipeline + ".stage.processed")
+                .description("Elements the stage finished processing")
+                .tag("stage", stage)
+                .register(registry);
+        this.failedCounter = Counter.builder(pipeline + ".stage.failed")
+                .description("Elements dropped because the stage failed to process them")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    public <T, R> Function<Flux<T>, Flux<R>> flatMap(Function<? super T, ? extends Publisher<? extends R>> work) {
+        return upstream -> upstream.flatMap(element -> Flux.<R>defer(() -> {
+                    inFlight.incrementAndGet();
+                    return Flux.<R>from(work.apply(element));
+                }).doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    if (signal == SignalType.ON_COMPLETE) {
+                        processedCounter.increment();
+                    }
+                }).onErrorResume(throwable -> {
+                    log.error("Stage {} failed to process {}, dropping it", stage, element, throwable);
+                    failedCounter.increment();
+                    return Flux.empty();
+                }), concurrency, 1);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,79 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainRouteEntity;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainStationEntity;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the stations and trains tables, indexed by station code and train number.
+ * Every modification returns a new snapshot with an incremented version; the stored entities are private
+ * copies and must be treated as read-only by consumers.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class DomainSnapshot {
+
+    private final long version;
+    private final Map<String, TrainStationEntity> stations;
+    private final Map<String, TrainRouteEntity> routes;
+
+    public static DomainSnapshot of(long version, Collection<TrainStationEntity> stations, Collection<TrainRouteEntity> routes) {
+        Map<String, TrainStationEntity> stationMap = new HashMap<>(stations.size() * 2);
+        for (TrainStationEntity station : stations) {
+            stationMap.put(station.getStationCode(), copyOf(station));
+        }
+        Map<String, TrainRouteEntity> routeMap = new HashMap<>(routes.size() * 2);
+        for (TrainRouteEntity route : routes) {
+            routeMap.put(route.getTrainNumber(), copyOf(route));
+        }
+        return new DomainSnapshot(version, Collections.unmodifiableMap(stationMap), Collections.unmodifiableMap(routeMap));
+    }
+
+    public TrainStationEntity getStation(String stationCode) {
+        return stationCode == null ? null : stations.get(stationCode);
+    }
+
+    public TrainRouteEntity getRoute(String trainNumber) {
+        return trainNumber == null ? null : routes.get(trainNumber);
+    }
+
+    public boolean containsStation(String stationCode) {
+        return stationCode != null && stations.containsKey(stationCode);
+    }
+
+    public DomainSnapshot withStation(TrainStationEntity station) {
+        Map<String, TrainStationEntity> stationMap = new HashMap<>(stations);
+        stationMap.put(station.getStationCode(), copyOf(station));
+        return new DomainSnapshot(version + 1, Collections.unmodifiableMap(stationMap), routes);
+    }
+
+    public DomainSnapshot withRoute(TrainRouteEntity route) {
+        Map<String, TrainRouteEntity> routeMap = new HashMap<>(routes);
+        routeMap.put(route.getTrainNumber(), copyOf(route));
+        return new DomainSnapshot(version + 1, stations, Collections.unmodifiableMap(routeMap));
+    }
+
+    public DomainSnapshot withoutRoute(String trainNumber) {
+        if (!routes.containsKey(trainNumber)) {
+            return this;
+        }
+        Map<String, TrainRouteEntity> routeMap = new HashMap<>(routes);
+        routeMap.remove(trainNumber);
+        return new DomainSnapshot(version + 1, stations, Collections.unmodifiableMap(routeMap));
+    }
+
+    private static TrainStationEntity copyOf(TrainStationEntity station) {
+        return new TrainStationEntity(station.getStationCode(), station.getLatitude(), station.getLongitude());
+    }
+
+    private static TrainRouteEntity copyOf(TrainRouteEntity route) {
+        return new TrainRouteEntity(route.getTrainNumber(), route.getLineNumber(), route.getFrom(), route.getTo());
+    }
+}
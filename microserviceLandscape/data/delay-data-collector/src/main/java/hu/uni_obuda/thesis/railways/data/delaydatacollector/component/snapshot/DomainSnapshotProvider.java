@@ -0,0 +1,13 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainRouteEntity;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainStationEntity;
+import reactor.core.publisher.Mono;
+
+public interface DomainSnapshotProvider {
+    Mono<DomainSnapshot> getSnapshot();
+    Mono<DomainSnapshot> refresh();
+    void onStationChanged(TrainStationEntity station);
+    void onRouteChanged(TrainRouteEntity route);
+    void onRouteDeleted(String trainNumber);
+}
@@ -0,0 +1,66 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.impl;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshot;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainRouteEntity;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainStationEntity;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainRouteRepository;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainStationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+public class DomainSnapshotProviderImpl implements DomainSnapshotProvider {
+
+    private final TrainStationRepository stationRepository;
+    private final TrainRouteRepository routeRepository;
+
+    private final AtomicReference<DomainSnapshot> current = new AtomicReference<>();
+    private final Mono<DomainSnapshot> initialLoad;
+
+    public DomainSnapshotProviderImpl(TrainStationRepository stationRepository, TrainRouteRepository routeRepository) {
+        this.stationRepository = stationRepository;
+        this.routeRepository = routeRepository;
+        this.initialLoad = Mono.defer(this::refresh).cacheInvalidateIf(snapshot -> current.get() == null);
+    }
+
+    @Override
+    public Mono<DomainSnapshot> getSnapshot() {
+        DomainSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            return Mono.just(snapshot);
+        }
+        return initialLoad;
+    }
+
+    @Override
+    public Mono<DomainSnapshot> refresh() {
+        return Mono.zip(stationRepository.findAll().collectList(), routeRepository.findAll().collectList())
+                .map(tuple -> current.updateAndGet(previous -> DomainSnapshot.of(
+                        previous == null ? 1 : previous.getVersion() + 1,
+                        tuple.getT1(),
+                        tuple.getT2()
+                )))
+                .doOnNext(snapshot -> log.info("Loaded domain snapshot version {} with {} stations and {} routes",
+                        snapshot.getVersion(), snapshot.getStations().size(), snapshot.getRoutes().size()));
+    }
+
+    @Override
+    public void onStationChanged(TrainStationEntity station) {
+        current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.withStation(station));
+    }
+
+    @Override
+    public void onRouteChanged(TrainRouteEntity route) {
+        current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.withRoute(route));
+    }
+
+    @Override
+    public void onRouteDeleted(String trainNumber) {
+        current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.withoutRoute(trainNumber));
+    }
+}
@@ -24,6 +24,7 @@ import org.springframework.messaging.Message;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.function.Consumer;
 
 @RequiredArgsConstructor
@@ -39,6 +40,8 @@ public class MessageProcessingConfig {
     Integer threadPoolSize;
     @Value("${app.messaging.processing.taskQueueSize:100}")
     Integer taskQueueSize;
+    @Value("${app.messaging.processing.delay.admissionTimeoutSeconds:30}")
+    Integer delayAdmissionTimeoutSeconds;
 
     @Bean(name = "messageProcessingScheduler")
     public Scheduler messageScheduler() {
@@ -47,7 +50,7 @@ public class MessageProcessingConfig {
 
     @Bean
     public Consumer<Message<Event<?, ?>>> delayInfoProcessor() {
-        return new DelayInfoProcessorImpl(objectMapper, messageSink, trainStatusCache);
+        return new DelayInfoProcessorImpl(objectMapper, messageSink, trainStatusCache, Duration.ofSeconds(delayAdmissionTimeoutSeconds));
     }
 
     @Bean
@@ -70,7 +73,7 @@ public class MessageProcessingConfig {
     @Bean
     public ApplicationRunner runner(IncomingMessageSink sink, DelayService service) {
         return args -> {
-            service.processDelays(sink.getDelaySink().asFlux());
+            service.processDelays(sink.getDelayQueue().asFlux());
         };
     }
 }
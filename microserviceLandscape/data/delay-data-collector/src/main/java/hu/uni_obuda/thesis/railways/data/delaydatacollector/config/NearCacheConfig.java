@@ -0,0 +1,44 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class NearCacheConfig {
+
+    @Value("${caching.train-status.cache-duration:12}")
+    private int trainStatusCacheDuration;
+    @Value("${caching.train-status.near-cache-size:10000}")
+    private int trainStatusCacheSize;
+    @Value("${caching.delay.cache-duration:6}")
+    private int delayCacheDuration;
+    @Value("${caching.delay.near-cache-size:100000}")
+    private int delayCacheSize;
+
+    @Bean
+    public Cache<String, Boolean> trainStatusNearCache(MeterRegistry meterRegistry) {
+        Cache<String, Boolean> cache = Caffeine.newBuilder()
+                .maximumSize(trainStatusCacheSize)
+                .expireAfterWrite(Duration.ofHours(trainStatusCacheDuration))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "trainStatusNearCache");
+    }
+
+    @Bean
+    public Cache<String, Boolean> delayInfoNearCache(MeterRegistry meterRegistry) {
+        Cache<String, Boolean> cache = Caffeine.newBuilder()
+                .maximumSize(delayCacheSize)
+                .expireAfterWrite(Duration.ofHours(delayCacheDuration))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "delayInfoNearCache");
+    }
+}
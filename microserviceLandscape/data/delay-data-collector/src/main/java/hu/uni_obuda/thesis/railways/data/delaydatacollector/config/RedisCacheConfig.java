@@ -3,7 +3,10 @@ package hu.uni_obuda.thesis.railways.data.delaydatacollector.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.util.codec.CompactRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
@@ -15,14 +18,27 @@ import org.springframework.data.redis.serializer.*;
 public class RedisCacheConfig {
 
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${caching.serialization.format:smile}")
+    private String format;
+
+    @Value("${caching.serialization.compression:lz4}")
+    private String compression;
+
+    @Value("${caching.serialization.compression-threshold:1024}")
+    private Integer compressionThreshold;
+
+    @Value("${caching.serialization.max-value-size:16777216}")
+    private Integer maxValueSize;
 
     @Bean
     public ReactiveRedisTemplate<String, WeatherInfo> weatherInfoRedisTemplate(ReactiveRedisConnectionFactory factory) {
-        Jackson2JsonRedisSerializer<WeatherInfo> jacksonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, WeatherInfo.class);
+        CompactRedisSerializer<WeatherInfo> valueSerializer = compactSerializer(WeatherInfo.class, "weatherInfo");
 
         RedisSerializationContext<String, WeatherInfo> context = RedisSerializationContext
                 .<String, WeatherInfo>newSerializationContext(new StringRedisSerializer())
-                .value(jacksonSerializer)
+                .value(valueSerializer)
                 .build();
 
         return new ReactiveRedisTemplate<>(factory, context);
@@ -30,14 +46,24 @@ public class RedisCacheConfig {
 
     @Bean
     public ReactiveRedisTemplate<String, GeocodingResponse> geocodingRedisTemplate(ReactiveRedisConnectionFactory factory) {
-        Jackson2JsonRedisSerializer<GeocodingResponse> jacksonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, GeocodingResponse.class);
+        CompactRedisSerializer<GeocodingResponse> valueSerializer = compactSerializer(GeocodingResponse.class, "geocoding");
 
         RedisSerializationContext<String, GeocodingResponse> context = RedisSerializationContext
                 .<String, GeocodingResponse>newSerializationContext(new StringRedisSerializer())
-                .value(jacksonSerializer)
+                .value(valueSerializer)
                 .build();
 
         return new ReactiveRedisTemplate<>(factory, context);
     }
 
+    private <T> CompactRedisSerializer<T> compactSerializer(Class<T> type, String cacheName) {
+        return CompactRedisSerializer.builder(objectMapper, type)
+                .format(format)
+                .compression(compression)
+                .compressionThreshold(compressionThreshold)
+                .maxValueSize(maxValueSize)
+                .cacheName(cacheName)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
 }
@@ -9,6 +9,8 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 @RequiredArgsConstructor
 @RequestMapping("/train-routes")
 @RestController
@@ -35,6 +37,11 @@ public class TrainRouteControllerImpl implements TrainRouteController {
         }
     }
 
+    @Override
+    public Flux<TrainRouteResponse> getTrainRoutesByNumbers(@RequestParam Set<String> trainNumbers) {
+        return service.getTrainRoutes(trainNumbers);
+    }
+
     @Override
     public Mono<Void> deleteTrainRoute(@RequestParam(required = true) String trainNumber) {
         return service.deleteTrainRoute(trainNumber);
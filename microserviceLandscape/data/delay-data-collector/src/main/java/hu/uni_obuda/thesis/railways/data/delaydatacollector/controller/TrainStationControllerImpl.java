@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 @RequiredArgsConstructor
 @RequestMapping("/train-stations")
 @RestController
@@ -37,6 +39,11 @@ public class TrainStationControllerImpl implements TrainStationController {
         }
     }
 
+    @Override
+    public Flux<TrainStationResponse> getTrainStationsByCodes(Set<String> stationCodes) {
+        return service.getTrainStationsByIds(stationCodes);
+    }
+
     @Override
     public Mono<Void> fetchGeolocationForTrainStation(String trainStationCode, boolean force) {
         return service.getTrainStationById(trainStationCode).flatMap(entity -> geocodingService.fetchCoordinatesForStation(entity.getStationCode(), force));
@@ -0,0 +1,10 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.DelayEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface DelayBatchRepository {
+    Mono<Long> insertAll(List<DelayEntity> delays);
+}
@@ -0,0 +1,83 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.converter.WeatherInfoToJsonConverter;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.DelayEntity;
+import io.r2dbc.postgresql.codec.Json;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes a batch of delays with a single multi-row INSERT statement instead of one round trip per row.
+ */
+public class DelayBatchRepositoryImpl implements DelayBatchRepository {
+
+    private static final String INSERT_PREFIX = """
+            INSERT INTO delays (station_code, third_party_station_url, official_station_url, train_number,
+                                scheduled_departure, actual_departure, scheduled_arrival, actual_arrival,
+                                arrival_delay, departure_delay, date, weather)
+            VALUES\s""";
+    private static final int COLUMN_COUNT = 12;
+
+    private final DatabaseClient databaseClient;
+    private final WeatherInfoToJsonConverter weatherConverter;
+
+    public DelayBatchRepositoryImpl(DatabaseClient databaseClient, ObjectMapper objectMapper) {
+        this.databaseClient = databaseClient;
+        this.weatherConverter = new WeatherInfoToJsonConverter(objectMapper);
+    }
+
+    @Override
+    public Mono<Long> insertAll(List<DelayEntity> delays) {
+        if (delays.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return Mono.defer(() -> {
+            DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(toInsertStatement(delays.size()));
+            for (int row = 0; row < delays.size(); row++) {
+                DelayEntity delay = delays.get(row);
+                int offset = row * COLUMN_COUNT;
+                spec = bind(spec, offset, delay.getStationCode(), String.class);
+                spec = bind(spec, offset + 1, delay.getThirdPartyStationUrl(), String.class);
+                spec = bind(spec, offset + 2, delay.getOfficialStationUrl(), String.class);
+                spec = bind(spec, offset + 3, delay.getTrainNumber(), String.class);
+                spec = bind(spec, offset + 4, delay.getScheduledDeparture(), LocalDateTime.class);
+                spec = bind(spec, offset + 5, delay.getActualDeparture(), LocalDateTime.class);
+                spec = bind(spec, offset + 6, delay.getScheduledArrival(), LocalDateTime.class);
+                spec = bind(spec, offset + 7, delay.getActualArrival(), LocalDateTime.class);
+                spec = bind(spec, offset + 8, delay.getArrivalDelay(), Integer.class);
+                spec = bind(spec, offset + 9, delay.getDepartureDelay(), Integer.class);
+                spec = bind(spec, offset + 10, delay.getDate(), LocalDate.class);
+                spec = bind(spec, offset + 11, delay.getWeather() != null ? weatherConverter.convert(delay.getWeather()) : null, Json.class);
+            }
+            return spec.fetch().rowsUpdated();
+        });
+    }
+
+    static String toInsertStatement(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * COLUMN_COUNT * 6);
+        sql.append(INSERT_PREFIX);
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append('(');
+            for (int column = 0; column < COLUMN_COUNT; column++) {
+                if (column > 0) {
+                    sql.append(", ");
+                }
+                sql.append('$').append(row * COLUMN_COUNT + column + 1);
+            }
+            sql.append(')');
+        }
+        return sql.toString();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, int index, Object value, Class<?> type) {
+        return value != null ? spec.bind(index, value) : spec.bindNull(index, type);
+    }
+}
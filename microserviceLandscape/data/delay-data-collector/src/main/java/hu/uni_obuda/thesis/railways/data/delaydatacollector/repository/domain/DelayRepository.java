@@ -1,7 +1,16 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.DelayEntity;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
 
-public interface DelayRepository extends R2dbcRepository<DelayEntity, Long> {
+public interface DelayRepository extends R2dbcRepository<DelayEntity, Long>, DelayBatchRepository {
+    @Query("""
+    SELECT DISTINCT ON (train_number) train_number, date, scheduled_arrival
+    FROM delays
+    WHERE scheduled_arrival IS NOT NULL
+    ORDER BY train_number, date DESC, scheduled_arrival DESC
+    """)
+    Flux<ScheduledArrival> findLatestScheduledArrivals();
 }
@@ -0,0 +1,22 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain;
+
+import org.springframework.data.relational.core.mapping.Column;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public record ScheduledArrival(
+        @Column("train_number") String trainNumber,
+        @Column("date") LocalDate date,
+        @Column("scheduled_arrival") LocalDateTime scheduledArrival) {
+
+    /**
+     * Projects the recorded arrival onto {@code operationalDate}, keeping the day offset of trains
+     * that arrive after midnight.
+     */
+    public LocalDateTime arrivalOn(LocalDate operationalDate) {
+        long dayOffset = ChronoUnit.DAYS.between(date, scheduledArrival.toLocalDate());
+        return operationalDate.plusDays(dayOffset).atTime(scheduledArrival.toLocalTime());
+    }
+}
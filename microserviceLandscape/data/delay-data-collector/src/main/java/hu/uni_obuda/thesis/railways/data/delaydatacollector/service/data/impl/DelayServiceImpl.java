@@ -2,6 +2,8 @@ package hu.uni_obuda.thesis.railways.data.delaydatacollector.service.data.impl;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.DelayInfoCache;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.TrainStatusCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.pipeline.PipelineStage;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.DelayRecord;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.DelayEntity;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainRouteEntity;
@@ -9,7 +11,6 @@ import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainS
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.mapper.DelayMapper;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.mapper.DelayRecordMapper;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.DelayRepository;
-import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainRouteRepository;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainStationRepository;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.service.data.DelayService;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.service.data.GeocodingService;
@@ -18,30 +19,41 @@ import hu.uni_obuda.thesis.railways.data.delaydatacollector.util.StringUtils;
 import hu.uni_obuda.thesis.railways.data.event.DataTransferEvent;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.TreeMap;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 public class DelayServiceImpl implements DelayService {
 
     private static final Logger LOG = LoggerFactory.getLogger(DelayServiceImpl.class);
+    private static final String PIPELINE_METRICS_PREFIX = "data.delay.pipeline";
 
     private final DelayRepository delayRepository;
     private final TrainStationRepository stationRepository;
-    private final TrainRouteRepository routeRepository;
+    private final DomainSnapshotProvider snapshotProvider;
     private final WeatherService weatherService;
     private final DelayInfoCache delayInfoCache;
     private final TrainStatusCache trainStatusCache;
@@ -49,14 +61,40 @@ public class DelayServiceImpl implements DelayService {
     private final DelayMapper delayMapper;
     private final DelayRecordMapper recordMapper;
     private final Scheduler scheduler;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary writeBatchSizeSummary;
+    private final Timer writeFlushTimer;
+
+    @Value("${app.data.processing.delay.deduplicationBufferSize:256}")
+    private Integer deduplicationBufferSize;
+    @Value("${app.data.processing.delay.deduplicationBufferWaitMillis:50}")
+    private Integer deduplicationBufferWaitMillis;
+    @Value("${app.data.processing.delay.writeBatchSize:200}")
+    private Integer writeBatchSize;
+    @Value("${app.data.processing.delay.writeBatchWaitMillis:250}")
+    private Integer writeBatchWaitMillis;
+    @Value("${app.data.processing.delay.stationConcurrency:8}")
+    private Integer stationConcurrency;
+    @Value("${app.data.processing.delay.statusConcurrency:8}")
+    private Integer statusConcurrency;
+    @Value("${app.data.processing.delay.deduplicationConcurrency:4}")
+    private Integer deduplicationConcurrency;
+    @Value("${app.data.processing.delay.geocodingConcurrency:16}")
+    private Integer geocodingConcurrency;
+    @Value("${app.data.processing.delay.weatherConcurrency:32}")
+    private Integer weatherConcurrency;
+    @Value("${app.data.processing.delay.writeConcurrency:2}")
+    private Integer writeConcurrency;
+    @Value("${app.data.processing.delay.writeMaxRetries:3}")
+    private Integer writeMaxRetries;
 
     @Autowired
-    public DelayServiceImpl(DelayRepository delayRepository, TrainStationRepository stationRepository, TrainRouteRepository routeRepository, WeatherService weatherService, DelayInfoCache delayInfoCache,
+    public DelayServiceImpl(DelayRepository delayRepository, TrainStationRepository stationRepository, DomainSnapshotProvider snapshotProvider, WeatherService weatherService, DelayInfoCache delayInfoCache,
                             DelayMapper delayMapper, DelayRecordMapper recordMapper, TrainStatusCache trainStatusCache, GeocodingService geocodingService,
-                            @Qualifier("messageProcessingScheduler") Scheduler scheduler) {
+                            @Qualifier("messageProcessingScheduler") Scheduler scheduler, MeterRegistry meterRegistry) {
         this.delayRepository = delayRepository;
         this.stationRepository = stationRepository;
-        this.routeRepository = routeRepository;
+        this.snapshotProvider = snapshotProvider;
         this.weatherService = weatherService;
         this.delayInfoCache = delayInfoCache;
         this.trainStatusCache = trainStatusCache;
@@ -64,24 +102,34 @@ public class DelayServiceImpl implements DelayService {
         this.delayMapper = delayMapper;
         this.recordMapper = recordMapper;
         this.scheduler = scheduler;
+        this.meterRegistry = meterRegistry;
+        this.writeBatchSizeSummary = DistributionSummary.builder("data.delay.write.batch.size")
+                .description("Number of delays written by a single batched insert")
+                .register(meterRegistry);
+        this.writeFlushTimer = Timer.builder("data.delay.write.flush.latency")
+                .description("Time taken to flush a batch of delays to the database")
+                .register(meterRegistry);
     }
 
     public void processDelays(Flux<DelayInfo> delayInfos) {
+        PipelineStage stationStage = new PipelineStage(PIPELINE_METRICS_PREFIX, "station", stationConcurrency, meterRegistry);
+        PipelineStage statusStage = new PipelineStage(PIPELINE_METRICS_PREFIX, "status", statusConcurrency, meterRegistry);
+        PipelineStage deduplicationStage = new PipelineStage(PIPELINE_METRICS_PREFIX, "deduplication", deduplicationConcurrency, meterRegistry);
+        PipelineStage geocodingStage = new PipelineStage(PIPELINE_METRICS_PREFIX, "geocoding", geocodingConcurrency, meterRegistry);
+        PipelineStage weatherStage = new PipelineStage(PIPELINE_METRICS_PREFIX, "weather", weatherConcurrency, meterRegistry);
+        PipelineStage writeStage = new PipelineStage(PIPELINE_METRICS_PREFIX, "write", writeConcurrency, meterRegistry);
+
         delayInfos
-            .flatMap(delayInfo -> {
+            .transform(stationStage.flatMap(delayInfo -> {
                 LOG.info("Processing delay info {}", delayInfo);
-                if (StringUtils.isText(delayInfo.getStationCode()) && !stationRepository.existsById(delayInfo.getStationCode()).block()) {
-                    stationRepository.insertStation(delayInfo.getStationCode()).block();
-                    LOG.info("Inserted station: {}", delayInfo.getStationCode());
-                }
-                return Mono.just(delayInfo);
-            })
-            .flatMap(delayInfo -> {
+                return ensureStationExists(delayInfo.getStationCode()).thenReturn(delayInfo);
+            }))
+            .transform(statusStage.flatMap(delayInfo -> {
                 if (!StringUtils.isAnyText(delayInfo.getActualArrival(), delayInfo.getActualDeparture())) {
                     LOG.warn("Train haven't finished its journey {}", delayInfo.getTrainNumber());
                     return trainStatusCache
                             .markIncomplete(delayInfo.getTrainNumber(), delayInfo.getDate())
-                            .then(Mono.empty());
+                            .then(Mono.<DelayInfo>empty());
                 } else {
                     Mono<Void> markCompleteMono = StringUtils.isText(delayInfo.getActualArrival()) && !StringUtils.isText(delayInfo.getScheduledDeparture())
                             ? trainStatusCache.markComplete(delayInfo.getTrainNumber(), delayInfo.getDate())
@@ -89,17 +137,24 @@ public class DelayServiceImpl implements DelayService {
 
                     return markCompleteMono.thenReturn(delayInfo);
                 }
-            })
-            .flatMap(delayInfo -> delayInfoCache.isDuplicate(delayInfo)
-                .flatMap(duplicate -> {
-                    if (duplicate) {
-                        LOG.info("Train delay already recorded for train {} at station {} on date {}", delayInfo.getTrainNumber(), delayInfo.getStationCode(), delayInfo.getDate());
-                        return Mono.empty();
+            }))
+            .bufferTimeout(deduplicationBufferSize, Duration.ofMillis(deduplicationBufferWaitMillis), true)
+            .flatMapIterable(this::groupByTrain)
+            .transform(deduplicationStage.flatMap(trainDelays -> delayInfoCache.filterNew(trainDelays)
+                .collectList()
+                .doOnNext(newDelays -> {
+                    if (newDelays.size() < trainDelays.size()) {
+                        DelayInfo first = trainDelays.getFirst();
+                        LOG.info("Skipped {} already recorded delays of train {} on date {}", trainDelays.size() - newDelays.size(), first.getTrainNumber(), first.getDate());
                     }
-                    return delayInfoCache.cacheDelay(delayInfo).thenReturn(delayInfo);
                 })
-            )
-            .flatMap(delayInfo ->
+                .onErrorResume(throwable -> {
+                    LOG.warn("Could not deduplicate delays of train {}, proceeding without it", trainDelays.getFirst().getTrainNumber(), throwable);
+                    return Mono.just(trainDelays);
+                })
+                .flatMapIterable(Function.identity())
+            ))
+            .transform(geocodingStage.flatMap(delayInfo ->
                     geocodingService.getCoordinatesByStation(delayInfo.getStationCode())
                             .map(geocodingResponse -> Tuples.of(delayInfo, geocodingResponse))
                             .onErrorResume(ex -> {
@@ -107,8 +162,8 @@ public class DelayServiceImpl implements DelayService {
                                 return Mono.just(Tuples.of(delayInfo, GeocodingResponse.builder().latitude(null).longitude(null).build()));
                            })
 
-            )
-            .flatMap(tuple -> {
+            ))
+            .transform(weatherStage.flatMap(tuple -> {
                 DelayInfo delayInfo = tuple.getT1();
                 GeocodingResponse geocodingResponse = tuple.getT2();
                 LOG.info("Getting weather info for train {} at station {}", delayInfo.getTrainNumber(), delayInfo.getStationCode());
@@ -119,12 +174,17 @@ public class DelayServiceImpl implements DelayService {
                             LOG.info("Received weather info for train {} at station {}", delayInfo.getTrainNumber(), delayInfo.getStationCode());
                             return delayEntity;
                         }))
+                        .switchIfEmpty(Mono.fromCallable(() -> {
+                            LOG.warn("No weather info for {}, proceeding without it", delayInfo.getStationCode());
+                            return delayMapper.apiToEntity(delayInfo);
+                        }))
                         .onErrorResume(throwable -> {
                             LOG.warn("Could not get weather info for {}, proceeding without it", delayInfo.getStationCode(), throwable);
                             return Mono.just(delayMapper.apiToEntity(delayInfo));
                         });
-            })
-            .flatMap(delayRepository::save)
+            }))
+            .bufferTimeout(writeBatchSize, Duration.ofMillis(writeBatchWaitMillis), true)
+            .transform(writeStage.flatMap(this::persistBatch))
             .subscribeOn(scheduler)
             .subscribe();
     }
@@ -132,21 +192,15 @@ public class DelayServiceImpl implements DelayService {
 
     @Override
     public Flux<DataTransferEvent<List<DelayRecord>>> getBatches(int batchSize, String routingKey) {
-        Mono<TreeMap<String, TrainStationEntity>> stationMapMono = retrieveStationMapMono();
-        Mono<TreeMap<String, TrainRouteEntity>> routeMapMono   = retrieveRouteMapMono();
-
         Flux<DelayEntity> delayFlux = delayRepository.findAll()
                 .subscribeOn(scheduler);
 
-        return Mono.zip(stationMapMono, routeMapMono)
-                .flatMapMany(tuple -> {
-                    TreeMap<String, TrainStationEntity> stationMap = tuple.getT1();
-                    TreeMap<String, TrainRouteEntity> routeMap = tuple.getT2();
-
+        return snapshotProvider.getSnapshot()
+                .flatMapMany(snapshot -> {
                     return delayFlux
                             .map(delayEntity -> {
-                                TrainStationEntity stationEntity = stationMap.get(delayEntity.getStationCode());
-                                TrainRouteEntity routeEntity = routeMap.get(delayEntity.getTrainNumber());
+                                TrainStationEntity stationEntity = snapshot.getStation(delayEntity.getStationCode());
+                                TrainRouteEntity routeEntity = snapshot.getRoute(delayEntity.getTrainNumber());
 
                                 DelayRecord dto = recordMapper.entitiesToApi(delayEntity, stationEntity);
 
@@ -166,6 +220,38 @@ public class DelayServiceImpl implements DelayService {
                 });
     }
 
+    private Mono<Long> persistBatch(List<DelayEntity> batch) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return delayRepository.insertAll(batch)
+                    .retryWhen(Retry.backoff(writeMaxRetries, Duration.ofMillis(200))
+                            .doBeforeRetry(signal -> LOG.warn("Writing batch of {} delays failed, retrying (attempt {})", batch.size(), signal.totalRetries() + 1, signal.failure())))
+                    .doOnSuccess(inserted -> {
+                        sample.stop(writeFlushTimer);
+                        writeBatchSizeSummary.record(batch.size());
+                        LOG.info("Saved batch of {} delays", inserted);
+                    })
+                    .onErrorResume(throwable -> {
+                        LOG.error("Could not write batch of {} delays, falling back to single inserts", batch.size(), throwable);
+                        return Flux.fromIterable(batch)
+                                .concatMap(delayEntity -> delayRepository.save(delayEntity)
+                                        .onErrorResume(ex -> {
+                                            LOG.error("Could not save delay of train {} at station {}", delayEntity.getTrainNumber(), delayEntity.getStationCode(), ex);
+                                            return Mono.empty();
+                                        }))
+                                .count();
+                    });
+        });
+    }
+
+    private Collection<List<DelayInfo>> groupByTrain(List<DelayInfo> delayInfos) {
+        Map<String, List<DelayInfo>> delaysByTrain = new LinkedHashMap<>();
+        for (DelayInfo delayInfo : delayInfos) {
+            delaysByTrain.computeIfAbsent(delayInfo.getTrainNumber() + ":" + delayInfo.getDate(), _ -> new ArrayList<>()).add(delayInfo);
+        }
+        return delaysByTrain.values();
+    }
+
     private LocalDateTime getTimeForWeatherForecast(DelayInfo delayInfo) {
         if (delayInfo.getActualArrival() != null && !delayInfo.getActualArrival().isBlank()) {
             return LocalDateTime.parse(delayInfo.getActualArrival(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
@@ -176,27 +262,21 @@ public class DelayServiceImpl implements DelayService {
         }
     }
 
-    private Mono<TreeMap<String, TrainStationEntity>> retrieveStationMapMono() {
-        return stationRepository.findAll()
-                .collectList()
-                .map(listOfStations -> {
-                    TreeMap<String, TrainStationEntity> map = new TreeMap<>();
-                    for (TrainStationEntity entity : listOfStations) {
-                        map.put(entity.getStationCode(), entity);
-                    }
-                    return map;
-                });
-    }
-
-    private Mono<TreeMap<String, TrainRouteEntity>> retrieveRouteMapMono() {
-        return routeRepository.findAll()
-                .collectList()
-                .map(listOfRoutes -> {
-                    TreeMap<String, TrainRouteEntity> map = new TreeMap<>();
-                    for (TrainRouteEntity entity : listOfRoutes) {
-                        map.put(entity.getTrainNumber(), entity);
+    private Mono<Void> ensureStationExists(String stationCode) {
+        if (!StringUtils.isText(stationCode)) {
+            return Mono.empty();
+        }
+        return snapshotProvider.getSnapshot()
+                .flatMap(snapshot -> {
+                    if (snapshot.containsStation(stationCode)) {
+                        return Mono.empty();
                     }
-                    return map;
+                    return stationRepository.findById(stationCode)
+                            .switchIfEmpty(Mono.defer(() -> stationRepository.insertStation(stationCode)
+                                    .doOnNext(inserted -> LOG.info("Inserted station: {}", inserted.getStationCode()))
+                                    .onErrorResume(DataIntegrityViolationException.class, _ -> stationRepository.findById(stationCode))))
+                            .doOnNext(snapshotProvider::onStationChanged)
+                            .then();
                 });
     }
 
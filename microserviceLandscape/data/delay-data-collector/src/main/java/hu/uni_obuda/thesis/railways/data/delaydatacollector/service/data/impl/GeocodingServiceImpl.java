@@ -1,6 +1,8 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.service.data.impl;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.CoordinatesCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainStationEntity;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainStationRepository;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.service.data.GeocodingService;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.messaging.sender.MessageSender;
@@ -22,30 +24,25 @@ public class GeocodingServiceImpl implements GeocodingService {
 
     private final CoordinatesCache cache;
     private final TrainStationRepository repository;
+    private final DomainSnapshotProvider snapshotProvider;
     private final CoordinatesRegistry registry;
     private final MessageSender messageSender;
 
     @Override
     public Mono<GeocodingResponse> getCoordinatesByStation(String stationName) {
-        return cache.isCached(stationName)
-                .flatMap(isCached -> {
-                    if (Boolean.TRUE.equals(isCached)) {
-                        LOG.info("Coordinates for station {} are already cached, reusing them", stationName);
-                        return cache.get(stationName);
-                    } else {
-                        return repository.findById(stationName)
-                                .flatMap(station -> {
-                                    if (station.getLatitude() != null && station.getLongitude() != null) {
-                                        LOG.info("Coordinates for station {} are found in the database, caching and returning them", stationName);
-                                        GeocodingResponse coordinates = new GeocodingResponse(station.getLatitude(), station.getLongitude(), station.getStationCode());
-                                        return cache.cache(stationName, coordinates).thenReturn(coordinates);
-                                    } else {
-                                        LOG.info("Coordinates for station {} are not found in the database, attempting to get them", stationName);
-                                        return fetchCoordinates(stationName);
-                                    }
-                                });
-                        }
-                });
+        return cache.get(stationName)
+                .doOnNext(_ -> LOG.info("Coordinates for station {} are already cached, reusing them", stationName))
+                .switchIfEmpty(Mono.defer(() -> findStation(stationName)
+                        .flatMap(station -> {
+                            if (station.getLatitude() != null && station.getLongitude() != null) {
+                                LOG.info("Coordinates for station {} are found in the database, caching and returning them", stationName);
+                                GeocodingResponse coordinates = new GeocodingResponse(station.getLatitude(), station.getLongitude(), station.getStationCode());
+                                return cache.cache(stationName, coordinates).thenReturn(coordinates);
+                            } else {
+                                LOG.info("Coordinates for station {} are not found in the database, attempting to get them", stationName);
+                                return fetchCoordinates(stationName);
+                            }
+                        })));
     }
 
     @Override
@@ -57,7 +54,7 @@ public class GeocodingServiceImpl implements GeocodingService {
                             if (overwrite || (entity.getLatitude() == null && entity.getLongitude() == null)) {
                                 entity.setLatitude(coords.getLatitude());
                                 entity.setLongitude(coords.getLongitude());
-                                return repository.save(entity).then(); // save only if updated
+                                return repository.save(entity).doOnNext(snapshotProvider::onStationChanged).then(); // save only if updated
                             }
                         }
                         return Mono.empty(); // no need to save if nothing changed
@@ -65,10 +62,20 @@ public class GeocodingServiceImpl implements GeocodingService {
             );
     }
 
+    private Mono<TrainStationEntity> findStation(String stationName) {
+        return snapshotProvider.getSnapshot()
+                .flatMap(snapshot -> {
+                    TrainStationEntity station = snapshot.getStation(stationName);
+                    if (station != null) {
+                        return Mono.just(station);
+                    }
+                    return repository.findById(stationName).doOnNext(snapshotProvider::onStationChanged);
+                });
+    }
+
     private Mono<GeocodingResponse> fetchCoordinates(String stationName) {
-        Mono<GeocodingResponse> responseMono = registry.waitForCoordinates(stationName);
-        messageSender.sendMessage("geocodingDataRequests-out-0", constructRequestEvent(stationName));
-        return responseMono;
+        return registry.waitForCoordinates(stationName, () ->
+                messageSender.sendMessage("geocodingDataRequests-out-0", constructRequestEvent(stationName)));
     }
 
     private CrudEvent<String, GeocodingRequest> constructRequestEvent(String stationName) {
@@ -5,9 +5,12 @@ import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainRouteRespon
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface TrainRouteService {
     Mono<TrainRouteResponse> getTrainRoute(String trainNumber);
     Flux<TrainRouteResponse> getAllTrainRoutes();
+    Flux<TrainRouteResponse> getTrainRoutes(Collection<String> trainNumbers);
     Mono<TrainRouteResponse> createTrainRoute(TrainRouteRequest trainRouteRequest);
     Mono<TrainRouteResponse> updateTrainRoute(TrainRouteRequest trainRouteRequest);
     Mono<Void> deleteTrainRoute(String trainNumber);
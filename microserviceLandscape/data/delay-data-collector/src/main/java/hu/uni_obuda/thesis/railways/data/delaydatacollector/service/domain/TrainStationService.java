@@ -4,7 +4,10 @@ import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResp
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface TrainStationService {
     Flux<TrainStationResponse> getTrainStations();
     Mono<TrainStationResponse> getTrainStationById(String id);
+    Flux<TrainStationResponse> getTrainStationsByIds(Collection<String> ids);
 }
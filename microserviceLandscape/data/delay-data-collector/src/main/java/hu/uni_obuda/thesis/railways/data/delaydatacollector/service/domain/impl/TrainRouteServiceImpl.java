@@ -1,5 +1,6 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.service.domain.impl;
 
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainRouteRequest;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainRouteResponse;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainRouteEntity;
@@ -12,12 +13,15 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @Service
 @RequiredArgsConstructor
 public class TrainRouteServiceImpl implements TrainRouteService {
 
     private final TrainRouteMapper mapper;
     private final TrainRouteRepository repository;
+    private final DomainSnapshotProvider snapshotProvider;
 
     @Override
     public Mono<TrainRouteResponse> getTrainRoute(String trainNumber) {
@@ -30,10 +34,17 @@ public class TrainRouteServiceImpl implements TrainRouteService {
         return repository.findAll().map(mapper::entityToApi);
     }
 
+    @Override
+    public Flux<TrainRouteResponse> getTrainRoutes(Collection<String> trainNumbers) {
+        return repository.findAllById(trainNumbers).map(mapper::entityToApi);
+    }
+
     @Override
     public Mono<TrainRouteResponse> createTrainRoute(TrainRouteRequest trainRouteRequest) {
         var entity = mapper.apiToEntity(trainRouteRequest);
-        return repository.insertTrain(entity.getTrainNumber(), entity.getLineNumber(), entity.getFrom(), entity.getTo()).map(mapper::entityToApi);
+        return repository.insertTrain(entity.getTrainNumber(), entity.getLineNumber(), entity.getFrom(), entity.getTo())
+                .doOnNext(snapshotProvider::onRouteChanged)
+                .map(mapper::entityToApi);
     }
 
     @Override
@@ -43,6 +54,7 @@ public class TrainRouteServiceImpl implements TrainRouteService {
                     updateEntity(existing, mapper.apiToEntity(trainRouteRequest));
                     return repository.save(existing);
                 })
+                .doOnNext(snapshotProvider::onRouteChanged)
                 .map(mapper::entityToApi)
                 .switchIfEmpty(Mono.error(new EntityNotFoundException(trainRouteRequest.getTrainNumber(), TrainRouteEntity.class)));
     }
@@ -53,7 +65,8 @@ public class TrainRouteServiceImpl implements TrainRouteService {
             if (!exists) {
                 return Mono.error(new EntityNotFoundException(trainNumber, TrainRouteEntity.class));
             }
-            return repository.deleteById(trainNumber).then();
+            return repository.deleteById(trainNumber)
+                    .then(Mono.fromRunnable(() -> snapshotProvider.onRouteDeleted(trainNumber)));
         });
     }
 
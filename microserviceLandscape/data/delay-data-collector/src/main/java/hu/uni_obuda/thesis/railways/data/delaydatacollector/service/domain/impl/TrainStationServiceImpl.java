@@ -11,6 +11,8 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @RequiredArgsConstructor
 @Service
 public class TrainStationServiceImpl implements TrainStationService {
@@ -31,4 +33,10 @@ public class TrainStationServiceImpl implements TrainStationService {
         LOG.info("Getting train station with station code {}", id);
         return repository.findById(id).map(mapper::entityToApi);
     }
+
+    @Override
+    public Flux<TrainStationResponse> getTrainStationsByIds(Collection<String> ids) {
+        LOG.info("Getting {} train stations by station code", ids.size());
+        return repository.findAllById(ids).map(mapper::entityToApi);
+    }
 }
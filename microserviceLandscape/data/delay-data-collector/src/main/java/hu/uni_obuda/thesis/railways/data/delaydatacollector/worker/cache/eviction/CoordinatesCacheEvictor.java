@@ -1,6 +1,7 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.cache.eviction;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.CoordinatesCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainStationRepository;
 import hu.uni_obuda.thesis.railways.util.scheduler.annotation.ScheduledJob;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +20,7 @@ public class CoordinatesCacheEvictor {
 
     private final CoordinatesCache coordinatesCache;
     private final TrainStationRepository trainStationRepository;
+    private final DomainSnapshotProvider snapshotProvider;
 
     @ScheduledJob("coordinatesCacheEviction")
     public void evictAndSave() {
@@ -31,7 +33,7 @@ public class CoordinatesCacheEvictor {
                                         LOG.info("Updating coordinates for station {}", coordinates.getAddress());
                                         entity.setLatitude(coordinates.getLatitude());
                                         entity.setLongitude(coordinates.getLongitude());
-                                        return trainStationRepository.save(entity);
+                                        return trainStationRepository.save(entity).doOnNext(snapshotProvider::onStationChanged);
                                     } else {
                                         return Mono.just(entity);
                                     }
@@ -0,0 +1,91 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands messages from broker listener threads to a single reactive pipeline on a credit basis. A listener may only
+ * emit once the pipeline has requested another element; until then it blocks, which keeps the message unacknowledged
+ * and lets the consumer prefetch limit push back on the broker instead of buffering without bound.
+ */
+public class BoundedMessageQueue<T> {
+
+    private static final int MAX_CREDITS = 1 << 20;
+
+    private final Semaphore credits = new Semaphore(0);
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+    private final Flux<T> flux;
+    private volatile FluxSink<T> sink;
+    private Counter admittedCounter;
+    private Counter rejectedCounter;
+
+    public BoundedMessageQueue() {
+        this.flux = Flux.create(newSink -> {
+            credits.drainPermits();
+            this.sink = newSink;
+            newSink.onRequest(requested -> credits.release((int) Math.min(requested, MAX_CREDITS)));
+            newSink.onDispose(credits::drainPermits);
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+
+    public Flux<T> asFlux() {
+        return flux;
+    }
+
+    /**
+     * Waits up to the given timeout for the pipeline to request an element, then emits it.
+     *
+     * @return {@code false} if the pipeline did not request an element in time
+     */
+    public boolean offer(T element, Duration timeout) throws InterruptedException {
+        waitingProducers.incrementAndGet();
+        try {
+            if (!credits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                increment(rejectedCounter);
+                return false;
+            }
+        } finally {
+            waitingProducers.decrementAndGet();
+        }
+        sink.next(element);
+        increment(admittedCounter);
+        return true;
+    }
+
+    public int getWaitingProducers() {
+        return waitingProducers.get();
+    }
+
+    public int getAvailableCredits() {
+        return credits.availablePermits();
+    }
+
+    public void bindTo(MeterRegistry registry, String name) {
+        Gauge.builder(name + ".waiting", waitingProducers, AtomicInteger::get)
+                .description("Listener threads blocked until the pipeline accepts their message")
+                .register(registry);
+        Gauge.builder(name + ".credits", credits, Semaphore::availablePermits)
+                .description("Elements requested by the pipeline but not yet emitted")
+                .register(registry);
+        admittedCounter = Counter.builder(name + ".admitted")
+                .description("Messages handed to the pipeline")
+                .register(registry);
+        rejectedCounter = Counter.builder(name + ".rejected")
+                .description("Messages not accepted by the pipeline in time")
+                .register(registry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
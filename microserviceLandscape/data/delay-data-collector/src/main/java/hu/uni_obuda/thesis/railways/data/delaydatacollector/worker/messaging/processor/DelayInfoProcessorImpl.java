@@ -14,6 +14,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.Message;
 
+import java.time.Duration;
+
 @Slf4j
 @RequiredArgsConstructor
 public class DelayInfoProcessorImpl implements DelayInfoProcessor {
@@ -21,6 +23,7 @@ public class DelayInfoProcessorImpl implements DelayInfoProcessor {
     private final ObjectMapper objectMapper;
     private final IncomingMessageSink messageSink;
     private final TrainStatusCache statusCache;
+    private final Duration admissionTimeout;
 
     @Override
     public void accept(Message<Event<?, ?>> eventMessage) {
@@ -43,11 +46,11 @@ public class DelayInfoProcessorImpl implements DelayInfoProcessor {
                     log.error("Could not retrieve delay info from event: {}", responseEvent);
                     return;
                 }
-                var result = messageSink.getDelaySink().tryEmitNext(response);
-                if (result.isSuccess())
-                    log.info("Added delay info {}, to message sink for train {} and station {}", response, response.getTrainNumber(), response.getStationCode());
-                else
-                    log.error("Could not add delay info {}, to message sink for train {}", response, response.getTrainNumber());
+                if (!admit(response)) {
+                    log.error("Could not add delay info {}, to message sink for train {} within {}", response, response.getTrainNumber(), admissionTimeout);
+                    throw new IllegalStateException("Delay processing pipeline did not accept delay info for train " + response.getTrainNumber() + " in time");
+                }
+                log.info("Added delay info {}, to message sink for train {} and station {}", response, response.getTrainNumber(), response.getStationCode());
             }
             case ERROR -> {
                 log.error("Received an error response for id: {}", responseEvent.getKey());
@@ -63,6 +66,15 @@ public class DelayInfoProcessorImpl implements DelayInfoProcessor {
         }
     }
 
+    private boolean admit(DelayInfo delayInfo) {
+        try {
+            return messageSink.getDelayQueue().offer(delayInfo, admissionTimeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     private HttpResponseEvent retriveHttpResponseEvent(Event<?, ?> genericEvent) {
         if (!(genericEvent instanceof HttpResponseEvent responseEvent)) {
             log.error("Unexpected event parameters, expected a HttpResponseEvent");
@@ -1,6 +1,7 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.messaging.processor;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.messaging.IncomingMessageSink;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.registry.WeatherInfoRegistry;
@@ -11,10 +12,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.Message;
 
+import java.util.List;
+
 @Slf4j
 @RequiredArgsConstructor
 public class WeatherInfoProcessorImpl implements WeatherInfoProcessor {
 
+    private static final TypeReference<List<WeatherInfo>> WEATHER_INFO_BATCH_TYPE = new TypeReference<>() {};
+
     private final ObjectMapper objectMapper;
     private final WeatherInfoRegistry registry;
     private final IncomingMessageSink messageSink;
@@ -43,6 +48,10 @@ public class WeatherInfoProcessorImpl implements WeatherInfoProcessor {
         HttpResponseEvent.Type eventType = responseEvent.getEventType();
         switch (eventType) {
             case SUCCESS -> {
+                if (isBatchResponse(responseEvent)) {
+                    processBatchResponse(responseEvent);
+                    return;
+                }
                 WeatherInfo response = retrieveWeatherInfo(responseEvent);
                 if (response == null) {
                     log.error("Could not retrieve weather info from event: {}", responseEvent);
@@ -60,6 +69,30 @@ public class WeatherInfoProcessorImpl implements WeatherInfoProcessor {
         return deserializeObject(httpResponseEvent.getData().getMessage(), WeatherInfo.class);
     }
 
+    private void processBatchResponse(HttpResponseEvent responseEvent) {
+        List<WeatherInfo> responses = retrieveWeatherInfoBatch(responseEvent);
+        if (responses == null) {
+            log.error("Could not retrieve weather info batch from event: {}", responseEvent);
+            return;
+        }
+        responses.forEach(response -> messageSink.getWeatherSink().tryEmitNext(response));
+        registry.onWeatherInfoBatch(responses);
+    }
+
+    private boolean isBatchResponse(HttpResponseEvent httpResponseEvent) {
+        String message = httpResponseEvent.getData().getMessage();
+        return message != null && message.stripLeading().startsWith("[");
+    }
+
+    private List<WeatherInfo> retrieveWeatherInfoBatch(HttpResponseEvent httpResponseEvent) {
+        try {
+            return objectMapper.readValue(httpResponseEvent.getData().getMessage(), WEATHER_INFO_BATCH_TYPE);
+        } catch (JsonProcessingException ex) {
+            log.error("Could not deserialize object from json", ex);
+            return null;
+        }
+    }
+
     private String retrieveErrorMessage(HttpResponseEvent httpResponseEvent) {
         if (httpResponseEvent.getEventType() == HttpResponseEvent.Type.ERROR && httpResponseEvent.getData().getMessage() != null) {
             Exception ex = deserializeObject(httpResponseEvent.getData().getMessage(), Exception.class);
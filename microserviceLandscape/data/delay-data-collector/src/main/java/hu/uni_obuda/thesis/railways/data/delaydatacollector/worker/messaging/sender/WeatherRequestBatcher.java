@@ -0,0 +1,7 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.messaging.sender;
+
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfoRequest;
+
+public interface WeatherRequestBatcher {
+    void submit(WeatherInfoRequest request);
+}
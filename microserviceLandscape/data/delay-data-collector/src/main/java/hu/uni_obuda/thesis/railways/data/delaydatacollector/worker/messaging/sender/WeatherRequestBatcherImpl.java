@@ -0,0 +1,75 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.messaging.sender;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.registry.WeatherInfoRegistry;
+import hu.uni_obuda.thesis.railways.data.event.CrudEvent;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfoRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Collects the weather requests issued within a short window and publishes them as a single
+ * {@code CrudEvent<String, List<WeatherInfoRequest>>}, so the weather data collector can serve
+ * every hour of the same station and day with one upstream call.
+ * <p>
+ * If a batch cannot be published, the waiters registered for its requests are failed right away
+ * instead of being left to time out.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class WeatherRequestBatcherImpl implements WeatherRequestBatcher {
+
+    private static final String BINDING_NAME = "weatherDataRequests-out-0";
+
+    private final MessageSender messageSender;
+    private final WeatherInfoRegistry registry;
+
+    @Value("${messaging.weather.request-batch.max-size:64}")
+    private Integer maxBatchSize;
+
+    @Value("${messaging.weather.request-batch.max-wait-millis:50}")
+    private Integer maxWaitMillis;
+
+    private FluxSink<WeatherInfoRequest> pendingRequests;
+    private Disposable subscription;
+
+    @PostConstruct
+    public void init() {
+        subscription = Flux.<WeatherInfoRequest>create(sink -> this.pendingRequests = sink)
+                .bufferTimeout(maxBatchSize, Duration.ofMillis(maxWaitMillis), true)
+                .subscribe(this::send, throwable -> log.error("Weather request batching stopped unexpectedly", throwable));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pendingRequests.complete();
+        subscription.dispose();
+    }
+
+    @Override
+    public void submit(WeatherInfoRequest request) {
+        pendingRequests.next(request);
+    }
+
+    private void send(List<WeatherInfoRequest> batch) {
+        WeatherInfoRequest first = batch.getFirst();
+        String key = first.getStationName() + ":" + first.getTime().toLocalDate();
+        log.debug("Sending a batch of {} weather info requests with key {}", batch.size(), key);
+        try {
+            messageSender.sendMessage(BINDING_NAME, new CrudEvent<>(CrudEvent.Type.GET, key, batch));
+        } catch (RuntimeException e) {
+            log.error("Failed to send a batch of {} weather info requests with key {}", batch.size(), key, e);
+            batch.forEach(request -> registry.onError(request.getStationName(), request.getTime(), e));
+        }
+    }
+}
@@ -5,7 +5,10 @@ import reactor.core.publisher.Mono;
 
 
 public interface CoordinatesRegistry {
-    Mono<GeocodingResponse> waitForCoordinates(String stationName);
+    default Mono<GeocodingResponse> waitForCoordinates(String stationName) {
+        return waitForCoordinates(stationName, () -> {});
+    }
+    Mono<GeocodingResponse> waitForCoordinates(String stationName, Runnable onFirstWait);
     void onCoordinates(GeocodingResponse coordinates);
     void onError(String stationName, Throwable throwable);
 }
@@ -2,44 +2,61 @@ package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.registry;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.CoordinatesCache;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
+import hu.uni_obuda.thesis.railways.util.correlation.CorrelationRegistry;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ServiceResponseException;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.MonoSink;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class CoordinatesRegistryImpl implements CoordinatesRegistry {
 
-    private final Map<String, MonoSink<GeocodingResponse>> pending = new ConcurrentHashMap<>();
-    private final Map<String, Mono<GeocodingResponse>> sharedMonos = new ConcurrentHashMap<>();
-
     private final CoordinatesCache cache;
+    private final MeterRegistry meterRegistry;
+
+    private CorrelationRegistry<String, GeocodingResponse> correlations;
 
     @Value("${messaging.geocoding.response-event.wait-duration:30}")
     private Integer timeout;
 
+    @Value("${messaging.geocoding.response-event.max-pending:5000}")
+    private Integer maxPending;
+
+    @Value("${messaging.geocoding.response-event.early-response-ttl:5}")
+    private Integer earlyResponseTtl;
+
+    public CoordinatesRegistryImpl(CoordinatesCache cache, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        correlations = CorrelationRegistry.<String, GeocodingResponse>builder("geocoding")
+                .timeout(Duration.ofSeconds(timeout))
+                .maxPending(maxPending)
+                .earlyResponseTtl(Duration.ofSeconds(earlyResponseTtl))
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        correlations.close();
+    }
+
     @Override
-    public Mono<GeocodingResponse> waitForCoordinates(String stationName) {
+    public Mono<GeocodingResponse> waitForCoordinates(String stationName, Runnable onFirstWait) {
         log.info("Waiting for coordinates for station {}", stationName);
-        return sharedMonos.computeIfAbsent(stationName, key ->
-                Mono.<GeocodingResponse>create(sink -> pending.put(key, sink))
-                        .timeout(Duration.ofSeconds(timeout))
-                        .doFinally(signal -> {
-                            pending.remove(key);
-                            sharedMonos.remove(key);
-                        })
-                        .cache()
-        );
+        return correlations.await(stationName, onFirstWait);
     }
 
     @Override
@@ -47,19 +64,15 @@ public class CoordinatesRegistryImpl implements CoordinatesRegistry {
         if (!coordinates.isEmpty()) {
             cache.cache(coordinates.getAddress(), coordinates).subscribe();
         }
-        MonoSink<GeocodingResponse> sink = pending.remove(coordinates.getAddress());
-        if (sink != null) {
-            sink.success(coordinates);
-        }
+        correlations.complete(coordinates.getAddress(), coordinates);
         log.info("Registered coordinates for station {}", coordinates.getAddress());
     }
 
     @Override
     public void onError(String stationName, Throwable throwable) {
-        MonoSink<GeocodingResponse> sink = pending.remove(stationName);
-        if (sink != null) {
+        if (correlations.isPending(stationName)) {
             log.warn("Cancelling wait for coordinates for station {} due to error: {}", stationName, throwable.getMessage());
-            sink.error(new ServiceResponseException("Unable to get geocoding response", throwable));
+            correlations.fail(stationName, new ServiceResponseException("Unable to get geocoding response", throwable));
         }
     }
 }
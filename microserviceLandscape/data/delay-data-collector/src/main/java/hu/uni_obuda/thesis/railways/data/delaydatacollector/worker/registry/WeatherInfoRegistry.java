@@ -4,9 +4,14 @@ import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface WeatherInfoRegistry {
-    Mono<WeatherInfo> waitForWeather(String stationName, LocalDateTime dateTime);
+    default Mono<WeatherInfo> waitForWeather(String stationName, LocalDateTime dateTime) {
+        return waitForWeather(stationName, dateTime, () -> {});
+    }
+    Mono<WeatherInfo> waitForWeather(String stationName, LocalDateTime dateTime, Runnable onFirstWait);
     void onWeatherInfo(WeatherInfo info);
+    void onWeatherInfoBatch(List<WeatherInfo> infos);
     void onError(String stationName, LocalDateTime dateTime, Throwable throwable);
 }
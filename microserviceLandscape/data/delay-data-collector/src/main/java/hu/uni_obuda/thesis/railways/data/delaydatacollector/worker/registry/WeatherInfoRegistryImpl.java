@@ -2,67 +2,103 @@ package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.registry;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.WeatherInfoCache;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.util.correlation.CorrelationRegistry;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ServiceResponseException;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.MonoSink;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
 
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class WeatherInfoRegistryImpl implements WeatherInfoRegistry {
 
-    private final Map<String, MonoSink<WeatherInfo>> pending = new ConcurrentHashMap<>();
-    private final Map<String, Mono<WeatherInfo>> sharedMonos = new ConcurrentHashMap<>();
-
     private final WeatherInfoCache cache;
+    private final MeterRegistry meterRegistry;
+
+    private CorrelationRegistry<WeatherKey, WeatherInfo> correlations;
 
     @Value("${messaging.weather.response-event.wait-duration:30}")
     private Integer timeout;
 
-    public Mono<WeatherInfo> waitForWeather(String stationName, LocalDateTime dateTime) {
-        String key = stationName + ":" + dateTime.toString();
-        log.info("Waiting for weather info with key {}", key);
+    @Value("${messaging.weather.response-event.max-pending:20000}")
+    private Integer maxPending;
+
+    @Value("${messaging.weather.response-event.early-response-ttl:5}")
+    private Integer earlyResponseTtl;
+
+    public WeatherInfoRegistryImpl(WeatherInfoCache cache, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+    }
 
-        return sharedMonos.computeIfAbsent(key, k ->
-                Mono.<WeatherInfo>create(sink -> pending.put(k, sink))
-                        .timeout(Duration.ofSeconds(timeout))
-                        .doFinally(signal -> {
-                            pending.remove(k);
-                            sharedMonos.remove(k);
-                        })
-                        .cache()
-        );
+    @PostConstruct
+    public void init() {
+        correlations = CorrelationRegistry.<WeatherKey, WeatherInfo>builder("weather")
+                .timeout(Duration.ofSeconds(timeout))
+                .maxPending(maxPending)
+                .earlyResponseTtl(Duration.ofSeconds(earlyResponseTtl))
+                .meterRegistry(meterRegistry)
+                .build();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        correlations.close();
+    }
+
+    @Override
+    public Mono<WeatherInfo> waitForWeather(String stationName, LocalDateTime dateTime, Runnable onFirstWait) {
+        WeatherKey key = new WeatherKey(stationName, dateTime);
+        log.info("Waiting for weather info with key {}", key);
+        return correlations.await(key, onFirstWait);
+    }
+
+    @Override
     public void onWeatherInfo(WeatherInfo info) {
-        String key = info.getAddress() + ":" + info.getTime().toString();
+        WeatherKey key = new WeatherKey(info.getAddress(), info.getTime());
         if (info.getTemperature() != null) {
             cache.cacheWeatherInfo(info).subscribe();
         }
-        MonoSink<WeatherInfo> sink = pending.remove(key);
-        if (sink != null) {
-            sink.success(info);
-        }
+        correlations.complete(key, info);
         log.info("Received weather info with key {}", key);
     }
 
+    @Override
+    public void onWeatherInfoBatch(List<WeatherInfo> infos) {
+        int matched = 0;
+        for (WeatherInfo info : infos) {
+            if (info.getTemperature() != null) {
+                cache.cacheWeatherInfo(info).subscribe();
+            }
+            if (correlations.complete(new WeatherKey(info.getAddress(), info.getTime()), info)) {
+                matched++;
+            }
+        }
+        log.info("Received a batch of {} weather infos, {} of them had pending waiters", infos.size(), matched);
+    }
+
     @Override
     public void onError(String stationName, LocalDateTime dateTime, Throwable throwable) {
-        String key = stationName + ":" + dateTime.toString();
-        MonoSink<WeatherInfo> sink = pending.remove(key);
-        if (sink != null) {
+        WeatherKey key = new WeatherKey(stationName, dateTime);
+        if (correlations.isPending(key)) {
             log.warn("Cancelling wait for weather info with key {} due to error: {}", key, throwable.getMessage());
-            sink.error(new ServiceResponseException("Unable to get weather info", throwable));
+            correlations.fail(key, new ServiceResponseException("Unable to get weather info", throwable));
+        }
+    }
+
+    private record WeatherKey(String stationName, LocalDateTime dateTime) {
+        @Override
+        public String toString() {
+            return stationName + ":" + dateTime;
         }
     }
 }
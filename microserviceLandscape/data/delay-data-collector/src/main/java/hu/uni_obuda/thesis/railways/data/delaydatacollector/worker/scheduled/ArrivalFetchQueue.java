@@ -0,0 +1,11 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.scheduled;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+public interface ArrivalFetchQueue {
+    void schedule(String trainNumber, LocalDate date, Duration delay, Runnable fetch);
+    boolean isScheduled(String trainNumber, LocalDate date);
+    void cancelAll();
+    int size();
+}
@@ -0,0 +1,91 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds at most one pending delay fetch per train and day on a hashed-wheel timer, so thousands of
+ * queued arrivals cost one timer thread and no polling. Fetches run on the timer thread and are
+ * expected to hand their work off to a scheduler straight away.
+ */
+@Slf4j
+@Component
+public class ArrivalFetchQueueImpl implements ArrivalFetchQueue {
+
+    private final HashedWheelTimer timer;
+    private final Map<String, Timeout> pending = new ConcurrentHashMap<>();
+
+    public ArrivalFetchQueueImpl(@Value("${app.data.processing.delay.arrivalQueueTickMillis:1000}") Integer tickMillis,
+                                 MeterRegistry meterRegistry) {
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("arrival-fetch-queue", true),
+                tickMillis, TimeUnit.MILLISECONDS, 512);
+        Gauge.builder("data.fetch.arrival.queued", pending, Map::size)
+                .description("Delay fetches waiting for their train to arrive")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void schedule(String trainNumber, LocalDate date, Duration delay, Runnable fetch) {
+        String key = toKey(trainNumber, date);
+        Timeout[] scheduled = new Timeout[1];
+        scheduled[0] = timer.newTimeout(_ -> {
+            if (pending.remove(key, scheduled[0])) {
+                runQuietly(key, fetch);
+            }
+        }, Math.max(0, delay.toMillis()), TimeUnit.MILLISECONDS);
+        Timeout previous = pending.put(key, scheduled[0]);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    @Override
+    public boolean isScheduled(String trainNumber, LocalDate date) {
+        return pending.containsKey(toKey(trainNumber, date));
+    }
+
+    @Override
+    public void cancelAll() {
+        pending.forEach((key, timeout) -> {
+            if (pending.remove(key, timeout)) {
+                timeout.cancel();
+            }
+        });
+    }
+
+    @Override
+    public int size() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancelAll();
+        timer.stop();
+    }
+
+    private void runQuietly(String key, Runnable fetch) {
+        try {
+            fetch.run();
+        } catch (RuntimeException e) {
+            log.error("Arrival-driven fetch for {} failed: {}", key, e.getMessage());
+        }
+    }
+
+    private static String toKey(String trainNumber, LocalDate date) {
+        return trainNumber + ":" + date;
+    }
+}
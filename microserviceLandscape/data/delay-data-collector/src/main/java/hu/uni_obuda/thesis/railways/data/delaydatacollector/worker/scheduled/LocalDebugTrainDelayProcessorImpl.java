@@ -76,33 +76,28 @@ public class LocalDebugTrainDelayProcessorImpl implements TrainDelayProcessor
                         log.info("Calling fetcher service for train number {}", trainRoute.getTrainNumber());
                         Mono<TrainStationEntity> startStation = trainStationRepository.findByStationCode(adjustStationCodeFormat(trainRoute.getFrom()));
                         Mono<TrainStationEntity> endStation = trainStationRepository.findByStationCode(adjustStationCodeFormat(trainRoute.getTo()));
-                        Double startStationLatitude = startStation.map(TrainStationEntity::getLatitude).block();
-                        Double startStationLongitude = startStation.map(TrainStationEntity::getLongitude).block();
-                        Double endStationLatitude = endStation.map(TrainStationEntity::getLatitude).block();
-                        Double endStationLongitude = endStation.map(TrainStationEntity::getLongitude).block();
-                        if (startStationLatitude == null ||startStationLongitude == null) {
-                            return Mono.empty();
-                        }
-                        if (endStationLatitude == null || endStationLongitude == null) {
-                            return Mono.empty();
-                        }
-
-                        return Mono.fromRunnable(() ->
-                                delayFetcherService.fetchDelay(
-                                        trainRoute.getTrainNumber(),
-                                        trainRoute.getFrom(),
-                                        startStationLatitude,
-                                        startStationLongitude,
-                                        trainRoute.getTo(),
-                                        endStationLatitude,
-                                        endStationLongitude,
-                                        date
-                                )
-                        );
+                        return Mono.zip(startStation, endStation)
+                                .filter(stations -> hasCoordinates(stations.getT1()) && hasCoordinates(stations.getT2()))
+                                .flatMap(stations -> Mono.fromRunnable(() ->
+                                        delayFetcherService.fetchDelay(
+                                                trainRoute.getTrainNumber(),
+                                                trainRoute.getFrom(),
+                                                stations.getT1().getLatitude(),
+                                                stations.getT1().getLongitude(),
+                                                trainRoute.getTo(),
+                                                stations.getT2().getLatitude(),
+                                                stations.getT2().getLongitude(),
+                                                date
+                                        )
+                                ));
                     }
                 });
     }
 
+    private boolean hasCoordinates(TrainStationEntity station) {
+        return station.getLatitude() != null && station.getLongitude() != null;
+    }
+
     private LocalDate resolveOperationalDate(LocalDateTime date) {
         if (date.getHour() < 3)
             return date.toLocalDate().minusDays(1);
@@ -1,26 +1,39 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.scheduled;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.TrainStatusCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshot;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainRouteEntity;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainStationEntity;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.DelayRepository;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.ScheduledArrival;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainRouteRepository;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainStationRepository;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.service.data.DelayFetcherService;
 import hu.uni_obuda.thesis.railways.util.scheduler.annotation.ScheduledJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
+import reactor.util.function.Tuple2;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Profile("production")
 @Component
@@ -34,31 +47,72 @@ public class TrainDelayProcessorImpl implements TrainDelayProcessor {
             'Ű', 'Û'
     );
 
-    private  final Scheduler scheduler;
+    private final Scheduler scheduler;
     private final TrainRouteRepository trainRouteRepository;
     private final DelayFetcherService delayFetcherService;
     private final TrainStatusCache trainStatusCache;
     private final TrainStationRepository trainStationRepository;
+    private final DomainSnapshotProvider snapshotProvider;
+    private final DelayRepository delayRepository;
+    private final ArrivalFetchQueue arrivalFetchQueue;
+    private final DistributionSummary stationLookupSummary;
+    private final Counter arrivalFetches;
+    private final Counter arrivalCompletions;
+    private final Counter arrivalAbandons;
+
+    private final AtomicReference<LocalDate> plannedDate = new AtomicReference<>();
+    private volatile Set<String> plannedTrains = Set.of();
+
+    @Value("${app.data.processing.delay.coordinateResolutionConcurrency:8}")
+    private Integer coordinateResolutionConcurrency;
+
+    @Value("${app.data.processing.delay.schedulingMode:polling}")
+    private String schedulingMode;
+
+    @Value("${app.data.processing.delay.arrivalGraceMinutes:10}")
+    private Integer arrivalGraceMinutes;
+
+    @Value("${app.data.processing.delay.arrivalRetryMinutes:10}")
+    private Integer arrivalRetryMinutes;
+
+    @Value("${app.data.processing.delay.arrivalRetryMaxMinutes:120}")
+    private Integer arrivalRetryMaxMinutes;
+
+    @Value("${app.data.processing.delay.arrivalMaxAttempts:6}")
+    private Integer arrivalMaxAttempts;
 
     @Autowired
     public TrainDelayProcessorImpl(@Qualifier("trainDelayProcessorScheduler") Scheduler scheduler, TrainRouteRepository trainRouteRepository,
-                                   DelayFetcherService delayFetcherService, TrainStatusCache trainStatusCache, TrainStationRepository trainStationRepository) {
+                                   DelayFetcherService delayFetcherService, TrainStatusCache trainStatusCache, TrainStationRepository trainStationRepository,
+                                   DomainSnapshotProvider snapshotProvider, DelayRepository delayRepository, ArrivalFetchQueue arrivalFetchQueue,
+                                   MeterRegistry meterRegistry) {
         this.scheduler = scheduler;
         this.trainRouteRepository = trainRouteRepository;
         this.delayFetcherService = delayFetcherService;
         this.trainStatusCache = trainStatusCache;
         this.trainStationRepository = trainStationRepository;
+        this.snapshotProvider = snapshotProvider;
+        this.delayRepository = delayRepository;
+        this.arrivalFetchQueue = arrivalFetchQueue;
+        this.stationLookupSummary = DistributionSummary.builder("data.fetch.station.lookups")
+                .description("Station repository round trips per data fetch run (snapshot misses)")
+                .register(meterRegistry);
+        this.arrivalFetches = arrivalCounter(meterRegistry, "fetched");
+        this.arrivalCompletions = arrivalCounter(meterRegistry, "complete");
+        this.arrivalAbandons = arrivalCounter(meterRegistry, "abandoned");
     }
 
     @ScheduledJob("dataFetch")
     @Override
     public void processTrainRoutes() {
         log.info("Data fetch started...");
-        LocalDateTime now = LocalDateTime.now();
+        LocalDate date = resolveOperationalDate(LocalDateTime.now());
+        AtomicInteger stationLookups = new AtomicInteger();
 
-
-        trainRouteRepository.findAll()
-                .flatMap(trainRoute -> processTrainIfIncomplete(trainRoute, resolveOperationalDate(now)))
+        snapshotProvider.getSnapshot()
+                .flatMapMany(snapshot -> routesToPoll(snapshot, date)
+                        .flatMap(trainRoute -> processTrainIfIncomplete(trainRoute, date, snapshot, stationLookups), coordinateResolutionConcurrency))
+                .doOnTerminate(() -> recordStationLookups(stationLookups.get()))
                 .subscribeOn(scheduler)
                 .subscribe();
 
@@ -67,15 +121,104 @@ public class TrainDelayProcessorImpl implements TrainDelayProcessor {
     @Override
     public void processTrainRoute(String trainNumber) {
         log.info("Data fetch started for single train with train number: {}", trainNumber);
-        LocalDateTime now = LocalDateTime.now();
+        LocalDate date = resolveOperationalDate(LocalDateTime.now());
+        AtomicInteger stationLookups = new AtomicInteger();
+
+        snapshotProvider.getSnapshot()
+                .flatMap(snapshot -> findRoute(snapshot, trainNumber)
+                        .flatMap(trainRoute -> processTrainIfIncomplete(trainRoute, date, snapshot, stationLookups)))
+                .doOnTerminate(() -> recordStationLookups(stationLookups.get()))
+                .subscribeOn(scheduler)
+                .subscribe();
+    }
+
+    /**
+     * In polling mode every route is polled on every tick. In arrival mode the first tick of an
+     * operational day queues one fetch per train at its scheduled arrival, and only the trains
+     * without a known arrival time are left to the tick.
+     */
+    private Flux<TrainRouteEntity> routesToPoll(DomainSnapshot snapshot, LocalDate date) {
+        Flux<TrainRouteEntity> routes = Flux.fromIterable(snapshot.getRoutes().values());
+        if (!isArrivalDriven()) {
+            return routes;
+        }
+        return planArrivals(snapshot, date)
+                .thenMany(routes)
+                .filter(trainRoute -> !plannedTrains.contains(trainRoute.getTrainNumber()));
+    }
+
+    private Mono<Void> planArrivals(DomainSnapshot snapshot, LocalDate date) {
+        if (date.equals(plannedDate.get())) {
+            return Mono.empty();
+        }
+        return delayRepository.findLatestScheduledArrivals()
+                .collectList()
+                .doOnNext(arrivals -> {
+                    arrivalFetchQueue.cancelAll();
+                    LocalDateTime now = LocalDateTime.now();
+                    Set<String> planned = new HashSet<>();
+                    for (ScheduledArrival arrival : arrivals) {
+                        if (snapshot.getRoute(arrival.trainNumber()) == null) {
+                            continue;
+                        }
+                        LocalDateTime dueAt = arrival.arrivalOn(date).plusMinutes(arrivalGraceMinutes);
+                        scheduleArrivalFetch(arrival.trainNumber(), date, Duration.between(now, dueAt), 1);
+                        planned.add(arrival.trainNumber());
+                    }
+                    plannedTrains = Set.copyOf(planned);
+                    plannedDate.set(date);
+                    log.info("Queued {} arrival-driven delay fetches for {}, {} trains without a known arrival time stay on polling",
+                            planned.size(), date, snapshot.getRoutes().size() - planned.size());
+                })
+                .onErrorResume(throwable -> {
+                    log.error("Could not load scheduled arrivals for {}, polling every train: {}", date, throwable.getMessage());
+                    plannedTrains = Set.of();
+                    return Mono.empty();
+                })
+                .then();
+    }
 
-        trainRouteRepository.findById(trainNumber)
-                .flatMap(trainRoute -> processTrainIfIncomplete(trainRoute, resolveOperationalDate(now)))
+    private void scheduleArrivalFetch(String trainNumber, LocalDate date, Duration delay, int attempt) {
+        arrivalFetchQueue.schedule(trainNumber, date, delay, () -> fetchOnArrival(trainNumber, date, attempt));
+    }
+
+    private void fetchOnArrival(String trainNumber, LocalDate date, int attempt) {
+        if (!date.equals(plannedDate.get())) {
+            return;
+        }
+        AtomicInteger stationLookups = new AtomicInteger();
+        trainStatusCache.isComplete(trainNumber, date)
+                .flatMap(complete -> {
+                    if (complete) {
+                        log.info("Data for train number {} is already present for {}, no more arrival-driven fetches", trainNumber, date);
+                        arrivalCompletions.increment();
+                        return Mono.empty();
+                    }
+                    if (attempt < arrivalMaxAttempts) {
+                        scheduleArrivalFetch(trainNumber, date, retryDelay(attempt), attempt + 1);
+                    } else {
+                        log.warn("Giving up on arrival-driven fetches for train number {} after {} attempts", trainNumber, attempt);
+                        arrivalAbandons.increment();
+                    }
+                    arrivalFetches.increment();
+                    return snapshotProvider.getSnapshot()
+                            .flatMap(snapshot -> findRoute(snapshot, trainNumber)
+                                    .flatMap(trainRoute -> requestFetch(trainRoute, date, snapshot, stationLookups)));
+                })
                 .subscribeOn(scheduler)
                 .subscribe();
     }
 
-    private Mono<Void> processTrainIfIncomplete(TrainRouteEntity trainRoute, LocalDate date) {
+    private Duration retryDelay(int attempt) {
+        long minutes = (long) arrivalRetryMinutes << Math.min(attempt - 1, 16);
+        return Duration.ofMinutes(Math.min(minutes, arrivalRetryMaxMinutes));
+    }
+
+    private boolean isArrivalDriven() {
+        return "arrival".equalsIgnoreCase(schedulingMode);
+    }
+
+    private Mono<Void> processTrainIfIncomplete(TrainRouteEntity trainRoute, LocalDate date, DomainSnapshot snapshot, AtomicInteger stationLookups) {
         log.info("Fetching delay for train number {}", trainRoute.getTrainNumber());
         return trainStatusCache.isComplete(trainRoute.getTrainNumber(), date)
                 .flatMap(complete -> {
@@ -83,36 +226,76 @@ public class TrainDelayProcessorImpl implements TrainDelayProcessor {
                         log.info("Data for train number {} is already present for today", trainRoute.getTrainNumber());
                         return Mono.empty();
                     } else {
-                        log.info("Calling fetcher service for train number {}", trainRoute.getTrainNumber());
-                        Mono<TrainStationEntity> startStation = trainStationRepository.findByStationCode(adjustStationCodeFormat(trainRoute.getFrom()));
-                        Mono<TrainStationEntity> endStation = trainStationRepository.findByStationCode(adjustStationCodeFormat(trainRoute.getTo()));
-                        Double startStationLatitude = startStation.map(TrainStationEntity::getLatitude).block();
-                        Double startStationLongitude = startStation.map(TrainStationEntity::getLongitude).block();
-                        Double endStationLatitude = endStation.map(TrainStationEntity::getLatitude).block();
-                        Double endStationLongitude = endStation.map(TrainStationEntity::getLongitude).block();
-                        if (startStationLatitude == null ||startStationLongitude == null) {
-                            return Mono.empty();
-                        }
-                        if (endStationLatitude == null || endStationLongitude == null) {
-                            return Mono.empty();
-                        }
+                        return requestFetch(trainRoute, date, snapshot, stationLookups);
+                    }
+                });
+    }
+
+    private Mono<Void> requestFetch(TrainRouteEntity trainRoute, LocalDate date, DomainSnapshot snapshot, AtomicInteger stationLookups) {
+        log.info("Calling fetcher service for train number {}", trainRoute.getTrainNumber());
+        return resolveRouteStations(trainRoute, snapshot, stationLookups)
+                .flatMap(stations -> Mono.fromRunnable(() ->
+                        delayFetcherService.fetchDelay(
+                                trainRoute.getTrainNumber(),
+                                trainRoute.getFrom(),
+                                stations.getT1().getLatitude(),
+                                stations.getT1().getLongitude(),
+                                trainRoute.getTo(),
+                                stations.getT2().getLatitude(),
+                                stations.getT2().getLongitude(),
+                                date
+                        )
+                ));
+    }
+
+    private Mono<TrainRouteEntity> findRoute(DomainSnapshot snapshot, String trainNumber) {
+        TrainRouteEntity trainRoute = snapshot.getRoute(trainNumber);
+        if (trainRoute != null) {
+            return Mono.just(trainRoute);
+        }
+        return trainRouteRepository.findById(trainNumber)
+                .doOnNext(snapshotProvider::onRouteChanged);
+    }
 
-                        return Mono.fromRunnable(() ->
-                                delayFetcherService.fetchDelay(
-                                        trainRoute.getTrainNumber(),
-                                        trainRoute.getFrom(),
-                                        startStationLatitude,
-                                        startStationLongitude,
-                                        trainRoute.getTo(),
-                                        endStationLatitude,
-                                        endStationLongitude,
-                                        date
-                                )
-                        );
+    private Mono<Tuple2<TrainStationEntity, TrainStationEntity>> resolveRouteStations(TrainRouteEntity trainRoute, DomainSnapshot snapshot, AtomicInteger stationLookups) {
+        Mono<TrainStationEntity> startStation = findStation(snapshot, trainRoute.getFrom(), stationLookups);
+        Mono<TrainStationEntity> endStation = findStation(snapshot, trainRoute.getTo(), stationLookups);
+        return Mono.zip(startStation, endStation)
+                .filter(stations -> {
+                    if (!hasCoordinates(stations.getT1()) || !hasCoordinates(stations.getT2())) {
+                        log.warn("Missing station coordinates for train number {}, skipping fetch", trainRoute.getTrainNumber());
+                        return false;
                     }
+                    return true;
                 });
     }
 
+    private Mono<TrainStationEntity> findStation(DomainSnapshot snapshot, String stationCode, AtomicInteger stationLookups) {
+        String adjustedStationCode = adjustStationCodeFormat(stationCode);
+        TrainStationEntity station = snapshot.getStation(adjustedStationCode);
+        if (station != null) {
+            return Mono.just(station);
+        }
+        return trainStationRepository.findByStationCode(adjustedStationCode)
+                .doOnSubscribe(_ -> stationLookups.incrementAndGet())
+                .doOnNext(snapshotProvider::onStationChanged);
+    }
+
+    private boolean hasCoordinates(TrainStationEntity station) {
+        return station.getLatitude() != null && station.getLongitude() != null;
+    }
+
+    private void recordStationLookups(int stationLookups) {
+        log.info("Data fetch finished with {} station lookups", stationLookups);
+        stationLookupSummary.record(stationLookups);
+    }
+
+    private static Counter arrivalCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("data.fetch.arrival.requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     private LocalDate resolveOperationalDate(LocalDateTime date) {
         if (date.getHour() < 3)
             return date.toLocalDate().minusDays(1);
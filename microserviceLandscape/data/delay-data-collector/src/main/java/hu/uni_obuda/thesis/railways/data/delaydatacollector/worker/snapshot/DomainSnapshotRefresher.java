@@ -0,0 +1,24 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.snapshot;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
+import hu.uni_obuda.thesis.railways.util.scheduler.annotation.ScheduledJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DomainSnapshotRefresher {
+
+    private final DomainSnapshotProvider snapshotProvider;
+
+    @ScheduledJob("domainSnapshotRefresh")
+    public void refresh() {
+        log.info("Refreshing station and route snapshot...");
+        snapshotProvider.refresh().subscribe(
+                snapshot -> log.info("Station and route snapshot refreshed to version {}", snapshot.getVersion()),
+                throwable -> log.error("Station and route snapshot refresh failed", throwable)
+        );
+    }
+}
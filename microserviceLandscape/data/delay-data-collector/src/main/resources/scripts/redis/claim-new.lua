@@ -0,0 +1,23 @@
+-- Atomically claims every key that is not stored yet and registers it in the key-set index.
+-- KEYS[1]    = key-set index
+-- KEYS[2..n] = cache keys to claim
+-- ARGV[1]    = time to live in seconds (0 means no expiry)
+-- ARGV[2]    = value stored under newly claimed keys
+-- Returns one character per cache key: '1' if the key was claimed by this call, '0' if it already existed.
+local ttl = tonumber(ARGV[1])
+local claimed = {}
+for i = 2, #KEYS do
+    local result
+    if ttl > 0 then
+        result = redis.call('SET', KEYS[i], ARGV[2], 'NX', 'EX', ttl)
+    else
+        result = redis.call('SET', KEYS[i], ARGV[2], 'NX')
+    end
+    if result then
+        redis.call('SADD', KEYS[1], KEYS[i])
+        claimed[#claimed + 1] = '1'
+    else
+        claimed[#claimed + 1] = '0'
+    end
+end
+return table.concat(claimed)
@@ -0,0 +1,16 @@
+-- Writes a batch of cache entries and registers their keys in the key-set index in one round trip.
+-- KEYS[1]      = key-set index
+-- KEYS[2..n]   = cache keys
+-- ARGV[2i - 1] = time to live in seconds for KEYS[i + 1] (0 means no expiry)
+-- ARGV[2i]     = serialized value for KEYS[i + 1]
+for i = 2, #KEYS do
+    local ttl = tonumber(ARGV[2 * (i - 1) - 1])
+    local value = ARGV[2 * (i - 1)]
+    if ttl > 0 then
+        redis.call('SET', KEYS[i], value, 'EX', ttl)
+    else
+        redis.call('SET', KEYS[i], value)
+    end
+    redis.call('SADD', KEYS[1], KEYS[i])
+end
+return #KEYS - 1
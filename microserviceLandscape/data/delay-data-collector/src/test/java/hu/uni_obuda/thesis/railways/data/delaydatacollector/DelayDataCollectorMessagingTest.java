@@ -44,6 +44,7 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.containers.RabbitMQContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.shaded.org.awaitility.Awaitility;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
@@ -52,9 +53,11 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -139,8 +142,8 @@ class DelayDataCollectorMessagingTest {
 
     @BeforeEach
     void setUpMocks() {
-        when(delayInfoCache.isDuplicate(any(DelayInfo.class))).thenReturn(Mono.just(false));
-        when(delayInfoCache.cacheDelay(any(DelayInfo.class))).thenReturn(Mono.empty());
+        when(delayRepository.insertAll(anyList())).thenAnswer(invocation -> Mono.just((long) invocation.<List<DelayEntity>>getArgument(0).size()));
+        when(delayInfoCache.filterNew(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<DelayInfo>>getArgument(0)));
 
         when(trainStatusCache.markComplete(any(), any())).thenReturn(Mono.empty());
         when(trainStatusCache.markIncomplete(any(), any())).thenReturn(Mono.empty());
@@ -161,7 +164,7 @@ class DelayDataCollectorMessagingTest {
                                 .build()
                 ));
 
-        delayService.processDelays(messageSink.getDelaySink().asFlux());
+        delayService.processDelays(messageSink.getDelayQueue().asFlux());
     }
 
     @BeforeEach
@@ -252,7 +255,7 @@ class DelayDataCollectorMessagingTest {
         Awaitility.await()
                 .atMost(Duration.ofSeconds(2 * MESSAGE_RESPONSE_TIMEOUT))
                 .untilAsserted(() ->
-                        verify(delayRepository, atLeastOnce()).save(any(DelayEntity.class))
+                        verify(delayRepository, atLeastOnce()).insertAll(argThat(delays -> !delays.isEmpty()))
                 );
     }
 
@@ -274,6 +277,7 @@ class DelayDataCollectorMessagingTest {
         Awaitility.await()
                 .atMost(Duration.ofSeconds(2 * MESSAGE_RESPONSE_TIMEOUT))
                 .untilAsserted(() -> {
+                    verify(delayRepository, never()).insertAll(any());
                     verify(delayRepository, never()).save(any());
                 });
     }
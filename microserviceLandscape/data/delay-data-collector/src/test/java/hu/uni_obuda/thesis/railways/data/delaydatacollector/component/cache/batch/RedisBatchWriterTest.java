@@ -0,0 +1,146 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedisBatchWriterTest {
+
+    private static final String KEY_SET = "test:keys";
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> template;
+
+    private RedisBatchWriter<String> testedObject;
+
+    @BeforeEach
+    void setUp() {
+        when(template.getSerializationContext()).thenReturn(RedisSerializationContext.string());
+        testedObject = new RedisBatchWriter<>(template, KEY_SET, 10, Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testedObject.dispose();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_concurrentWrites_coalescedIntoSingleScriptCall() {
+        when(template.execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn(Flux.just(3L));
+
+        StepVerifier.create(Mono.when(
+                        testedObject.write("a", "1", Duration.ofHours(1)),
+                        testedObject.write("b", "2", Duration.ofHours(1)),
+                        testedObject.write("c", "3", Duration.ZERO)))
+                .verifyComplete();
+
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<byte[]>> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(template, times(1)).execute(any(RedisScript.class), keysCaptor.capture(), argsCaptor.capture(),
+                any(RedisElementWriter.class), any(RedisElementReader.class));
+        assertThat(keysCaptor.getValue()).containsExactly(KEY_SET, "a", "b", "c");
+        assertThat(argsCaptor.getValue())
+                .extracting(bytes -> new String(bytes, StandardCharsets.UTF_8))
+                .containsExactly("3600", "1", "3600", "2", "0", "3");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_scriptFails_errorPropagatedToEveryWriter() {
+        when(template.execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn(Flux.error(new IllegalStateException("redis down")));
+
+        Mono<Void> first = testedObject.write("a", "1", Duration.ofHours(1));
+        Mono<Void> second = testedObject.write("b", "2", Duration.ofHours(1));
+
+        StepVerifier.create(Mono.whenDelayError(first, second))
+                .expectErrorSatisfies(error -> assertThat(Exceptions.unwrapMultiple(error))
+                        .hasSize(2)
+                        .allMatch(IllegalStateException.class::isInstance))
+                .verify();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_afterFailedBatch_laterWritesStillFlushed() {
+        when(template.execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn(Flux.error(new IllegalStateException("redis down")))
+                .thenReturn(Flux.just(1L));
+
+        StepVerifier.create(testedObject.write("a", "1", Duration.ofHours(1)))
+                .expectError(IllegalStateException.class)
+                .verify();
+        StepVerifier.create(testedObject.write("b", "2", Duration.ofHours(1)))
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispose_writeInFlight_failsWriter() {
+        when(template.execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn(Flux.never());
+
+        Mono<Void> write = testedObject.write("a", "1", Duration.ofHours(1)).cache();
+        write.subscribe(_ -> {}, _ -> {});
+        verify(template, timeout(1000)).execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class));
+        testedObject.dispose();
+
+        StepVerifier.create(write)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispose_writeStillBuffered_failsWriterWithoutFlushing() {
+        RedisBatchWriter<String> slowWriter = new RedisBatchWriter<>(template, KEY_SET, 10, Duration.ofMinutes(1));
+
+        Mono<Void> write = slowWriter.write("a", "1", Duration.ofHours(1)).cache();
+        write.subscribe(_ -> {}, _ -> {});
+        slowWriter.dispose();
+
+        StepVerifier.create(write)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+        verify(template, never()).execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class));
+    }
+
+    @Test
+    void write_afterDispose_isRejected() {
+        testedObject.dispose();
+
+        StepVerifier.create(testedObject.write("a", "1", Duration.ofHours(1)))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+        assertThat(testedObject.isDisposed()).isTrue();
+    }
+}
@@ -13,10 +13,19 @@ import org.reactivestreams.Publisher;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ReactiveSetOperations;
 import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.CoordinatesCache.CACHE_PREFIX;
 import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.CoordinatesCache.KEY_SET_PREFIX;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -44,9 +53,34 @@ class CoordinatesCacheTest {
         when(coordinatesRedisTemplate.opsForValue()).thenReturn(coordinatesValueOps);
         when(keysRedisTemplate.opsForSet()).thenReturn(keysSetOps);
 
+        when(coordinatesRedisTemplate.getSerializationContext()).thenReturn(RedisSerializationContext
+                .<String, GeocodingResponse>newSerializationContext(new StringRedisSerializer())
+                .value(new Jackson2JsonRedisSerializer<>(GeocodingResponse.class))
+                .build());
+
         testedObject = new CoordinatesCacheImpl(coordinatesRedisTemplate, keysRedisTemplate);
     }
 
+    @SuppressWarnings("unchecked")
+    private List<String> verifyScriptWrite(ReactiveRedisTemplate<String, ?> template, String expectedValue, long expectedTimeToLive) {
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<byte[]>> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(template).execute(any(RedisScript.class), keysCaptor.capture(), argsCaptor.capture(),
+                any(RedisElementWriter.class), any(RedisElementReader.class));
+        List<byte[]> args = argsCaptor.getValue();
+        assertThat(new String(args.get(0), StandardCharsets.UTF_8)).isEqualTo(Long.toString(expectedTimeToLive));
+        if (expectedValue != null) {
+            assertThat(new String(args.get(1), StandardCharsets.UTF_8)).isEqualTo(expectedValue);
+        }
+        return keysCaptor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenScriptSucceeds(ReactiveRedisTemplate<String, ?> template) {
+        when(template.execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn(Flux.just(1L));
+    }
+
     @Test
     void isCached_valuePresent_returnsTrue() {
         String stationName = "Budapest-Keleti";
@@ -62,27 +96,20 @@ class CoordinatesCacheTest {
     }
 
     @Test
-    void cache_called_storesValue() {
+    void cache_called_storesValueWithoutExpiryInSingleScriptCall() {
         String stationName = "Budapest-Keleti";
         GeocodingResponse coordinates = GeocodingResponse.builder()
                 .latitude(47.5)
                 .longitude(19.08)
                 .address("Budapest, Keleti pályaudvar")
                 .build();
-
-        when(coordinatesValueOps.set(anyString(), eq(coordinates))).thenReturn(Mono.just(true));
-        when(keysSetOps.add(eq(KEY_SET_PREFIX), anyString())).thenReturn(Mono.just(1L));
-
-        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        givenScriptSucceeds(coordinatesRedisTemplate);
 
         StepVerifier.create(testedObject.cache(stationName, coordinates))
                 .verifyComplete();
 
-        verify(coordinatesValueOps).set(keyCaptor.capture(), eq(coordinates));
-        String usedKey = keyCaptor.getValue();
-        assertThat(usedKey).isEqualTo(CACHE_PREFIX + ":" + stationName);
-
-        verify(keysSetOps).add(KEY_SET_PREFIX, usedKey);
+        List<String> keys = verifyScriptWrite(coordinatesRedisTemplate, null, 0);
+        assertThat(keys).containsExactly(KEY_SET_PREFIX, CACHE_PREFIX + ":" + stationName);
     }
 
     @Test
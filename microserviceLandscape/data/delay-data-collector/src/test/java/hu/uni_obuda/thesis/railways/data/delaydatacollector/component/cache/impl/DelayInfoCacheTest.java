@@ -1,6 +1,9 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
 
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.NearCacheInvalidationBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,20 +16,25 @@ import org.reactivestreams.Publisher;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ReactiveSetOperations;
 import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
 
 import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.DelayInfoCache.CACHE_PREFIX;
 import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.DelayInfoCache.KEY_SET_PREFIX;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -40,7 +48,10 @@ class DelayInfoCacheTest {
     private ReactiveValueOperations<String, String> delaysValueOps;
     @Mock
     private ReactiveSetOperations<String, String> keysSetOps;
+    @Mock
+    private NearCacheInvalidationBus invalidationBus;
 
+    private Cache<String, Boolean> nearCache;
     private DelayInfoCacheImpl testedObject;
 
     @BeforeEach
@@ -48,14 +59,41 @@ class DelayInfoCacheTest {
         when(delaysRedisTemplate.opsForValue()).thenReturn(delaysValueOps);
         when(keysRedisTemplate.opsForSet()).thenReturn(keysSetOps);
 
-        testedObject = new DelayInfoCacheImpl(delaysRedisTemplate, keysRedisTemplate);
+        when(delaysRedisTemplate.getSerializationContext()).thenReturn(RedisSerializationContext.string());
+
+        nearCache = Caffeine.newBuilder().build();
+        testedObject = new DelayInfoCacheImpl(delaysRedisTemplate, keysRedisTemplate, nearCache, invalidationBus);
         ReflectionTestUtils.setField(testedObject, "cacheDuration", 6);
     }
 
+    @SuppressWarnings("unchecked")
+    private List<String> verifyScriptWrite(ReactiveRedisTemplate<String, ?> template, String expectedValue, long expectedTimeToLive) {
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<byte[]>> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(template).execute(any(RedisScript.class), keysCaptor.capture(), argsCaptor.capture(),
+                any(RedisElementWriter.class), any(RedisElementReader.class));
+        List<byte[]> args = argsCaptor.getValue();
+        assertThat(new String(args.get(0), StandardCharsets.UTF_8)).isEqualTo(Long.toString(expectedTimeToLive));
+        if (expectedValue != null) {
+            assertThat(new String(args.get(1), StandardCharsets.UTF_8)).isEqualTo(expectedValue);
+        }
+        return keysCaptor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenScriptSucceeds(ReactiveRedisTemplate<String, ?> template) {
+        when(template.execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn(Flux.just(1L));
+    }
+
     private DelayInfo createDelay() {
+        return createDelay("BPK");
+    }
+
+    private DelayInfo createDelay(String stationCode) {
         return DelayInfo.builder()
                 .trainNumber("IC123")
-                .stationCode("BPK")
+                .stationCode(stationCode)
                 .date(LocalDate.of(2025, 1, 1))
                 .build();
     }
@@ -96,30 +134,77 @@ class DelayInfoCacheTest {
     }
 
     @Test
-    void cacheDelay_called_storesValueAndRegistersKey() {
+    void cacheDelay_called_storesValueAndRegistersKeyInSingleScriptCall() {
         DelayInfo delay = createDelay();
+        givenScriptSucceeds(delaysRedisTemplate);
 
-        when(delaysValueOps.set(anyString(), eq("1"), any(Duration.class)))
-                .thenReturn(Mono.just(true));
-        when(keysSetOps.add(eq(KEY_SET_PREFIX), anyString()))
-                .thenReturn(Mono.just(1L));
+        StepVerifier.create(testedObject.cacheDelay(delay))
+                .verifyComplete();
+
+        List<String> keys = verifyScriptWrite(delaysRedisTemplate, "1", Duration.ofHours(6).toSeconds());
+        assertThat(keys).containsExactly(KEY_SET_PREFIX, expectedKey(delay));
+        verify(delaysValueOps, never()).set(anyString(), anyString(), any(Duration.class));
+        verify(keysSetOps, never()).add(anyString(), any(String[].class));
+    }
 
-        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+    @Test
+    void isDuplicate_afterCacheDelay_servedFromNearCache() {
+        DelayInfo delay = createDelay();
+        String key = expectedKey(delay);
+        givenScriptSucceeds(delaysRedisTemplate);
 
         StepVerifier.create(testedObject.cacheDelay(delay))
                 .verifyComplete();
+        StepVerifier.create(testedObject.isDuplicate(delay))
+                .expectNext(true)
+                .verifyComplete();
+
+        verify(delaysValueOps, never()).get(key);
+        verify(invalidationBus).publishInvalidation(CACHE_PREFIX, key);
+    }
 
-        verify(delaysValueOps).set(keyCaptor.capture(), eq("1"), any(Duration.class));
-        String usedKey = keyCaptor.getValue();
-        assertThat(usedKey).isEqualTo(expectedKey(delay));
+    @Test
+    @SuppressWarnings("unchecked")
+    void filterNew_mixedBatch_returnsOnlyClaimedDelaysInOneScriptCall() {
+        DelayInfo recorded = createDelay();
+        DelayInfo fresh = createDelay("KEL");
+        DelayInfo knownLocally = createDelay("FER");
+        nearCache.put(expectedKey(knownLocally), true);
+
+        when(delaysRedisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just("01"));
+
+        StepVerifier.create(testedObject.filterNew(List.of(recorded, fresh, knownLocally)))
+                .expectNext(fresh)
+                .verifyComplete();
+
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<String>> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(delaysRedisTemplate, times(1)).execute(any(RedisScript.class), keysCaptor.capture(), argsCaptor.capture());
+        assertThat(keysCaptor.getValue()).containsExactly(KEY_SET_PREFIX, expectedKey(recorded), expectedKey(fresh));
+        assertThat(argsCaptor.getValue()).containsExactly(Long.toString(Duration.ofHours(6).toSeconds()), "1");
+        assertThat(nearCache.getIfPresent(expectedKey(recorded))).isTrue();
+        assertThat(nearCache.getIfPresent(expectedKey(fresh))).isTrue();
+        verify(invalidationBus).publishInvalidation(CACHE_PREFIX, expectedKey(fresh));
+        verify(invalidationBus, never()).publishInvalidation(CACHE_PREFIX, expectedKey(recorded));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filterNew_allKnownLocally_skipsRedis() {
+        DelayInfo delay = createDelay();
+        nearCache.put(expectedKey(delay), true);
+
+        StepVerifier.create(testedObject.filterNew(List.of(delay)))
+                .verifyComplete();
 
-        verify(keysSetOps).add(KEY_SET_PREFIX, usedKey);
+        verify(delaysRedisTemplate, never()).execute(any(RedisScript.class), anyList(), anyList());
     }
 
     @Test
     void evict_called_removesBothValueAndKey() {
         DelayInfo delay = createDelay();
         String key = expectedKey(delay);
+        nearCache.put(key, true);
 
         when(delaysRedisTemplate.delete(key)).thenReturn(Mono.just(1L));
         when(keysSetOps.remove(KEY_SET_PREFIX, key)).thenReturn(Mono.just(1L));
@@ -129,6 +214,8 @@ class DelayInfoCacheTest {
 
         verify(delaysRedisTemplate).delete(key);
         verify(keysSetOps).remove(KEY_SET_PREFIX, key);
+        verify(invalidationBus).publishInvalidation(CACHE_PREFIX, key);
+        assertThat(nearCache.getIfPresent(key)).isNull();
     }
 
     @Test
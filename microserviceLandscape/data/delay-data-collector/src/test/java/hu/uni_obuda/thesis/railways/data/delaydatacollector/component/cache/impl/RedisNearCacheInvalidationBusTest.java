@@ -0,0 +1,96 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl.RedisNearCacheInvalidationBus.CHANNEL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RedisNearCacheInvalidationBusTest {
+
+    private static final String CACHE_NAME = "trainStatus";
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private Cache<String, Boolean> nearCache;
+    private RedisNearCacheInvalidationBus testedObject;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.listenToChannel(CHANNEL)).thenReturn(Flux.never());
+        when(redisTemplate.convertAndSend(eq(CHANNEL), anyString())).thenReturn(Mono.just(1L));
+
+        nearCache = Caffeine.newBuilder().build();
+        testedObject = new RedisNearCacheInvalidationBus(redisTemplate);
+        testedObject.register(CACHE_NAME, nearCache);
+        testedObject.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testedObject.stop();
+    }
+
+    @Test
+    void publishInvalidation_burstOfKeys_publishedAsSingleMessage() {
+        testedObject.publishInvalidation(CACHE_NAME, "trainStatus:IC1:2025-01-01");
+        testedObject.publishInvalidation(CACHE_NAME, "trainStatus:IC2:2025-01-01");
+
+        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, timeout(Duration.ofSeconds(1).toMillis())).convertAndSend(eq(CHANNEL), messageCaptor.capture());
+        assertThat(messageCaptor.getValue())
+                .isEqualTo(testedObject.getInstanceId() + "\n" + CACHE_NAME + "\ntrainStatus:IC1:2025-01-01\ntrainStatus:IC2:2025-01-01");
+    }
+
+    @Test
+    void onMessage_fromOtherInstance_invalidatesKeys() {
+        nearCache.put("a", true);
+        nearCache.put("b", false);
+
+        testedObject.onMessage("other-instance\n" + CACHE_NAME + "\na");
+
+        assertThat(nearCache.getIfPresent("a")).isNull();
+        assertThat(nearCache.getIfPresent("b")).isFalse();
+    }
+
+    @Test
+    void onMessage_invalidateAllFromOtherInstance_clearsCache() {
+        nearCache.put("a", true);
+        nearCache.put("b", false);
+
+        testedObject.onMessage("other-instance\n" + CACHE_NAME + "\n" + RedisNearCacheInvalidationBus.ALL_KEYS);
+
+        assertThat(nearCache.asMap()).isEmpty();
+    }
+
+    @Test
+    void onMessage_fromSelf_ignored() {
+        nearCache.put("a", true);
+
+        testedObject.onMessage(testedObject.getInstanceId() + "\n" + CACHE_NAME + "\na");
+
+        assertThat(nearCache.getIfPresent("a")).isTrue();
+    }
+}
@@ -1,5 +1,8 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.NearCacheInvalidationBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,20 +15,25 @@ import org.reactivestreams.Publisher;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ReactiveSetOperations;
 import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
 
 import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.TrainStatusCache.CACHE_PREFIX;
 import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.TrainStatusCache.KEY_SET_PREFIX;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -37,7 +45,10 @@ class TrainStatusCacheTest {
     private ReactiveValueOperations<String, String> valueOps;
     @Mock
     private ReactiveSetOperations<String, String> setOps;
+    @Mock
+    private NearCacheInvalidationBus invalidationBus;
 
+    private Cache<String, Boolean> nearCache;
     private TrainStatusCacheImpl testedObject;
 
     @BeforeEach
@@ -45,10 +56,33 @@ class TrainStatusCacheTest {
         when(redisTemplate.opsForValue()).thenReturn(valueOps);
         when(redisTemplate.opsForSet()).thenReturn(setOps);
 
-        testedObject = new TrainStatusCacheImpl(redisTemplate);
+        when(redisTemplate.getSerializationContext()).thenReturn(RedisSerializationContext.string());
+
+        nearCache = Caffeine.newBuilder().build();
+        testedObject = new TrainStatusCacheImpl(redisTemplate, nearCache, invalidationBus);
         ReflectionTestUtils.setField(testedObject, "cacheDuration", 12);
     }
 
+    @SuppressWarnings("unchecked")
+    private List<String> verifyScriptWrite(ReactiveRedisTemplate<String, ?> template, String expectedValue, long expectedTimeToLive) {
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<byte[]>> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(template).execute(any(RedisScript.class), keysCaptor.capture(), argsCaptor.capture(),
+                any(RedisElementWriter.class), any(RedisElementReader.class));
+        List<byte[]> args = argsCaptor.getValue();
+        assertThat(new String(args.get(0), StandardCharsets.UTF_8)).isEqualTo(Long.toString(expectedTimeToLive));
+        if (expectedValue != null) {
+            assertThat(new String(args.get(1), StandardCharsets.UTF_8)).isEqualTo(expectedValue);
+        }
+        return keysCaptor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenScriptSucceeds(ReactiveRedisTemplate<String, ?> template) {
+        when(template.execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn(Flux.just(1L));
+    }
+
     private String expectedKey(String trainNumber, LocalDate date) {
         return CACHE_PREFIX + ":" + trainNumber + ":" + date;
     }
@@ -99,47 +133,69 @@ class TrainStatusCacheTest {
     }
 
     @Test
-    void markComplete_called_storesValueAndRegistersKey() {
+    void markComplete_called_storesValueAndRegistersKeyInSingleScriptCall() {
         String trainNumber = "IC123";
         LocalDate date = LocalDate.of(2025, 1, 1);
-
-        when(valueOps.set(anyString(), eq("complete"), any(Duration.class)))
-                .thenReturn(Mono.just(true));
-        when(setOps.add(eq(KEY_SET_PREFIX), anyString()))
-                .thenReturn(Mono.just(1L));
-
-        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        givenScriptSucceeds(redisTemplate);
 
         StepVerifier.create(testedObject.markComplete(trainNumber, date))
                 .verifyComplete();
 
-        verify(valueOps).set(keyCaptor.capture(), eq("complete"), any(Duration.class));
-        String usedKey = keyCaptor.getValue();
-        assertThat(usedKey).isEqualTo(expectedKey(trainNumber, date));
-
-        verify(setOps).add(KEY_SET_PREFIX, usedKey);
+        List<String> keys = verifyScriptWrite(redisTemplate, "complete", Duration.ofHours(12).toSeconds());
+        assertThat(keys).containsExactly(KEY_SET_PREFIX, expectedKey(trainNumber, date));
     }
 
     @Test
-    void markIncomplete_called_storesValueAndRegistersKey() {
+    void markIncomplete_called_storesValueAndRegistersKeyInSingleScriptCall() {
         String trainNumber = "IC123";
         LocalDate date = LocalDate.of(2025, 1, 1);
+        givenScriptSucceeds(redisTemplate);
 
-        when(valueOps.set(anyString(), eq("incomplete"), any(Duration.class)))
-                .thenReturn(Mono.just(true));
-        when(setOps.add(eq(KEY_SET_PREFIX), anyString()))
-                .thenReturn(Mono.just(1L));
+        StepVerifier.create(testedObject.markIncomplete(trainNumber, date))
+                .verifyComplete();
 
-        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        List<String> keys = verifyScriptWrite(redisTemplate, "incomplete", Duration.ofHours(12).toSeconds());
+        assertThat(keys).containsExactly(KEY_SET_PREFIX, expectedKey(trainNumber, date));
+    }
 
-        StepVerifier.create(testedObject.markIncomplete(trainNumber, date))
+    @Test
+    void isComplete_calledTwice_secondLookupServedFromNearCache() {
+        String trainNumber = "IC123";
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        String key = expectedKey(trainNumber, date);
+
+        when(valueOps.get(key)).thenReturn(Mono.just("complete"));
+
+        StepVerifier.create(testedObject.isComplete(trainNumber, date))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(testedObject.isComplete(trainNumber, date))
+                .expectNext(true)
                 .verifyComplete();
 
-        verify(valueOps).set(keyCaptor.capture(), eq("incomplete"), any(Duration.class));
-        String usedKey = keyCaptor.getValue();
-        assertThat(usedKey).isEqualTo(expectedKey(trainNumber, date));
+        verify(valueOps, times(1)).get(key);
+    }
+
+    @Test
+    void isComplete_valueMissing_negativeEntryCachedUntilMarkedComplete() {
+        String trainNumber = "IC123";
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        String key = expectedKey(trainNumber, date);
+
+        when(valueOps.get(key)).thenReturn(Mono.empty());
+        givenScriptSucceeds(redisTemplate);
+
+        StepVerifier.create(testedObject.isComplete(trainNumber, date))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(testedObject.markComplete(trainNumber, date))
+                .verifyComplete();
+        StepVerifier.create(testedObject.isComplete(trainNumber, date))
+                .expectNext(true)
+                .verifyComplete();
 
-        verify(setOps).add(KEY_SET_PREFIX, usedKey);
+        verify(valueOps, times(1)).get(key);
+        verify(invalidationBus).publishInvalidation(CACHE_PREFIX, key);
     }
 
     @Test
@@ -156,6 +212,7 @@ class TrainStatusCacheTest {
 
         verify(valueOps).delete(key);
         verify(setOps).remove(KEY_SET_PREFIX, key);
+        verify(invalidationBus).publishInvalidation(CACHE_PREFIX, key);
     }
 
     @Test
@@ -178,6 +235,7 @@ class TrainStatusCacheTest {
         verify(setOps).members(KEY_SET_PREFIX);
         verify(redisTemplate).delete(any(Publisher.class));
         verify(redisTemplate).delete(KEY_SET_PREFIX);
+        verify(invalidationBus).publishInvalidateAll(CACHE_PREFIX);
     }
 
     @Test
@@ -1,5 +1,7 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,14 +15,22 @@ import org.reactivestreams.Publisher;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ReactiveSetOperations;
 import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.WeatherInfoCache.CACHE_PREFIX;
 import static hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.WeatherInfoCache.KEY_SET_PREFIX;
@@ -51,10 +61,36 @@ class WeatherInfoCacheTest {
         when(weatherInfosRedisTemplate.opsForValue()).thenReturn(weatherValueOps);
         when(keysRedisTemplate.opsForSet()).thenReturn(keysSetOps);
 
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        when(weatherInfosRedisTemplate.getSerializationContext()).thenReturn(RedisSerializationContext
+                .<String, WeatherInfo>newSerializationContext(new StringRedisSerializer())
+                .value(new Jackson2JsonRedisSerializer<>(objectMapper, WeatherInfo.class))
+                .build());
+
         testedObject = new WeatherInfoCacheImpl(weatherInfosRedisTemplate, keysRedisTemplate);
         ReflectionTestUtils.setField(testedObject, "cacheDuration", 12);
     }
 
+    @SuppressWarnings("unchecked")
+    private List<String> verifyScriptWrite(ReactiveRedisTemplate<String, ?> template, String expectedValue, long expectedTimeToLive) {
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<byte[]>> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(template).execute(any(RedisScript.class), keysCaptor.capture(), argsCaptor.capture(),
+                any(RedisElementWriter.class), any(RedisElementReader.class));
+        List<byte[]> args = argsCaptor.getValue();
+        assertThat(new String(args.get(0), StandardCharsets.UTF_8)).isEqualTo(Long.toString(expectedTimeToLive));
+        if (expectedValue != null) {
+            assertThat(new String(args.get(1), StandardCharsets.UTF_8)).isEqualTo(expectedValue);
+        }
+        return keysCaptor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenScriptSucceeds(ReactiveRedisTemplate<String, ?> template) {
+        when(template.execute(any(RedisScript.class), anyList(), anyList(), any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn(Flux.just(1L));
+    }
+
     private WeatherInfo createWeatherInfo() {
         return WeatherInfo.builder()
                 .time(LocalDateTime.of(2025, 1, 1, 15, 30))
@@ -99,26 +135,17 @@ class WeatherInfoCacheTest {
     }
 
     @Test
-    void cacheWeatherInfo_called_storesValueAndRegistersKey() {
+    void cacheWeatherInfo_called_storesValueAndRegistersKeyInSingleScriptCall() {
         WeatherInfo weatherInfo = createWeatherInfo();
         String stationName = weatherInfo.getAddress();
         LocalDateTime time = weatherInfo.getTime();
-
-        when(weatherValueOps.set(anyString(), eq(weatherInfo), any(Duration.class)))
-                .thenReturn(Mono.just(true));
-        when(keysSetOps.add(eq(KEY_SET_PREFIX), anyString()))
-                .thenReturn(Mono.just(1L));
-
-        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        givenScriptSucceeds(weatherInfosRedisTemplate);
 
         StepVerifier.create(testedObject.cacheWeatherInfo(weatherInfo))
                 .verifyComplete();
 
-        verify(weatherValueOps).set(keyCaptor.capture(), eq(weatherInfo), any(Duration.class));
-        String usedKey = keyCaptor.getValue();
-        assertThat(usedKey).isEqualTo(expectedKey(stationName, time));
-
-        verify(keysSetOps).add(KEY_SET_PREFIX, usedKey);
+        List<String> keys = verifyScriptWrite(weatherInfosRedisTemplate, null, Duration.ofHours(12).toSeconds());
+        assertThat(keys).containsExactly(KEY_SET_PREFIX, expectedKey(stationName, time));
     }
 
     @Test
@@ -0,0 +1,58 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.pipeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineStageTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void flatMap_slowWork_requestsNoMoreThanConcurrencyFromUpstream() {
+        PipelineStage testedObject = new PipelineStage("test", "slow", 2, meterRegistry);
+        AtomicLong requested = new AtomicLong();
+        Sinks.Empty<Void> gate = Sinks.empty();
+
+        Flux<Integer> upstream = Flux.range(1, 10).doOnRequest(requested::addAndGet);
+
+        StepVerifier.create(upstream.transform(testedObject.<Integer, Integer>flatMap(i -> gate.asMono().thenReturn(i))))
+                .then(() -> {
+                    assertThat(requested.get()).isEqualTo(2);
+                    assertThat(testedObject.getInFlight()).isEqualTo(2);
+                })
+                .then(gate::tryEmitEmpty)
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertThat(testedObject.getInFlight()).isZero();
+        assertThat(meterRegistry.get("test.stage.processed").tag("stage", "slow").counter().count()).isEqualTo(10);
+    }
+
+    @Test
+    void flatMap_failingElement_droppedAndPipelineContinues() {
+        PipelineStage testedObject = new PipelineStage("test", "failing", 4, meterRegistry);
+
+        StepVerifier.create(Flux.range(1, 3)
+                        .transform(testedObject.<Integer, Integer>flatMap(i -> i == 2
+                                ? Mono.error(new IllegalStateException("boom"))
+                                : Mono.just(i))))
+                .expectNext(1, 3)
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("test.stage.failed").tag("stage", "failing").counter().count()).isEqualTo(1);
+    }
+}
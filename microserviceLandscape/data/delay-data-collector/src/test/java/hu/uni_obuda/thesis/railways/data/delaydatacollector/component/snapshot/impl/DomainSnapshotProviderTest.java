@@ -0,0 +1,124 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.impl;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshot;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainRouteEntity;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainStationEntity;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainRouteRepository;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainStationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DomainSnapshotProviderTest {
+
+    @Mock
+    private TrainStationRepository stationRepository;
+    @Mock
+    private TrainRouteRepository routeRepository;
+
+    private DomainSnapshotProviderImpl testedObject;
+
+    @BeforeEach
+    void setUp() {
+        testedObject = new DomainSnapshotProviderImpl(stationRepository, routeRepository);
+    }
+
+    private TrainStationEntity station(String code, Double latitude, Double longitude) {
+        return TrainStationEntity.builder().stationCode(code).latitude(latitude).longitude(longitude).build();
+    }
+
+    private TrainRouteEntity route(String trainNumber, String from, String to) {
+        return TrainRouteEntity.builder().trainNumber(trainNumber).lineNumber("1").from(from).to(to).build();
+    }
+
+    @Test
+    void getSnapshot_firstCall_loadsOnceAndIndexesEntities() {
+        when(stationRepository.findAll()).thenReturn(Flux.just(station("BPK", 47.5, 19.08), station("GYOR", 47.68, 17.64)));
+        when(routeRepository.findAll()).thenReturn(Flux.just(route("IC100", "BPK", "GYOR")));
+
+        StepVerifier.create(testedObject.getSnapshot())
+                .assertNext(snapshot -> {
+                    assertThat(snapshot.getVersion()).isEqualTo(1);
+                    assertThat(snapshot.getStation("GYOR").getLatitude()).isEqualTo(47.68);
+                    assertThat(snapshot.getRoute("IC100").getTo()).isEqualTo("GYOR");
+                    assertThat(snapshot.getStation("UNKNOWN")).isNull();
+                })
+                .verifyComplete();
+
+        StepVerifier.create(testedObject.getSnapshot())
+                .assertNext(snapshot -> assertThat(snapshot.getVersion()).isEqualTo(1))
+                .verifyComplete();
+
+        verify(stationRepository, times(1)).findAll();
+        verify(routeRepository, times(1)).findAll();
+    }
+
+    @Test
+    void getSnapshot_loadFails_retriesOnNextCall() {
+        when(stationRepository.findAll())
+                .thenReturn(Flux.error(new RuntimeException("db down")))
+                .thenReturn(Flux.just(station("BPK", 47.5, 19.08)));
+        when(routeRepository.findAll()).thenReturn(Flux.empty());
+
+        StepVerifier.create(testedObject.getSnapshot())
+                .expectErrorMessage("db down")
+                .verify();
+
+        StepVerifier.create(testedObject.getSnapshot())
+                .assertNext(snapshot -> assertThat(snapshot.containsStation("BPK")).isTrue())
+                .verifyComplete();
+    }
+
+    @Test
+    void mutations_afterLoad_produceNewVersionsWithoutTouchingPreviousSnapshot() {
+        when(stationRepository.findAll()).thenReturn(Flux.just(station("BPK", null, null)));
+        when(routeRepository.findAll()).thenReturn(Flux.just(route("IC100", "BPK", "GYOR")));
+
+        DomainSnapshot initial = testedObject.getSnapshot().block();
+
+        testedObject.onStationChanged(station("BPK", 47.5, 19.08));
+        testedObject.onRouteChanged(route("IC200", "GYOR", "BPK"));
+        testedObject.onRouteDeleted("IC100");
+
+        DomainSnapshot updated = testedObject.getSnapshot().block();
+
+        assertThat(initial.getVersion()).isEqualTo(1);
+        assertThat(initial.getStation("BPK").getLatitude()).isNull();
+        assertThat(initial.getRoute("IC100")).isNotNull();
+
+        assertThat(updated.getVersion()).isEqualTo(4);
+        assertThat(updated.getStation("BPK").getLatitude()).isEqualTo(47.5);
+        assertThat(updated.getRoute("IC200")).isNotNull();
+        assertThat(updated.getRoute("IC100")).isNull();
+    }
+
+    @Test
+    void mutations_beforeLoad_areIgnoredUntilFullLoad() {
+        testedObject.onStationChanged(station("BPK", 47.5, 19.08));
+
+        verifyNoInteractions(stationRepository, routeRepository);
+    }
+
+    @Test
+    void refresh_afterLoad_replacesSnapshotWithIncrementedVersion() {
+        when(stationRepository.findAll()).thenReturn(Flux.just(station("BPK", 47.5, 19.08)));
+        when(routeRepository.findAll()).thenReturn(Flux.empty());
+
+        testedObject.getSnapshot().block();
+
+        StepVerifier.create(testedObject.refresh())
+                .assertNext(snapshot -> assertThat(snapshot.getVersion()).isEqualTo(2))
+                .verifyComplete();
+    }
+}
@@ -12,6 +12,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.Set;
+
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -57,6 +59,22 @@ class TrainStationControllerTest {
         verifyNoMoreInteractions(service, geocodingService);
     }
 
+    @Test
+    void getTrainStationsByCodes_callsGetTrainStationsByIdsOnService() {
+        Set<String> codes = Set.of("ST001", "ST002");
+        TrainStationResponse station = mock(TrainStationResponse.class);
+        when(service.getTrainStationsByIds(codes)).thenReturn(Flux.just(station));
+
+        Flux<TrainStationResponse> result = testedObject.getTrainStationsByCodes(codes);
+
+        StepVerifier.create(result)
+                .expectNext(station)
+                .verifyComplete();
+
+        verify(service, times(1)).getTrainStationsByIds(codes);
+        verifyNoMoreInteractions(service, geocodingService);
+    }
+
     @Test
     void fetchGeolocationForTrainStation_fetchesStationThenCallsGeocodingService() {
         String code = "ST002";
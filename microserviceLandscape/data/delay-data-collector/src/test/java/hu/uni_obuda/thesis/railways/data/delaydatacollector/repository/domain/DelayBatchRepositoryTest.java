@@ -0,0 +1,91 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.DelayEntity;
+import io.r2dbc.postgresql.codec.Json;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DelayBatchRepositoryTest {
+
+    @Mock
+    private DatabaseClient databaseClient;
+    @Mock(answer = Answers.RETURNS_SELF)
+    private DatabaseClient.GenericExecuteSpec executeSpec;
+
+    private DelayBatchRepositoryImpl testedObject;
+
+    @BeforeEach
+    void setUp() {
+        testedObject = new DelayBatchRepositoryImpl(databaseClient, new ObjectMapper());
+    }
+
+    @Test
+    void toInsertStatement_twoRows_numbersPlaceholdersSequentially() {
+        String sql = DelayBatchRepositoryImpl.toInsertStatement(2);
+
+        assertThat(sql).startsWith("INSERT INTO delays");
+        assertThat(sql).endsWith("VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10, $11, $12), "
+                + "($13, $14, $15, $16, $17, $18, $19, $20, $21, $22, $23, $24)");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void insertAll_twoDelays_singleStatementWithAllRowsBound() {
+        FetchSpec<Map<String, Object>> fetchSpec = mock(FetchSpec.class);
+        when(databaseClient.sql(anyString())).thenReturn(executeSpec);
+        when(executeSpec.fetch()).thenReturn(fetchSpec);
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(2L));
+
+        DelayEntity first = DelayEntity.builder()
+                .stationCode("BPK")
+                .trainNumber("IC123")
+                .scheduledArrival(LocalDateTime.of(2025, 1, 1, 10, 0))
+                .arrivalDelay(3)
+                .date(LocalDate.of(2025, 1, 1))
+                .build();
+        DelayEntity second = DelayEntity.builder()
+                .stationCode("KEL")
+                .trainNumber("IC123")
+                .date(LocalDate.of(2025, 1, 1))
+                .build();
+
+        StepVerifier.create(testedObject.insertAll(List.of(first, second)))
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(databaseClient, times(1)).sql(DelayBatchRepositoryImpl.toInsertStatement(2));
+        verify(executeSpec).bind(0, "BPK");
+        verify(executeSpec).bind(8, 3);
+        verify(executeSpec).bindNull(11, Json.class);
+        verify(executeSpec).bind(12, "KEL");
+        verify(executeSpec).bindNull(20, Integer.class);
+    }
+
+    @Test
+    void insertAll_emptyList_doesNotTouchDatabase() {
+        StepVerifier.create(testedObject.insertAll(List.of()))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(databaseClient);
+    }
+}
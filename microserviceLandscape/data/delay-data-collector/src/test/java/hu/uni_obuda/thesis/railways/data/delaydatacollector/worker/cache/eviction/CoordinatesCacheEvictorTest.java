@@ -1,6 +1,7 @@
 package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.cache.eviction;
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.CoordinatesCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainStationRepository;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
 import org.junit.jupiter.api.Test;
@@ -26,6 +27,8 @@ class CoordinatesCacheEvictorTest {
     private TrainStationRepository trainStationRepository;
     @Mock
     private TrainStationEntity stationEntity;
+    @Mock
+    private DomainSnapshotProvider snapshotProvider;
 
     @InjectMocks
     private CoordinatesCacheEvictor testedObject;
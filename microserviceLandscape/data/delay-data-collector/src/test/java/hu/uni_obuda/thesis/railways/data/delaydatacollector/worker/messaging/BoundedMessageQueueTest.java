@@ -0,0 +1,86 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedMessageQueueTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedMessageQueue<String> testedObject;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        testedObject = new BoundedMessageQueue<>();
+        testedObject.bindTo(meterRegistry, "test.queue");
+    }
+
+    @Test
+    void offer_noSubscriber_rejectedAfterTimeout() throws Exception {
+        assertThat(testedObject.offer("a", Duration.ofMillis(50))).isFalse();
+        assertThat(meterRegistry.counter("test.queue.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void offer_withinRequestedAmount_admittedImmediately() {
+        StepVerifier.create(testedObject.asFlux(), 2)
+                .then(() -> offerQuietly("a"))
+                .then(() -> offerQuietly("b"))
+                .expectNext("a", "b")
+                .thenCancel()
+                .verify();
+
+        assertThat(meterRegistry.counter("test.queue.admitted").count()).isEqualTo(2);
+    }
+
+    @Test
+    void offer_beyondRequestedAmount_blocksUntilMoreRequested() throws Exception {
+        StepVerifier.create(testedObject.asFlux(), 1)
+                .then(() -> offerQuietly("a"))
+                .expectNext("a")
+                .then(() -> {
+                    CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> offerQuietly("b"));
+                    await(() -> testedObject.getWaitingProducers() == 1);
+                    assertThat(blocked).isNotDone();
+                })
+                .thenRequest(1)
+                .expectNext("b")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void cancel_leftoverCreditsDiscarded() {
+        StepVerifier.create(testedObject.asFlux(), 5)
+                .thenCancel()
+                .verify();
+
+        assertThat(testedObject.getAvailableCredits()).isZero();
+    }
+
+    private boolean offerQuietly(String element) {
+        try {
+            return testedObject.offer(element, Duration.ofSeconds(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -12,6 +12,8 @@ import hu.uni_obuda.thesis.railways.data.event.Event;
 import hu.uni_obuda.thesis.railways.data.event.HttpResponseEvent;
 import hu.uni_obuda.thesis.railways.data.event.ResponsePayload;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
+import hu.uni_obuda.thesis.railways.util.correlation.CorrelationRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -63,8 +65,11 @@ class CoordinateProcessorTest {
     void setUp() {
         objectMapper = new ObjectMapper();
         incomingMessageSink = new IncomingMessageSink();
-        registry = new CoordinatesRegistryImpl(coordinatesCache);
+        registry = new CoordinatesRegistryImpl(coordinatesCache, new SimpleMeterRegistry());
         ReflectionTestUtils.setField(registry, "timeout", 10);
+        ReflectionTestUtils.setField(registry, "maxPending", 100);
+        ReflectionTestUtils.setField(registry, "earlyResponseTtl", 5);
+        registry.init();
 
         testedObject = new CoordinateProcessorImpl(objectMapper, registry, incomingMessageSink);
 
@@ -81,6 +86,7 @@ class CoordinateProcessorTest {
 
     @AfterEach
     void tearDown() {
+        registry.shutdown();
         if (processorLogger != null && processorAppender != null) {
             processorLogger.detachAppender(processorAppender);
         }
@@ -170,9 +176,8 @@ class CoordinateProcessorTest {
                 .expectTimeout(Duration.ofMillis(200))
                 .verify();
 
-        assertThat(ReflectionTestUtils.<Object>getField(registry, "pending"))
-                .asInstanceOf(org.assertj.core.api.InstanceOfAssertFactories.MAP)
-                .isEmpty();
+        assertThat(((CorrelationRegistry<?, ?>) ReflectionTestUtils.getField(registry, "correlations")).size())
+                .isZero();
 
         List<String> logs = loggedProcessorMessages();
         assertThat(logs).anyMatch(m -> m.contains("Received an error response: " + rawError));
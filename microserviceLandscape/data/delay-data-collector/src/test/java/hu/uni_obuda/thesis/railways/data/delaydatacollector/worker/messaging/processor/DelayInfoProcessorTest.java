@@ -36,6 +36,7 @@ import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -65,7 +66,7 @@ class DelayInfoProcessorTest {
 
         incomingMessageSink = new IncomingMessageSink();
 
-        testedObject = new DelayInfoProcessorImpl(objectMapper, incomingMessageSink, statusCache);
+        testedObject = new DelayInfoProcessorImpl(objectMapper, incomingMessageSink, statusCache, Duration.ofMillis(200));
 
         processorLogger = (Logger) LoggerFactory.getLogger(DelayInfoProcessorImpl.class);
         processorAppender = new ListAppender<>();
@@ -111,7 +112,7 @@ class DelayInfoProcessorTest {
 
         Message<Event<?, ?>> message = buildMessage(httpResponseEvent);
 
-        StepVerifier.create(incomingMessageSink.getDelaySink().asFlux().take(1))
+        StepVerifier.create(incomingMessageSink.getDelayQueue().asFlux().take(1))
                 .then(() -> testedObject.accept(message))
                 .assertNext(resp -> assertThat(resp).usingRecursiveComparison().isEqualTo(info))
                 .verifyComplete();
@@ -204,7 +205,7 @@ class DelayInfoProcessorTest {
 
         testedObject.accept(message);
 
-        StepVerifier.create(incomingMessageSink.getDelaySink().asFlux().take(1))
+        StepVerifier.create(incomingMessageSink.getDelayQueue().asFlux().take(1))
                 .expectTimeout(Duration.ofMillis(200))
                 .verify();
 
@@ -214,7 +215,7 @@ class DelayInfoProcessorTest {
     }
 
     @Test
-    void concurrentSubscribers_allReceiveSameDelayInfo() throws Exception {
+    void concurrentMessages_pipelineRequestsAll_everyDelayInfoAdmitted() throws Exception {
         String train = "IC777";
         String station = "GYOR";
         DelayInfo info = delayInfo(train, station);
@@ -228,23 +229,19 @@ class DelayInfoProcessorTest {
         Message<Event<?, ?>> message = buildMessage(httpResponseEvent);
 
         int threads = 10;
-        ExecutorService executor = Executors.newFixedThreadPool(threads);
         List<DelayInfo> results = new CopyOnWriteArrayList<>();
         CountDownLatch latch = new CountDownLatch(threads);
+        incomingMessageSink.getDelayQueue().asFlux()
+                .subscribe(r -> {
+                    results.add(r);
+                    latch.countDown();
+                });
 
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
         for (int i = 0; i < threads; i++) {
-            executor.submit(() ->
-                    incomingMessageSink.getDelaySink().asFlux().take(1)
-                            .subscribe(r -> {
-                                results.add(r);
-                                latch.countDown();
-                            }));
+            executor.submit(() -> testedObject.accept(message));
         }
 
-        Thread.sleep(100);
-
-        testedObject.accept(message);
-
         assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
         executor.shutdownNow();
 
@@ -252,6 +249,23 @@ class DelayInfoProcessorTest {
         results.forEach(r -> assertThat(r).usingRecursiveComparison().isEqualTo(info));
     }
 
+    @Test
+    void accept_pipelineNotRequesting_throwsSoMessageIsRedelivered() throws Exception {
+        DelayInfo info = delayInfo("IC999", "SZEGED");
+        String json = objectMapper.writeValueAsString(info);
+
+        when(httpResponseEvent.getEventCreatedAt()).thenReturn(ZonedDateTime.now());
+        when(httpResponseEvent.getEventType()).thenReturn(HttpResponseEvent.Type.SUCCESS);
+        when(httpResponseEvent.getData()).thenReturn(responsePayload);
+        when(responsePayload.getMessage()).thenReturn(json);
+
+        Message<Event<?, ?>> message = buildMessage(httpResponseEvent);
+
+        assertThatThrownBy(() -> testedObject.accept(message))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(loggedProcessorMessages()).anyMatch(m -> m.contains("Could not add delay info"));
+    }
+
     @Test
     void happyPath_noErrorLogs() throws Exception {
         String train = "IC888";
@@ -265,6 +279,7 @@ class DelayInfoProcessorTest {
         when(responsePayload.getMessage()).thenReturn(json);
 
         Message<Event<?, ?>> message = buildMessage(httpResponseEvent);
+        incomingMessageSink.getDelayQueue().asFlux().subscribe();
 
         testedObject.accept(message);
 
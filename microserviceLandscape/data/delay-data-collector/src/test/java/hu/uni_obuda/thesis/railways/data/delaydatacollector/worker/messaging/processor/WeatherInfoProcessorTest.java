@@ -14,6 +14,7 @@ import hu.uni_obuda.thesis.railways.data.event.Event;
 import hu.uni_obuda.thesis.railways.data.event.HttpResponseEvent;
 import hu.uni_obuda.thesis.railways.data.event.ResponsePayload;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -69,8 +70,11 @@ class WeatherInfoProcessorTest {
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
         incomingMessageSink = new IncomingMessageSink();
-        registry = new WeatherInfoRegistryImpl(weatherInfoCache);
+        registry = new WeatherInfoRegistryImpl(weatherInfoCache, new SimpleMeterRegistry());
         ReflectionTestUtils.setField(registry, "timeout", 10);
+        ReflectionTestUtils.setField(registry, "maxPending", 100);
+        ReflectionTestUtils.setField(registry, "earlyResponseTtl", 5);
+        registry.init();
 
         testedObject = new WeatherInfoProcessorImpl(objectMapper, registry, incomingMessageSink);
 
@@ -87,6 +91,7 @@ class WeatherInfoProcessorTest {
 
     @AfterEach
     void tearDown() {
+        registry.shutdown();
         if (processorLogger != null && processorAppender != null) {
             processorLogger.detachAppender(processorAppender);
         }
@@ -313,4 +318,39 @@ class WeatherInfoProcessorTest {
         assertThat(processorAppender.list)
                 .noneMatch(e -> e.getLevel() == Level.ERROR);
     }
+
+    @Test
+    void accept_batchResponse_emitsEveryInfoAndCompletesEachWaiter() throws Exception {
+        String station = "BPK";
+        LocalDateTime morning = LocalDateTime.of(2025, 1, 1, 8, 0);
+        LocalDateTime noon = LocalDateTime.of(2025, 1, 1, 12, 0);
+        WeatherInfo morningInfo = weather(station, morning, 3.0);
+        WeatherInfo noonInfo = weather(station, noon, null);
+        String json = objectMapper.writeValueAsString(List.of(morningInfo, noonInfo));
+
+        when(httpResponseEvent.getEventCreatedAt()).thenReturn(ZonedDateTime.now());
+        when(httpResponseEvent.getEventType()).thenReturn(HttpResponseEvent.Type.SUCCESS);
+        when(httpResponseEvent.getData()).thenReturn(responsePayload);
+        when(responsePayload.getMessage()).thenReturn(json);
+        when(weatherInfoCache.cacheWeatherInfo(any())).thenReturn(Mono.empty());
+
+        Mono<WeatherInfo> morningWait = registry.waitForWeather(station, morning);
+        Mono<WeatherInfo> noonWait = registry.waitForWeather(station, noon);
+
+        StepVerifier.create(incomingMessageSink.getWeatherSink().asFlux().take(2))
+                .then(() -> testedObject.accept(buildMessage(httpResponseEvent)))
+                .assertNext(resp -> assertThat(resp).usingRecursiveComparison().isEqualTo(morningInfo))
+                .assertNext(resp -> assertThat(resp).usingRecursiveComparison().isEqualTo(noonInfo))
+                .verifyComplete();
+
+        StepVerifier.create(Mono.zip(morningWait, noonWait))
+                .assertNext(tuple -> {
+                    assertThat(tuple.getT1()).usingRecursiveComparison().isEqualTo(morningInfo);
+                    assertThat(tuple.getT2()).usingRecursiveComparison().isEqualTo(noonInfo);
+                })
+                .verifyComplete();
+
+        verify(weatherInfoCache, times(1)).cacheWeatherInfo(any());
+        assertThat(registryLogs()).anyMatch(m -> m.contains("Received a batch of 2 weather infos, 2 of them had pending waiters"));
+    }
 }
@@ -6,12 +6,14 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.CoordinatesCache;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
+import hu.uni_obuda.thesis.railways.util.correlation.CorrelationRegistry;
+import hu.uni_obuda.thesis.railways.util.correlation.PendingLimitExceededException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ServiceResponseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
@@ -21,7 +23,8 @@ import reactor.test.StepVerifier;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -34,7 +37,8 @@ class CoordinatesRegistryTest {
     @Mock
     private CoordinatesCache coordinatesCache;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private CoordinatesRegistryImpl testedObject;
 
     private Logger logger;
@@ -42,7 +46,12 @@ class CoordinatesRegistryTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        testedObject = new CoordinatesRegistryImpl(coordinatesCache, meterRegistry);
         ReflectionTestUtils.setField(testedObject, "timeout", 1);
+        ReflectionTestUtils.setField(testedObject, "maxPending", 2);
+        ReflectionTestUtils.setField(testedObject, "earlyResponseTtl", 5);
+        testedObject.init();
 
         logger = (Logger) LoggerFactory.getLogger(CoordinatesRegistryImpl.class);
         listAppender = new ListAppender<>();
@@ -52,17 +61,16 @@ class CoordinatesRegistryTest {
 
     @AfterEach
     void tearDown() {
+        testedObject.shutdown();
         logger.detachAppender(listAppender);
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, ?> pendingMap() {
-        return (Map<String, ?>) ReflectionTestUtils.getField(testedObject, "pending");
+    private int registeredEntries() {
+        return ((CorrelationRegistry<?, ?>) ReflectionTestUtils.getField(testedObject, "correlations")).size();
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, ?> sharedMonosMap() {
-        return (Map<String, ?>) ReflectionTestUtils.getField(testedObject, "sharedMonos");
+    private double requests(String outcome) {
+        return meterRegistry.get("correlation.requests").tag("registry", "geocoding").tag("outcome", outcome).counter().count();
     }
 
     private List<String> loggedMessages() {
@@ -80,21 +88,21 @@ class CoordinatesRegistryTest {
     }
 
     @Test
-    void waitForCoordinates_createsSharedMonoAndLogs() {
+    void waitForCoordinates_registersPendingEntryAndLogs() {
         String station = "BPK";
 
         Mono<GeocodingResponse> mono = testedObject.waitForCoordinates(station);
         assertThat(mono).isNotNull();
 
-        assertThat(sharedMonosMap()).containsKey(station);
-        assertThat(pendingMap()).isEmpty();
+        assertThat(registeredEntries()).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1.0);
 
         assertThat(loggedMessages())
                 .anyMatch(msg -> msg.contains("Waiting for coordinates for station " + station));
     }
 
     @Test
-    void waitForCoordinates_success_onCoordinatesCompletesMono_cachesAndCleansMaps() {
+    void waitForCoordinates_success_onCoordinatesCompletesMono_cachesAndCleansUp() {
         String station = "BPK";
         GeocodingResponse response = coords(station, 47.5, 19.08);
 
@@ -109,8 +117,7 @@ class CoordinatesRegistryTest {
 
         verify(coordinatesCache).cache(station, response);
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
 
         List<String> messages = loggedMessages();
         assertThat(messages)
@@ -133,8 +140,7 @@ class CoordinatesRegistryTest {
 
         verify(coordinatesCache, never()).cache(any(), any());
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
 
         List<String> messages = loggedMessages();
         assertThat(messages)
@@ -142,16 +148,18 @@ class CoordinatesRegistryTest {
     }
 
     @Test
-    void waitForCoordinates_sharedMono_multipleSubscribersReceiveSameResult() {
+    void waitForCoordinates_concurrentWaits_shareOneRequestAndReceiveSameResult() {
         String station = "BPK";
         GeocodingResponse response = coords(station, 47.5, 19.08);
+        AtomicInteger requestsSent = new AtomicInteger();
 
         when(coordinatesCache.cache(eq(station), eq(response))).thenReturn(Mono.empty());
 
-        Mono<GeocodingResponse> mono1 = testedObject.waitForCoordinates(station);
-        Mono<GeocodingResponse> mono2 = testedObject.waitForCoordinates(station);
+        Mono<GeocodingResponse> mono1 = testedObject.waitForCoordinates(station, requestsSent::incrementAndGet);
+        Mono<GeocodingResponse> mono2 = testedObject.waitForCoordinates(station, requestsSent::incrementAndGet);
 
         assertThat(mono1).isSameAs(mono2);
+        assertThat(requestsSent).hasValue(1);
 
         StepVerifier.create(Mono.zip(mono1, mono2))
                 .then(() -> testedObject.onCoordinates(response))
@@ -162,45 +170,62 @@ class CoordinatesRegistryTest {
                 .verifyComplete();
 
         verify(coordinatesCache).cache(station, response);
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
+        assertThat(requests("miss")).isEqualTo(1.0);
+        assertThat(requests("hit")).isEqualTo(1.0);
     }
 
     @Test
-    void waitForCoordinates_timeout_emitsErrorAndCleansMaps() {
+    void waitForCoordinates_timeout_emitsTimeoutErrorAndCleansUp() {
         String station = "BPK";
 
-        StepVerifier.withVirtualTime(() -> testedObject.waitForCoordinates(station))
-                .thenAwait(Duration.ofSeconds(2))
-                .expectError()
-                .verify();
+        StepVerifier.create(testedObject.waitForCoordinates(station))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
+        assertThat(meterRegistry.get("correlation.timeouts").tag("registry", "geocoding").counter().count()).isEqualTo(1.0);
 
         assertThat(loggedMessages())
                 .anyMatch(msg -> msg.contains("Waiting for coordinates for station " + station));
     }
 
     @Test
-    void onCoordinates_whenNoPendingSinkOnlyCachesAndLogs() {
+    void waitForCoordinates_whenPendingLimitReached_rejectsNewKeys() {
+        testedObject.waitForCoordinates("BPK");
+        testedObject.waitForCoordinates("SZG");
+
+        StepVerifier.create(testedObject.waitForCoordinates("DEB"))
+                .expectError(PendingLimitExceededException.class)
+                .verify();
+
+        assertThat(registeredEntries()).isEqualTo(2);
+    }
+
+    @Test
+    void onCoordinates_whenNoPendingWait_cachesAndBuffersForEarlyWaiter() {
         String station = "BPK";
         GeocodingResponse response = coords(station, 47.5, 19.08);
+        AtomicInteger requestsSent = new AtomicInteger();
 
         when(coordinatesCache.cache(eq(station), eq(response))).thenReturn(Mono.empty());
 
         testedObject.onCoordinates(response);
 
         verify(coordinatesCache).cache(station, response);
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
-
         assertThat(loggedMessages())
                 .anyMatch(msg -> msg.contains("Registered coordinates for station " + station));
+
+        StepVerifier.create(testedObject.waitForCoordinates(station, requestsSent::incrementAndGet))
+                .expectNext(response)
+                .verifyComplete();
+
+        assertThat(requestsSent).hasValue(0);
+        assertThat(requests("early")).isEqualTo(1.0);
     }
 
     @Test
-    void onError_station_propagatesServiceResponseExceptionToSubscriberAndCleansMaps() {
+    void onError_station_propagatesServiceResponseExceptionToSubscriberAndCleansUp() {
         String station = "BPK";
         RuntimeException cause = new RuntimeException("boom");
 
@@ -214,8 +239,7 @@ class CoordinatesRegistryTest {
                 })
                 .verify();
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
 
         List<String> messages = loggedMessages();
         assertThat(messages)
@@ -223,15 +247,14 @@ class CoordinatesRegistryTest {
     }
 
     @Test
-    void onError_station_whenNoPendingSink_doesNothing() {
+    void onError_station_whenNoPendingWait_doesNothing() {
         String station = "BPK";
         RuntimeException cause = new RuntimeException("boom");
 
         testedObject.onError(station, cause);
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
 
-        assertThat(listAppender.list).noneMatch(e -> e.getLevel() == Level.ERROR);
+        assertThat(listAppender.list).noneMatch(e -> e.getLevel() == Level.WARN);
     }
 }
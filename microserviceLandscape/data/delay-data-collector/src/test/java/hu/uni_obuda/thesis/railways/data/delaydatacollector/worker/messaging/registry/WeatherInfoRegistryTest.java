@@ -6,12 +6,13 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.WeatherInfoCache;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.util.correlation.CorrelationRegistry;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ServiceResponseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
@@ -22,7 +23,8 @@ import reactor.test.StepVerifier;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -34,7 +36,8 @@ class WeatherInfoRegistryTest {
     @Mock
     private WeatherInfoCache weatherInfoCache;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private WeatherInfoRegistryImpl testedObject;
 
     private Logger logger;
@@ -42,7 +45,12 @@ class WeatherInfoRegistryTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        testedObject = new WeatherInfoRegistryImpl(weatherInfoCache, meterRegistry);
         ReflectionTestUtils.setField(testedObject, "timeout", 1);
+        ReflectionTestUtils.setField(testedObject, "maxPending", 100);
+        ReflectionTestUtils.setField(testedObject, "earlyResponseTtl", 5);
+        testedObject.init();
 
         logger = (Logger) LoggerFactory.getLogger(WeatherInfoRegistryImpl.class);
         listAppender = new ListAppender<>();
@@ -52,17 +60,16 @@ class WeatherInfoRegistryTest {
 
     @AfterEach
     void tearDown() {
+        testedObject.shutdown();
         logger.detachAppender(listAppender);
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, ?> pendingMap() {
-        return (Map<String, ?>) ReflectionTestUtils.getField(testedObject, "pending");
+    private int registeredEntries() {
+        return ((CorrelationRegistry<?, ?>) ReflectionTestUtils.getField(testedObject, "correlations")).size();
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, ?> sharedMonosMap() {
-        return (Map<String, ?>) ReflectionTestUtils.getField(testedObject, "sharedMonos");
+    private double requests(String outcome) {
+        return meterRegistry.get("correlation.requests").tag("registry", "weather").tag("outcome", outcome).counter().count();
     }
 
     private List<String> loggedMessages() {
@@ -80,7 +87,7 @@ class WeatherInfoRegistryTest {
     }
 
     @Test
-    void waitForWeather_byKey_createsSharedMonoAndLogs() {
+    void waitForWeather_byKey_registersPendingEntryAndLogs() {
         String station = "BPK";
         LocalDateTime time = LocalDateTime.of(2025, 1, 1, 15, 0);
         String key = station + ":" + time.toString();
@@ -88,15 +95,15 @@ class WeatherInfoRegistryTest {
         Mono<WeatherInfo> mono = testedObject.waitForWeather(station, time);
 
         assertThat(mono).isNotNull();
-        assertThat(sharedMonosMap()).containsKey(key);
-        assertThat(pendingMap()).isEmpty();
+        assertThat(registeredEntries()).isEqualTo(1);
+        assertThat(requests("miss")).isEqualTo(1.0);
 
         assertThat(loggedMessages())
                 .anyMatch(msg -> msg.contains("Waiting for weather info with key " + key));
     }
 
     @Test
-    void waitForWeather_byKey_success_withTemperature_cachesAndCleansMaps() {
+    void waitForWeather_byKey_success_withTemperature_cachesAndCleansUp() {
         String station = "BPK";
         LocalDateTime time = LocalDateTime.of(2025, 1, 1, 15, 0);
         String key = station + ":" + time.toString();
@@ -107,17 +114,13 @@ class WeatherInfoRegistryTest {
         Mono<WeatherInfo> mono = testedObject.waitForWeather(station, time);
 
         StepVerifier.create(mono)
-                .then(() -> {
-                    assertThat(pendingMap()).containsKey(key);
-                    testedObject.onWeatherInfo(info);
-                })
+                .then(() -> testedObject.onWeatherInfo(info))
                 .expectNext(info)
                 .verifyComplete();
 
         verify(weatherInfoCache).cacheWeatherInfo(info);
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
 
         List<String> messages = loggedMessages();
         assertThat(messages)
@@ -141,27 +144,26 @@ class WeatherInfoRegistryTest {
                 .verifyComplete();
 
         verify(weatherInfoCache, never()).cacheWeatherInfo(any());
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
 
         assertThat(loggedMessages())
                 .anyMatch(msg -> msg.contains("Received weather info with key " + key));
     }
 
     @Test
-    void waitForWeather_byKey_sharedMono_multipleSubscribersSeeSameResult() {
+    void waitForWeather_byKey_concurrentWaits_shareOneRequestAndSeeSameResult() {
         String station = "BPK";
         LocalDateTime time = LocalDateTime.of(2025, 1, 1, 16, 0);
-        String key = station + ":" + time.toString();
         WeatherInfo info = weather(station, time, 12.0);
+        AtomicInteger requestsSent = new AtomicInteger();
 
         when(weatherInfoCache.cacheWeatherInfo(info)).thenReturn(Mono.empty());
 
-        Mono<WeatherInfo> mono1 = testedObject.waitForWeather(station, time);
-        Mono<WeatherInfo> mono2 = testedObject.waitForWeather(station, time);
+        Mono<WeatherInfo> mono1 = testedObject.waitForWeather(station, time, requestsSent::incrementAndGet);
+        Mono<WeatherInfo> mono2 = testedObject.waitForWeather(station, time, requestsSent::incrementAndGet);
 
         assertThat(mono1).isSameAs(mono2);
-        assertThat(sharedMonosMap()).containsKey(key);
+        assertThat(requestsSent).hasValue(1);
 
         StepVerifier.create(Mono.zip(mono1, mono2))
                 .then(() -> testedObject.onWeatherInfo(info))
@@ -172,49 +174,78 @@ class WeatherInfoRegistryTest {
                 .verifyComplete();
 
         verify(weatherInfoCache).cacheWeatherInfo(info);
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
+        assertThat(requests("hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void waitForWeather_byKey_differentTimes_areNotCoalesced() {
+        String station = "BPK";
+        AtomicInteger requestsSent = new AtomicInteger();
+
+        testedObject.waitForWeather(station, LocalDateTime.of(2025, 1, 1, 16, 0), requestsSent::incrementAndGet);
+        testedObject.waitForWeather(station, LocalDateTime.of(2025, 1, 1, 17, 0), requestsSent::incrementAndGet);
+
+        assertThat(requestsSent).hasValue(2);
+        assertThat(registeredEntries()).isEqualTo(2);
     }
 
     @Test
-    void waitForWeather_byKey_timeout_emitsErrorAndCleansMaps() {
+    void waitForWeather_byKey_timeout_emitsTimeoutErrorAndCleansUp() {
         String station = "BPK";
         LocalDateTime time = LocalDateTime.of(2025, 1, 1, 17, 0);
         String key = station + ":" + time.toString();
 
-        StepVerifier.withVirtualTime(() -> testedObject.waitForWeather(station, time))
-                .thenAwait(Duration.ofSeconds(2))
-                .expectError()
-                .verify();
+        StepVerifier.create(testedObject.waitForWeather(station, time))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
+        assertThat(meterRegistry.get("correlation.timeouts").tag("registry", "weather").counter().count()).isEqualTo(1.0);
 
         assertThat(loggedMessages())
                 .anyMatch(msg -> msg.contains("Waiting for weather info with key " + key));
     }
 
     @Test
-    void onWeatherInfo_byKey_whenNoPendingOnlyCachesAndLogs() {
+    void waitForWeather_byKey_whenRequestSendingFails_errorsWaiters() {
+        String station = "BPK";
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 17, 0);
+        RuntimeException failure = new RuntimeException("broker down");
+
+        StepVerifier.create(testedObject.waitForWeather(station, time, () -> { throw failure; }))
+                .expectErrorMatches(ex -> ex == failure)
+                .verify();
+
+        assertThat(registeredEntries()).isZero();
+    }
+
+    @Test
+    void onWeatherInfo_byKey_whenNoPendingWait_cachesAndBuffersForEarlyWaiter() {
         String station = "BPK";
         LocalDateTime time = LocalDateTime.of(2025, 1, 1, 18, 0);
         String key = station + ":" + time.toString();
         WeatherInfo info = weather(station, time, 13.0);
+        AtomicInteger requestsSent = new AtomicInteger();
 
         when(weatherInfoCache.cacheWeatherInfo(info)).thenReturn(Mono.empty());
 
         testedObject.onWeatherInfo(info);
 
         verify(weatherInfoCache).cacheWeatherInfo(info);
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
-
         assertThat(loggedMessages())
                 .anyMatch(msg -> msg.contains("Received weather info with key " + key));
+
+        StepVerifier.create(testedObject.waitForWeather(station, time, requestsSent::incrementAndGet))
+                .expectNext(info)
+                .verifyComplete();
+
+        assertThat(requestsSent).hasValue(0);
+        assertThat(requests("early")).isEqualTo(1.0);
     }
 
     @Test
-    void onError_byKey_propagatesServiceResponseExceptionAndCleansMaps() {
+    void onError_byKey_propagatesServiceResponseExceptionAndCleansUp() {
         String station = "BPK";
         LocalDateTime time = LocalDateTime.of(2025, 1, 1, 21, 0);
         String key = station + ":" + time.toString();
@@ -230,8 +261,7 @@ class WeatherInfoRegistryTest {
                 })
                 .verify();
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
 
         List<String> messages = loggedMessages();
         assertThat(messages)
@@ -246,8 +276,7 @@ class WeatherInfoRegistryTest {
 
         testedObject.onError(station, time, cause);
 
-        assertThat(pendingMap()).isEmpty();
-        assertThat(sharedMonosMap()).isEmpty();
+        assertThat(registeredEntries()).isZero();
 
         assertThat(listAppender.list)
                 .noneMatch(e -> e.getLevel() == Level.WARN);
@@ -0,0 +1,101 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.messaging.sender;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.registry.WeatherInfoRegistry;
+import hu.uni_obuda.thesis.railways.data.event.CrudEvent;
+import hu.uni_obuda.thesis.railways.data.event.Event;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfoRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherRequestBatcherTest {
+
+    @Mock
+    private MessageSender messageSender;
+
+    @Mock
+    private WeatherInfoRegistry registry;
+
+    private WeatherRequestBatcherImpl testedObject;
+
+    @BeforeEach
+    void setUp() {
+        testedObject = new WeatherRequestBatcherImpl(messageSender, registry);
+        ReflectionTestUtils.setField(testedObject, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(testedObject, "maxWaitMillis", 50);
+        testedObject.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testedObject.shutdown();
+    }
+
+    private WeatherInfoRequest request(String station, int hour) {
+        return new WeatherInfoRequest(station, 47.5, 19.08, LocalDateTime.of(2025, 1, 1, hour, 0));
+    }
+
+    @Test
+    void submit_fullBatch_sentAsSingleEventImmediately() {
+        List<WeatherInfoRequest> requests = List.of(request("BPK", 10), request("BPK", 11), request("BPK", 12));
+
+        requests.forEach(testedObject::submit);
+
+        ArgumentCaptor<Event<?, ?>> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(messageSender, timeout(1000).times(1)).sendMessage(eq("weatherDataRequests-out-0"), eventCaptor.capture());
+
+        CrudEvent<?, ?> event = (CrudEvent<?, ?>) eventCaptor.getValue();
+        assertThat(event.getEventType()).isEqualTo(CrudEvent.Type.GET);
+        assertThat(event.getKey()).isEqualTo("BPK:2025-01-01");
+        assertThat(event.getData()).isEqualTo(requests);
+    }
+
+    @Test
+    void submit_partialBatch_sentAfterMaxWait() {
+        WeatherInfoRequest single = request("SZG", 9);
+
+        testedObject.submit(single);
+
+        ArgumentCaptor<Event<?, ?>> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(messageSender, timeout(1000).times(1)).sendMessage(eq("weatherDataRequests-out-0"), eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getData()).isEqualTo(List.of(single));
+    }
+
+    @Test
+    void submit_whenSendingFails_laterBatchesAreStillSent() {
+        doThrow(new RuntimeException("broker down"))
+                .doNothing()
+                .when(messageSender).sendMessage(anyString(), any());
+
+        List.of(request("BPK", 10), request("BPK", 11), request("BPK", 12)).forEach(testedObject::submit);
+        verify(messageSender, timeout(1000).times(1)).sendMessage(anyString(), any());
+
+        testedObject.submit(request("BPK", 13));
+        verify(messageSender, timeout(1000).times(2)).sendMessage(anyString(), any());
+    }
+
+    @Test
+    void submit_whenSendingFails_failsWaitersOfEveryRequestInBatch() {
+        RuntimeException failure = new RuntimeException("broker down");
+        doThrow(failure).when(messageSender).sendMessage(anyString(), any());
+
+        List.of(request("BPK", 10), request("BPK", 11), request("BPK", 12)).forEach(testedObject::submit);
+
+        verify(registry, timeout(1000)).onError("BPK", LocalDateTime.of(2025, 1, 1, 10, 0), failure);
+        verify(registry, timeout(1000)).onError("BPK", LocalDateTime.of(2025, 1, 1, 11, 0), failure);
+        verify(registry, timeout(1000)).onError("BPK", LocalDateTime.of(2025, 1, 1, 12, 0), failure);
+    }
+}
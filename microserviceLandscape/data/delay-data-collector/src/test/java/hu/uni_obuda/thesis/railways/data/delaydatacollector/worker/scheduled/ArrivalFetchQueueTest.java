@@ -0,0 +1,83 @@
+package hu.uni_obuda.thesis.railways.data.delaydatacollector.worker.scheduled;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArrivalFetchQueueTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ArrivalFetchQueueImpl testedObject;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        testedObject = new ArrivalFetchQueueImpl(10, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testedObject.shutdown();
+    }
+
+    @Test
+    void schedule_runsFetchAfterDelayAndForgetsIt() throws InterruptedException {
+        CountDownLatch fetched = new CountDownLatch(1);
+
+        testedObject.schedule("IC100", DATE, Duration.ofMillis(50), fetched::countDown);
+
+        assertThat(testedObject.isScheduled("IC100", DATE)).isTrue();
+        assertThat(meterRegistry.get("data.fetch.arrival.queued").gauge().value()).isEqualTo(1.0);
+        assertThat(fetched.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(testedObject.isScheduled("IC100", DATE)).isFalse();
+        assertThat(testedObject.size()).isZero();
+    }
+
+    @Test
+    void schedule_sameTrainAndDay_replacesPendingFetch() throws InterruptedException {
+        AtomicInteger first = new AtomicInteger();
+        CountDownLatch second = new CountDownLatch(1);
+
+        testedObject.schedule("IC100", DATE, Duration.ofMillis(50), first::incrementAndGet);
+        testedObject.schedule("IC100", DATE, Duration.ofMillis(100), second::countDown);
+
+        assertThat(testedObject.size()).isEqualTo(1);
+        assertThat(second.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(first).hasValue(0);
+    }
+
+    @Test
+    void cancelAll_dropsPendingFetches() throws InterruptedException {
+        AtomicInteger fetched = new AtomicInteger();
+        CountDownLatch other = new CountDownLatch(1);
+
+        testedObject.schedule("IC100", DATE, Duration.ofMillis(50), fetched::incrementAndGet);
+        testedObject.schedule("IC200", DATE, Duration.ofMillis(50), fetched::incrementAndGet);
+        testedObject.cancelAll();
+        testedObject.schedule("IC300", DATE, Duration.ofMillis(100), other::countDown);
+
+        assertThat(other.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(fetched).hasValue(0);
+    }
+
+    @Test
+    void schedule_failingFetch_doesNotStopTheQueue() throws InterruptedException {
+        CountDownLatch next = new CountDownLatch(1);
+
+        testedObject.schedule("IC100", DATE, Duration.ZERO, () -> { throw new IllegalStateException("boom"); });
+        testedObject.schedule("IC200", DATE, Duration.ofMillis(50), next::countDown);
+
+        assertThat(next.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -4,11 +4,18 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.cache.TrainStatusCache;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshot;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.component.snapshot.DomainSnapshotProvider;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainRouteEntity;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.entity.domain.TrainStationEntity;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.DelayRepository;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.ScheduledArrival;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainRouteRepository;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.repository.domain.TrainStationRepository;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.service.data.DelayFetcherService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,10 +32,14 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -46,8 +57,15 @@ class TrainDelayProcessorTest {
     private TrainStatusCache trainStatusCache;
     @Mock
     private TrainStationRepository trainStationRepository;
+    @Mock
+    private DomainSnapshotProvider snapshotProvider;
+    @Mock
+    private DelayRepository delayRepository;
+    @Mock
+    private ArrivalFetchQueue arrivalFetchQueue;
 
     private Scheduler scheduler;
+    private MeterRegistry meterRegistry;
     private TrainDelayProcessorImpl testedObject;
 
     private Logger logger;
@@ -56,13 +74,25 @@ class TrainDelayProcessorTest {
     @BeforeEach
     void setUp() {
         scheduler = Schedulers.immediate();
+        meterRegistry = new SimpleMeterRegistry();
         testedObject = new TrainDelayProcessorImpl(
                 scheduler,
                 trainRouteRepository,
                 delayFetcherService,
                 trainStatusCache,
-                trainStationRepository
+                trainStationRepository,
+                snapshotProvider,
+                delayRepository,
+                arrivalFetchQueue,
+                meterRegistry
         );
+        givenSnapshot(List.of(), List.of());
+        ReflectionTestUtils.setField(testedObject, "coordinateResolutionConcurrency", 8);
+        ReflectionTestUtils.setField(testedObject, "schedulingMode", "polling");
+        ReflectionTestUtils.setField(testedObject, "arrivalGraceMinutes", 10);
+        ReflectionTestUtils.setField(testedObject, "arrivalRetryMinutes", 10);
+        ReflectionTestUtils.setField(testedObject, "arrivalRetryMaxMinutes", 60);
+        ReflectionTestUtils.setField(testedObject, "arrivalMaxAttempts", 3);
 
         logger = (Logger) LoggerFactory.getLogger(TrainDelayProcessorImpl.class);
         appender = new ListAppender<>();
@@ -77,6 +107,11 @@ class TrainDelayProcessorTest {
         }
     }
 
+    private void givenSnapshot(List<TrainRouteEntity> routes, List<TrainStationEntity> stations) {
+        DomainSnapshot snapshot = DomainSnapshot.of(1, stations, routes);
+        when(snapshotProvider.getSnapshot()).thenReturn(Mono.just(snapshot));
+    }
+
     private List<String> logs() {
         return appender.list.stream()
                 .map(ILoggingEvent::getFormattedMessage)
@@ -85,12 +120,10 @@ class TrainDelayProcessorTest {
 
     @Test
     void processTrainRoutes_noTrains_logsStartAndDoesNothingElse() {
-        when(trainRouteRepository.findAll()).thenReturn(Flux.empty());
-
         testedObject.processTrainRoutes();
 
-        verify(trainRouteRepository).findAll();
-        verifyNoInteractions(trainStatusCache, delayFetcherService, trainStationRepository);
+        verify(snapshotProvider).getSnapshot();
+        verifyNoInteractions(trainRouteRepository, trainStatusCache, delayFetcherService, trainStationRepository);
 
         List<String> logs = this.logs();
         assertThat(logs).anyMatch(m -> m.contains("Data fetch started..."));
@@ -103,12 +136,12 @@ class TrainDelayProcessorTest {
         TrainRouteEntity route = mock(TrainRouteEntity.class);
         when(route.getTrainNumber()).thenReturn(trainNumber);
 
-        when(trainRouteRepository.findAll()).thenReturn(Flux.just(route));
+        givenSnapshot(List.of(route), List.of());
         when(trainStatusCache.isComplete(eq(trainNumber), any(LocalDate.class))).thenReturn(Mono.just(true));
 
         testedObject.processTrainRoutes();
 
-        verify(trainRouteRepository).findAll();
+        verify(snapshotProvider).getSnapshot();
         verify(trainStatusCache).isComplete(eq(trainNumber), any(LocalDate.class));
         verifyNoInteractions(trainStationRepository, delayFetcherService);
 
@@ -271,14 +304,14 @@ class TrainDelayProcessorTest {
         when(endStation.getLatitude()).thenReturn(47.0);
         when(endStation.getLongitude()).thenReturn(19.0);
 
-        when(trainRouteRepository.findAll()).thenReturn(Flux.just(route));
+        givenSnapshot(List.of(route), List.of());
         when(trainStatusCache.isComplete(eq(trainNumber), any(LocalDate.class))).thenReturn(Mono.just(false));
         when(trainStationRepository.findByStationCode("START")).thenReturn(Mono.just(startStation));
         when(trainStationRepository.findByStationCode("END")).thenReturn(Mono.just(endStation));
 
         testedObject.processTrainRoutes();
 
-        verify(trainRouteRepository).findAll();
+        verify(snapshotProvider).getSnapshot();
         verify(trainStatusCache).isComplete(eq(trainNumber), any(LocalDate.class));
         verify(trainStationRepository).findByStationCode("START");
         verify(trainStationRepository).findByStationCode("END");
@@ -294,6 +327,211 @@ class TrainDelayProcessorTest {
         );
     }
 
+    @Test
+    void processTrainRoutes_multipleRoutes_subscribesEachStationLookupOnceAndRecordsRoundTrips() {
+        TrainRouteEntity first = mock(TrainRouteEntity.class);
+        when(first.getTrainNumber()).thenReturn("IC500");
+        when(first.getFrom()).thenReturn("START");
+        when(first.getTo()).thenReturn("END");
+        TrainRouteEntity second = mock(TrainRouteEntity.class);
+        when(second.getTrainNumber()).thenReturn("IC501");
+        when(second.getFrom()).thenReturn("END");
+        when(second.getTo()).thenReturn("START");
+
+        TrainStationEntity startStation = mock(TrainStationEntity.class);
+        TrainStationEntity endStation = mock(TrainStationEntity.class);
+        when(startStation.getLatitude()).thenReturn(47.5);
+        when(startStation.getLongitude()).thenReturn(19.1);
+        when(endStation.getLatitude()).thenReturn(47.0);
+        when(endStation.getLongitude()).thenReturn(19.0);
+
+        AtomicInteger subscriptions = new AtomicInteger();
+        givenSnapshot(List.of(first, second), List.of());
+        when(trainStatusCache.isComplete(anyString(), any(LocalDate.class))).thenReturn(Mono.just(false));
+        when(trainStationRepository.findByStationCode("START"))
+                .thenAnswer(_ -> Mono.just(startStation).doOnSubscribe(_ -> subscriptions.incrementAndGet()));
+        when(trainStationRepository.findByStationCode("END"))
+                .thenAnswer(_ -> Mono.just(endStation).doOnSubscribe(_ -> subscriptions.incrementAndGet()));
+
+        testedObject.processTrainRoutes();
+
+        assertThat(subscriptions.get()).isEqualTo(4);
+        verify(delayFetcherService, times(2)).fetchDelay(anyString(), anyString(), anyDouble(), anyDouble(),
+                anyString(), anyDouble(), anyDouble(), any(LocalDate.class));
+
+        DistributionSummary summary = meterRegistry.find("data.fetch.station.lookups").summary();
+        assertThat(summary).isNotNull();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(4.0);
+        assertThat(logs()).anyMatch(m -> m.contains("Data fetch finished with 4 station lookups"));
+    }
+
+    @Test
+    void processTrainRoutes_stationsInSnapshot_fetchesDelayWithoutRepositoryLookups() {
+        String trainNumber = "IC600";
+
+        TrainRouteEntity route = TrainRouteEntity.builder().trainNumber(trainNumber).from("GYŐR").to("END").build();
+        TrainStationEntity startStation = TrainStationEntity.builder().stationCode("GYÕR").latitude(47.68).longitude(17.64).build();
+        TrainStationEntity endStation = TrainStationEntity.builder().stationCode("END").latitude(47.0).longitude(19.0).build();
+
+        givenSnapshot(List.of(route), List.of(startStation, endStation));
+        when(trainStatusCache.isComplete(eq(trainNumber), any(LocalDate.class))).thenReturn(Mono.just(false));
+
+        testedObject.processTrainRoutes();
+
+        verifyNoInteractions(trainStationRepository, trainRouteRepository);
+        verify(delayFetcherService).fetchDelay(eq(trainNumber), eq("GYŐR"), eq(47.68), eq(17.64),
+                eq("END"), eq(47.0), eq(19.0), any(LocalDate.class));
+        assertThat(meterRegistry.find("data.fetch.station.lookups").summary().totalAmount()).isZero();
+    }
+
+    @Test
+    void processTrainRoute_stationMissingFromSnapshot_fallsBackToRepositoryAndUpdatesSnapshot() {
+        String trainNumber = "IC700";
+
+        TrainRouteEntity route = TrainRouteEntity.builder().trainNumber(trainNumber).from("START").to("END").build();
+        TrainStationEntity startStation = TrainStationEntity.builder().stationCode("START").latitude(47.5).longitude(19.1).build();
+        TrainStationEntity endStation = TrainStationEntity.builder().stationCode("END").latitude(47.0).longitude(19.0).build();
+
+        givenSnapshot(List.of(route), List.of(startStation));
+        when(trainStatusCache.isComplete(eq(trainNumber), any(LocalDate.class))).thenReturn(Mono.just(false));
+        when(trainStationRepository.findByStationCode("END")).thenReturn(Mono.just(endStation));
+
+        testedObject.processTrainRoute(trainNumber);
+
+        verify(trainRouteRepository, never()).findById(anyString());
+        verify(trainStationRepository, never()).findByStationCode("START");
+        verify(snapshotProvider).onStationChanged(endStation);
+        verify(delayFetcherService).fetchDelay(eq(trainNumber), eq("START"), eq(47.5), eq(19.1),
+                eq("END"), eq(47.0), eq(19.0), any(LocalDate.class));
+    }
+
+    private DomainSnapshot arrivalSnapshot(String... trainNumbers) {
+        List<TrainRouteEntity> routes = Arrays.stream(trainNumbers)
+                .map(trainNumber -> TrainRouteEntity.builder().trainNumber(trainNumber).from("START").to("END").build())
+                .toList();
+        List<TrainStationEntity> stations = List.of(
+                TrainStationEntity.builder().stationCode("START").latitude(47.5).longitude(19.1).build(),
+                TrainStationEntity.builder().stationCode("END").latitude(47.0).longitude(19.0).build());
+        DomainSnapshot snapshot = DomainSnapshot.of(1, stations, routes);
+        when(snapshotProvider.getSnapshot()).thenReturn(Mono.just(snapshot));
+        return snapshot;
+    }
+
+    private Runnable planArrivalDrivenDay(String trainNumber, String... polledTrainNumbers) {
+        ReflectionTestUtils.setField(testedObject, "schedulingMode", "arrival");
+        String[] allTrains = Stream.concat(Stream.of(trainNumber), Arrays.stream(polledTrainNumbers))
+                .toArray(String[]::new);
+        arrivalSnapshot(allTrains);
+        LocalDate recordedDate = LocalDate.of(2025, 1, 1);
+        when(delayRepository.findLatestScheduledArrivals())
+                .thenReturn(Flux.just(new ScheduledArrival(trainNumber, recordedDate, recordedDate.atTime(23, 50))));
+        when(trainStatusCache.isComplete(anyString(), any(LocalDate.class))).thenReturn(Mono.just(false));
+
+        testedObject.processTrainRoutes();
+
+        ArgumentCaptor<Runnable> fetch = ArgumentCaptor.forClass(Runnable.class);
+        verify(arrivalFetchQueue).schedule(eq(trainNumber), any(LocalDate.class), any(Duration.class), fetch.capture());
+        clearInvocations(arrivalFetchQueue, delayFetcherService, trainStatusCache);
+        return fetch.getValue();
+    }
+
+    @Test
+    void processTrainRoutes_arrivalMode_queuesKnownArrivalsAndPollsTheRest() {
+        ReflectionTestUtils.setField(testedObject, "schedulingMode", "arrival");
+        arrivalSnapshot("IC800", "IC801");
+        LocalDate recordedDate = LocalDate.of(2025, 1, 1);
+        when(delayRepository.findLatestScheduledArrivals())
+                .thenReturn(Flux.just(
+                        new ScheduledArrival("IC800", recordedDate, recordedDate.atTime(23, 50)),
+                        new ScheduledArrival("UNKNOWN", recordedDate, recordedDate.atTime(12, 0))));
+        when(trainStatusCache.isComplete(anyString(), any(LocalDate.class))).thenReturn(Mono.just(false));
+
+        testedObject.processTrainRoutes();
+
+        verify(arrivalFetchQueue).cancelAll();
+        verify(arrivalFetchQueue).schedule(eq("IC800"), any(LocalDate.class), any(Duration.class), any(Runnable.class));
+        verify(arrivalFetchQueue, never()).schedule(eq("UNKNOWN"), any(), any(), any());
+        verify(delayFetcherService).fetchDelay(eq("IC801"), anyString(), anyDouble(), anyDouble(),
+                anyString(), anyDouble(), anyDouble(), any(LocalDate.class));
+        verify(delayFetcherService, never()).fetchDelay(eq("IC800"), anyString(), anyDouble(), anyDouble(),
+                anyString(), anyDouble(), anyDouble(), any(LocalDate.class));
+    }
+
+    @Test
+    void processTrainRoutes_arrivalMode_loadsArrivalsOncePerDay() {
+        planArrivalDrivenDay("IC810");
+
+        testedObject.processTrainRoutes();
+
+        verify(delayRepository, times(1)).findLatestScheduledArrivals();
+        verify(arrivalFetchQueue, never()).schedule(anyString(), any(), any(), any());
+        verifyNoInteractions(delayFetcherService);
+    }
+
+    @Test
+    void processTrainRoutes_arrivalMode_arrivalsUnavailable_pollsEveryTrain() {
+        ReflectionTestUtils.setField(testedObject, "schedulingMode", "arrival");
+        arrivalSnapshot("IC820");
+        when(delayRepository.findLatestScheduledArrivals()).thenReturn(Flux.error(new RuntimeException("db down")));
+        when(trainStatusCache.isComplete(anyString(), any(LocalDate.class))).thenReturn(Mono.just(false));
+
+        testedObject.processTrainRoutes();
+
+        verify(delayFetcherService).fetchDelay(eq("IC820"), anyString(), anyDouble(), anyDouble(),
+                anyString(), anyDouble(), anyDouble(), any(LocalDate.class));
+        assertThat(logs()).anyMatch(m -> m.contains("Could not load scheduled arrivals"));
+    }
+
+    @Test
+    void arrivalFetch_incomplete_fetchesAndReschedulesWithBackoff() {
+        Runnable fetch = planArrivalDrivenDay("IC830");
+
+        fetch.run();
+
+        verify(delayFetcherService).fetchDelay(eq("IC830"), eq("START"), eq(47.5), eq(19.1),
+                eq("END"), eq(47.0), eq(19.0), any(LocalDate.class));
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(arrivalFetchQueue).schedule(eq("IC830"), any(LocalDate.class), eq(Duration.ofMinutes(10)), retry.capture());
+
+        clearInvocations(arrivalFetchQueue);
+        retry.getValue().run();
+
+        verify(arrivalFetchQueue).schedule(eq("IC830"), any(LocalDate.class), eq(Duration.ofMinutes(20)), any(Runnable.class));
+        assertThat(meterRegistry.get("data.fetch.arrival.requests").tag("outcome", "fetched").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void arrivalFetch_complete_stopsWithoutFetching() {
+        Runnable fetch = planArrivalDrivenDay("IC840");
+        when(trainStatusCache.isComplete(eq("IC840"), any(LocalDate.class))).thenReturn(Mono.just(true));
+
+        fetch.run();
+
+        verifyNoInteractions(delayFetcherService);
+        verify(arrivalFetchQueue, never()).schedule(anyString(), any(), any(), any());
+        assertThat(meterRegistry.get("data.fetch.arrival.requests").tag("outcome", "complete").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void arrivalFetch_lastAttempt_fetchesWithoutRescheduling() {
+        Runnable fetch = planArrivalDrivenDay("IC850");
+
+        fetch.run();
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(arrivalFetchQueue).schedule(eq("IC850"), any(LocalDate.class), any(Duration.class), retry.capture());
+        clearInvocations(arrivalFetchQueue);
+        retry.getValue().run();
+        verify(arrivalFetchQueue).schedule(eq("IC850"), any(LocalDate.class), any(Duration.class), retry.capture());
+        clearInvocations(arrivalFetchQueue);
+        retry.getValue().run();
+
+        verify(arrivalFetchQueue, never()).schedule(anyString(), any(), any(), any());
+        verify(delayFetcherService, times(3)).fetchDelay(eq("IC850"), anyString(), anyDouble(), anyDouble(),
+                anyString(), anyDouble(), anyDouble(), any(LocalDate.class));
+        assertThat(meterRegistry.get("data.fetch.arrival.requests").tag("outcome", "abandoned").counter().count()).isEqualTo(1.0);
+    }
+
     @Test
     void resolveOperationalDate_before3am_returnsPreviousDay() {
         LocalDateTime dt = LocalDateTime.of(2025, 1, 2, 2, 30);
@@ -2,6 +2,7 @@ package hu.uni_obuda.thesis.railways.data.geocodingservice.communication.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.communication.response.CoordinatesResponse;
+import hu.uni_obuda.thesis.railways.util.codec.JsonBodyDecoder;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiFormatMismatchException;
 import lombok.RequiredArgsConstructor;
@@ -11,7 +12,6 @@ import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
@@ -33,6 +33,8 @@ public class MapsWebClientImpl implements MapsWebClient {
     private String countryCode;
     @Value("${maps.api.api-key}")
     private String apiKey;
+    @Value("${maps.api.max-body-size:1048576}")
+    private int maxBodySize;
 
     @Override
     public Mono<CoordinatesResponse> getCoordinates(String address) {
@@ -40,15 +42,8 @@ public class MapsWebClientImpl implements MapsWebClient {
         URI requestUri = URI.create(mapsBaseUrl + geocodingUri + "?address=" + URLEncoder.encode(address, StandardCharsets.UTF_8) + "&key=" + apiKey);
         return webClient.get().uri(requestUri).exchangeToMono(apiResponse -> {
             if (apiResponse.statusCode().is2xxSuccessful()) {
-                return Mono.from(apiResponse.bodyToMono(String.class))
-                        .flatMap(response -> {
-                            try {
-                                CoordinatesResponse parsedResponse = objectMapper.readValue(response, CoordinatesResponse.class);
-                                return Mono.just(parsedResponse);
-                            } catch (IOException ioException) {
-                                return Mono.error(mapMappingExceptionToException(ioException, requestUri.toString()));
-                            }
-                        });
+                return JsonBodyDecoder.decode(apiResponse, objectMapper, CoordinatesResponse.class, maxBodySize)
+                        .onErrorMap(JsonBodyDecoder::isDecodingError, mappingException -> mapMappingExceptionToException(mappingException, requestUri.toString()));
             }  else {
                 return Mono.error(mapApiResponseToException(apiResponse));
             }
@@ -59,8 +54,8 @@ public class MapsWebClientImpl implements MapsWebClient {
         return new ExternalApiException(clientResponse.statusCode(), getUrlFromString(clientResponse.request().getURI().toString()));
     }
 
-    private RuntimeException mapMappingExceptionToException(IOException ioException, String uri) {
-        return new ExternalApiFormatMismatchException(ioException.getMessage(), ioException, getUrlFromUriString(uri));
+    private RuntimeException mapMappingExceptionToException(Throwable mappingException, String uri) {
+        return new ExternalApiFormatMismatchException(mappingException.getMessage(), mappingException, getUrlFromUriString(uri));
     }
 
     private URL getUrlFromUriString(String uri) {
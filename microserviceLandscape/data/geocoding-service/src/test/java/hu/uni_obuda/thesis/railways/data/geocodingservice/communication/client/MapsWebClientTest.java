@@ -54,6 +54,7 @@ class MapsWebClientTest {
         ReflectionTestUtils.setField(testedObject, "geocodingUri", "/geocode/json");
         ReflectionTestUtils.setField(testedObject, "countryCode", "HU");
         ReflectionTestUtils.setField(testedObject, "apiKey", "dummy-api-key");
+        ReflectionTestUtils.setField(testedObject, "maxBodySize", 1024 * 1024);
     }
 
     @Test
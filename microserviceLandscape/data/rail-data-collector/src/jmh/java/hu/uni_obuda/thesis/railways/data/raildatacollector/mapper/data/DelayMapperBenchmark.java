@@ -0,0 +1,214 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.mapper.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTrainDetailsResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTrainDetailsResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static hu.uni_obuda.thesis.railways.data.raildatacollector.util.constant.Constants.STATION_CODE_MAPPING;
+
+/**
+ * Compares the former multi-pass delay mapping against the single-pass {@link ElviraDelayMapper}
+ * and {@link EmmaDelayMapper}.
+ * <p>
+ * The fixtures under {@code src/jmh/resources/fixtures} follow the ELVIRA and EMMA response formats
+ * for a 30-stop train that runs past midnight, so every time column rolls over to the next day.
+ * <p>
+ * Run with {@code ./gradlew :data:rail-data-collector:jmh}, adding {@code -prof gc} to the JMH
+ * arguments to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DelayMapperBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 1);
+    private static final String TRAIN_NUMBER = "6112";
+
+    private final ElviraDelayMapper elviraDelayMapper = new ElviraDelayMapper();
+    private final EmmaDelayMapper emmaDelayMapper = new EmmaDelayMapper();
+
+    private ElviraShortTrainDetailsResponse elviraResponse;
+    private EmmaShortTrainDetailsResponse emmaResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        elviraResponse = readFixture(objectMapper, "elvira-train-details.json", ElviraShortTrainDetailsResponse.class);
+        emmaResponse = readFixture(objectMapper, "emma-trip-details.json", EmmaShortTrainDetailsResponse.class);
+    }
+
+    @Benchmark
+    public List<DelayInfo> legacyElviraMapping() {
+        return LegacyElviraMapping.mapToDelayInfo(elviraResponse, TRAIN_NUMBER, DATE);
+    }
+
+    @Benchmark
+    public List<DelayInfo> singlePassElviraMapping() {
+        return elviraDelayMapper.mapToDelayInfo(elviraResponse, TRAIN_NUMBER, DATE).block();
+    }
+
+    @Benchmark
+    public List<DelayInfo> legacyEmmaMapping() {
+        return LegacyEmmaMapping.mapToDelayInfo(emmaResponse, TRAIN_NUMBER, DATE);
+    }
+
+    @Benchmark
+    public List<DelayInfo> singlePassEmmaMapping() {
+        return emmaDelayMapper.mapToDelayInfo(emmaResponse, TRAIN_NUMBER, DATE).block();
+    }
+
+    private static <T> T readFixture(ObjectMapper objectMapper, String name, Class<T> type) throws IOException {
+        try (InputStream fixture = DelayMapperBenchmark.class.getResourceAsStream("/fixtures/" + name)) {
+            if (fixture == null) {
+                throw new IOException("Missing benchmark fixture " + name);
+            }
+            return objectMapper.readValue(fixture, type);
+        }
+    }
+
+    /**
+     * The mapping {@link ElviraDelayMapper} did before the single-pass rewrite, kept as the baseline.
+     */
+    private static final class LegacyElviraMapping {
+
+        private static List<DelayInfo> mapToDelayInfo(ElviraShortTrainDetailsResponse response, String trainNumber, LocalDate date) {
+            LocalTime localStartTime = LocalTime.parse(response.getStations().getFirst().getScheduledDeparture());
+            List<DelayInfo> delayInfos = new ArrayList<>();
+
+            int scheduledDepartureRollover = findRolloverIndex(response.getStations(), localStartTime, ElviraShortTrainDetailsResponse.Station::getScheduledDeparture);
+            int scheduledArrivalRollover = findRolloverIndex(response.getStations(), localStartTime, ElviraShortTrainDetailsResponse.Station::getScheduledArrival);
+            int realDepartureRollover = findRolloverIndex(response.getStations(), localStartTime, ElviraShortTrainDetailsResponse.Station::getRealDeparture);
+            int realArrivalRollover = findRolloverIndex(response.getStations(), localStartTime, ElviraShortTrainDetailsResponse.Station::getRealArrival);
+
+            for (int i = 0; i < response.getStations().size(); i++) {
+                ElviraShortTrainDetailsResponse.Station currentStation = response.getStations().get(i);
+                DelayInfo delayInfo = DelayInfo.builder()
+                        .stationCode(currentStation.getCode())
+                        .thirdPartyStationUrl(currentStation.getGetUrl().split("=")[1])
+                        .officialStationUrl(currentStation.getUrl())
+                        .trainNumber(trainNumber)
+                        .date(date)
+                        .build();
+                delayInfo.setScheduledArrival(toIsoString(currentStation.getScheduledArrival(), date, scheduledArrivalRollover, i));
+                delayInfo.setScheduledDeparture(toIsoString(currentStation.getScheduledDeparture(), date, scheduledDepartureRollover, i));
+                delayInfo.setActualArrival(toIsoString(currentStation.getRealArrival(), date, realArrivalRollover, i));
+                delayInfo.setActualDeparture(toIsoString(currentStation.getRealDeparture(), date, realDepartureRollover, i));
+                delayInfo.setArrivalDelay(calculateDelay(delayInfo.getScheduledArrival(), delayInfo.getActualArrival()));
+                delayInfo.setDepartureDelay(calculateDelay(delayInfo.getScheduledDeparture(), delayInfo.getActualDeparture()));
+                delayInfos.add(delayInfo);
+            }
+            return delayInfos;
+        }
+
+        private static String toIsoString(String time, LocalDate date, int rollover, int index) {
+            if (time == null || time.isEmpty()) {
+                return null;
+            }
+            if (rollover != -1 && index >= rollover) {
+                return parseTimeSafely(time).atDate(date).plusDays(1).toString();
+            }
+            return parseTimeSafely(time).atDate(date).toString();
+        }
+
+        private static int findRolloverIndex(List<ElviraShortTrainDetailsResponse.Station> stations, LocalTime startTime, Function<ElviraShortTrainDetailsResponse.Station, String> propertyGetter) {
+            LocalTime previousTime = startTime;
+            for (int i = 0; i < stations.size(); i++) {
+                String timeProperty = propertyGetter.apply(stations.get(i));
+                if (timeProperty != null && !timeProperty.isBlank()) {
+                    LocalTime currentTime = parseTimeSafely(timeProperty);
+                    if (currentTime.isBefore(previousTime)) {
+                        return i;
+                    }
+                    previousTime = parseTimeSafely(timeProperty);
+                }
+            }
+            return -1;
+        }
+
+        private static Integer calculateDelay(String scheduled, String actual) {
+            if (scheduled == null || scheduled.isBlank() || actual == null || actual.isBlank()) {
+                return null;
+            }
+            try {
+                LocalDateTime scheduledDate = LocalDateTime.parse(scheduled, DateTimeFormatter.ISO_DATE_TIME);
+                LocalDateTime actualDate = LocalDateTime.parse(actual, DateTimeFormatter.ISO_DATE_TIME);
+                return (int) Duration.between(scheduledDate, actualDate).toMinutes();
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        private static LocalTime parseTimeSafely(String timeStr) {
+            return LocalTime.parse(timeStr.equals("24:00") ? "00:00" : timeStr);
+        }
+    }
+
+    /**
+     * The mapping {@link EmmaDelayMapper} did before the single-pass rewrite, kept as the baseline.
+     */
+    private static final class LegacyEmmaMapping {
+
+        private static List<DelayInfo> mapToDelayInfo(EmmaShortTrainDetailsResponse response, String trainNumber, LocalDate date) {
+            response.isCancelled();
+            LocalDateTime operationDayMidnight = date.atStartOfDay();
+            List<DelayInfo> delayInfos = new ArrayList<>();
+            for (int i = 0; i < response.getTrip().getStoptimes().size(); i++) {
+                EmmaShortTrainDetailsResponse.StopTime currentStation = response.getTrip().getStoptimes().get(i);
+                DelayInfo delayInfo = DelayInfo.builder()
+                        .stationCode(adjustStationCodeFormat(currentStation.getStop().getName()))
+                        .thirdPartyStationUrl("")
+                        .officialStationUrl("")
+                        .trainNumber(trainNumber)
+                        .date(date)
+                        .build();
+                if (currentStation.getScheduledArrival() != null && i != 0) {
+                    delayInfo.setScheduledArrival(operationDayMidnight.plusSeconds(currentStation.getScheduledArrival()).toString());
+                }
+                if (currentStation.getScheduledDeparture() != null && i != response.getTrip().getStoptimes().size() - 1) {
+                    delayInfo.setScheduledDeparture(operationDayMidnight.plusSeconds(currentStation.getScheduledDeparture()).toString());
+                }
+                if (currentStation.getRealtimeArrival() != null && i != 0) {
+                    delayInfo.setActualArrival(operationDayMidnight.plusSeconds(currentStation.getRealtimeArrival()).toString());
+                    delayInfo.setArrivalDelay(currentStation.getArrivalDelay() == null ? null : currentStation.getArrivalDelay() / 60);
+                }
+                if (currentStation.getRealtimeDeparture() != null && i != response.getTrip().getStoptimes().size() - 1) {
+                    delayInfo.setActualDeparture(operationDayMidnight.plusSeconds(currentStation.getRealtimeDeparture()).toString());
+                    delayInfo.setDepartureDelay(currentStation.getDepartureDelay() == null ? null : currentStation.getDepartureDelay() / 60);
+                }
+                delayInfos.add(delayInfo);
+            }
+            return delayInfos;
+        }
+
+        private static String adjustStationCodeFormat(String stationCode) {
+            for (int i = 0; i < stationCode.length(); i++) {
+                if (STATION_CODE_MAPPING.containsKey(stationCode.charAt(i))) {
+                    stationCode = stationCode.replace(stationCode.charAt(i), STATION_CODE_MAPPING.get(stationCode.charAt(i)));
+                }
+            }
+            return stationCode;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.communication.client;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTrainDetailsResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaTimetableResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.RequestPriority;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.UpstreamRequestDispatcher;
+import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
+import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiFormatMismatchException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.graphql.client.ClientGraphQlResponse;
+import org.springframework.graphql.client.ClientResponseField;
+import org.springframework.graphql.client.HttpGraphQlClient;
+import org.springframework.graphql.support.DocumentSource;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the trip detail lookups issued within a short window as one GraphQL document, with one
+ * aliased {@code trip} selection per distinct trip and service day, and hands every caller its own
+ * field of the response. Errors reported for an alias only fail the callers of that trip. Each batch
+ * takes a single permit from the {@link UpstreamRequestDispatcher}, as it is one request to the API.
+ * <p>
+ * Timetable lookups are passed to {@link EmmaRailDataWebClientImpl} unchanged. Batch sizes are
+ * recorded in the {@code emma.trip.details.batch.size} histogram.
+ */
+@Slf4j
+@Primary
+@Profile("data-source-emma")
+@ConditionalOnProperty(name = "railway.api.graphql.train-details-batch.enabled", havingValue = "true")
+@Component
+public class BatchingEmmaRailDataWebClient implements EmmaRailDataWebClient {
+
+    private static final String ALIAS_PREFIX = "trip";
+
+    private final EmmaRailDataWebClient delegate;
+    private final HttpGraphQlClient shortTrainDetailsClient;
+    private final DocumentSource documentSource;
+    private final UpstreamRequestDispatcher dispatcher;
+    private final DistributionSummary batchSizes;
+
+    @Value("${railway.api.graphql.short-train-details-fragment:TripDetails}")
+    private String fragmentName;
+    @Value("${railway.api.graphql.train-details-batch.max-size:25}")
+    private Integer maxBatchSize;
+    @Value("${railway.api.graphql.train-details-batch.max-wait-millis:50}")
+    private Integer maxWaitMillis;
+    @Value("${railway.api.base-url}")
+    private String railwayBaseUrl;
+    @Value("${railway.api.train-details-getter-uri}")
+    private String trainDetailsGetterUri;
+
+    private Mono<String> fragment;
+    private FluxSink<PendingRequest> pendingRequests;
+    private Disposable subscription;
+
+    @Autowired
+    public BatchingEmmaRailDataWebClient(EmmaRailDataWebClientImpl delegate, @Qualifier("shortTrainDetailsClient") HttpGraphQlClient shortTrainDetailsClient,
+                                         DocumentSource documentSource, UpstreamRequestDispatcher dispatcher, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.shortTrainDetailsClient = shortTrainDetailsClient;
+        this.documentSource = documentSource;
+        this.dispatcher = dispatcher;
+        this.batchSizes = DistributionSummary.builder("emma.trip.details.batch.size")
+                .description("Trip detail lookups sent in one GraphQL request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        fragment = Mono.defer(() -> documentSource.getDocument(fragmentName)).cache();
+        subscription = Flux.<PendingRequest>create(sink -> this.pendingRequests = sink)
+                .bufferTimeout(maxBatchSize, Duration.ofMillis(maxWaitMillis), true)
+                .flatMap(this::send)
+                .subscribe(null, throwable -> log.error("Trip detail batching stopped unexpectedly", throwable));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pendingRequests.complete();
+        subscription.dispose();
+    }
+
+    @Override
+    public Mono<EmmaShortTimetableResponse> getShortTimetable(String from, double fromLatitude, double fromLongitude, String to, double toLatitude, double toLongitude, LocalDate date) {
+        return delegate.getShortTimetable(from, fromLatitude, fromLongitude, to, toLatitude, toLongitude, date);
+    }
+
+    @Override
+    public Mono<EmmaShortTrainDetailsResponse> getShortTrainDetails(String trainId, LocalDate serviceDate) {
+        return Mono.defer(() -> {
+            PendingRequest request = new PendingRequest(trainId, serviceDate.toString(), Sinks.one());
+            pendingRequests.next(request);
+            return request.result().asMono();
+        });
+    }
+
+    @Override
+    public Mono<EmmaTimetableResponse> getTimetable(String from, double fromLatitude, double fromLongitude, String to, double toLatitude, double toLongitude, LocalDate date) {
+        return delegate.getTimetable(from, fromLatitude, fromLongitude, to, toLatitude, toLongitude, date);
+    }
+
+    private Mono<Void> send(List<PendingRequest> batch) {
+        Map<String, List<PendingRequest>> callersByTrip = new LinkedHashMap<>();
+        for (PendingRequest request : batch) {
+            callersByTrip.computeIfAbsent(request.id() + "@" + request.serviceDay(), _ -> new ArrayList<>()).add(request);
+        }
+        List<List<PendingRequest>> trips = new ArrayList<>(callersByTrip.values());
+        batchSizes.record(trips.size());
+        log.debug("Sending {} trip detail lookups for {} callers in one request", trips.size(), batch.size());
+
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < trips.size(); i++) {
+            PendingRequest first = trips.get(i).getFirst();
+            variables.put("id" + i, first.id());
+            variables.put("serviceDay" + i, first.serviceDay());
+        }
+        return fragment
+                .flatMap(fragmentDocument -> shortTrainDetailsClient.document(toDocument(trips.size(), fragmentDocument))
+                        .variables(variables)
+                        .execute())
+                .transformDeferred(request -> dispatcher.dispatch(RequestPriority.BULK, request))
+                .doOnNext(response -> demultiplex(response, trips))
+                .doOnError(throwable -> batch.forEach(request -> request.result().tryEmitError(throwable)))
+                .onErrorComplete()
+                .then();
+    }
+
+    private void demultiplex(ClientGraphQlResponse response, List<List<PendingRequest>> trips) {
+        if (!response.isValid()) {
+            String message = response.getErrors().isEmpty() ? "" : response.getErrors().getFirst().getMessage();
+            trips.forEach(callers -> fail(callers, new ExternalApiException(HttpStatusCode.valueOf(400), getTrainDetailsUrl(), message)));
+            return;
+        }
+        for (int i = 0; i < trips.size(); i++) {
+            List<PendingRequest> callers = trips.get(i);
+            ClientResponseField field = response.field(ALIAS_PREFIX + i);
+            if (!field.getErrors().isEmpty()) {
+                fail(callers, new ExternalApiException(HttpStatusCode.valueOf(400), getTrainDetailsUrl(), field.getErrors().getFirst().getMessage()));
+                continue;
+            }
+            try {
+                EmmaShortTrainDetailsResponse parsedResponse = new EmmaShortTrainDetailsResponse();
+                parsedResponse.setTrip(field.getValue() == null ? null : field.toEntity(EmmaShortTrainDetailsResponse.Trip.class));
+                callers.forEach(request -> request.result().tryEmitValue(parsedResponse));
+            } catch (RuntimeException e) {
+                fail(callers, new ExternalApiFormatMismatchException("Could not parse short train details response", e, getTrainDetailsUrl()));
+            }
+        }
+    }
+
+    private String toDocument(int tripCount, String fragmentDocument) {
+        StringBuilder document = new StringBuilder("query TripBatch(");
+        for (int i = 0; i < tripCount; i++) {
+            document.append(i == 0 ? "" : ", ")
+                    .append("$id").append(i).append(": String!, $serviceDay").append(i).append(": String");
+        }
+        document.append(") {\n");
+        for (int i = 0; i < tripCount; i++) {
+            document.append("  ").append(ALIAS_PREFIX).append(i)
+                    .append(": trip(id: $id").append(i).append(", serviceDay: $serviceDay").append(i).append(") {\n")
+                    .append("    ...").append(fragmentName).append("\n")
+                    .append("  }\n");
+        }
+        return document.append("}\n").append(fragmentDocument).toString();
+    }
+
+    private static void fail(List<PendingRequest> callers, Throwable throwable) {
+        callers.forEach(request -> request.result().tryEmitError(throwable));
+    }
+
+    private URL getTrainDetailsUrl() {
+        try {
+            return new URL(railwayBaseUrl + trainDetailsGetterUri);
+        } catch (MalformedURLException _) {
+            return null;
+        }
+    }
+
+    private record PendingRequest(String id, String serviceDay, Sinks.One<EmmaShortTrainDetailsResponse> result) {
+    }
+}
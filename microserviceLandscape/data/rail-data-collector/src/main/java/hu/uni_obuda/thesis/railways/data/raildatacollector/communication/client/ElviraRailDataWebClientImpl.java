@@ -2,6 +2,9 @@ package hu.uni_obuda.thesis.railways.data.raildatacollector.communication.client
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.*;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.RequestPriority;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.UpstreamRequestDispatcher;
+import hu.uni_obuda.thesis.railways.util.codec.JsonBodyDecoder;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiFormatMismatchException;
 import lombok.RequiredArgsConstructor;
@@ -16,7 +19,6 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
-import java.io.IOException;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
@@ -29,6 +31,7 @@ public class ElviraRailDataWebClientImpl implements ElviraRailDataWebClient {
 
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final UpstreamRequestDispatcher dispatcher;
 
     @Value("${railway.api.base-url}")
     private String railwayBaseUrl;
@@ -36,6 +39,8 @@ public class ElviraRailDataWebClientImpl implements ElviraRailDataWebClient {
     private String timetableGetterUri;
     @Value("${railway.api.train-details-getter-uri}")
     private String trainDetailsGetterUri;
+    @Value("${railway.api.max-body-size:16777216}")
+    private int maxBodySize;
 
     @Override
     public Mono<ElviraShortTimetableResponse> getShortTimetable(String from, String to, LocalDate date) {
@@ -47,20 +52,14 @@ public class ElviraRailDataWebClientImpl implements ElviraRailDataWebClient {
         return webClient.get().uri(timetableUri.toString())
         .exchangeToMono(apiResponse -> {
             if (apiResponse.statusCode().is2xxSuccessful()) {
-                return Mono.from(apiResponse.bodyToMono(String.class))
-                        .flatMap(response -> {
-                            try {
-                                ElviraShortTimetableResponse parsedResponse = objectMapper.readValue(response, ElviraShortTimetableResponse.class);
-                                parsedResponse.removeUnnecessaryData();
-                                return Mono.just(parsedResponse);
-                            } catch (IOException ioException) {
-                                return Mono.error(mapMappingExceptionToException(ioException, timetableUri.toString()));
-                            }
-                        });
+                return JsonBodyDecoder.decode(apiResponse, objectMapper, ElviraShortTimetableResponse.class, maxBodySize)
+                        .doOnNext(ElviraShortTimetableResponse::removeUnnecessaryData)
+                        .onErrorMap(JsonBodyDecoder::isDecodingError, mappingException -> mapMappingExceptionToException(mappingException, timetableUri.toString()));
             } else {
                 return Mono.error(mapApiResponseToException(apiResponse));
             }
-        });
+        })
+                .transformDeferred(request -> dispatcher.dispatch(RequestPriority.BULK, request));
     }
 
     @Override
@@ -69,20 +68,14 @@ public class ElviraRailDataWebClientImpl implements ElviraRailDataWebClient {
         URI trainDetailsUri = URI.create(railwayBaseUrl + trainDetailsGetterUri + "?url=" + URLEncoder.encode(thirdPartyUrl, StandardCharsets.UTF_8));
         return webClient.get().uri(trainDetailsUri).exchangeToMono(apiResponse -> {
             if (apiResponse.statusCode().is2xxSuccessful()) {
-                return Mono.from(apiResponse.bodyToMono(String.class))
-                        .flatMap(response -> {
-                            try {
-                                ElviraShortTrainDetailsResponse parsedResponse = objectMapper.readValue(response, ElviraShortTrainDetailsResponse.class);
-                                log.debug("Got train details response!");
-                                return Mono.just(parsedResponse);
-                            } catch (IOException ioException) {
-                                return Mono.error(mapMappingExceptionToException(ioException, trainDetailsUri.toString()));
-                            }
-                        });
+                return JsonBodyDecoder.decode(apiResponse, objectMapper, ElviraShortTrainDetailsResponse.class, maxBodySize)
+                        .doOnNext(_ -> log.debug("Got train details response!"))
+                        .onErrorMap(JsonBodyDecoder::isDecodingError, mappingException -> mapMappingExceptionToException(mappingException, trainDetailsUri.toString()));
             } else {
                 return Mono.error(mapApiResponseToException(apiResponse));
             }
-        });
+        })
+                .transformDeferred(request -> dispatcher.dispatch(RequestPriority.BULK, request));
     }
 
     @Override
@@ -95,27 +88,21 @@ public class ElviraRailDataWebClientImpl implements ElviraRailDataWebClient {
         return webClient.get().uri(timetableUri.toString())
                 .exchangeToMono(apiResponse -> {
                     if (apiResponse.statusCode().is2xxSuccessful()) {
-                        return Mono.from(apiResponse.bodyToMono(String.class))
-                                .flatMap(response -> {
-                                    try {
-                                        ElviraTimetableResponse parsedResponse = objectMapper.readValue(response, ElviraTimetableResponse.class);
-                                        return Mono.just(parsedResponse);
-                                    } catch (IOException ioException) {
-                                        return Mono.error(mapMappingExceptionToException(ioException, timetableUri.toString()));
-                                    }
-                                });
+                        return JsonBodyDecoder.decode(apiResponse, objectMapper, ElviraTimetableResponse.class, maxBodySize)
+                                .onErrorMap(JsonBodyDecoder::isDecodingError, mappingException -> mapMappingExceptionToException(mappingException, timetableUri.toString()));
                     } else {
                         return Mono.error(mapApiResponseToException(apiResponse));
                     }
-                });
+                })
+                .transformDeferred(request -> dispatcher.dispatch(RequestPriority.INTERACTIVE, request));
     }
 
     private RuntimeException mapApiResponseToException(ClientResponse clientResponse) {
         return new ExternalApiException(clientResponse.statusCode(), getUrlFromString(clientResponse.request().getURI().toString()));
     }
 
-    private RuntimeException mapMappingExceptionToException(IOException ioException, String uri) {
-        return new ExternalApiFormatMismatchException(ioException.getMessage(), ioException, getUrlFromUriString(uri));
+    private RuntimeException mapMappingExceptionToException(Throwable mappingException, String uri) {
+        return new ExternalApiFormatMismatchException(mappingException.getMessage(), mappingException, getUrlFromUriString(uri));
     }
 
     private URL getUrlFromUriString(String uri) {
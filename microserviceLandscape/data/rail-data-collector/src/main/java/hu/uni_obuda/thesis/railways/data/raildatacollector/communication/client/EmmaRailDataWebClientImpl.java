@@ -1,6 +1,8 @@
 package hu.uni_obuda.thesis.railways.data.raildatacollector.communication.client;
 
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.*;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.RequestPriority;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.UpstreamRequestDispatcher;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.util.resource.CachingYamlGraphQlVariableLoader;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiFormatMismatchException;
@@ -29,6 +31,7 @@ public class EmmaRailDataWebClientImpl implements EmmaRailDataWebClient {
     private final HttpGraphQlClient timetableClient;
 
     private final CachingYamlGraphQlVariableLoader variableLoader;
+    private final UpstreamRequestDispatcher dispatcher;
 
     @Value("${railway.api.graphql.short-timetable-document}")
     private String shortTimeTableDocumentName;
@@ -44,11 +47,13 @@ public class EmmaRailDataWebClientImpl implements EmmaRailDataWebClient {
     private String trainDetailsGetterUri;
 
     @Autowired
-    public EmmaRailDataWebClientImpl(@Qualifier("shortTimetableClient") HttpGraphQlClient shortTimetableClient, @Qualifier("shortTrainDetailsClient") HttpGraphQlClient shortTrainDetailsClient, @Qualifier("timetableClient") HttpGraphQlClient timetableClient, CachingYamlGraphQlVariableLoader variableLoader) {
+    public EmmaRailDataWebClientImpl(@Qualifier("shortTimetableClient") HttpGraphQlClient shortTimetableClient, @Qualifier("shortTrainDetailsClient") HttpGraphQlClient shortTrainDetailsClient, @Qualifier("timetableClient") HttpGraphQlClient timetableClient, CachingYamlGraphQlVariableLoader variableLoader,
+                                     UpstreamRequestDispatcher dispatcher) {
         this.shortTimetableClient = shortTimetableClient;
         this.shortTrainDetailsClient = shortTrainDetailsClient;
         this.timetableClient = timetableClient;
         this.variableLoader = variableLoader;
+        this.dispatcher = dispatcher;
     }
 
     @Override
@@ -70,7 +75,8 @@ public class EmmaRailDataWebClientImpl implements EmmaRailDataWebClient {
                     } else {
                         return Mono.error(new ExternalApiException(HttpStatusCode.valueOf(400), getUrlFromUriString(timetableGetterUri), clientGraphQlResponse.getErrors().isEmpty() ? "" : clientGraphQlResponse.getErrors().getFirst().getMessage()));
                     }
-                });
+                })
+                .transformDeferred(request -> dispatcher.dispatch(RequestPriority.BULK, request));
     }
 
     @Override
@@ -91,7 +97,8 @@ public class EmmaRailDataWebClientImpl implements EmmaRailDataWebClient {
                     } else {
                         return Mono.error(new ExternalApiException(HttpStatusCode.valueOf(400), getUrlFromUriString(trainDetailsGetterUri), clientGraphQlResponse.getErrors().isEmpty() ? "" : clientGraphQlResponse.getErrors().getFirst().getMessage()));
                     }
-                });
+                })
+                .transformDeferred(request -> dispatcher.dispatch(RequestPriority.BULK, request));
     }
 
     @Override
@@ -113,7 +120,8 @@ public class EmmaRailDataWebClientImpl implements EmmaRailDataWebClient {
                     } else {
                         return Mono.error(new ExternalApiException(HttpStatusCode.valueOf(400), getUrlFromUriString(timetableGetterUri), clientGraphQlResponse.getErrors().isEmpty() ? "" : clientGraphQlResponse.getErrors().getFirst().getMessage()));
                     }
-                });
+                })
+                .transformDeferred(request -> dispatcher.dispatch(RequestPriority.INTERACTIVE, request));
     }
 
     private Map<String, Object> mergeWithDefaultVariables(Map<String, Object> dynamicVariables, String documentName) {
@@ -2,6 +2,8 @@ package hu.uni_obuda.thesis.railways.data.raildatacollector.communication.respon
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.util.serializer.EmmaShortTimetableLegsDeserializer;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -10,10 +12,15 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class EmmaShortTimetableResponse {
+
+    public static final Set<String> RAIL_MODES = Set.of("RAIL");
+
     private Plan plan;
 
     @Data
@@ -26,6 +33,7 @@ public class EmmaShortTimetableResponse {
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Itinerary {
         private Integer numberOfTransfers;
+        @JsonDeserialize(using = EmmaShortTimetableLegsDeserializer.class)
         private List<Leg> legs;
     }
 
@@ -74,10 +82,11 @@ public class EmmaShortTimetableResponse {
         private String id;             // opaque GraphQL id, e.g. "VHJpcDoxOjI2ODkyNDA4"
     }
 
+    // non-rail legs are already dropped while deserializing, this covers responses built otherwise
     @JsonIgnore
     public void removeUnnecessaryData() {
         for (Itinerary itinerary : plan.getItineraries()) {
-            itinerary.getLegs().removeIf(leg -> !"RAIL".equalsIgnoreCase(leg.getMode()));
+            itinerary.getLegs().removeIf(leg -> leg.getMode() == null || !RAIL_MODES.contains(leg.getMode().toUpperCase(Locale.ROOT)));
         }
 
         plan.getItineraries().removeIf(itinerary -> itinerary.getLegs().isEmpty());
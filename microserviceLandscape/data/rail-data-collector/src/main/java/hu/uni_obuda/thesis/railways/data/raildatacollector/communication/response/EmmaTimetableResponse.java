@@ -1,14 +1,20 @@
 package hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.util.serializer.EmmaTimetableLegsDeserializer;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class EmmaTimetableResponse {
 
+    public static final Set<String> RAIL_MODES = Set.of("RAIL", "RAIL_REPLACEMENT_BUS", "SUBURBAN_RAILWAY", "TRAMTRAIN");
+
     private Plan plan;
 
     @Data
@@ -23,6 +29,7 @@ public class EmmaTimetableResponse {
         private long duration;
         private int numberOfTransfers;
         private long endTime;
+        @JsonDeserialize(using = EmmaTimetableLegsDeserializer.class)
         private List<Leg> legs;
         private long startTime;
         private long waitingTime;
@@ -89,11 +96,11 @@ public class EmmaTimetableResponse {
 
     }
 
+    // non-rail legs are already dropped while deserializing, this covers responses built otherwise
     public void removeUnnecessaryData() {
         plan.getItineraries().forEach(itinerary -> {
             itinerary.getLegs()
-                    .removeIf(leg -> !"RAIL".equalsIgnoreCase(leg.getMode()) && !"RAIL_REPLACEMENT_BUS".equalsIgnoreCase(leg.getMode())
-                    && !"SUBURBAN_RAILWAY".equalsIgnoreCase(leg.getMode()) && !"TRAMTRAIN".equalsIgnoreCase(leg.getMode()));
+                    .removeIf(leg -> leg.getMode() == null || !RAIL_MODES.contains(leg.getMode().toUpperCase(Locale.ROOT)));
         });
         plan.getItineraries().removeIf(itinerary -> itinerary.getLegs().isEmpty());
     }
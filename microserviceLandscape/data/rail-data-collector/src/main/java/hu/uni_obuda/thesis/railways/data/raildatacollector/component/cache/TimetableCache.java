@@ -6,7 +6,7 @@ import java.time.LocalDate;
 
 public interface TimetableCache {
 
-    String CACHE_PREFIX = "timetableResponse";
+    String CACHE_PREFIX = "timetableIndex";
     String KEY_SET_PREFIX = CACHE_PREFIX + ":" + "keys";
 
     Mono<Boolean> isCached(String from, String to, LocalDate date);
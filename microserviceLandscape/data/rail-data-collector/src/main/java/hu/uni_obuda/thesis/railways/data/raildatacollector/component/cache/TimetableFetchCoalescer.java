@@ -0,0 +1,19 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Lets concurrent requests for the same timetable share one lookup, so a burst of trains between the
+ * same stations on the same day results in a single upstream call.
+ */
+public interface TimetableFetchCoalescer {
+
+    /**
+     * Subscribes to {@code fromCache} and, if it completes empty, to {@code fromUpstream}, unless a
+     * lookup for the same timetable is already in flight, in which case its result is shared.
+     * {@code fromUpstream} is expected to populate the cache itself.
+     */
+    <T> Mono<T> fetch(String from, String to, LocalDate date, Mono<T> fromCache, Mono<T> fromUpstream);
+}
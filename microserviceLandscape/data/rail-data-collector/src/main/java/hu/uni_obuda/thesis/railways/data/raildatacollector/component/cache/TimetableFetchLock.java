@@ -0,0 +1,13 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Lock shared between instances, held while one of them fetches a timetable from upstream.
+ */
+public interface TimetableFetchLock {
+
+    Mono<Boolean> tryAcquire(String key, String token);
+    Mono<Boolean> isHeld(String key);
+    Mono<Void> release(String key, String token);
+}
@@ -1,7 +1,8 @@
 package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.impl;
 
-import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTimetableResponse;
+import com.github.benmanes.caffeine.cache.Cache;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.ElviraTimetableCache;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index.ElviraTimetableIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
@@ -18,37 +19,47 @@ import java.time.LocalDate;
 @Component
 public class ElviraTimetableCacheImpl implements ElviraTimetableCache {
 
-    private final ReactiveRedisTemplate<String, ElviraShortTimetableResponse> timetableRedisTemplate;
+    private final ReactiveRedisTemplate<String, ElviraTimetableIndex> timetableRedisTemplate;
     private final ReactiveRedisTemplate<String, String> keysRedisTemplate;
+    private final Cache<String, ElviraTimetableIndex> localTimetableCache;
 
     @Value("${caching.timetable.cache-duration:6}")
     private Integer cacheDuration;
 
     @Override
     public Mono<Boolean> isCached(String from, String to, LocalDate date) {
-        return timetableRedisTemplate.hasKey(toKey(from, to, date));
+        String key = toKey(from, to, date);
+        if (localTimetableCache.getIfPresent(key) != null) {
+            return Mono.just(true);
+        }
+        return timetableRedisTemplate.hasKey(key);
     }
 
     @Override
-    public Mono<Void> cache(String from, String to, LocalDate date, ElviraShortTimetableResponse timetable) {
+    public Mono<Void> cache(String from, String to, LocalDate date, ElviraTimetableIndex timetable) {
         String key = toKey(from, to, date);
-        return timetableRedisTemplate
-                .opsForValue()
-                .set(key, timetable, Duration.ofHours(cacheDuration))
+        return Mono.fromRunnable(() -> localTimetableCache.put(key, timetable))
+                .then(timetableRedisTemplate
+                        .opsForValue()
+                        .set(key, timetable, Duration.ofHours(cacheDuration)))
                 .then(keysRedisTemplate.opsForSet().add(KEY_SET_PREFIX, key))
                 .then();
     }
 
     @Override
-    public Mono<ElviraShortTimetableResponse> get(String from, String to, LocalDate date) {
-        return timetableRedisTemplate.opsForValue().get(toKey(from, to, date));
+    public Mono<ElviraTimetableIndex> get(String from, String to, LocalDate date) {
+        String key = toKey(from, to, date);
+        return Mono.justOrEmpty(localTimetableCache.getIfPresent(key))
+                .switchIfEmpty(Mono.defer(() -> timetableRedisTemplate.opsForValue().get(key)
+                        .doOnNext(timetable -> localTimetableCache.put(key, timetable))));
     }
 
     @Override
     public Mono<Void> evictAll() {
-        return keysRedisTemplate
-                .opsForSet()
-                .members(KEY_SET_PREFIX)
+        return Mono.fromRunnable(localTimetableCache::invalidateAll)
+                .thenMany(keysRedisTemplate
+                        .opsForSet()
+                        .members(KEY_SET_PREFIX))
                 .collectList()
                 .flatMap(keys -> {
                     if (keys.isEmpty()) return Mono.empty();
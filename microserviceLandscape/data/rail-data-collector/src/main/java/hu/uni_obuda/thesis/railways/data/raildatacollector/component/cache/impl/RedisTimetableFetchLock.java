@@ -0,0 +1,47 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.impl;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableFetchLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "caching.timetable.single-flight.distributed", havingValue = "true")
+@RequiredArgsConstructor
+public class RedisTimetableFetchLock implements TimetableFetchLock {
+
+    private static final String LOCK_PREFIX = "timetableFetchLock:";
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    @Value("${caching.timetable.single-flight.lock-ttl:30}")
+    private Integer lockTtl;
+
+    @Override
+    public Mono<Boolean> tryAcquire(String key, String token) {
+        return redisTemplate.opsForValue()
+                .setIfAbsent(LOCK_PREFIX + key, token, Duration.ofSeconds(lockTtl))
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Boolean> isHeld(String key) {
+        return redisTemplate.hasKey(LOCK_PREFIX + key)
+                .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Void> release(String key, String token) {
+        return redisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_PREFIX + key), List.of(token))
+                .then();
+    }
+}
@@ -0,0 +1,144 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.impl;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableFetchCoalescer;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableFetchLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces timetable lookups per (from, to, date) within the instance and, when a
+ * {@link TimetableFetchLock} is available, across instances as well.
+ * <p>
+ * Outcomes are counted in {@code timetable.fetch.requests}: {@code cached} and {@code upstream} for
+ * the request that led a lookup, {@code coalesced} for requests that joined one in flight on this
+ * instance and {@code awaited} for requests served after another instance fetched the timetable.
+ * {@code timetable.fetch.coalescing.ratio} is the share of non-cached requests that did not
+ * need an upstream call of their own.
+ */
+@Slf4j
+@Component
+public class TimetableFetchCoalescerImpl implements TimetableFetchCoalescer {
+
+    private static final String METRIC_NAME = "timetable.fetch.requests";
+
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final TimetableFetchLock distributedLock;
+
+    private final Counter cached;
+    private final Counter upstream;
+    private final Counter coalesced;
+    private final Counter awaited;
+
+    @Value("${caching.timetable.single-flight.poll-interval-millis:200}")
+    private Integer pollIntervalMillis;
+
+    @Value("${caching.timetable.single-flight.max-polls:50}")
+    private Integer maxPolls;
+
+    public TimetableFetchCoalescerImpl(MeterRegistry meterRegistry, ObjectProvider<TimetableFetchLock> distributedLock) {
+        this.distributedLock = distributedLock.getIfAvailable();
+        this.cached = requestCounter(meterRegistry, "cached");
+        this.upstream = requestCounter(meterRegistry, "upstream");
+        this.coalesced = requestCounter(meterRegistry, "coalesced");
+        this.awaited = requestCounter(meterRegistry, "awaited");
+        Gauge.builder("timetable.fetch.coalescing.ratio", this, TimetableFetchCoalescerImpl::coalescingRatio)
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> fetch(String from, String to, LocalDate date, Mono<T> fromCache, Mono<T> fromUpstream) {
+        return Mono.defer(() -> {
+            String key = from + ":" + to + ":" + date;
+            boolean[] leader = {false};
+            Mono<T> flight = (Mono<T>) inFlight.computeIfAbsent(key, _ -> {
+                leader[0] = true;
+                return lookup(key, fromCache, fromUpstream)
+                        .doFinally(_ -> inFlight.remove(key))
+                        .cache();
+            });
+            if (!leader[0]) {
+                log.debug("Joining the timetable lookup already in flight for {}", key);
+                coalesced.increment();
+            }
+            return flight;
+        });
+    }
+
+    private <T> Mono<T> lookup(String key, Mono<T> fromCache, Mono<T> fromUpstream) {
+        Mono<T> countedUpstream = Mono.defer(() -> {
+            upstream.increment();
+            return fromUpstream;
+        });
+        Mono<T> onMiss = distributedLock == null ? countedUpstream : fetchOnceAcrossInstances(key, fromCache, countedUpstream);
+        return fromCache
+                .doOnNext(_ -> cached.increment())
+                .switchIfEmpty(onMiss);
+    }
+
+    private <T> Mono<T> fetchOnceAcrossInstances(String key, Mono<T> fromCache, Mono<T> fromUpstream) {
+        String token = UUID.randomUUID().toString();
+        return distributedLock.tryAcquire(key, token)
+                .onErrorResume(throwable -> {
+                    log.warn("Could not acquire the timetable fetch lock for {}, fetching without it: {}", key, throwable.getMessage());
+                    return Mono.just(true);
+                })
+                .flatMap(acquired -> {
+                    if (Boolean.TRUE.equals(acquired)) {
+                        return Mono.usingWhen(Mono.just(token), _ -> fromUpstream, heldToken -> releaseQuietly(key, heldToken));
+                    }
+                    log.info("Timetable {} is being fetched by another instance, waiting for it to be cached", key);
+                    return awaitOtherInstance(key, fromCache, fromUpstream);
+                });
+    }
+
+    private <T> Mono<T> awaitOtherInstance(String key, Mono<T> fromCache, Mono<T> fromUpstream) {
+        Duration pollInterval = Duration.ofMillis(pollIntervalMillis);
+        return fromCache
+                .repeatWhenEmpty(attempts -> attempts
+                        .concatMap(_ -> distributedLock.isHeld(key)
+                                .onErrorReturn(false)
+                                .delayElement(pollInterval))
+                        .takeWhile(Boolean::booleanValue)
+                        .take(maxPolls))
+                // the other instance may have released the lock right after caching the timetable
+                .switchIfEmpty(fromCache)
+                .doOnNext(_ -> awaited.increment())
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.warn("Timetable {} did not show up in the cache, fetching it directly", key);
+                    return fromUpstream;
+                }));
+    }
+
+    private Mono<Void> releaseQuietly(String key, String token) {
+        return distributedLock.release(key, token)
+                .onErrorResume(throwable -> {
+                    log.warn("Could not release the timetable fetch lock for {}: {}", key, throwable.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private double coalescingRatio() {
+        double shared = coalesced.count() + awaited.count();
+        double total = shared + upstream.count();
+        return total == 0 ? 0 : shared / total;
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METRIC_NAME)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
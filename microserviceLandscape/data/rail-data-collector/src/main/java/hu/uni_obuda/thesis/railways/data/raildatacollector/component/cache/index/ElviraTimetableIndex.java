@@ -0,0 +1,29 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTimetableResponse;
+import lombok.NoArgsConstructor;
+
+/**
+ * Indexes every timetable entry under the train codes of its details.
+ */
+@NoArgsConstructor
+public class ElviraTimetableIndex extends TimetableIndex<ElviraShortTimetableResponse.TimetableEntry> {
+
+    public static ElviraTimetableIndex of(ElviraShortTimetableResponse response) {
+        ElviraTimetableIndex index = new ElviraTimetableIndex();
+        if (response.getTimetable() == null) {
+            return index;
+        }
+        for (var entry : response.getTimetable()) {
+            if (entry.getDetails() == null) {
+                continue;
+            }
+            for (var detail : entry.getDetails()) {
+                if (detail.getTrainInfo() != null) {
+                    index.add(detail.getTrainInfo().getCode(), entry);
+                }
+            }
+        }
+        return index;
+    }
+}
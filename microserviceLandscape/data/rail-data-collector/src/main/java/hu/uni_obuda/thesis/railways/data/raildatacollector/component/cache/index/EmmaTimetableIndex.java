@@ -0,0 +1,33 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
+import lombok.NoArgsConstructor;
+
+/**
+ * Indexes the transit legs of every itinerary under each word of their trip short name,
+ * e.g. {@code "2410  személyvonat"} is found by {@code 2410}.
+ */
+@NoArgsConstructor
+public class EmmaTimetableIndex extends TimetableIndex<EmmaShortTimetableResponse.Leg> {
+
+    public static EmmaTimetableIndex of(EmmaShortTimetableResponse response) {
+        EmmaTimetableIndex index = new EmmaTimetableIndex();
+        if (response.getPlan() == null || response.getPlan().getItineraries() == null) {
+            return index;
+        }
+        for (var itinerary : response.getPlan().getItineraries()) {
+            if (itinerary.getLegs() == null) {
+                continue;
+            }
+            for (var leg : itinerary.getLegs()) {
+                if (leg.getRoute() == null || leg.getTrip() == null || leg.getTrip().getTripShortName() == null) {
+                    continue;
+                }
+                for (String word : leg.getTrip().getTripShortName().trim().split("\\s+")) {
+                    index.add(word, leg);
+                }
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,38 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Timetable entries of one (from, to, date) keyed by train number.
+ * <p>
+ * Built once when a timetable is fetched and cached in its place, so finding the entry of a train
+ * is a map lookup and only the entries needed for delay collection are stored. When a train number
+ * appears in several entries, the first one wins, as it did when the raw timetable was scanned.
+ */
+@Data
+@NoArgsConstructor
+public abstract class TimetableIndex<E> {
+
+    private Map<String, E> entries = new LinkedHashMap<>();
+
+    public Optional<E> find(String trainNumber) {
+        return Optional.ofNullable(entries.get(trainNumber));
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    protected void add(String trainNumber, E entry) {
+        if (trainNumber != null && !trainNumber.isBlank()) {
+            entries.putIfAbsent(trainNumber, entry);
+        }
+    }
+}
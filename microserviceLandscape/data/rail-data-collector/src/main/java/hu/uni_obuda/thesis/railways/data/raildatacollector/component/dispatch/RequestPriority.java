@@ -0,0 +1,5 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch;
+
+public enum RequestPriority {
+    INTERACTIVE, BULK
+}
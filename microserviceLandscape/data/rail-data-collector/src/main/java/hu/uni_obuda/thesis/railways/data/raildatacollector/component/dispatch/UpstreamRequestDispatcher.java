@@ -0,0 +1,7 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch;
+
+import reactor.core.publisher.Mono;
+
+public interface UpstreamRequestDispatcher {
+    <T> Mono<T> dispatch(RequestPriority priority, Mono<T> request);
+}
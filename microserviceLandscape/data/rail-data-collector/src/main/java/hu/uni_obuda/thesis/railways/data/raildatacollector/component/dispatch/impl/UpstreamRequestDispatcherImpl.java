@@ -0,0 +1,205 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.impl;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.RequestPriority;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.UpstreamRequestDispatcher;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out permits for upstream calls from a token bucket shared by every request sent to the
+ * railway API host, keeping a separate queue for each {@link RequestPriority}.
+ * <p>
+ * Queued interactive requests always get the next token. Bulk requests only get one when no
+ * interactive request is waiting, and while interactive traffic has been seen within
+ * {@code interactive-grace-millis} they also leave {@code interactive-reserve} tokens in the bucket,
+ * so a route query arriving during a collection burst does not wait for the bucket to refill.
+ * <p>
+ * Per-lane metrics are tagged with {@code lane} and {@code host}: {@code upstream.dispatch.wait}
+ * is the time spent queued for a token, {@code upstream.dispatch.latency} the duration of the call
+ * itself and {@code upstream.dispatch.queued} the number of waiting requests.
+ */
+@Component
+public class UpstreamRequestDispatcherImpl implements UpstreamRequestDispatcher {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final Map<RequestPriority, Lane> lanes = new EnumMap<>(RequestPriority.class);
+
+    @Value("${railway.api.dispatch.capacity:6}")
+    private Integer capacity;
+    @Value("${railway.api.dispatch.refill-per-second:4}")
+    private Double refillPerSecond;
+    @Value("${railway.api.dispatch.interactive-reserve:2}")
+    private Integer interactiveReserve;
+    @Value("${railway.api.dispatch.interactive-grace-millis:5000}")
+    private Integer interactiveGraceMillis;
+    @Value("${railway.api.dispatch.tick-millis:50}")
+    private Integer tickMillis;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private volatile long lastInteractiveNanos;
+    private volatile boolean interactiveSeen;
+    private Disposable ticker;
+
+    public UpstreamRequestDispatcherImpl(@Value("${railway.api.base-url:}") String baseUrl, MeterRegistry meterRegistry) {
+        String host = hostOf(baseUrl);
+        for (RequestPriority priority : RequestPriority.values()) {
+            lanes.put(priority, new Lane(priority, host, meterRegistry));
+        }
+        Gauge.builder("upstream.dispatch.tokens", this, UpstreamRequestDispatcherImpl::availableTokens)
+                .tag("host", host)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        tokens = capacity;
+        lastRefillNanos = System.nanoTime();
+        ticker = Schedulers.parallel().schedulePeriodically(this::drain, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.dispose();
+    }
+
+    @Override
+    public <T> Mono<T> dispatch(RequestPriority priority, Mono<T> request) {
+        Lane lane = lanes.get(priority);
+        return Mono.defer(() -> {
+            Ticket ticket = new Ticket(System.nanoTime());
+            if (priority == RequestPriority.INTERACTIVE) {
+                lastInteractiveNanos = ticket.enqueuedAt;
+                interactiveSeen = true;
+            }
+            lane.queue.add(ticket);
+            drain();
+            return ticket.permit.asMono()
+                    .then(Mono.defer(() -> {
+                        long startedAt = System.nanoTime();
+                        lane.waitTime.record(startedAt - ticket.enqueuedAt, TimeUnit.NANOSECONDS);
+                        return request.doFinally(_ -> lane.latency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS));
+                    }))
+                    .doOnCancel(() -> {
+                        if (ticket.state.compareAndSet(WAITING, CANCELLED)) {
+                            lane.queue.remove(ticket);
+                        }
+                    });
+        });
+    }
+
+    private void drain() {
+        List<Ticket> granted = new ArrayList<>();
+        synchronized (this) {
+            refill();
+            Ticket next;
+            while (tokens >= 1 && (next = nextTicket()) != null) {
+                tokens -= 1;
+                granted.add(next);
+            }
+        }
+        granted.forEach(ticket -> ticket.permit.tryEmitEmpty());
+    }
+
+    private Ticket nextTicket() {
+        Ticket interactive = poll(lanes.get(RequestPriority.INTERACTIVE).queue);
+        if (interactive != null) {
+            return interactive;
+        }
+        if (tokens - 1 < bulkReserve()) {
+            return null;
+        }
+        return poll(lanes.get(RequestPriority.BULK).queue);
+    }
+
+    private int bulkReserve() {
+        boolean interactiveRecently = interactiveSeen
+                && System.nanoTime() - lastInteractiveNanos < TimeUnit.MILLISECONDS.toNanos(interactiveGraceMillis);
+        return interactiveRecently ? interactiveReserve : 0;
+    }
+
+    private static Ticket poll(Queue<Ticket> queue) {
+        Ticket ticket;
+        while ((ticket = queue.poll()) != null) {
+            if (ticket.state.compareAndSet(WAITING, GRANTED)) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+
+    private synchronized double availableTokens() {
+        return tokens;
+    }
+
+    private static String hostOf(String baseUrl) {
+        try {
+            String host = URI.create(baseUrl).getHost();
+            return host != null ? host : "unknown";
+        } catch (IllegalArgumentException _) {
+            return "unknown";
+        }
+    }
+
+    private static final class Lane {
+        private final Queue<Ticket> queue = new ConcurrentLinkedQueue<>();
+        private final Timer waitTime;
+        private final Timer latency;
+
+        private Lane(RequestPriority priority, String host, MeterRegistry meterRegistry) {
+            String laneName = priority.name().toLowerCase();
+            this.waitTime = Timer.builder("upstream.dispatch.wait")
+                    .tag("lane", laneName)
+                    .tag("host", host)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.latency = Timer.builder("upstream.dispatch.latency")
+                    .tag("lane", laneName)
+                    .tag("host", host)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("upstream.dispatch.queued", queue, Queue::size)
+                    .tag("lane", laneName)
+                    .tag("host", host)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static final class Ticket {
+        private final long enqueuedAt;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final Sinks.Empty<Void> permit = Sinks.empty();
+
+        private Ticket(long enqueuedAt) {
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package hu.uni_obuda.thesis.railways.data.raildatacollector.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
-import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTimetableResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index.ElviraTimetableIndex;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index.EmmaTimetableIndex;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.entity.ScheduledDateEntity;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.entity.ScheduledIntervalEntity;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.entity.ScheduledJobEntity;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.util.adapter.ReactiveDateRepositoryAdapter;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.util.adapter.ReactiveIntervalRepositoryAdapter;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.util.adapter.ReactiveJobRepositoryAdapter;
+import hu.uni_obuda.thesis.railways.util.codec.CompactRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
@@ -21,12 +26,33 @@ import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.time.Duration;
+
 @RequiredArgsConstructor
 @EnableScheduling
 @Configuration
 public class RedisCacheConfig {
 
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${caching.serialization.format:smile}")
+    private String format;
+
+    @Value("${caching.serialization.compression:lz4}")
+    private String compression;
+
+    @Value("${caching.serialization.compression-threshold:1024}")
+    private Integer compressionThreshold;
+
+    @Value("${caching.serialization.max-value-size:16777216}")
+    private Integer maxValueSize;
+
+    @Value("${caching.timetable.cache-duration:6}")
+    private Integer timetableCacheDuration;
+
+    @Value("${caching.timetable.local-cache-size:200}")
+    private Integer localTimetableCacheSize;
 
     @Bean(name = "idRedisTemplate")
     public ReactiveRedisTemplate<String, Integer> idRedisTemplate(ReactiveRedisConnectionFactory factory) {
@@ -42,29 +68,39 @@ public class RedisCacheConfig {
     }
 
     @Bean
-    public ReactiveRedisTemplate<String, ElviraShortTimetableResponse> timetableResponseRedisTemplate(ReactiveRedisConnectionFactory factory) {
-        Jackson2JsonRedisSerializer<ElviraShortTimetableResponse> jacksonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, ElviraShortTimetableResponse.class);
+    public ReactiveRedisTemplate<String, ElviraTimetableIndex> timetableIndexRedisTemplate(ReactiveRedisConnectionFactory factory) {
+        CompactRedisSerializer<ElviraTimetableIndex> valueSerializer = compactSerializer(ElviraTimetableIndex.class, "elviraTimetable");
 
-        RedisSerializationContext<String, ElviraShortTimetableResponse> context = RedisSerializationContext
-                .<String, ElviraShortTimetableResponse>newSerializationContext(new StringRedisSerializer())
-                .value(jacksonSerializer)
+        RedisSerializationContext<String, ElviraTimetableIndex> context = RedisSerializationContext
+                .<String, ElviraTimetableIndex>newSerializationContext(new StringRedisSerializer())
+                .value(valueSerializer)
                 .build();
 
         return new ReactiveRedisTemplate<>(factory, context);
     }
 
     @Bean
-    public ReactiveRedisTemplate<String, EmmaShortTimetableResponse> graphQlTimetableResponseRedisTemplate(ReactiveRedisConnectionFactory factory) {
-        Jackson2JsonRedisSerializer<EmmaShortTimetableResponse> jacksonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, EmmaShortTimetableResponse.class);
+    public ReactiveRedisTemplate<String, EmmaTimetableIndex> graphQlTimetableIndexRedisTemplate(ReactiveRedisConnectionFactory factory) {
+        CompactRedisSerializer<EmmaTimetableIndex> valueSerializer = compactSerializer(EmmaTimetableIndex.class, "emmaTimetable");
 
-        RedisSerializationContext<String, EmmaShortTimetableResponse> context = RedisSerializationContext
-                .<String, EmmaShortTimetableResponse>newSerializationContext(new StringRedisSerializer())
-                .value(jacksonSerializer)
+        RedisSerializationContext<String, EmmaTimetableIndex> context = RedisSerializationContext
+                .<String, EmmaTimetableIndex>newSerializationContext(new StringRedisSerializer())
+                .value(valueSerializer)
                 .build();
 
         return new ReactiveRedisTemplate<>(factory, context);
     }
 
+    @Bean
+    public Cache<String, ElviraTimetableIndex> localElviraTimetableCache() {
+        return localTimetableCache();
+    }
+
+    @Bean
+    public Cache<String, EmmaTimetableIndex> localEmmaTimetableCache() {
+        return localTimetableCache();
+    }
+
     @Bean
     public ReactiveRedisTemplate<String, ScheduledJobEntity> scheduledJobsRedisTemplate(ReactiveRedisConnectionFactory factory) {
         Jackson2JsonRedisSerializer<ScheduledJobEntity> jacksonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, ScheduledJobEntity.class);
@@ -115,4 +151,22 @@ public class RedisCacheConfig {
     public ReactiveIntervalRepositoryAdapter reactiveIntervalRepository(@Qualifier("idRedisTemplate") ReactiveRedisTemplate<String, Integer> keyTemplate, ReactiveRedisTemplate<String, ScheduledIntervalEntity> entityTemplate) {
         return new ReactiveIntervalRepositoryAdapter(keyTemplate, entityTemplate);
     }
+
+    private <T> Cache<String, T> localTimetableCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(localTimetableCacheSize)
+                .expireAfterWrite(Duration.ofHours(timetableCacheDuration))
+                .build();
+    }
+
+    private <T> CompactRedisSerializer<T> compactSerializer(Class<T> type, String cacheName) {
+        return CompactRedisSerializer.builder(objectMapper, type)
+                .format(format)
+                .compression(compression)
+                .compressionThreshold(compressionThreshold)
+                .maxValueSize(maxValueSize)
+                .cacheName(cacheName)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
 }
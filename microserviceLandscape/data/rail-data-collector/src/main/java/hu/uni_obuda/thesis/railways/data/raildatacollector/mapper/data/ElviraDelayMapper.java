@@ -8,17 +8,22 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Function;
 
+/**
+ * Maps ELVIRA train details to {@link DelayInfo}s in a single pass over the stations.
+ * <p>
+ * Every time is parsed once. Each of the four time columns tracks its own day rollover: from the
+ * first station whose time is earlier than the previous time in that column, the column is dated
+ * to the following day. Delays are computed from the parsed times.
+ */
 @Profile("data-source-elvira")
 @Component
 @Slf4j
@@ -26,107 +31,113 @@ import java.util.function.Function;
 public class ElviraDelayMapper {
 
     public Mono<List<DelayInfo>> mapToDelayInfo(ElviraShortTrainDetailsResponse response, String trainNumber, LocalDate date) {
-        if (response.getStations().getLast().getRealArrival() == null || response.getStations().getLast().getRealArrival().isBlank()) {
+        List<ElviraShortTrainDetailsResponse.Station> stations = response.getStations();
+        if (isBlank(stations.getLast().getRealArrival())) {
             log.warn("Returning empty station list because train {} hasn't arrived yet", trainNumber);
             return Mono.just(Collections.emptyList());
         }
-        String startTime = response.getStations().getFirst().getScheduledDeparture();
         LocalTime localStartTime;
         try {
-            localStartTime = LocalTime.parse(startTime);
+            localStartTime = LocalTime.parse(stations.getFirst().getScheduledDeparture());
         } catch (DateTimeParseException e) {
             log.error("Could not parse scheduled departure at first stop for train {}", trainNumber);
             return Mono.error(e);
         }
-        List<DelayInfo> delayInfos = new ArrayList<>();
 
-        int scheduledDepartureRollover = findRolloverIndex(response.getStations(), localStartTime, station -> station.getScheduledDeparture());
-        int scheduledArrivalRollover = findRolloverIndex(response.getStations(), localStartTime, station -> station.getScheduledArrival());
-        int realDepartureRollover = findRolloverIndex(response.getStations(), localStartTime, station -> station.getRealDeparture());
-        int realArrivalRollover = findRolloverIndex(response.getStations(), localStartTime, station -> station.getRealArrival());
+        TimeColumn scheduledArrivals = new TimeColumn(date, localStartTime);
+        TimeColumn scheduledDepartures = new TimeColumn(date, localStartTime);
+        TimeColumn realArrivals = new TimeColumn(date, localStartTime);
+        TimeColumn realDepartures = new TimeColumn(date, localStartTime);
 
-        for (int i = 0; i < response.getStations().size(); i++) {
-            ElviraShortTrainDetailsResponse.Station currentStation = response.getStations().get(i);
-            DelayInfo delayInfo = DelayInfo.builder()
+        List<DelayInfo> delayInfos = new ArrayList<>(stations.size());
+        for (ElviraShortTrainDetailsResponse.Station currentStation : stations) {
+            LocalDateTime scheduledArrival = scheduledArrivals.next(currentStation.getScheduledArrival());
+            LocalDateTime scheduledDeparture = scheduledDepartures.next(currentStation.getScheduledDeparture());
+            LocalDateTime actualArrival = realArrivals.next(currentStation.getRealArrival());
+            LocalDateTime actualDeparture = realDepartures.next(currentStation.getRealDeparture());
+
+            delayInfos.add(DelayInfo.builder()
                     .stationCode(currentStation.getCode())
                     .thirdPartyStationUrl(currentStation.getGetUrl().split("=")[1])
                     .officialStationUrl(currentStation.getUrl())
                     .trainNumber(trainNumber)
                     .date(date)
-                    .build();
+                    .scheduledArrival(toIsoString(scheduledArrival))
+                    .scheduledDeparture(toIsoString(scheduledDeparture))
+                    .actualArrival(toIsoString(actualArrival))
+                    .actualDeparture(toIsoString(actualDeparture))
+                    .arrivalDelay(calculateDelay(scheduledArrival, actualArrival))
+                    .departureDelay(calculateDelay(scheduledDeparture, actualDeparture))
+                    .build());
+        }
+        return Mono.just(delayInfos);
+    }
 
+    private static Integer calculateDelay(LocalDateTime scheduled, LocalDateTime actual) {
+        if (scheduled == null || actual == null) {
+            return null;
+        }
+        return (int) ChronoUnit.MINUTES.between(scheduled, actual);
+    }
 
-            if (currentStation.getScheduledArrival() != null && !currentStation.getScheduledArrival().isEmpty()) {
-                if (scheduledArrivalRollover != -1 && i >= scheduledArrivalRollover) {
-                    delayInfo.setScheduledArrival(parseTimeSafely(currentStation.getScheduledArrival()).atDate(date).plusDays(1).toString());
-                } else {
-                    delayInfo.setScheduledArrival(parseTimeSafely(currentStation.getScheduledArrival()).atDate(date).toString());
-                }
-            }
+    private static String toIsoString(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toString() : null;
+    }
 
-            if (currentStation.getScheduledDeparture() != null && !currentStation.getScheduledDeparture().isEmpty()) {
-                if (scheduledDepartureRollover != -1 && i >= scheduledDepartureRollover) {
-                    delayInfo.setScheduledDeparture(parseTimeSafely(currentStation.getScheduledDeparture()).atDate(date).plusDays(1).toString());
-                } else {
-                    delayInfo.setScheduledDeparture(parseTimeSafely(currentStation.getScheduledDeparture()).atDate(date).toString());
-                }
-            }
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
 
-            if (currentStation.getRealArrival() != null && !currentStation.getRealArrival().isEmpty()) {
-                if (realArrivalRollover != -1 && i >= realArrivalRollover) {
-                    delayInfo.setActualArrival((parseTimeSafely(currentStation.getRealArrival()).atDate(date).plusDays(1).toString()));
-                } else {
-                    delayInfo.setActualArrival(parseTimeSafely(currentStation.getRealArrival()).atDate(date).toString());
-                }
+    // ELVIRA reports times as HH:mm, so that shape is parsed by hand and anything else is left to LocalTime
+    private static LocalTime parseTime(String time) {
+        if (time.length() == 5 && time.charAt(2) == ':') {
+            int hour = twoDigits(time, 0);
+            int minute = twoDigits(time, 3);
+            if (hour == 24 && minute == 0) {
+                return LocalTime.MIDNIGHT;
             }
-
-            if (currentStation.getRealDeparture() != null && !currentStation.getRealDeparture().isEmpty()) {
-                if (realDepartureRollover != -1 && i >= realDepartureRollover) {
-                    delayInfo.setActualDeparture(parseTimeSafely(currentStation.getRealDeparture()).atDate(date).plusDays(1).toString());
-                } else {
-                    delayInfo.setActualDeparture(parseTimeSafely(currentStation.getRealDeparture()).atDate(date).toString());
-                }
+            if (hour >= 0 && hour < 24 && minute >= 0 && minute < 60) {
+                return LocalTime.of(hour, minute);
             }
-
-            delayInfo.setArrivalDelay(calculateDelay(delayInfo.getScheduledArrival(), delayInfo.getActualArrival()));
-            delayInfo.setDepartureDelay(calculateDelay(delayInfo.getScheduledDeparture(), delayInfo.getActualDeparture()));
-
-            delayInfos.add(delayInfo);
         }
-        return Mono.just(delayInfos);
+        return LocalTime.parse(time);
     }
 
-    private int findRolloverIndex(List<ElviraShortTrainDetailsResponse.Station> stations, LocalTime startTime, Function<ElviraShortTrainDetailsResponse.Station, String> propertyGetter) {
-        LocalTime previousTime = startTime;
-        for (int i = 0; i < stations.size(); i++) {
-            ElviraShortTrainDetailsResponse.Station currentStation = stations.get(i);
-            String timeProperty = propertyGetter.apply(currentStation);
-            if (timeProperty != null && !timeProperty.isBlank()) {
-                LocalTime currentTime = parseTimeSafely(timeProperty);
-                if (currentTime.isBefore(previousTime)) {
-                    return i;
-                }
-                previousTime = parseTimeSafely(timeProperty);
-            }
+    private static int twoDigits(String value, int offset) {
+        int tens = value.charAt(offset) - '0';
+        int units = value.charAt(offset + 1) - '0';
+        if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+            return -1;
         }
-        return -1;
+        return tens * 10 + units;
     }
 
-    private Integer calculateDelay(String scheduled, String actual) {
-        if (scheduled == null || scheduled.isBlank() || actual == null || actual.isBlank()) {
-            return null;
-        } else {
-            try {
-                LocalDateTime scheduledDate = LocalDateTime.parse(scheduled, DateTimeFormatter.ISO_DATE_TIME);
-                LocalDateTime actualDate = LocalDateTime.parse(actual, DateTimeFormatter.ISO_DATE_TIME);
-                return (int) Duration.between(scheduledDate, actualDate).toMinutes();
-            } catch (DateTimeParseException e) {
+    private static final class TimeColumn {
+
+        private final LocalDate date;
+        private final LocalDate nextDate;
+        private LocalTime previous;
+        private boolean rolledOver;
+
+        private TimeColumn(LocalDate date, LocalTime startTime) {
+            this.date = date;
+            this.nextDate = date.plusDays(1);
+            this.previous = startTime;
+        }
+
+        private LocalDateTime next(String value) {
+            if (isBlank(value)) {
                 return null;
             }
+            LocalTime time = parseTime(value);
+            if (!rolledOver) {
+                if (time.isBefore(previous)) {
+                    rolledOver = true;
+                } else {
+                    previous = time;
+                }
+            }
+            return rolledOver ? time.atDate(nextDate) : time.atDate(date);
         }
     }
-
-    private static LocalTime parseTimeSafely(String timeStr) {
-        return LocalTime.parse(timeStr.equals("24:00") ? "00:00" : timeStr);
-    }
 }
@@ -42,10 +42,14 @@ public class EmmaDelayMapper {
             return Mono.error(new TrainNotInServiceException(trainNumber, date));
         }
         LocalDateTime operationDayMidnight = date.atStartOfDay();
-        List<DelayInfo> delayInfos = new ArrayList<>();
+        List<EmmaShortTrainDetailsResponse.StopTime> stopTimes = response.getTrip().getStoptimes();
+        int lastIndex = stopTimes.size() - 1;
+        List<DelayInfo> delayInfos = new ArrayList<>(stopTimes.size());
 
-        for (int i = 0; i < response.getTrip().getStoptimes().size(); i++) {
-            EmmaShortTrainDetailsResponse.StopTime currentStation = response.getTrip().getStoptimes().get(i);
+        for (int i = 0; i <= lastIndex; i++) {
+            EmmaShortTrainDetailsResponse.StopTime currentStation = stopTimes.get(i);
+            boolean first = i == 0;
+            boolean last = i == lastIndex;
             DelayInfo delayInfo = DelayInfo.builder()
                     .stationCode(adjustStationCodeFormat(currentStation.getStop().getName()))
                     .thirdPartyStationUrl("")
@@ -54,27 +58,20 @@ public class EmmaDelayMapper {
                     .date(date)
                     .build();
 
-
-            if (currentStation.getScheduledArrival() != null && i != 0) {
-                LocalDateTime scheduledArrival = operationDayMidnight.plusSeconds(currentStation.getScheduledArrival());
-                delayInfo.setScheduledArrival(scheduledArrival.toString());
-            }
-
-            if (currentStation.getScheduledDeparture() != null && i != response.getTrip().getStoptimes().size() - 1) {
-                LocalDateTime scheduledDeparture = operationDayMidnight.plusSeconds(currentStation.getScheduledDeparture());
-                delayInfo.setScheduledDeparture(scheduledDeparture.toString());
+            if (!first) {
+                delayInfo.setScheduledArrival(atSecondOfDay(operationDayMidnight, currentStation.getScheduledArrival()));
+                if (currentStation.getRealtimeArrival() != null) {
+                    delayInfo.setActualArrival(atSecondOfDay(operationDayMidnight, currentStation.getRealtimeArrival()));
+                    delayInfo.setArrivalDelay(calculateDelay(currentStation.getArrivalDelay()));
+                }
             }
 
-            if (currentStation.getRealtimeArrival() != null && i != 0) {
-                LocalDateTime realtimeArrival = operationDayMidnight.plusSeconds(currentStation.getRealtimeArrival());
-                delayInfo.setActualArrival(realtimeArrival.toString());
-                delayInfo.setArrivalDelay(calculateDelay(currentStation.getArrivalDelay()));
-            }
-
-            if (currentStation.getRealtimeDeparture() != null && i != response.getTrip().getStoptimes().size() - 1) {
-                LocalDateTime realtimeDeparture = operationDayMidnight.plusSeconds(currentStation.getRealtimeDeparture());
-                delayInfo.setActualDeparture(realtimeDeparture.toString());
-                delayInfo.setDepartureDelay(calculateDelay(currentStation.getDepartureDelay()));
+            if (!last) {
+                delayInfo.setScheduledDeparture(atSecondOfDay(operationDayMidnight, currentStation.getScheduledDeparture()));
+                if (currentStation.getRealtimeDeparture() != null) {
+                    delayInfo.setActualDeparture(atSecondOfDay(operationDayMidnight, currentStation.getRealtimeDeparture()));
+                    delayInfo.setDepartureDelay(calculateDelay(currentStation.getDepartureDelay()));
+                }
             }
 
             delayInfos.add(delayInfo);
@@ -82,6 +79,10 @@ public class EmmaDelayMapper {
         return Mono.just(delayInfos);
     }
 
+    private static String atSecondOfDay(LocalDateTime operationDayMidnight, Integer seconds) {
+        return seconds != null ? operationDayMidnight.plusSeconds(seconds).toString() : null;
+    }
+
     private Integer calculateDelay(Integer delayInSeconds) {
         if (delayInSeconds == null) {
             return null;
@@ -89,12 +90,18 @@ public class EmmaDelayMapper {
         return delayInSeconds / 60;
     }
 
+    // replaces the letters EMMA and ELVIRA spell differently in one pass, returning the name itself when none occur
     private String adjustStationCodeFormat(@NonNull String stationCode) {
+        char[] adjusted = null;
         for (int i = 0; i < stationCode.length(); i++) {
-            if (STATION_CODE_MAPPING.containsKey(stationCode.charAt(i))) {
-                stationCode = stationCode.replace(stationCode.charAt(i), STATION_CODE_MAPPING.get(stationCode.charAt(i)));
+            Character replacement = STATION_CODE_MAPPING.get(stationCode.charAt(i));
+            if (replacement != null) {
+                if (adjusted == null) {
+                    adjusted = stationCode.toCharArray();
+                }
+                adjusted[i] = replacement;
             }
         }
-        return stationCode;
+        return adjusted != null ? new String(adjusted) : stationCode;
     }
 }
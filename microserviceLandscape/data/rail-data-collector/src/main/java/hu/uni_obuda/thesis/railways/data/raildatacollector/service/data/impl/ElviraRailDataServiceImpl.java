@@ -3,6 +3,8 @@ package hu.uni_obuda.thesis.railways.data.raildatacollector.service.data.impl;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.gateway.ElviraRailDataGateway;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTimetableResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.ElviraTimetableCache;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableFetchCoalescer;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index.ElviraTimetableIndex;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.mapper.data.ElviraDelayMapper;
@@ -38,35 +40,17 @@ public class ElviraRailDataServiceImpl implements ElviraRailDataService {
 
     private final ElviraRailDataGateway gateway;
     private final ElviraTimetableCache timetableCache;
+    private final TimetableFetchCoalescer timetableFetchCoalescer;
     private final ElviraDelayMapper delayMapper;
     private final ElviraRouteMapper routeMapper;
 
     @Override
     public Flux<DelayInfo> getDelayInfo(String trainNumber, String from, String to, LocalDate date) {
-        return  timetableCache.isCached(from, to, date)
-                .flatMap(isCached -> {
-                    if (Boolean.TRUE.equals(isCached)) {
-                        log.info("Timetable with start station {} and end station {} on date {} is already cached, reusing cached object", from, to, date);
-                        return timetableCache.get(from, to, date);
-                    } else {
-                        log.info("Getting timetable with start station {} and end station {} on date {}", from, to, date);
-                        return gateway.getShortTimetable(from, to, date)
-                                .flatMap(response -> {
-                                    if (!response.getTimetable().isEmpty()) {
-                                        log.info("Caching timetable with start station {} and end station {} on date {}", from, to, date);
-                                        return timetableCache.cache(from, to, date, response)
-                                                .thenReturn(response);
-                                    } else {
-                                        log.warn("Got an empty timetable with start station {} and end station {} on date {}", from, to, date);
-                                        return Mono.just(response);
-                                    }
-                               });
-                    }
-                })
+        return timetableFetchCoalescer.fetch(from, to, date, getCachedTimetable(from, to, date), fetchAndCacheTimetable(from, to, date))
                 .onErrorMap(WebClientResponseException.NotFound.class, this::mapNotFoundToExternalApiException)
                 .onErrorMap(WebClientResponseException.BadRequest.class, this::mapBadRequestToExternalApiException)
                 .onErrorMap(WebClientRequestException.class, this::mapWebClientRequestExceptionToApiException)
-                .flatMap(timetableResponse -> extractTimetableEntry(timetableResponse, trainNumber, date))
+                .flatMap(timetableIndex -> extractTimetableEntry(timetableIndex, trainNumber, date))
                 .flatMap(entry -> extractSchedule(entry, trainNumber))
                 .flatMap(this::checkSchedule)
                 .flatMap(entry -> extractTrainUri(entry, trainNumber, date))
@@ -88,6 +72,35 @@ public class ElviraRailDataServiceImpl implements ElviraRailDataService {
                 .flatMapMany(Flux::fromIterable);
     }
 
+    private Mono<ElviraTimetableIndex> getCachedTimetable(String from, String to, LocalDate date) {
+        return timetableCache.isCached(from, to, date)
+                .flatMap(isCached -> {
+                    if (Boolean.TRUE.equals(isCached)) {
+                        log.info("Timetable with start station {} and end station {} on date {} is already cached, reusing cached object", from, to, date);
+                        return timetableCache.get(from, to, date);
+                    } else {
+                        return Mono.empty();
+                    }
+                });
+    }
+
+    private Mono<ElviraTimetableIndex> fetchAndCacheTimetable(String from, String to, LocalDate date) {
+        return Mono.defer(() -> {
+            log.info("Getting timetable with start station {} and end station {} on date {}", from, to, date);
+            return gateway.getShortTimetable(from, to, date);
+        }).flatMap(response -> {
+            ElviraTimetableIndex index = ElviraTimetableIndex.of(response);
+            if (!index.isEmpty()) {
+                log.info("Caching timetable with start station {} and end station {} on date {}", from, to, date);
+                return timetableCache.cache(from, to, date, index)
+                        .thenReturn(index);
+            } else {
+                log.warn("Got an empty timetable with start station {} and end station {} on date {}", from, to, date);
+                return Mono.just(index);
+            }
+        });
+    }
+
     private Mono<ElviraShortTimetableResponse.TimetableEntry> checkSchedule(Tuple4<LocalTime, LocalTime, String, ElviraShortTimetableResponse.TimetableEntry> schedule) {
         LocalTime now = LocalTime.now();
         if (now.isAfter(LocalTime.MIDNIGHT) && now.isBefore(LocalTime.MIDNIGHT.plusHours(4))) {
@@ -122,13 +135,9 @@ public class ElviraRailDataServiceImpl implements ElviraRailDataService {
         return Mono.just(Tuples.of(departureTime, arrivalTime, trainNumber, entry));
     }
 
-    private static Mono<ElviraShortTimetableResponse.TimetableEntry> extractTimetableEntry(ElviraShortTimetableResponse response, String trainNumber, LocalDate date) {
+    private static Mono<ElviraShortTimetableResponse.TimetableEntry> extractTimetableEntry(ElviraTimetableIndex index, String trainNumber, LocalDate date) {
         log.info("Extracting timetable entry for train number {} on date {}", trainNumber, date);
-        return !response.getTimetable().isEmpty() ? response.getTimetable().stream()
-                .filter(entry -> entry.getDetails().stream()
-                        .anyMatch(details ->
-                                details.getTrainInfo().getCode().equals(trainNumber)))
-                .findFirst()
+        return !index.isEmpty() ? index.find(trainNumber)
                 .map(Mono::just)
                 .orElse(Mono.error(new TrainNotInServiceException(trainNumber, date)))
                 : Mono.error(new ExternalApiFormatMismatchException("Received an empty response", null));
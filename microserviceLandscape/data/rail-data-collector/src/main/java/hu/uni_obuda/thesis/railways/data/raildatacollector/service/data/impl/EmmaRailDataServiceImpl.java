@@ -3,6 +3,8 @@ package hu.uni_obuda.thesis.railways.data.raildatacollector.service.data.impl;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.gateway.EmmaRailDataGateway;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.*;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.EmmaTimetableCache;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableFetchCoalescer;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index.EmmaTimetableIndex;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.mapper.data.EmmaDelayMapper;
@@ -41,35 +43,17 @@ public class EmmaRailDataServiceImpl implements EmmaRailDataService {
 
     private final EmmaRailDataGateway gateway;
     private final EmmaTimetableCache timetableCache;
+    private final TimetableFetchCoalescer timetableFetchCoalescer;
     private final EmmaDelayMapper delayMapper;
     private final EmmaRouteMapper routeMapper;
 
     @Override
     public Flux<DelayInfo> getDelayInfo(String trainNumber, String from, double fromLatitude, double fromLongitude, String to, double toLatitude, double toLongitude, LocalDate date) {
-        return  timetableCache.isCached(from, to, date)
-                .flatMap(isCached -> {
-                    if (Boolean.TRUE.equals(isCached)) {
-                        log.info("Timetable with start station {} and end station {} on date {} is already cached, reusing cached object", from, to, date);
-                        return timetableCache.get(from, to, date);
-                    } else {
-                        log.info("Getting timetable with start station {} and end station {} on date {}", from, to, date);
-                        return gateway.getShortTimetable(from, fromLatitude, fromLongitude, to, toLatitude, toLongitude, date)
-                                .flatMap(response -> {
-                                    if (!response.getPlan().getItineraries().isEmpty()) {
-                                        log.info("Caching timetable with start station {} and end station {} on date {}", from, to, date);
-                                        return timetableCache.cache(from, to, date, response)
-                                                .thenReturn(response);
-                                    } else {
-                                        log.warn("Got an empty timetable with start station {} and end station {} on date {}", from, to, date);
-                                        return Mono.just(response);
-                                    }
-                                });
-                    }
-                })
+        return timetableFetchCoalescer.fetch(from, to, date, getCachedTimetable(from, to, date), fetchAndCacheTimetable(from, fromLatitude, fromLongitude, to, toLatitude, toLongitude, date))
                 .onErrorMap(WebClientResponseException.NotFound.class, this::mapNotFoundToExternalApiException)
                 .onErrorMap(WebClientResponseException.BadRequest.class, this::mapBadRequestToExternalApiException)
                 .onErrorMap(WebClientRequestException.class, this::mapWebClientRequestExceptionToApiException)
-                .flatMap(timetableResponse -> extractTimetableEntry(timetableResponse, trainNumber, date))
+                .flatMap(timetableIndex -> extractTimetableEntry(timetableIndex, trainNumber, date))
                 .flatMap(entry -> extractSchedule(entry, trainNumber))
                 .flatMap(this::checkSchedule)
                 .flatMap(this::checkOvernightTrain)
@@ -90,6 +74,35 @@ public class EmmaRailDataServiceImpl implements EmmaRailDataService {
                 .flatMapMany(Flux::fromIterable);
     }
 
+    private Mono<EmmaTimetableIndex> getCachedTimetable(String from, String to, LocalDate date) {
+        return timetableCache.isCached(from, to, date)
+                .flatMap(isCached -> {
+                    if (Boolean.TRUE.equals(isCached)) {
+                        log.info("Timetable with start station {} and end station {} on date {} is already cached, reusing cached object", from, to, date);
+                        return timetableCache.get(from, to, date);
+                    } else {
+                        return Mono.empty();
+                    }
+                });
+    }
+
+    private Mono<EmmaTimetableIndex> fetchAndCacheTimetable(String from, double fromLatitude, double fromLongitude, String to, double toLatitude, double toLongitude, LocalDate date) {
+        return Mono.defer(() -> {
+            log.info("Getting timetable with start station {} and end station {} on date {}", from, to, date);
+            return gateway.getShortTimetable(from, fromLatitude, fromLongitude, to, toLatitude, toLongitude, date);
+        }).flatMap(response -> {
+            EmmaTimetableIndex index = EmmaTimetableIndex.of(response);
+            if (!index.isEmpty()) {
+                log.info("Caching timetable with start station {} and end station {} on date {}", from, to, date);
+                return timetableCache.cache(from, to, date, index)
+                        .thenReturn(index);
+            } else {
+                log.warn("Got an empty timetable with start station {} and end station {} on date {}", from, to, date);
+                return Mono.just(index);
+            }
+        });
+    }
+
     private Mono<EmmaShortTimetableResponse.Leg> checkSchedule(Tuple4<LocalTime, LocalTime, String, EmmaShortTimetableResponse.Leg> schedule) {
         LocalTime now = LocalTime.now();
         if (now.equals(LocalTime.MIDNIGHT) || now.isBefore(THREE_AM)) {
@@ -150,19 +163,13 @@ public class EmmaRailDataServiceImpl implements EmmaRailDataService {
         return Mono.just(Tuples.of(departureTime, arrivalTime, trainNumber, entry));
     }
 
-    private static Mono<EmmaShortTimetableResponse.Leg> extractTimetableEntry(EmmaShortTimetableResponse response, String trainNumber, LocalDate date) {
+    private static Mono<EmmaShortTimetableResponse.Leg> extractTimetableEntry(EmmaTimetableIndex index, String trainNumber, LocalDate date) {
         log.info("Extracting timetable entry for train number {} on date {}", trainNumber, date);
-        if (response.getPlan() == null ||
-                response.getPlan().getItineraries() == null ||
-                response.getPlan().getItineraries().isEmpty()) {
+        if (index.isEmpty()) {
             return Mono.error(new ExternalApiFormatMismatchException("Received an empty timetable response", null));
         }
 
-        return response.getPlan().getItineraries().stream()
-                .flatMap(itinerary -> itinerary.getLegs().stream())
-                .filter(leg -> leg.getRoute() != null && leg.getTrip().getTripShortName() != null
-                        && leg.getTrip().getTripShortName().contains(trainNumber))
-                .findFirst()
+        return index.find(trainNumber)
                 .map(Mono::just)
                 .orElseGet(() -> Mono.error(new TrainNotInServiceException(trainNumber, date)));
     }
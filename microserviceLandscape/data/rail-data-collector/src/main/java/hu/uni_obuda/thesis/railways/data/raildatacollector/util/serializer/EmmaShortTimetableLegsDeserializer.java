@@ -0,0 +1,10 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.util.serializer;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
+
+public class EmmaShortTimetableLegsDeserializer extends RailLegsDeserializer<EmmaShortTimetableResponse.Leg> {
+
+    public EmmaShortTimetableLegsDeserializer() {
+        super(EmmaShortTimetableResponse.Leg.class, EmmaShortTimetableResponse.RAIL_MODES, "emma-short-timetable");
+    }
+}
@@ -0,0 +1,10 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.util.serializer;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaTimetableResponse;
+
+public class EmmaTimetableLegsDeserializer extends RailLegsDeserializer<EmmaTimetableResponse.Leg> {
+
+    public EmmaTimetableLegsDeserializer() {
+        super(EmmaTimetableResponse.Leg.class, EmmaTimetableResponse.RAIL_MODES, "emma-timetable");
+    }
+}
@@ -0,0 +1,99 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.util.serializer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Reads the legs of an EMMA itinerary, keeping only the legs travelled in one of the given modes.
+ * <p>
+ * The fields of a leg are buffered until its {@code mode} is read. Legs in other modes are skipped
+ * without being materialized, the others are deserialized from the buffered fields followed by the
+ * rest of the input. The documents select {@code mode} first, so skipped legs buffer nothing and
+ * kept legs only their mode.
+ */
+public abstract class RailLegsDeserializer<L> extends StdDeserializer<List<L>> {
+
+    private static final String MODE = "mode";
+
+    private final Class<L> legType;
+    private final Set<String> keptModes;
+    private final TimetableFilterMetrics metrics;
+
+    protected RailLegsDeserializer(Class<L> legType, Set<String> keptModes, String response) {
+        super(List.class);
+        this.legType = legType;
+        this.keptModes = keptModes;
+        this.metrics = new TimetableFilterMetrics(response);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<L> deserialize(JsonParser p, DeserializationContext ctx) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+            return (List<L>) ctx.handleUnexpectedToken(List.class, p);
+        }
+        long startOffset = TimetableFilterMetrics.startOffset(p);
+        List<L> legs = new ArrayList<>();
+        for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+            L leg = token == JsonToken.START_OBJECT ? readLeg(p, ctx) : skip(p);
+            metrics.record(leg != null);
+            if (leg != null) {
+                legs.add(leg);
+            }
+        }
+        metrics.recordBytes(p, ctx, startOffset);
+        return legs;
+    }
+
+    private L readLeg(JsonParser p, DeserializationContext ctx) throws IOException {
+        TokenBuffer buffered = null;
+        for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            p.nextToken();
+            boolean isMode = MODE.equals(field);
+            if (isMode && !isKept(p.getValueAsString())) {
+                skipRemainingFields(p);
+                return null;
+            }
+            if (buffered == null) {
+                buffered = ctx.bufferForInputBuffering(p);
+                buffered.writeStartObject();
+            }
+            buffered.writeFieldName(field);
+            buffered.copyCurrentStructure(p);
+            if (isMode) {
+                JsonParser leg = JsonParserSequence.createFlattened(false, buffered.asParser(p), p);
+                leg.nextToken();
+                return ctx.readValue(leg, legType);
+            }
+        }
+        // a leg without a mode is never a rail leg
+        return null;
+    }
+
+    private boolean isKept(String mode) {
+        return mode != null && keptModes.contains(mode.toUpperCase(Locale.ROOT));
+    }
+
+    private L skip(JsonParser p) throws IOException {
+        p.skipChildren();
+        return null;
+    }
+
+    private static void skipRemainingFields(JsonParser p) throws IOException {
+        for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            p.nextToken();
+            p.skipChildren();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.util.serializer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import hu.uni_obuda.thesis.railways.util.codec.JsonBodyDecoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Meters of the deserializers that drop irrelevant timetable elements while parsing.
+ * <p>
+ * Deserializers are created by Jackson rather than Spring, so the meters are registered in the
+ * global registry. They are tagged with {@code response}: {@code timetable.deserialization.bytes}
+ * records the size of the filtered input and {@code timetable.deserialization.elements} counts the
+ * elements read, tagged with {@code outcome} ({@code retained} or {@code skipped}).
+ */
+final class TimetableFilterMetrics {
+
+    private static final long UNKNOWN = -1;
+
+    private final DistributionSummary bytes;
+    private final Counter retained;
+    private final Counter skipped;
+
+    TimetableFilterMetrics(String response) {
+        this(Metrics.globalRegistry, response);
+    }
+
+    TimetableFilterMetrics(MeterRegistry meterRegistry, String response) {
+        this.bytes = DistributionSummary.builder("timetable.deserialization.bytes")
+                .baseUnit("bytes")
+                .tag("response", response)
+                .register(meterRegistry);
+        this.retained = elementCounter(meterRegistry, response, "retained");
+        this.skipped = elementCounter(meterRegistry, response, "skipped");
+    }
+
+    void record(boolean kept) {
+        (kept ? retained : skipped).increment();
+    }
+
+    /**
+     * Returns the byte offset of the current token, or {@code -1} if the input does not track byte offsets.
+     */
+    static long startOffset(JsonParser parser) {
+        return parser.currentTokenLocation().getByteOffset();
+    }
+
+    /**
+     * Records the bytes read since {@code startOffset}, falling back to the body size passed by
+     * {@link JsonBodyDecoder} when the parser does not track byte offsets.
+     */
+    void recordBytes(JsonParser parser, DeserializationContext context, long startOffset) {
+        long endOffset = parser.currentLocation().getByteOffset();
+        long size = startOffset != UNKNOWN && endOffset != UNKNOWN ? endOffset - startOffset : bodySize(context);
+        if (size != UNKNOWN) {
+            bytes.record(size);
+        }
+    }
+
+    private static long bodySize(DeserializationContext context) {
+        return context.getAttribute(JsonBodyDecoder.BODY_SIZE_ATTRIBUTE) instanceof Long size ? size : UNKNOWN;
+    }
+
+    private static Counter elementCounter(MeterRegistry meterRegistry, String response, String outcome) {
+        return Counter.builder("timetable.deserialization.elements")
+                .tag("response", response)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,49 +1,164 @@
 package hu.uni_obuda.thesis.railways.data.raildatacollector.util.serializer;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraTimetableResponse;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Reads the ELVIRA timetable token by token, dropping entries that include local transport.
+ * <p>
+ * Entries are built while they are read, and as soon as a detail turns out to be local transport
+ * the rest of the entry is skipped without being materialized. Fields the response model does not
+ * map are skipped as well.
+ */
 public class TimetableResponseDeserializer extends JsonDeserializer<ElviraTimetableResponse> {
 
+    private static final String TIMETABLE = "timetable";
+    private static final String DETAILS = "details";
+    private static final String FROM = "from";
+    private static final String DEPARTURE = "dep";
+    private static final String REAL_DEPARTURE = "dep_real";
+    private static final String TRAIN_INFO = "train_info";
+    private static final String URL = "url";
+    private static final String GET_URL = "get_url";
+    private static final String CODE = "code";
+    private static final String VSZ_CODE = "vsz_code";
+    private static final String LOCAL_TRANSPORT = "is_local_transport";
+
+    private final TimetableFilterMetrics metrics = new TimetableFilterMetrics("elvira-timetable");
+
     @Override
     public ElviraTimetableResponse deserialize(JsonParser p, DeserializationContext ctx) throws IOException {
-        ObjectMapper mapper = (ObjectMapper) p.getCodec();
-        JsonNode root = mapper.readTree(p);
-
-        JsonNode timetableNode = root.get("timetable");
+        long startOffset = TimetableFilterMetrics.startOffset(p);
         List<ElviraTimetableResponse.TimetableEntry> filteredEntries = new ArrayList<>();
 
-        if (timetableNode != null && timetableNode.isArray()) {
-            for (JsonNode entryNode : timetableNode) {
-                boolean hasLocalTransport = false;
-
-                JsonNode detailsNode = entryNode.get("details");
-                if (detailsNode != null && detailsNode.isArray()) {
-                    for (JsonNode detailNode : detailsNode) {
-                        JsonNode trainInfoNode = detailNode.get("train_info");
-                        if (trainInfoNode != null && trainInfoNode.path("is_local_transport").asBoolean(false)) {
-                            hasLocalTransport = true;
-                            break;
-                        }
+        JsonToken token = p.currentToken() == JsonToken.START_OBJECT ? p.nextToken() : p.currentToken();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            if (p.nextToken() == JsonToken.START_ARRAY && TIMETABLE.equals(field)) {
+                readEntries(p, ctx, filteredEntries);
+            } else {
+                p.skipChildren();
+            }
+        }
+
+        metrics.recordBytes(p, ctx, startOffset);
+        return new ElviraTimetableResponse(filteredEntries);
+    }
+
+    private void readEntries(JsonParser p, DeserializationContext ctx, List<ElviraTimetableResponse.TimetableEntry> entries) throws IOException {
+        for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+            if (token != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            ElviraTimetableResponse.TimetableEntry entry = readEntry(p, ctx);
+            metrics.record(entry != null);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+    }
+
+    // returns null for entries with local transport, leaving the parser at the end of the entry
+    private ElviraTimetableResponse.TimetableEntry readEntry(JsonParser p, DeserializationContext ctx) throws IOException {
+        List<ElviraTimetableResponse.JourneyElement> details = null;
+        boolean hasLocalTransport = false;
+        for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (hasLocalTransport || !DETAILS.equals(field)) {
+                p.skipChildren();
+            } else if (value == JsonToken.START_ARRAY) {
+                details = new ArrayList<>();
+                hasLocalTransport = readDetails(p, details);
+            } else {
+                details = ctx.readValue(p, detailsType(ctx));
+            }
+        }
+        return hasLocalTransport ? null : new ElviraTimetableResponse.TimetableEntry(details);
+    }
+
+    // returns whether a detail is local transport, in which case the remaining details are skipped
+    private boolean readDetails(JsonParser p, List<ElviraTimetableResponse.JourneyElement> details) throws IOException {
+        boolean hasLocalTransport = false;
+        for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+            if (hasLocalTransport || token != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            ElviraTimetableResponse.JourneyElement detail = readDetail(p);
+            if (detail == null) {
+                hasLocalTransport = true;
+            } else {
+                details.add(detail);
+            }
+        }
+        return hasLocalTransport;
+    }
+
+    private ElviraTimetableResponse.JourneyElement readDetail(JsonParser p) throws IOException {
+        ElviraTimetableResponse.JourneyElement detail = new ElviraTimetableResponse.JourneyElement();
+        for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case FROM -> detail.setFrom(p.getValueAsString());
+                case DEPARTURE -> detail.setDep(p.getValueAsString());
+                case REAL_DEPARTURE -> detail.setDepReal(p.getValueAsString());
+                case TRAIN_INFO -> {
+                    if (value != JsonToken.START_OBJECT) {
+                        p.skipChildren();
+                    } else if (!readTrainInfo(p, detail)) {
+                        skipRemainingFields(p);
+                        return null;
                     }
                 }
+                default -> p.skipChildren();
+            }
+        }
+        return detail;
+    }
 
-                if (!hasLocalTransport) {
-                    ElviraTimetableResponse.TimetableEntry entry =
-                            mapper.treeToValue(entryNode, ElviraTimetableResponse.TimetableEntry.class);
-                    filteredEntries.add(entry);
+    // returns false for local transport, leaving the parser at the end of the train info
+    private boolean readTrainInfo(JsonParser p, ElviraTimetableResponse.JourneyElement detail) throws IOException {
+        ElviraTimetableResponse.TrainInfo trainInfo = new ElviraTimetableResponse.TrainInfo();
+        for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case URL -> trainInfo.setUrl(p.getValueAsString());
+                case GET_URL -> trainInfo.setGetUrl(p.getValueAsString());
+                case CODE -> trainInfo.setCode(p.getValueAsString());
+                case VSZ_CODE -> trainInfo.setVszCode(p.getValueAsString());
+                case LOCAL_TRANSPORT -> {
+                    if (p.getValueAsBoolean(false)) {
+                        skipRemainingFields(p);
+                        return false;
+                    }
                 }
+                default -> p.skipChildren();
             }
         }
+        detail.setTrainInfo(trainInfo);
+        return true;
+    }
+
+    private static void skipRemainingFields(JsonParser p) throws IOException {
+        for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            p.nextToken();
+            p.skipChildren();
+        }
+    }
 
-        return new ElviraTimetableResponse(filteredEntries);
+    private static JavaType detailsType(DeserializationContext ctx) {
+        return ctx.getTypeFactory().constructCollectionType(List.class, ElviraTimetableResponse.JourneyElement.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,258 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.communication.client;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTrainDetailsResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.RequestPriority;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.UpstreamRequestDispatcher;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.impl.UpstreamRequestDispatcherImpl;
+import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.graphql.ResponseError;
+import org.springframework.graphql.client.ClientGraphQlResponse;
+import org.springframework.graphql.client.ClientResponseField;
+import org.springframework.graphql.client.HttpGraphQlClient;
+import org.springframework.graphql.support.DocumentSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BatchingEmmaRailDataWebClientTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 1);
+    private static final String FRAGMENT = "fragment TripDetails on Trip { id: gtfsId }";
+
+    @Mock
+    private EmmaRailDataWebClientImpl delegate;
+    @Mock
+    private HttpGraphQlClient shortTrainDetailsClient;
+    @Mock
+    private DocumentSource documentSource;
+    @Mock
+    private UpstreamRequestDispatcher dispatcher;
+    @Mock
+    private HttpGraphQlClient.RequestSpec requestSpec;
+    @Mock
+    private ClientGraphQlResponse response;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BatchingEmmaRailDataWebClient testedObject;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(dispatcher.dispatch(any(RequestPriority.class), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        testedObject = createClient(dispatcher);
+
+        when(documentSource.getDocument("TripDetails")).thenReturn(Mono.just(FRAGMENT));
+        when(shortTrainDetailsClient.document(anyString())).thenReturn(requestSpec);
+        when(requestSpec.variables(anyMap())).thenReturn(requestSpec);
+        when(response.isValid()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testedObject.shutdown();
+    }
+
+    private BatchingEmmaRailDataWebClient createClient(UpstreamRequestDispatcher dispatcher) {
+        BatchingEmmaRailDataWebClient client = new BatchingEmmaRailDataWebClient(delegate, shortTrainDetailsClient, documentSource, dispatcher, meterRegistry);
+        ReflectionTestUtils.setField(client, "fragmentName", "TripDetails");
+        ReflectionTestUtils.setField(client, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(client, "maxWaitMillis", 20);
+        ReflectionTestUtils.setField(client, "railwayBaseUrl", "https://railway.example.com");
+        ReflectionTestUtils.setField(client, "trainDetailsGetterUri", "/graphql");
+        client.init();
+        return client;
+    }
+
+    private ClientResponseField tripField(String alias, String tripId) {
+        ClientResponseField field = mock(ClientResponseField.class);
+        EmmaShortTrainDetailsResponse.Trip trip = new EmmaShortTrainDetailsResponse.Trip();
+        trip.setId(tripId);
+        when(field.getErrors()).thenReturn(List.of());
+        when(field.getValue()).thenReturn(Map.of("id", tripId));
+        when(field.toEntity(EmmaShortTrainDetailsResponse.Trip.class)).thenReturn(trip);
+        when(response.field(alias)).thenReturn(field);
+        return field;
+    }
+
+    private DistributionSummary batchSizes() {
+        return meterRegistry.get("emma.trip.details.batch.size").summary();
+    }
+
+    @Test
+    void getShortTrainDetails_concurrentCalls_shareOneAliasedRequest() {
+        tripField("trip0", "1:100");
+        tripField("trip1", "1:200");
+        when(requestSpec.execute()).thenReturn(Mono.just(response));
+
+        StepVerifier.create(Mono.zip(testedObject.getShortTrainDetails("1:100", DATE), testedObject.getShortTrainDetails("1:200", DATE)))
+                .assertNext(tuple -> {
+                    assertThat(tuple.getT1().getTrip().getId()).isEqualTo("1:100");
+                    assertThat(tuple.getT2().getTrip().getId()).isEqualTo("1:200");
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<String> document = ArgumentCaptor.forClass(String.class);
+        verify(shortTrainDetailsClient).document(document.capture());
+        assertThat(document.getValue())
+                .contains("trip0: trip(id: $id0, serviceDay: $serviceDay0)")
+                .contains("trip1: trip(id: $id1, serviceDay: $serviceDay1)")
+                .contains("...TripDetails")
+                .endsWith(FRAGMENT);
+        verify(requestSpec).variables(Map.of("id0", "1:100", "serviceDay0", "2025-01-01", "id1", "1:200", "serviceDay1", "2025-01-01"));
+        verify(requestSpec, times(1)).execute();
+        verify(dispatcher, times(1)).dispatch(eq(RequestPriority.BULK), any());
+        assertThat(batchSizes().count()).isEqualTo(1);
+        assertThat(batchSizes().totalAmount()).isEqualTo(2.0);
+    }
+
+    @Test
+    void getShortTrainDetails_batchedCalls_takeOneDispatcherToken() {
+        UpstreamRequestDispatcherImpl tokenBucket = new UpstreamRequestDispatcherImpl("https://railway.example.com", meterRegistry);
+        ReflectionTestUtils.setField(tokenBucket, "capacity", 5);
+        ReflectionTestUtils.setField(tokenBucket, "refillPerSecond", 0.0);
+        ReflectionTestUtils.setField(tokenBucket, "interactiveReserve", 0);
+        ReflectionTestUtils.setField(tokenBucket, "interactiveGraceMillis", 60_000);
+        ReflectionTestUtils.setField(tokenBucket, "tickMillis", 60_000);
+        tokenBucket.init();
+        BatchingEmmaRailDataWebClient client = createClient(tokenBucket);
+        for (int i = 0; i < 5; i++) {
+            tripField("trip" + i, "1:" + i);
+        }
+        when(requestSpec.execute()).thenReturn(Mono.just(response));
+
+        try {
+            StepVerifier.create(Flux.range(0, 5).flatMap(i -> client.getShortTrainDetails("1:" + i, DATE)))
+                    .expectNextCount(5)
+                    .verifyComplete();
+        } finally {
+            client.shutdown();
+            tokenBucket.shutdown();
+        }
+
+        verify(requestSpec, times(1)).execute();
+        assertThat(meterRegistry.get("upstream.dispatch.tokens").gauge().value()).isEqualTo(4.0);
+        assertThat(meterRegistry.get("upstream.dispatch.wait").tag("lane", "bulk").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getShortTrainDetails_dispatcherRejectsBatch_failsCallerWithoutSending() {
+        when(dispatcher.dispatch(any(RequestPriority.class), any())).thenReturn(Mono.error(new IllegalStateException("dispatcher stopped")));
+
+        StepVerifier.create(testedObject.getShortTrainDetails("1:100", DATE))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verify(requestSpec, never()).execute();
+    }
+
+    @Test
+    void getShortTrainDetails_sameTripRequestedTwice_isQueriedOnce() {
+        tripField("trip0", "1:100");
+        when(requestSpec.execute()).thenReturn(Mono.just(response));
+
+        StepVerifier.create(Mono.zip(testedObject.getShortTrainDetails("1:100", DATE), testedObject.getShortTrainDetails("1:100", DATE)))
+                .assertNext(tuple -> {
+                    assertThat(tuple.getT1().getTrip().getId()).isEqualTo("1:100");
+                    assertThat(tuple.getT2().getTrip().getId()).isEqualTo("1:100");
+                })
+                .verifyComplete();
+
+        verify(requestSpec).variables(Map.of("id0", "1:100", "serviceDay0", "2025-01-01"));
+        assertThat(batchSizes().totalAmount()).isEqualTo(1.0);
+    }
+
+    @Test
+    void getShortTrainDetails_errorOnOneAlias_failsOnlyThatCaller() {
+        tripField("trip0", "1:100");
+        ClientResponseField failedField = mock(ClientResponseField.class);
+        ResponseError error = mock(ResponseError.class);
+        when(error.getMessage()).thenReturn("Trip not found");
+        when(failedField.getErrors()).thenReturn(List.of(error));
+        when(response.field("trip1")).thenReturn(failedField);
+        when(requestSpec.execute()).thenReturn(Mono.just(response));
+
+        Mono<EmmaShortTrainDetailsResponse> found = testedObject.getShortTrainDetails("1:100", DATE).cache();
+        Mono<EmmaShortTrainDetailsResponse> missing = testedObject.getShortTrainDetails("1:999", DATE).cache();
+        found.subscribe(_ -> {}, _ -> {});
+
+        StepVerifier.create(missing)
+                .expectError(ExternalApiException.class)
+                .verify();
+        StepVerifier.create(found)
+                .assertNext(details -> assertThat(details.getTrip().getId()).isEqualTo("1:100"))
+                .verifyComplete();
+    }
+
+    @Test
+    void getShortTrainDetails_missingTrip_returnsEmptyDetails() {
+        ClientResponseField field = mock(ClientResponseField.class);
+        when(field.getErrors()).thenReturn(List.of());
+        when(field.getValue()).thenReturn(null);
+        when(response.field("trip0")).thenReturn(field);
+        when(requestSpec.execute()).thenReturn(Mono.just(response));
+
+        StepVerifier.create(testedObject.getShortTrainDetails("1:100", DATE))
+                .assertNext(details -> assertThat(details.getTrip()).isNull())
+                .verifyComplete();
+        verify(field, never()).toEntity(any(Class.class));
+    }
+
+    @Test
+    void getShortTrainDetails_transportError_failsEveryCaller() {
+        RuntimeException failure = new RuntimeException("connection reset");
+        when(requestSpec.execute()).thenReturn(Mono.error(failure));
+
+        Mono<EmmaShortTrainDetailsResponse> first = testedObject.getShortTrainDetails("1:100", DATE).cache();
+        Mono<EmmaShortTrainDetailsResponse> second = testedObject.getShortTrainDetails("1:200", DATE).cache();
+        first.subscribe(_ -> {}, _ -> {});
+
+        StepVerifier.create(second).expectErrorMatches(ex -> ex == failure).verify();
+        StepVerifier.create(first).expectErrorMatches(ex -> ex == failure).verify();
+    }
+
+    @Test
+    void getShortTrainDetails_invalidResponse_failsEveryCaller() {
+        ResponseError error = mock(ResponseError.class);
+        when(error.getMessage()).thenReturn("Syntax error");
+        when(response.isValid()).thenReturn(false);
+        when(response.getErrors()).thenReturn(List.of(error));
+        when(requestSpec.execute()).thenReturn(Mono.just(response));
+
+        StepVerifier.create(testedObject.getShortTrainDetails("1:100", DATE))
+                .expectError(ExternalApiException.class)
+                .verify();
+    }
+
+    @Test
+    void getShortTimetable_delegates() {
+        EmmaShortTimetableResponse timetable = new EmmaShortTimetableResponse();
+        when(delegate.getShortTimetable("A", 1.0, 2.0, "B", 3.0, 4.0, DATE)).thenReturn(Mono.just(timetable));
+
+        StepVerifier.create(testedObject.getShortTimetable("A", 1.0, 2.0, "B", 3.0, 4.0, DATE))
+                .expectNext(timetable)
+                .verifyComplete();
+        verifyNoInteractions(shortTrainDetailsClient);
+    }
+}
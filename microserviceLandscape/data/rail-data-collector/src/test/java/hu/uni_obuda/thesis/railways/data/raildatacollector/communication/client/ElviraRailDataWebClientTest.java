@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTimetableResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTrainDetailsResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraTimetableResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.RequestPriority;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.UpstreamRequestDispatcher;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.config.ApplicationConfig;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiFormatMismatchException;
@@ -32,6 +34,8 @@ import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +45,8 @@ class ElviraRailDataWebClientTest {
 
     @Mock
     private ExchangeFunction exchangeFunction;
+    @Mock
+    private UpstreamRequestDispatcher dispatcher;
 
     private ElviraRailDataWebClient testedObject;
 
@@ -54,11 +60,14 @@ class ElviraRailDataWebClientTest {
         ApplicationConfig applicationConfig = new ApplicationConfig();
         ObjectMapper objectMapper = applicationConfig.elviraObjectMapper();
 
-        testedObject = new ElviraRailDataWebClientImpl(webClient, objectMapper);
+        when(dispatcher.dispatch(any(RequestPriority.class), any())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        testedObject = new ElviraRailDataWebClientImpl(webClient, objectMapper, dispatcher);
 
         ReflectionTestUtils.setField(testedObject, "railwayBaseUrl", BASE_URL);
         ReflectionTestUtils.setField(testedObject, "timetableGetterUri", "/timetable");
         ReflectionTestUtils.setField(testedObject, "trainDetailsGetterUri", "/train-details");
+        ReflectionTestUtils.setField(testedObject, "maxBodySize", 1024 * 1024);
     }
 
     @Test
@@ -217,6 +226,8 @@ class ElviraRailDataWebClientTest {
                     assertThat(station.getExpectedArrival()).isEqualTo("07:03");
                 })
                 .verifyComplete();
+
+        verify(dispatcher).dispatch(eq(RequestPriority.BULK), any());
     }
 
     @Test
@@ -304,6 +315,8 @@ class ElviraRailDataWebClientTest {
                     assertThat(transfer.getRealArrival()).isEqualTo("10:05");
                 })
                 .verifyComplete();
+
+        verify(dispatcher).dispatch(eq(RequestPriority.INTERACTIVE), any());
     }
 
     private ClientResponse buildClientResponse(HttpStatusCode status, String body) {
@@ -3,6 +3,8 @@ package hu.uni_obuda.thesis.railways.data.raildatacollector.communication.client
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTrainDetailsResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaTimetableResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.RequestPriority;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.UpstreamRequestDispatcher;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.util.resource.CachingYamlGraphQlVariableLoader;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.util.resource.DefaultGraphQlVariables;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
@@ -28,7 +30,9 @@ import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,6 +54,8 @@ class EmmaRailDataWebClientTest {
     @Mock
     private CachingYamlGraphQlVariableLoader variableLoader;
     @Mock
+    private UpstreamRequestDispatcher dispatcher;
+    @Mock
     private HttpGraphQlClient.RequestSpec shortTimetableRequestSpec;
     @Mock
     private HttpGraphQlClient.RequestSpec shortTrainDetailsRequestSpec;
@@ -70,7 +76,8 @@ class EmmaRailDataWebClientTest {
                 shortTimetableClient,
                 shortTrainDetailsClient,
                 timetableClient,
-                variableLoader
+                variableLoader,
+                dispatcher
         );
 
         ReflectionTestUtils.setField(testedObject, "shortTimeTableDocumentName", SHORT_TIMETABLE_DOC);
@@ -86,6 +93,7 @@ class EmmaRailDataWebClientTest {
                 .thenReturn(new DefaultGraphQlVariables(Map.of("defaultLongKey", "longDefault")));
         when(variableLoader.loadForDocument(SHORT_TRAIN_DETAILS_DOC))
                 .thenReturn(new DefaultGraphQlVariables(Map.of("defaultDetailsKey", "detailsDefault")));
+        when(dispatcher.dispatch(any(RequestPriority.class), any())).thenAnswer(invocation -> invocation.getArgument(1));
     }
 
     @Test
@@ -248,6 +256,7 @@ class EmmaRailDataWebClientTest {
         assertThat(usedVariables.get("defaultDetailsKey")).isEqualTo("detailsDefault");
         assertThat(usedVariables.get("id")).isEqualTo(trainId);
         assertThat(usedVariables.get("serviceDay")).isEqualTo("2024-10-10");
+        verify(dispatcher).dispatch(eq(RequestPriority.BULK), any());
     }
 
     @Test
@@ -363,6 +372,7 @@ class EmmaRailDataWebClientTest {
         assertThat(usedVariables.get("fromPlace")).isEqualTo("FROM::47.0,19.0");
         assertThat(usedVariables.get("toPlace")).isEqualTo("TO::48.0,20.0");
         assertThat(usedVariables.get("date")).isEqualTo("2024-10-10");
+        verify(dispatcher).dispatch(eq(RequestPriority.INTERACTIVE), any());
     }
 
     @Test
@@ -1,7 +1,8 @@
 package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.impl;
 
-import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableCache;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index.EmmaTimetableIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,11 +31,11 @@ import static org.mockito.Mockito.*;
 class EmmaTimetableCacheTest {
 
     @Mock
-    private ReactiveRedisTemplate<String, EmmaShortTimetableResponse> timetableRedisTemplate;
+    private ReactiveRedisTemplate<String, EmmaTimetableIndex> timetableRedisTemplate;
     @Mock
     private ReactiveRedisTemplate<String, String> keysRedisTemplate;
     @Mock
-    private ReactiveValueOperations<String, EmmaShortTimetableResponse> timetableValueOps;
+    private ReactiveValueOperations<String, EmmaTimetableIndex> timetableValueOps;
     @Mock
     private ReactiveSetOperations<String, String> keysSetOps;
 
@@ -42,7 +43,7 @@ class EmmaTimetableCacheTest {
 
     @BeforeEach
     void setUp() {
-        testedObject = new EmmaTimetableCacheImpl(timetableRedisTemplate, keysRedisTemplate);
+        testedObject = new EmmaTimetableCacheImpl(timetableRedisTemplate, keysRedisTemplate, Caffeine.newBuilder().build());
         ReflectionTestUtils.setField(testedObject, "cacheDuration", 6);
     }
 
@@ -74,7 +75,7 @@ class EmmaTimetableCacheTest {
         LocalDate date = LocalDate.of(2025, 1, 2);
         String expectedKey = TimetableCache.CACHE_PREFIX + ":" + from + ":" + to + ":" + date;
 
-        EmmaShortTimetableResponse timetable = new EmmaShortTimetableResponse();
+        EmmaTimetableIndex timetable = new EmmaTimetableIndex();
 
         when(timetableRedisTemplate.opsForValue()).thenReturn(timetableValueOps);
         when(keysRedisTemplate.opsForSet()).thenReturn(keysSetOps);
@@ -108,12 +109,12 @@ class EmmaTimetableCacheTest {
         LocalDate date = LocalDate.of(2025, 1, 3);
         String expectedKey = TimetableCache.CACHE_PREFIX + ":" + from + ":" + to + ":" + date;
 
-        EmmaShortTimetableResponse expectedResponse = new EmmaShortTimetableResponse();
+        EmmaTimetableIndex expectedResponse = new EmmaTimetableIndex();
 
         when(timetableRedisTemplate.opsForValue()).thenReturn(timetableValueOps);
         when(timetableValueOps.get(expectedKey)).thenReturn(Mono.just(expectedResponse));
 
-        Mono<EmmaShortTimetableResponse> result = testedObject.get(from, to, date);
+        Mono<EmmaTimetableIndex> result = testedObject.get(from, to, date);
 
         StepVerifier.create(result)
                 .expectNext(expectedResponse)
@@ -125,6 +126,49 @@ class EmmaTimetableCacheTest {
         verifyNoInteractions(keysRedisTemplate, keysSetOps);
     }
 
+    @Test
+    void get_afterCaching_shouldBeServedWithoutRedis() {
+        LocalDate date = LocalDate.of(2025, 1, 4);
+        String expectedKey = TimetableCache.CACHE_PREFIX + ":A:B:" + date;
+        EmmaTimetableIndex timetable = new EmmaTimetableIndex();
+
+        when(timetableRedisTemplate.opsForValue()).thenReturn(timetableValueOps);
+        when(keysRedisTemplate.opsForSet()).thenReturn(keysSetOps);
+        when(timetableValueOps.set(eq(expectedKey), eq(timetable), any(Duration.class))).thenReturn(Mono.just(true));
+        when(keysSetOps.add(KEY_SET_PREFIX, expectedKey)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(testedObject.cache("A", "B", date, timetable))
+                .verifyComplete();
+        StepVerifier.create(testedObject.isCached("A", "B", date))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(testedObject.get("A", "B", date))
+                .expectNext(timetable)
+                .verifyComplete();
+
+        verify(timetableValueOps, never()).get(anyString());
+        verify(timetableRedisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    void evictAll_shouldAlsoDropLocalCopies() {
+        LocalDate date = LocalDate.of(2025, 1, 5);
+        String expectedKey = TimetableCache.CACHE_PREFIX + ":A:B:" + date;
+
+        when(timetableRedisTemplate.opsForValue()).thenReturn(timetableValueOps);
+        when(keysRedisTemplate.opsForSet()).thenReturn(keysSetOps);
+        when(timetableValueOps.set(eq(expectedKey), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(keysSetOps.add(KEY_SET_PREFIX, expectedKey)).thenReturn(Mono.just(1L));
+        when(keysSetOps.members(KEY_SET_PREFIX)).thenReturn(Flux.empty());
+        when(timetableRedisTemplate.hasKey(expectedKey)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(testedObject.cache("A", "B", date, new EmmaTimetableIndex())
+                        .then(testedObject.evictAll())
+                        .then(testedObject.isCached("A", "B", date)))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
     @Test
     void evictAll_noKeyPresent_shouldNotDoAnything() {
         when(keysRedisTemplate.opsForSet()).thenReturn(keysSetOps);
@@ -147,8 +191,8 @@ class EmmaTimetableCacheTest {
     @Test
     void evictAll_keysPresent_shouldDeleteAll() {
         List<String> keys = List.of(
-                "timetableResponse:A:B:2025-01-01",
-                "timetableResponse:C:D:2025-01-01"
+                "timetableIndex:A:B:2025-01-01",
+                "timetableIndex:C:D:2025-01-01"
         );
 
         when(keysRedisTemplate.opsForSet()).thenReturn(keysSetOps);
@@ -0,0 +1,194 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.impl;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableFetchLock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimetableFetchCoalescerTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 1, 1);
+
+    @Mock
+    private ObjectProvider<TimetableFetchLock> lockProvider;
+    @Mock
+    private TimetableFetchLock lock;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private TimetableFetchCoalescerImpl coalescer(TimetableFetchLock distributedLock) {
+        when(lockProvider.getIfAvailable()).thenReturn(distributedLock);
+        TimetableFetchCoalescerImpl coalescer = new TimetableFetchCoalescerImpl(meterRegistry, lockProvider);
+        ReflectionTestUtils.setField(coalescer, "pollIntervalMillis", 1);
+        ReflectionTestUtils.setField(coalescer, "maxPolls", 5);
+        return coalescer;
+    }
+
+    private double requests(String outcome) {
+        return meterRegistry.get("timetable.fetch.requests").tag("outcome", outcome).counter().count();
+    }
+
+    private double coalescingRatio() {
+        return meterRegistry.get("timetable.fetch.coalescing.ratio").gauge().value();
+    }
+
+    private static Map<?, ?> inFlight(TimetableFetchCoalescerImpl coalescer) {
+        return (Map<?, ?>) ReflectionTestUtils.getField(coalescer, "inFlight");
+    }
+
+    @Test
+    void fetch_concurrentRequestsForSameRoute_shareOneUpstreamCall() {
+        TimetableFetchCoalescerImpl testedObject = coalescer(null);
+        Sinks.One<String> response = Sinks.one();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Mono<String> upstream = Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return response.asMono();
+        });
+
+        Mono<String> first = testedObject.fetch("A", "B", DATE, Mono.empty(), upstream);
+        Mono<String> second = testedObject.fetch("A", "B", DATE, Mono.empty(), upstream);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> response.tryEmitValue("timetable"))
+                .assertNext(tuple -> {
+                    assertThat(tuple.getT1()).isEqualTo("timetable");
+                    assertThat(tuple.getT2()).isEqualTo("timetable");
+                })
+                .verifyComplete();
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(requests("upstream")).isEqualTo(1.0);
+        assertThat(requests("coalesced")).isEqualTo(1.0);
+        assertThat(coalescingRatio()).isEqualTo(0.5);
+        assertThat(inFlight(testedObject)).isEmpty();
+    }
+
+    @Test
+    void fetch_differentRoutes_areNotCoalesced() {
+        TimetableFetchCoalescerImpl testedObject = coalescer(null);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Mono<String> upstream = Mono.fromCallable(() -> "timetable-" + upstreamCalls.incrementAndGet());
+
+        StepVerifier.create(testedObject.fetch("A", "B", DATE, Mono.empty(), upstream))
+                .expectNext("timetable-1")
+                .verifyComplete();
+        StepVerifier.create(testedObject.fetch("A", "C", DATE, Mono.empty(), upstream))
+                .expectNext("timetable-2")
+                .verifyComplete();
+
+        assertThat(requests("upstream")).isEqualTo(2.0);
+        assertThat(requests("coalesced")).isZero();
+    }
+
+    @Test
+    void fetch_cacheHit_doesNotCallUpstream() {
+        TimetableFetchCoalescerImpl testedObject = coalescer(null);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Mono<String> upstream = Mono.fromCallable(() -> "upstream-" + upstreamCalls.incrementAndGet());
+
+        StepVerifier.create(testedObject.fetch("A", "B", DATE, Mono.just("cached"), upstream))
+                .expectNext("cached")
+                .verifyComplete();
+
+        assertThat(upstreamCalls).hasValue(0);
+        assertThat(requests("cached")).isEqualTo(1.0);
+        assertThat(requests("upstream")).isZero();
+    }
+
+    @Test
+    void fetch_upstreamError_isSharedAndKeyIsReleased() {
+        TimetableFetchCoalescerImpl testedObject = coalescer(null);
+        Sinks.One<String> response = Sinks.one();
+        RuntimeException failure = new RuntimeException("boom");
+
+        Mono<String> first = testedObject.fetch("A", "B", DATE, Mono.empty(), response.asMono());
+        Mono<String> second = testedObject.fetch("A", "B", DATE, Mono.empty(), response.asMono());
+
+        StepVerifier.create(first)
+                .then(() -> {
+                    second.subscribe(_ -> {}, _ -> {});
+                    response.tryEmitError(failure);
+                })
+                .expectErrorMatches(ex -> ex == failure)
+                .verify();
+
+        assertThat(inFlight(testedObject)).isEmpty();
+
+        StepVerifier.create(testedObject.fetch("A", "B", DATE, Mono.empty(), Mono.just("retried")))
+                .expectNext("retried")
+                .verifyComplete();
+    }
+
+    @Test
+    void fetch_distributed_lockAcquired_fetchesUpstreamAndReleasesLock() {
+        TimetableFetchCoalescerImpl testedObject = coalescer(lock);
+        when(lock.tryAcquire(eq("A:B:" + DATE), anyString())).thenReturn(Mono.just(true));
+        when(lock.release(eq("A:B:" + DATE), anyString())).thenReturn(Mono.empty());
+
+        StepVerifier.create(testedObject.fetch("A", "B", DATE, Mono.empty(), Mono.just("timetable")))
+                .expectNext("timetable")
+                .verifyComplete();
+
+        verify(lock).release(eq("A:B:" + DATE), anyString());
+        verify(lock, never()).isHeld(anyString());
+        assertThat(requests("upstream")).isEqualTo(1.0);
+    }
+
+    @Test
+    void fetch_distributed_lockHeldElsewhere_waitsForCachedTimetable() {
+        TimetableFetchCoalescerImpl testedObject = coalescer(lock);
+        AtomicInteger cacheLookups = new AtomicInteger();
+        Mono<String> fromCache = Mono.defer(() -> cacheLookups.incrementAndGet() < 3 ? Mono.empty() : Mono.just("cached"));
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Mono<String> upstream = Mono.fromCallable(() -> "upstream-" + upstreamCalls.incrementAndGet());
+
+        when(lock.tryAcquire(eq("A:B:" + DATE), anyString())).thenReturn(Mono.just(false));
+        when(lock.isHeld("A:B:" + DATE)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(testedObject.fetch("A", "B", DATE, fromCache, upstream))
+                .expectNext("cached")
+                .verifyComplete();
+
+        assertThat(upstreamCalls).hasValue(0);
+        assertThat(requests("awaited")).isEqualTo(1.0);
+        assertThat(coalescingRatio()).isEqualTo(1.0);
+        verify(lock, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void fetch_distributed_lockReleasedWithoutCachedTimetable_fallsBackToUpstream() {
+        TimetableFetchCoalescerImpl testedObject = coalescer(lock);
+        when(lock.tryAcquire(eq("A:B:" + DATE), anyString())).thenReturn(Mono.just(false));
+        when(lock.isHeld("A:B:" + DATE)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(testedObject.fetch("A", "B", DATE, Mono.empty(), Mono.just("timetable")))
+                .expectNext("timetable")
+                .verifyComplete();
+
+        assertThat(requests("upstream")).isEqualTo(1.0);
+        assertThat(requests("awaited")).isZero();
+    }
+}
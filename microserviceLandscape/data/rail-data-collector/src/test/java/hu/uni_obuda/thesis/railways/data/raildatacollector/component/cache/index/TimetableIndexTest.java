@@ -0,0 +1,74 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTimetableResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimetableIndexTest {
+
+    private static ElviraShortTimetableResponse.TimetableEntry elviraEntry(String startTime, String... codes) {
+        List<ElviraShortTimetableResponse.TrainDetail> details = Arrays.stream(codes)
+                .map(code -> new ElviraShortTimetableResponse.TrainDetail(new ElviraShortTimetableResponse.TrainInfo("http://" + code, null, code, null)))
+                .toList();
+        return new ElviraShortTimetableResponse.TimetableEntry(startTime, "12:00", details);
+    }
+
+    private static EmmaShortTimetableResponse.Leg emmaLeg(String tripShortName, boolean withRoute) {
+        EmmaShortTimetableResponse.Leg leg = new EmmaShortTimetableResponse.Leg();
+        EmmaShortTimetableResponse.Trip trip = new EmmaShortTimetableResponse.Trip();
+        trip.setTripShortName(tripShortName);
+        leg.setTrip(trip);
+        leg.setRoute(withRoute ? new EmmaShortTimetableResponse.Route() : null);
+        return leg;
+    }
+
+    private static EmmaShortTimetableResponse emmaTimetable(List<EmmaShortTimetableResponse.Leg> legs) {
+        EmmaShortTimetableResponse response = new EmmaShortTimetableResponse();
+        EmmaShortTimetableResponse.Plan plan = new EmmaShortTimetableResponse.Plan();
+        EmmaShortTimetableResponse.Itinerary itinerary = new EmmaShortTimetableResponse.Itinerary();
+        itinerary.setLegs(legs);
+        plan.setItineraries(List.of(itinerary));
+        response.setPlan(plan);
+        return response;
+    }
+
+    @Test
+    void elvira_indexesEveryTrainCodeAndKeepsFirstEntry() {
+        ElviraShortTimetableResponse.TimetableEntry first = elviraEntry("08:00", "2410", "562");
+        ElviraShortTimetableResponse.TimetableEntry second = elviraEntry("09:00", "2410");
+
+        ElviraTimetableIndex index = ElviraTimetableIndex.of(new ElviraShortTimetableResponse(List.of(first, second)));
+
+        assertThat(index.find("2410")).containsSame(first);
+        assertThat(index.find("562")).containsSame(first);
+        assertThat(index.find("999")).isEmpty();
+    }
+
+    @Test
+    void elvira_emptyTimetable_givesEmptyIndex() {
+        assertThat(ElviraTimetableIndex.of(new ElviraShortTimetableResponse(List.of())).isEmpty()).isTrue();
+        assertThat(ElviraTimetableIndex.of(new ElviraShortTimetableResponse()).isEmpty()).isTrue();
+    }
+
+    @Test
+    void emma_indexesTransitLegsByTripShortNameWords() {
+        EmmaShortTimetableResponse.Leg leg = emmaLeg("2410  személyvonat", true);
+        EmmaShortTimetableResponse.Leg walk = emmaLeg("999", false);
+
+        EmmaTimetableIndex index = EmmaTimetableIndex.of(emmaTimetable(List.of(leg, walk)));
+
+        assertThat(index.find("2410")).containsSame(leg);
+        assertThat(index.find("241")).isEmpty();
+        assertThat(index.find("999")).isEmpty();
+    }
+
+    @Test
+    void emma_missingPlan_givesEmptyIndex() {
+        assertThat(EmmaTimetableIndex.of(new EmmaShortTimetableResponse()).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,138 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.impl;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.dispatch.RequestPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamRequestDispatcherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UpstreamRequestDispatcherImpl testedObject;
+    private final List<Disposable> subscriptions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        testedObject = new UpstreamRequestDispatcherImpl("https://railway.example.com", meterRegistry);
+        ReflectionTestUtils.setField(testedObject, "capacity", 1);
+        ReflectionTestUtils.setField(testedObject, "refillPerSecond", 0.0);
+        ReflectionTestUtils.setField(testedObject, "interactiveReserve", 0);
+        ReflectionTestUtils.setField(testedObject, "interactiveGraceMillis", 60_000);
+        ReflectionTestUtils.setField(testedObject, "tickMillis", 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+        testedObject.shutdown();
+    }
+
+    private void addTokens(int tokens) {
+        ReflectionTestUtils.setField(testedObject, "tokens", (double) tokens);
+        ReflectionTestUtils.invokeMethod(testedObject, "drain");
+    }
+
+    private void dispatchTracked(RequestPriority priority, String name, List<String> started) {
+        Mono<String> request = Mono.fromCallable(() -> {
+            started.add(name);
+            return name;
+        });
+        subscriptions.add(testedObject.dispatch(priority, request).subscribe());
+    }
+
+    private double queued(String lane) {
+        return meterRegistry.get("upstream.dispatch.queued").tag("lane", lane).gauge().value();
+    }
+
+    @Test
+    void dispatch_tokenAvailable_runsRequestAndRecordsLaneMetrics() {
+        testedObject.init();
+
+        StepVerifier.create(testedObject.dispatch(RequestPriority.INTERACTIVE, Mono.just("timetable")))
+                .expectNext("timetable")
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("upstream.dispatch.wait").tag("lane", "interactive").tag("host", "railway.example.com").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("upstream.dispatch.latency").tag("lane", "interactive").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("upstream.dispatch.latency").tag("lane", "bulk").timer().count()).isZero();
+    }
+
+    @Test
+    void dispatch_interactiveRequest_overtakesQueuedBulkRequests() {
+        testedObject.init();
+        List<String> started = new ArrayList<>();
+
+        dispatchTracked(RequestPriority.BULK, "bulk-1", started);
+        dispatchTracked(RequestPriority.BULK, "bulk-2", started);
+        dispatchTracked(RequestPriority.INTERACTIVE, "interactive", started);
+        assertThat(started).containsExactly("bulk-1");
+        assertThat(queued("bulk")).isEqualTo(1.0);
+        assertThat(queued("interactive")).isEqualTo(1.0);
+
+        addTokens(1);
+        assertThat(started).containsExactly("bulk-1", "interactive");
+
+        addTokens(1);
+        assertThat(started).containsExactly("bulk-1", "interactive", "bulk-2");
+        assertThat(queued("bulk")).isZero();
+    }
+
+    @Test
+    void dispatch_afterInteractiveTraffic_bulkLeavesReservedTokens() {
+        ReflectionTestUtils.setField(testedObject, "capacity", 3);
+        ReflectionTestUtils.setField(testedObject, "interactiveReserve", 2);
+        testedObject.init();
+        List<String> started = new ArrayList<>();
+
+        dispatchTracked(RequestPriority.INTERACTIVE, "interactive", started);
+        addTokens(3);
+        dispatchTracked(RequestPriority.BULK, "bulk-1", started);
+        dispatchTracked(RequestPriority.BULK, "bulk-2", started);
+
+        assertThat(started).containsExactly("interactive", "bulk-1");
+        assertThat(queued("bulk")).isEqualTo(1.0);
+    }
+
+    @Test
+    void dispatch_withoutInteractiveTraffic_bulkUsesWholeBucket() {
+        ReflectionTestUtils.setField(testedObject, "capacity", 3);
+        ReflectionTestUtils.setField(testedObject, "interactiveReserve", 2);
+        testedObject.init();
+        List<String> started = new ArrayList<>();
+
+        dispatchTracked(RequestPriority.BULK, "bulk-1", started);
+        dispatchTracked(RequestPriority.BULK, "bulk-2", started);
+        dispatchTracked(RequestPriority.BULK, "bulk-3", started);
+
+        assertThat(started).containsExactly("bulk-1", "bulk-2", "bulk-3");
+    }
+
+    @Test
+    void dispatch_cancelledWhileQueued_doesNotConsumeToken() {
+        testedObject.init();
+        AtomicInteger calls = new AtomicInteger();
+        List<String> started = new ArrayList<>();
+
+        dispatchTracked(RequestPriority.BULK, "bulk-1", started);
+        Disposable cancelled = testedObject.dispatch(RequestPriority.BULK, Mono.fromCallable(calls::incrementAndGet)).subscribe();
+        dispatchTracked(RequestPriority.BULK, "bulk-2", started);
+        cancelled.dispose();
+
+        addTokens(1);
+
+        assertThat(calls).hasValue(0);
+        assertThat(started).containsExactly("bulk-1", "bulk-2");
+    }
+}
@@ -266,4 +266,59 @@ class ElviraDelayMapperTest {
                 .isEqualTo(nextDay.atTime(0, 10).toString());
         assertThat(second.getArrivalDelay()).isEqualTo(10);
     }
+
+    @Test
+    void mapToDelayInfo_keepsLaterStationsOnNextDay_andComputesDelayAcrossMidnight() {
+
+        var s1 = station(
+                "ST1",
+                "https://official/1",
+                "https://third?station=EXT1",
+                null,
+                "23:40",
+                null,
+                "23:40"
+        );
+        var s2 = station(
+                "ST2",
+                "https://official/2",
+                "https://third?station=EXT2",
+                "23:55",
+                "23:58",
+                "23:59",
+                "00:03"
+        );
+        var s3 = station(
+                "ST3",
+                "https://official/3",
+                "https://third?station=EXT3",
+                "00:30",
+                null,
+                "00:36",
+                null
+        );
+
+        ElviraShortTrainDetailsResponse response = responseOf(s1, s2, s3);
+
+        var result = testedObject.mapToDelayInfo(response, "123", DATE).block();
+        assertThat(result).isNotNull();
+        assertThat(result).hasSize(3);
+
+        DelayInfo second = result.get(1);
+        DelayInfo third = result.get(2);
+
+        LocalDate nextDay = DATE.plusDays(1);
+        assertThat(second.getScheduledDeparture())
+                .isEqualTo(DATE.atTime(23, 58).toString());
+        assertThat(second.getActualDeparture())
+                .isEqualTo(nextDay.atTime(0, 3).toString());
+        assertThat(second.getDepartureDelay()).isEqualTo(5);
+        assertThat(second.getArrivalDelay()).isEqualTo(4);
+
+        assertThat(third.getScheduledArrival())
+                .isEqualTo(nextDay.atTime(0, 30).toString());
+        assertThat(third.getActualArrival())
+                .isEqualTo(nextDay.atTime(0, 36).toString());
+        assertThat(third.getArrivalDelay()).isEqualTo(6);
+    }
 }
@@ -5,19 +5,25 @@ import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.respons
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraTimetableResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.ElviraShortTrainDetailsResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.ElviraTimetableCache;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableFetchCoalescer;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index.ElviraTimetableIndex;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.impl.TimetableFetchCoalescerImpl;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.mapper.data.ElviraDelayMapper;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.mapper.data.ElviraRouteMapper;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.netty.channel.ConnectTimeoutException;
 import org.junit.jupiter.api.Test;
 
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
@@ -46,6 +52,8 @@ class ElviraRailDataServiceTest {
     private ElviraDelayMapper delayMapper;
     @Mock
     private ElviraRouteMapper routeMapper;
+    @Spy
+    private TimetableFetchCoalescer timetableFetchCoalescer = new TimetableFetchCoalescerImpl(new SimpleMeterRegistry(), mock(ObjectProvider.class));
 
     @InjectMocks
     private ElviraRailDataServiceImpl testedObject;
@@ -69,7 +77,7 @@ class ElviraRailDataServiceTest {
         );
 
         when(cache.isCached("A", "B", date)).thenReturn(Mono.just(true));
-        when(cache.get("A", "B", date)).thenReturn(Mono.just(resp));
+        when(cache.get("A", "B", date)).thenReturn(Mono.just(ElviraTimetableIndex.of(resp)));
 
         ElviraShortTrainDetailsResponse details = new ElviraShortTrainDetailsResponse();
         when(gateway.getShortTrainDetails("http://train")).thenReturn(Mono.just(details));
@@ -102,7 +110,7 @@ class ElviraRailDataServiceTest {
 
         when(cache.isCached("A", "B", date)).thenReturn(Mono.just(false));
         when(gateway.getShortTimetable("A", "B", date)).thenReturn(Mono.just(resp));
-        when(cache.cache(eq("A"), eq("B"), eq(date), eq(resp))).thenReturn(Mono.empty());
+        when(cache.cache(eq("A"), eq("B"), eq(date), eq(ElviraTimetableIndex.of(resp)))).thenReturn(Mono.empty());
 
         ElviraShortTrainDetailsResponse details = new ElviraShortTrainDetailsResponse();
         when(gateway.getShortTrainDetails("http://train")).thenReturn(Mono.just(details));
@@ -148,7 +156,7 @@ class ElviraRailDataServiceTest {
         when(cache.cache(anyString(),
                 anyString(),
                 any(LocalDate.class),
-                any(ElviraShortTimetableResponse.class)))
+                any(ElviraTimetableIndex.class)))
                 .thenReturn(Mono.empty());
 
         StepVerifier.create(testedObject.getDelayInfo("999", "A", "B", date))
@@ -176,7 +184,7 @@ class ElviraRailDataServiceTest {
         when(cache.cache(anyString(),
                 anyString(),
                 any(LocalDate.class),
-                any(ElviraShortTimetableResponse.class)))
+                any(ElviraTimetableIndex.class)))
                 .thenReturn(Mono.empty());
 
         ElviraShortTrainDetailsResponse details = new ElviraShortTrainDetailsResponse();
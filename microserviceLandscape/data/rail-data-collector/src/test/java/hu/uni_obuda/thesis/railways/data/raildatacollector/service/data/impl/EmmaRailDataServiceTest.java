@@ -5,6 +5,9 @@ import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.respons
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTrainDetailsResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaTimetableResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.EmmaTimetableCache;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.TimetableFetchCoalescer;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.index.EmmaTimetableIndex;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.component.cache.impl.TimetableFetchCoalescerImpl;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.DelayInfo;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.mapper.data.EmmaDelayMapper;
@@ -12,12 +15,15 @@ import hu.uni_obuda.thesis.railways.data.raildatacollector.mapper.data.EmmaRoute
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiFormatMismatchException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.TrainNotInServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.netty.channel.ConnectTimeoutException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
@@ -47,6 +53,8 @@ class EmmaRailDataServiceTest {
     private EmmaDelayMapper delayMapper;
     @Mock
     private EmmaRouteMapper routeMapper;
+    @Spy
+    private TimetableFetchCoalescer timetableFetchCoalescer = new TimetableFetchCoalescerImpl(new SimpleMeterRegistry(), mock(ObjectProvider.class));
 
     @InjectMocks
     private EmmaRailDataServiceImpl testedObject;
@@ -92,7 +100,7 @@ class EmmaRailDataServiceTest {
         EmmaShortTimetableResponse resp = buildSingleLegTimetable(date, "123", "GTFS-123");
 
         when(cache.isCached("A", "B", date)).thenReturn(Mono.just(true));
-        when(cache.get("A", "B", date)).thenReturn(Mono.just(resp));
+        when(cache.get("A", "B", date)).thenReturn(Mono.just(EmmaTimetableIndex.of(resp)));
 
         EmmaShortTrainDetailsResponse details = new EmmaShortTrainDetailsResponse();
         when(gateway.getShortTrainDetails("GTFS-123", date)).thenReturn(Mono.just(details));
@@ -114,7 +122,7 @@ class EmmaRailDataServiceTest {
 
         when(cache.isCached("A", "B", date)).thenReturn(Mono.just(false));
         when(gateway.getShortTimetable("A", fromLat, fromLon, "B", toLat, toLon, date)).thenReturn(Mono.just(resp));
-        when(cache.cache(eq("A"), eq("B"), eq(date), eq(resp))).thenReturn(Mono.empty());
+        when(cache.cache(eq("A"), eq("B"), eq(date), eq(EmmaTimetableIndex.of(resp)))).thenReturn(Mono.empty());
 
         EmmaShortTrainDetailsResponse details = new EmmaShortTrainDetailsResponse();
         when(gateway.getShortTrainDetails("GTFS-456", date)).thenReturn(Mono.just(details));
@@ -126,7 +134,7 @@ class EmmaRailDataServiceTest {
                 .expectNext(info)
                 .verifyComplete();
 
-        verify(cache).cache("A", "B", date, resp);
+        verify(cache).cache("A", "B", date, EmmaTimetableIndex.of(resp));
     }
 
     @Test
@@ -156,7 +164,7 @@ class EmmaRailDataServiceTest {
 
         when(cache.isCached("A", "B", date)).thenReturn(Mono.just(false));
         when(gateway.getShortTimetable("A", fromLat, fromLon, "B", toLat, toLon, date)).thenReturn(Mono.just(resp));
-        when(cache.cache(anyString(), anyString(), any(LocalDate.class), any(EmmaShortTimetableResponse.class)))
+        when(cache.cache(anyString(), anyString(), any(LocalDate.class), any(EmmaTimetableIndex.class)))
                 .thenReturn(Mono.empty());
 
         StepVerifier.create(testedObject.getDelayInfo("999", "A", fromLat, fromLon, "B", toLat, toLon, date))
@@ -190,7 +198,7 @@ class EmmaRailDataServiceTest {
 
         when(cache.isCached("A", "B", date)).thenReturn(Mono.just(false));
         when(gateway.getShortTimetable("A", fromLat, fromLon, "B", toLat, toLon, date)).thenReturn(Mono.just(resp));
-        when(cache.cache(anyString(), anyString(), any(LocalDate.class), any(EmmaShortTimetableResponse.class)))
+        when(cache.cache(anyString(), anyString(), any(LocalDate.class), any(EmmaTimetableIndex.class)))
                 .thenReturn(Mono.empty());
 
         EmmaShortTrainDetailsResponse details = new EmmaShortTrainDetailsResponse();
@@ -0,0 +1,117 @@
+package hu.uni_obuda.thesis.railways.data.raildatacollector.util.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaShortTimetableResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.communication.response.EmmaTimetableResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RailLegsDeserializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void deserialize_shortTimetable_keepsOnlyRailLegs() throws Exception {
+        String json = """
+                {
+                  "plan": {
+                    "itineraries": [
+                      {
+                        "numberOfTransfers": 1,
+                        "legs": [
+                          {"mode": "WALK", "startTime": 1000, "route": null, "trip": null},
+                          {"mode": "rail", "startTime": 2000, "endTime": 3000, "route": {"longName": "S70"},
+                           "trip": {"tripShortName": "2410 személyvonat", "gtfsId": "1:26892408"}},
+                          {"mode": "BUS", "trip": {"tripShortName": "bus"}}
+                        ],
+                        "startTime": 1000
+                      }
+                    ]
+                  }
+                }
+                """;
+
+        EmmaShortTimetableResponse response = mapper.readValue(json, EmmaShortTimetableResponse.class);
+
+        List<EmmaShortTimetableResponse.Leg> legs = response.getPlan().getItineraries().getFirst().getLegs();
+        assertEquals(1, legs.size());
+        EmmaShortTimetableResponse.Leg leg = legs.getFirst();
+        assertEquals("rail", leg.getMode());
+        assertEquals(2000L, leg.getStartTime());
+        assertEquals(3000L, leg.getEndTime());
+        assertEquals("S70", leg.getRoute().getLongName());
+        assertEquals("2410 személyvonat", leg.getTrip().getTripShortName());
+        assertEquals(1, response.getPlan().getItineraries().getFirst().getNumberOfTransfers());
+    }
+
+    @Test
+    void deserialize_modeAfterOtherFields_stillFiltersAndKeepsBufferedFields() throws Exception {
+        String json = """
+                {
+                  "plan": {
+                    "itineraries": [
+                      {
+                        "legs": [
+                          {"endTime": 4000, "headsign": "Vác", "route": {"longName": "S70"}, "mode": "RAIL", "startTime": 3000},
+                          {"endTime": 5000, "headsign": "Walk", "mode": "WALK", "startTime": 4000},
+                          {"endTime": 6000, "headsign": "Unknown"}
+                        ]
+                      }
+                    ]
+                  }
+                }
+                """;
+
+        EmmaShortTimetableResponse response = mapper.readValue(json, EmmaShortTimetableResponse.class);
+
+        List<EmmaShortTimetableResponse.Leg> legs = response.getPlan().getItineraries().getFirst().getLegs();
+        assertEquals(1, legs.size());
+        EmmaShortTimetableResponse.Leg leg = legs.getFirst();
+        assertEquals(3000L, leg.getStartTime());
+        assertEquals(4000L, leg.getEndTime());
+        assertEquals("Vác", leg.getHeadsign());
+        assertEquals("S70", leg.getRoute().getLongName());
+    }
+
+    @Test
+    void deserialize_timetable_keepsAllRailModes() throws Exception {
+        String json = """
+                {
+                  "plan": {
+                    "itineraries": [
+                      {
+                        "duration": 3600,
+                        "legs": [
+                          {"mode": "RAIL", "from": {"name": "A", "stop": {"id": "1"}}, "trip": {"tripShortName": "1"}},
+                          {"mode": "WALK", "from": {"name": "B"}, "to": {"name": "C"}},
+                          {"mode": "RAIL_REPLACEMENT_BUS", "trip": {"tripShortName": "2"}},
+                          {"mode": "SUBURBAN_RAILWAY", "trip": {"tripShortName": "3"}},
+                          {"mode": "TRAMTRAIN", "trip": {"tripShortName": "4"}},
+                          {"mode": "TRAM", "trip": {"tripShortName": "5"}}
+                        ],
+                        "walkTime": 60
+                      }
+                    ]
+                  }
+                }
+                """;
+
+        EmmaTimetableResponse response = mapper.readValue(json, EmmaTimetableResponse.class);
+
+        EmmaTimetableResponse.Itinerary itinerary = response.getPlan().getItineraries().getFirst();
+        assertEquals(List.of("1", "2", "3", "4"), itinerary.getLegs().stream().map(leg -> leg.getTrip().getTripShortName()).toList());
+        assertEquals("A", itinerary.getLegs().getFirst().getFrom().getName());
+        assertEquals(3600L, itinerary.getDuration());
+        assertEquals(60L, itinerary.getWalkTime());
+    }
+
+    @Test
+    void deserialize_nullLegs_staysNull() throws Exception {
+        EmmaShortTimetableResponse response = mapper.readValue("{\"plan\": {\"itineraries\": [{\"legs\": null}]}}", EmmaShortTimetableResponse.class);
+
+        assertNull(response.getPlan().getItineraries().getFirst().getLegs());
+    }
+}
@@ -140,4 +140,86 @@ class TimetableResponseDeserializerTest {
         assertEquals("code2", trainInfo.getCode());
         assertEquals("vsz2", trainInfo.getVszCode());
     }
+
+    @Test
+    void deserialize_localTransportAfterTrainDetail_wholeEntryFilteredOut() throws Exception {
+        String json = """
+                {
+                  "route": {"from": "A", "to": "B"},
+                  "timetable": [
+                    {
+                      "starttime": "10:00",
+                      "details": [
+                        {
+                          "from": "A",
+                          "dep": "10:00",
+                          "train_info": {
+                            "is_local_transport": false,
+                            "code": "code1"
+                          }
+                        },
+                        {
+                          "train_info": {
+                            "code": "bus1",
+                            "is_local_transport": true,
+                            "extra": {"nested": [1, 2, 3]}
+                          },
+                          "from": "B"
+                        },
+                        {
+                          "train_info": {
+                            "is_local_transport": false,
+                            "code": "code2"
+                          }
+                        }
+                      ]
+                    },
+                    {
+                      "details": [
+                        {
+                          "from": "C",
+                          "dep": "11:00",
+                          "dep_real": "11:02",
+                          "ignored": {"a": [true]}
+                        },
+                        {
+                          "train_info": {
+                            "url": "url3",
+                            "code": "code3"
+                          }
+                        }
+                      ]
+                    }
+                  ]
+                }
+                """;
+
+        ObjectMapper mapper = createObjectMapperWithDeserializer();
+        ElviraTimetableResponse response = mapper.readValue(json, ElviraTimetableResponse.class);
+
+        List<ElviraTimetableResponse.TimetableEntry> entries = response.getTimetable();
+        assertEquals(1, entries.size());
+
+        ElviraTimetableResponse.TimetableEntry entry = entries.get(0);
+        assertEquals(2, entry.getDetails().size());
+        List<ElviraTimetableResponse.TransferStation> transfers = entry.getTransferStations();
+        assertEquals(1, transfers.size());
+        assertEquals("C", transfers.get(0).getStationName());
+        assertEquals("11:00", transfers.get(0).getScheduledArrival());
+        assertEquals("11:02", transfers.get(0).getRealArrival());
+
+        List<ElviraTimetableResponse.TrainInfo> segments = entry.getTrainSegments();
+        assertEquals(1, segments.size());
+        assertEquals("url3", segments.get(0).getUrl());
+        assertEquals("code3", segments.get(0).getCode());
+    }
+
+    @Test
+    void deserialize_missingTimetable_returnsEmptyList() throws Exception {
+        ObjectMapper mapper = createObjectMapperWithDeserializer();
+        ElviraTimetableResponse response = mapper.readValue("{\"timetable\": null, \"other\": [1]}", ElviraTimetableResponse.class);
+
+        assertNotNull(response.getTimetable());
+        assertTrue(response.getTimetable().isEmpty());
+    }
 }
@@ -0,0 +1,136 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.util;
+
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.HourlyWeather;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a {@link WeatherInfo} with the former string-scanning hour lookup against the
+ * columnar {@link HourlyWeather} lookup.
+ * <p>
+ * Run with {@code ./gradlew :data:weather-data-collector:jmh}, adding {@code -prof gc} to the JMH
+ * arguments to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WeatherResponseExtractionBenchmark {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 10, 10);
+
+    private WeatherResponse response;
+    private LocalDateTime dateTime;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly();
+        for (int hour = 0; hour < 24; hour++) {
+            hourly.getTime().add(DAY.atTime(hour, 0).toString());
+            hourly.getTemperature2m().add(10.0 + hour);
+            hourly.getRelativeHumidity2m().add(60.0 + hour);
+            hourly.getSnowDepth().add(0.0);
+            hourly.getSnowfall().add(hour % 5 == 0 ? 0.2 : 0.0);
+            hourly.getPrecipitation().add(hour % 3 == 0 ? 0.4 : 0.0);
+            hourly.getShowers().add(0.0);
+            hourly.getRain().add(hour % 3 == 0 ? 0.4 : 0.0);
+            hourly.getVisibility().add(10_000 - hour * 100);
+            hourly.getWindSpeed10m().add(5.0 + hour / 2.0);
+            hourly.getCloudCover().add(hour * 4);
+            hourly.getWindSpeed80m().add(12.0 + hour / 2.0);
+        }
+        response = WeatherResponse.builder().latitude(47.5).longitude(19.04).hourly(hourly).build();
+        response.getHourly().columns();
+        dateTime = DAY.atTime(17, 42);
+    }
+
+    @Benchmark
+    public WeatherInfo legacyStringScan() {
+        return WeatherInfo.builder()
+                .address("Budapest-Keleti")
+                .latitude(response.getLatitude())
+                .longitude(response.getLongitude())
+                .time(dateTime)
+                .cloudCoverPercentage(LegacyExtraction.valueAt(response.getHourly().getCloudCover(), response, dateTime))
+                .visibilityInMeters(LegacyExtraction.valueAt(response.getHourly().getVisibility(), response, dateTime))
+                .windSpeedAt10m(LegacyExtraction.valueAt(response.getHourly().getWindSpeed10m(), response, dateTime))
+                .windSpeedAt80m(LegacyExtraction.valueAt(response.getHourly().getWindSpeed80m(), response, dateTime))
+                .temperature(LegacyExtraction.valueAt(response.getHourly().getTemperature2m(), response, dateTime))
+                .relativeHumidity(LegacyExtraction.valueAt(response.getHourly().getRelativeHumidity2m(), response, dateTime))
+                .rain(LegacyExtraction.nextValueAt(response.getHourly().getRain(), response, dateTime))
+                .showers(LegacyExtraction.nextValueAt(response.getHourly().getShowers(), response, dateTime))
+                .precipitation(LegacyExtraction.nextValueAt(response.getHourly().getPrecipitation(), response, dateTime))
+                .snowDepth(LegacyExtraction.valueAt(response.getHourly().getSnowDepth(), response, dateTime))
+                .snowFall(LegacyExtraction.nextValueAt(response.getHourly().getSnowfall(), response, dateTime))
+                .isSnowing(LegacyExtraction.nextValueAt(response.getHourly().getSnowfall(), response, dateTime) > 0)
+                .isRaining(LegacyExtraction.nextValueAt(response.getHourly().getSnowfall(), response, dateTime) > 0
+                        || LegacyExtraction.nextValueAt(response.getHourly().getRain(), response, dateTime) > 0)
+                .build();
+    }
+
+    @Benchmark
+    public WeatherInfo columnarLookup() {
+        HourlyWeather hourly = response.getHourly().columns();
+        int index = hourly.indexOf(dateTime);
+        return WeatherInfo.builder()
+                .address("Budapest-Keleti")
+                .latitude(response.getLatitude())
+                .longitude(response.getLongitude())
+                .time(dateTime)
+                .cloudCoverPercentage(hourly.cloudCover(index))
+                .visibilityInMeters(hourly.visibility(index))
+                .windSpeedAt10m(hourly.windSpeedAt10m(index))
+                .windSpeedAt80m(hourly.windSpeedAt80m(index))
+                .temperature(hourly.temperature(index))
+                .relativeHumidity(hourly.relativeHumidity(index))
+                .rain(hourly.rain(index))
+                .showers(hourly.showers(index))
+                .precipitation(hourly.precipitation(index))
+                .snowDepth(hourly.snowDepth(index))
+                .snowFall(hourly.snowFall(index))
+                .isSnowing(hourly.isSnowing(index))
+                .isRaining(hourly.isRaining(index))
+                .build();
+    }
+
+    @Benchmark
+    public HourlyWeather columnarBuild() {
+        return HourlyWeather.from(response.getHourly());
+    }
+
+    /**
+     * The lookup {@link WeatherResponseUtils} used before the columnar model, kept as the baseline.
+     */
+    private static final class LegacyExtraction {
+
+        private static <T> T valueAt(List<T> column, WeatherResponse weatherResponse, LocalDateTime dateTime) {
+            int index = getHourIndex(weatherResponse, dateTime);
+            return index == -1 || column.size() < index + 1 ? null : column.get(index);
+        }
+
+        private static <T> T nextValueAt(List<T> column, WeatherResponse weatherResponse, LocalDateTime dateTime) {
+            int index = getHourIndex(weatherResponse, dateTime);
+            if (index == -1 || index >= column.size()) {
+                return null;
+            }
+            return column.get(index == column.size() - 1 ? index : index + 1);
+        }
+
+        private static int getHourIndex(WeatherResponse weatherResponse, LocalDateTime dateTime) {
+            String hour = String.format("%02d", dateTime.getHour());
+            return weatherResponse.getHourly().getTime().stream().map(t -> t.split("T")[1].substring(0, 2)).toList().indexOf(hour);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache;
+
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+public interface WeatherResponseCache {
+    Mono<WeatherResponse> getOrLoad(double latitude, double longitude, LocalDate date, Supplier<Mono<WeatherResponse>> loader);
+}
@@ -0,0 +1,25 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Identifies a day of hourly weather data. Coordinates are rounded, so stations lying within the same
+ * grid cell share one entry.
+ */
+public record WeatherResponseCacheKey(BigDecimal latitude, BigDecimal longitude, LocalDate date) {
+
+    public static WeatherResponseCacheKey of(double latitude, double longitude, LocalDate date, int coordinatePrecision) {
+        return new WeatherResponseCacheKey(round(latitude, coordinatePrecision), round(longitude, coordinatePrecision), date);
+    }
+
+    private static BigDecimal round(double coordinate, int precision) {
+        return BigDecimal.valueOf(coordinate).setScale(precision, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public String toString() {
+        return latitude.toPlainString() + ":" + longitude.toPlainString() + ":" + date;
+    }
+}
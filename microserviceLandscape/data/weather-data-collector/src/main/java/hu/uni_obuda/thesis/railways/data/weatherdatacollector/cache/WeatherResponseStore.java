@@ -0,0 +1,9 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache;
+
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
+import reactor.core.publisher.Mono;
+
+public interface WeatherResponseStore {
+    Mono<WeatherResponse> get(WeatherResponseCacheKey key);
+    Mono<Void> put(WeatherResponseCacheKey key, WeatherResponse response);
+}
@@ -0,0 +1,63 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseCacheKey;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseStore;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@Component
+@ConditionalOnProperty(name = "weather.response-cache.redis.enabled", havingValue = "true")
+public class RedisWeatherResponseStore implements WeatherResponseStore {
+
+    private static final String KEY_PREFIX = "weatherResponse:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter hits;
+    private final Counter misses;
+    private final DistributionSummary bytesWritten;
+
+    @Value("${weather.response-cache.redis.ttl-minutes:720}")
+    private int timeToLiveMinutes;
+
+    public RedisWeatherResponseStore(ReactiveStringRedisTemplate redisTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.hits = Counter.builder("weather.response.cache.remote")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("weather.response.cache.remote")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.bytesWritten = DistributionSummary.builder("weather.response.cache.remote.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<WeatherResponse> get(WeatherResponseCacheKey key) {
+        return redisTemplate.opsForValue().get(KEY_PREFIX + key)
+                .flatMap(json -> Mono.fromCallable(() -> objectMapper.readValue(json, WeatherResponse.class)))
+                .doOnNext(_ -> hits.increment())
+                .switchIfEmpty(Mono.fromRunnable(misses::increment));
+    }
+
+    @Override
+    public Mono<Void> put(WeatherResponseCacheKey key, WeatherResponse response) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(response))
+                .doOnNext(json -> bytesWritten.record(json.getBytes(StandardCharsets.UTF_8).length))
+                .flatMap(json -> redisTemplate.opsForValue().set(KEY_PREFIX + key, json, Duration.ofMinutes(timeToLiveMinutes)))
+                .then();
+    }
+}
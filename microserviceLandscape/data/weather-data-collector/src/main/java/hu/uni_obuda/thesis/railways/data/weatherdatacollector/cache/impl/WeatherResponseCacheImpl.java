@@ -0,0 +1,78 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseCache;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseCacheKey;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseStore;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class WeatherResponseCacheImpl implements WeatherResponseCache {
+
+    private final AsyncCache<WeatherResponseCacheKey, WeatherResponse> localCache;
+    private final WeatherResponseStore remoteStore;
+
+    @Value("${weather.response-cache.coordinate-precision:2}")
+    private int coordinatePrecision;
+
+    public WeatherResponseCacheImpl(@Qualifier("weatherResponseLocalCache") AsyncCache<WeatherResponseCacheKey, WeatherResponse> localCache,
+                                    ObjectProvider<WeatherResponseStore> remoteStore) {
+        this.localCache = localCache;
+        this.remoteStore = remoteStore.getIfAvailable();
+    }
+
+    @Override
+    public Mono<WeatherResponse> getOrLoad(double latitude, double longitude, LocalDate date, Supplier<Mono<WeatherResponse>> loader) {
+        return Mono.defer(() -> {
+            WeatherResponseCacheKey key = WeatherResponseCacheKey.of(latitude, longitude, date, coordinatePrecision);
+            CompletableFuture<WeatherResponse> response = localCache.get(key, (k, _) -> loadFromRemoteOrUpstream(k, loader).toFuture());
+            return Mono.fromFuture(response, true)
+                    .doOnNext(weatherResponse -> {
+                        if (!isCacheable(weatherResponse)) {
+                            // fallbacks and empty responses are shared by concurrent callers, but must not outlive them
+                            localCache.asMap().remove(key, response);
+                        }
+                    });
+        });
+    }
+
+    private Mono<WeatherResponse> loadFromRemoteOrUpstream(WeatherResponseCacheKey key, Supplier<Mono<WeatherResponse>> loader) {
+        if (remoteStore == null) {
+            return Mono.defer(loader);
+        }
+        return remoteStore.get(key)
+                .onErrorResume(throwable -> {
+                    log.warn("Could not read weather response {} from the remote cache: {}", key, throwable.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(loader).flatMap(weatherResponse -> storeRemotely(key, weatherResponse).thenReturn(weatherResponse)));
+    }
+
+    private Mono<Void> storeRemotely(WeatherResponseCacheKey key, WeatherResponse weatherResponse) {
+        if (!isCacheable(weatherResponse)) {
+            return Mono.empty();
+        }
+        return remoteStore.put(key, weatherResponse)
+                .onErrorResume(throwable -> {
+                    log.warn("Could not write weather response {} to the remote cache: {}", key, throwable.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    static boolean isCacheable(WeatherResponse weatherResponse) {
+        return weatherResponse.isPresent()
+                && weatherResponse.getHourly() != null
+                && !weatherResponse.getHourly().getTime().isEmpty();
+    }
+}
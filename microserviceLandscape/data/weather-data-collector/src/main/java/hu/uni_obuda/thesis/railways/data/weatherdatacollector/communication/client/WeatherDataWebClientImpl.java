@@ -1,6 +1,7 @@
 package hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni_obuda.thesis.railways.util.codec.JsonBodyDecoder;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiFormatMismatchException;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
@@ -13,7 +14,6 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
@@ -33,6 +33,8 @@ public class WeatherDataWebClientImpl implements WeatherDataWebClient {
     private String forecastUri;
     @Value("${weather.api.time-zone}")
     private String timeZone;
+    @Value("${weather.api.max-body-size:2097152}")
+    private int maxBodySize;
 
     @Autowired
     public WeatherDataWebClientImpl(WebClient webClient, ObjectMapper objectMapper) {
@@ -52,15 +54,8 @@ public class WeatherDataWebClientImpl implements WeatherDataWebClient {
 
         return webClient.get().uri(requestUri.toString()).exchangeToMono(apiResponse -> {
             if (apiResponse.statusCode().is2xxSuccessful()) {
-                return Mono.from(apiResponse.bodyToMono(String.class))
-                        .flatMap(response -> {
-                            try {
-                                WeatherResponse parsedResponse = objectMapper.readValue(response, WeatherResponse.class);
-                                return Mono.just(parsedResponse);
-                            } catch (IOException ioException) {
-                                return Mono.error(mapMappingExceptionToException(ioException, requestUri.toString()));
-                            }
-                        });
+                return JsonBodyDecoder.decode(apiResponse, objectMapper, WeatherResponse.class, maxBodySize)
+                        .onErrorMap(JsonBodyDecoder::isDecodingError, mappingException -> mapMappingExceptionToException(mappingException, requestUri.toString()));
             }  else {
                 return Mono.error(mapApiResponseToException(apiResponse));
             }
@@ -71,8 +66,8 @@ public class WeatherDataWebClientImpl implements WeatherDataWebClient {
         return new ExternalApiException(clientResponse.statusCode(), getUrlFromString(clientResponse.request().getURI().toString()));
     }
 
-    private RuntimeException mapMappingExceptionToException(IOException ioException, String uri) {
-        return new ExternalApiFormatMismatchException(ioException.getMessage(), ioException, getUrlFromUriString(uri));
+    private RuntimeException mapMappingExceptionToException(Throwable mappingException, String uri) {
+        return new ExternalApiFormatMismatchException(mappingException.getMessage(), mappingException, getUrlFromUriString(uri));
     }
 
     private URL getUrlFromUriString(String uri) {
@@ -0,0 +1,207 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Column-oriented, primitive copy of {@link WeatherResponse.Hourly}.
+ * <p>
+ * Hours are indexed by their epoch hour, so finding the row of a requested time is a subtraction
+ * instead of a scan over the time strings. Missing values are stored as {@code NaN} in the
+ * {@code double} columns and {@link #MISSING_INT} in the {@code int} columns, and are returned
+ * as {@code null} by the accessors.
+ */
+public final class HourlyWeather {
+
+    public static final HourlyWeather EMPTY = from(new WeatherResponse.Hourly());
+
+    private static final int MISSING_INT = Integer.MIN_VALUE;
+    private static final long UNPARSEABLE_HOUR = Long.MIN_VALUE;
+
+    private final long[] epochHours;
+    private final boolean contiguous;
+
+    private final double[] temperature2m;
+    private final double[] relativeHumidity2m;
+    private final double[] snowDepth;
+    private final double[] snowfall;
+    private final double[] precipitation;
+    private final double[] showers;
+    private final double[] rain;
+    private final int[] visibility;
+    private final double[] windSpeed10m;
+    private final int[] cloudCover;
+    private final double[] windSpeed80m;
+
+    private HourlyWeather(WeatherResponse.Hourly hourly) {
+        this.epochHours = toEpochHours(hourly.getTime());
+        this.contiguous = isContiguous(epochHours);
+        this.temperature2m = toDoubles(hourly.getTemperature2m());
+        this.relativeHumidity2m = toDoubles(hourly.getRelativeHumidity2m());
+        this.snowDepth = toDoubles(hourly.getSnowDepth());
+        this.snowfall = toDoubles(hourly.getSnowfall());
+        this.precipitation = toDoubles(hourly.getPrecipitation());
+        this.showers = toDoubles(hourly.getShowers());
+        this.rain = toDoubles(hourly.getRain());
+        this.visibility = toInts(hourly.getVisibility());
+        this.windSpeed10m = toDoubles(hourly.getWindSpeed10m());
+        this.cloudCover = toInts(hourly.getCloudCover());
+        this.windSpeed80m = toDoubles(hourly.getWindSpeed80m());
+    }
+
+    public static HourlyWeather from(WeatherResponse.Hourly hourly) {
+        return new HourlyWeather(hourly);
+    }
+
+    public int size() {
+        return epochHours.length;
+    }
+
+    /**
+     * Returns the row of the hour containing {@code dateTime}, or {@code -1} if the response has no such hour.
+     */
+    public int indexOf(LocalDateTime dateTime) {
+        long hour = epochHour(dateTime);
+        if (contiguous) {
+            long offset = hour - epochHours[0];
+            return offset >= 0 && offset < epochHours.length ? (int) offset : -1;
+        }
+        for (int i = 0; i < epochHours.length; i++) {
+            if (epochHours[i] == hour) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Double temperature(int index) {
+        return valueAt(temperature2m, index);
+    }
+
+    public Double relativeHumidity(int index) {
+        return valueAt(relativeHumidity2m, index);
+    }
+
+    public Double snowDepth(int index) {
+        return valueAt(snowDepth, index);
+    }
+
+    public Integer visibility(int index) {
+        return valueAt(visibility, index);
+    }
+
+    public Double windSpeedAt10m(int index) {
+        return valueAt(windSpeed10m, index);
+    }
+
+    public Integer cloudCover(int index) {
+        return valueAt(cloudCover, index);
+    }
+
+    public Double windSpeedAt80m(int index) {
+        return valueAt(windSpeed80m, index);
+    }
+
+    public Double snowFall(int index) {
+        return precedingHourSumAt(snowfall, index);
+    }
+
+    public Double precipitation(int index) {
+        return precedingHourSumAt(precipitation, index);
+    }
+
+    public Double showers(int index) {
+        return precedingHourSumAt(showers, index);
+    }
+
+    public Double rain(int index) {
+        return precedingHourSumAt(rain, index);
+    }
+
+    public Boolean isSnowing(int index) {
+        Double snowFall = snowFall(index);
+        return snowFall == null ? null : snowFall > 0;
+    }
+
+    public Boolean isRaining(int index) {
+        Double snowFall = snowFall(index);
+        Double rain = rain(index);
+        if (snowFall == null && rain == null) {
+            return null;
+        } else if (snowFall != null && rain != null) {
+            return snowFall > 0 || rain > 0;
+        } else {
+            return (snowFall != null ? snowFall : rain) > 0;
+        }
+    }
+
+    private static Double valueAt(double[] column, int index) {
+        if (index < 0 || index >= column.length || Double.isNaN(column[index])) {
+            return null;
+        }
+        return column[index];
+    }
+
+    private static Integer valueAt(int[] column, int index) {
+        if (index < 0 || index >= column.length || column[index] == MISSING_INT) {
+            return null;
+        }
+        return column[index];
+    }
+
+    // precipitation-like values are sums over the preceding hour, so the next row describes the requested hour
+    private static Double precedingHourSumAt(double[] column, int index) {
+        if (index < 0 || index >= column.length) {
+            return null;
+        }
+        return valueAt(column, index == column.length - 1 ? index : index + 1);
+    }
+
+    private static long epochHour(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    private static long[] toEpochHours(List<String> times) {
+        long[] hours = new long[times.size()];
+        for (int i = 0; i < hours.length; i++) {
+            try {
+                hours[i] = epochHour(LocalDateTime.parse(times.get(i)));
+            } catch (DateTimeParseException | NullPointerException _) {
+                hours[i] = UNPARSEABLE_HOUR;
+            }
+        }
+        return hours;
+    }
+
+    private static boolean isContiguous(long[] hours) {
+        if (hours.length == 0) {
+            return false;
+        }
+        for (int i = 0; i < hours.length; i++) {
+            if (hours[i] == UNPARSEABLE_HOUR || hours[i] != hours[0] + i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double[] toDoubles(List<Double> values) {
+        double[] column = new double[values.size()];
+        for (int i = 0; i < column.length; i++) {
+            Double value = values.get(i);
+            column[i] = value != null ? value : Double.NaN;
+        }
+        return column;
+    }
+
+    private static int[] toInts(List<Integer> values) {
+        int[] column = new int[values.size()];
+        for (int i = 0; i < column.length; i++) {
+            Integer value = values.get(i);
+            column[i] = value != null ? value : MISSING_INT;
+        }
+        return column;
+    }
+}
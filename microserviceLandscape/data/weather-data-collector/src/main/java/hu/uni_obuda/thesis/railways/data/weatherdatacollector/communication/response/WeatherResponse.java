@@ -1,11 +1,17 @@
 package hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -95,6 +101,25 @@ public class WeatherResponse {
 
         @JsonProperty("wind_speed_80m")
         private List<Double> windSpeed80m = new ArrayList<>();
+
+        @JsonIgnore
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        private volatile HourlyWeather columns;
+
+        /**
+         * Returns the primitive, hour-indexed copy of these values, built once on first use.
+         */
+        public HourlyWeather columns() {
+            HourlyWeather built = columns;
+            if (built == null) {
+                built = HourlyWeather.from(this);
+                columns = built;
+            }
+            return built;
+        }
     }
 }
 
@@ -0,0 +1,50 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseCacheKey;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class WeatherResponseCacheConfig {
+
+    // rough per-hour footprint of the eleven hourly series plus the timestamp string
+    private static final int ESTIMATED_BYTES_PER_HOUR = 320;
+    private static final int ESTIMATED_BYTES_PER_RESPONSE = 512;
+
+    @Value("${weather.response-cache.ttl-minutes:180}")
+    private int timeToLiveMinutes;
+    @Value("${weather.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Bean
+    public AsyncCache<WeatherResponseCacheKey, WeatherResponse> weatherResponseLocalCache(MeterRegistry meterRegistry) {
+        AsyncCache<WeatherResponseCacheKey, WeatherResponse> cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((WeatherResponseCacheKey _, WeatherResponse response) -> estimateBytes(response))
+                .expireAfterWrite(Duration.ofMinutes(timeToLiveMinutes))
+                .recordStats()
+                .buildAsync();
+        Gauge.builder("weather.response.cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+                .register(meterRegistry);
+        Gauge.builder("weather.response.cache.bytes", cache, c -> c.synchronous().policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "weatherResponseCache");
+    }
+
+    static int estimateBytes(WeatherResponse response) {
+        int hours = response.getHourly() == null ? 0 : response.getHourly().getTime().size();
+        return ESTIMATED_BYTES_PER_RESPONSE + hours * ESTIMATED_BYTES_PER_HOUR;
+    }
+}
@@ -1,12 +1,15 @@
 package hu.uni_obuda.thesis.railways.data.weatherdatacollector.controller;
 
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfoRequest;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.service.WeatherDataService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,4 +21,9 @@ public class WeatherDataCollectorController implements WeatherDataCollector {
     public Mono<WeatherInfo> getWeatherInfo(String stationName, Double latitude, Double longitude, LocalDateTime dateTime) {
         return service.getWeatherInfoByAddress(stationName, latitude, longitude, dateTime);
     }
+
+    @Override
+    public Flux<WeatherInfo> getWeatherInfoBatch(List<WeatherInfoRequest> requests) {
+        return service.getWeatherInfoBatch(requests);
+    }
 }
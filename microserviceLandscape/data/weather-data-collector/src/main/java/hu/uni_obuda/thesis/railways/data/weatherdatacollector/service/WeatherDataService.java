@@ -1,10 +1,14 @@
 package hu.uni_obuda.thesis.railways.data.weatherdatacollector.service;
 
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfoRequest;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface WeatherDataService {
     Mono<WeatherInfo> getWeatherInfoByAddress(String address, Double latitude, Double longitude, LocalDateTime dateTime);
+    Flux<WeatherInfo> getWeatherInfoBatch(List<WeatherInfoRequest> requests);
 }
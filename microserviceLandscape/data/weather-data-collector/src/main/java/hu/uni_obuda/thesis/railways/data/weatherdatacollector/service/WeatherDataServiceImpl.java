@@ -1,31 +1,65 @@
 package hu.uni_obuda.thesis.railways.data.weatherdatacollector.service;
 
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseCache;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.gateway.WeatherDataGateway;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.HourlyWeather;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfoRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-
-import static hu.uni_obuda.thesis.railways.data.weatherdatacollector.util.WeatherResponseUtils.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class WeatherDataServiceImpl implements WeatherDataService {
 
     private final WeatherDataGateway weatherGateway;
+    private final WeatherResponseCache weatherResponseCache;
 
     @Override
     public Mono<WeatherInfo> getWeatherInfoByAddress(String address, Double latitude, Double longitude, LocalDateTime dateTime) {
-        return  weatherGateway.getWeatherByCoordinates(latitude, longitude, dateTime.toLocalDate())
+        return getWeatherResponse(latitude, longitude, dateTime.toLocalDate())
                 .map(weatherResponse -> constructWeatherInfoFromResponse(weatherResponse, address, latitude, longitude, dateTime))
                 .onErrorResume(_ -> Mono.just(constructWeatherInfoFromResponse(WeatherResponse.builder().isPresent(false).build(), address, latitude, longitude, dateTime)));
     }
 
+    @Override
+    public Flux<WeatherInfo> getWeatherInfoBatch(List<WeatherInfoRequest> requests) {
+        Map<CoordinatesOnDay, List<WeatherInfoRequest>> requestsByLocationAndDay = requests.stream()
+                .collect(Collectors.groupingBy(CoordinatesOnDay::of, LinkedHashMap::new, Collectors.toList()));
+        return Flux.fromIterable(requestsByLocationAndDay.entrySet())
+                .flatMap(group -> getWeatherInfoForGroup(group.getKey(), group.getValue()));
+    }
+
+    private Flux<WeatherInfo> getWeatherInfoForGroup(CoordinatesOnDay coordinatesOnDay, List<WeatherInfoRequest> requests) {
+        WeatherResponse missingResponse = WeatherResponse.builder().isPresent(false).build();
+        if (coordinatesOnDay.latitude() == null || coordinatesOnDay.longitude() == null) {
+            return Flux.fromIterable(requests)
+                    .map(request -> constructWeatherInfoFromResponse(missingResponse, request.getStationName(), request.getLatitude(), request.getLongitude(), request.getTime()));
+        }
+        return getWeatherResponse(coordinatesOnDay.latitude(), coordinatesOnDay.longitude(), coordinatesOnDay.date())
+                .onErrorResume(_ -> Mono.just(missingResponse))
+                .defaultIfEmpty(missingResponse)
+                .flatMapIterable(weatherResponse -> requests.stream()
+                        .map(request -> constructWeatherInfoFromResponse(weatherResponse, request.getStationName(), request.getLatitude(), request.getLongitude(), request.getTime()))
+                        .toList());
+    }
+
+    private Mono<WeatherResponse> getWeatherResponse(double latitude, double longitude, LocalDate date) {
+        return weatherResponseCache.getOrLoad(latitude, longitude, date, () -> weatherGateway.getWeatherByCoordinates(latitude, longitude, date));
+    }
+
     private WeatherInfo constructWeatherInfoFromResponse(WeatherResponse weatherResponse, String address, Double latitude, Double longitude, LocalDateTime dateTime) {
-        if (!weatherResponse.isPresent()) {
+        if (!weatherResponse.isPresent() || weatherResponse.getHourly() == null) {
             return WeatherInfo.builder()
                     .address(address)
                     .latitude(latitude)
@@ -33,26 +67,34 @@ public class WeatherDataServiceImpl implements WeatherDataService {
                     .time(dateTime)
                     .build();
         } else {
+            HourlyWeather hourly = weatherResponse.getHourly().columns();
+            int index = hourly.indexOf(dateTime);
             return WeatherInfo.builder()
                     .address(address)
                     .latitude(weatherResponse.getLatitude())
                     .longitude(weatherResponse.getLongitude())
                     .time(dateTime)
-                    .cloudCoverPercentage(extractCloudCover(weatherResponse, dateTime))
-                    .visibilityInMeters(extractVisibility(weatherResponse, dateTime))
-                    .windSpeedAt10m(extractWindSpeedAt10m(weatherResponse, dateTime))
-                    .windSpeedAt80m(extractWindSpeedAt80m(weatherResponse, dateTime))
-                    .temperature(extractTemperature(weatherResponse, dateTime))
-                    .relativeHumidity(extractRelativeHumidity(weatherResponse, dateTime))
-                    .rain(extractRain(weatherResponse, dateTime))
-                    .showers(extractShowers(weatherResponse, dateTime))
-                    .precipitation(extreactPrecipitation(weatherResponse, dateTime))
-                    .snowDepth(extractSnowDepth(weatherResponse, dateTime))
-                    .snowFall(extractSnowFall(weatherResponse, dateTime))
-                    .isSnowing(extractIsSnowing(weatherResponse, dateTime))
-                    .isRaining(extractIsRaining(weatherResponse, dateTime))
+                    .cloudCoverPercentage(hourly.cloudCover(index))
+                    .visibilityInMeters(hourly.visibility(index))
+                    .windSpeedAt10m(hourly.windSpeedAt10m(index))
+                    .windSpeedAt80m(hourly.windSpeedAt80m(index))
+                    .temperature(hourly.temperature(index))
+                    .relativeHumidity(hourly.relativeHumidity(index))
+                    .rain(hourly.rain(index))
+                    .showers(hourly.showers(index))
+                    .precipitation(hourly.precipitation(index))
+                    .snowDepth(hourly.snowDepth(index))
+                    .snowFall(hourly.snowFall(index))
+                    .isSnowing(hourly.isSnowing(index))
+                    .isRaining(hourly.isRaining(index))
                     .build();
         }
 
     }
+
+    private record CoordinatesOnDay(Double latitude, Double longitude, LocalDate date) {
+        private static CoordinatesOnDay of(WeatherInfoRequest request) {
+            return new CoordinatesOnDay(request.getLatitude(), request.getLongitude(), request.getTime().toLocalDate());
+        }
+    }
 }
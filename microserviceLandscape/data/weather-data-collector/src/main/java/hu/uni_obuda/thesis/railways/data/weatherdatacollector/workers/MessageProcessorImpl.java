@@ -1,6 +1,7 @@
 package hu.uni_obuda.thesis.railways.data.weatherdatacollector.workers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.event.CrudEvent;
 import hu.uni_obuda.thesis.railways.data.event.Event;
@@ -17,10 +18,14 @@ import org.springframework.messaging.Message;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
+import java.util.List;
+
 @Slf4j
 @RequiredArgsConstructor
 public class MessageProcessorImpl implements MessageProcessor {
 
+    private static final TypeReference<List<WeatherInfoRequest>> BATCH_REQUEST_TYPE = new TypeReference<>() {};
+
     private final ObjectMapper objectMapper;
     private final WeatherDataCollector weatherDataCollector;
     private final ResponseMessageSender responseSender;
@@ -53,8 +58,21 @@ public class MessageProcessorImpl implements MessageProcessor {
         return new CrudEvent<>(crudEvent.getEventType(), (String)crudEvent.getKey(), weatherInfoRequest);
     }
 
+    private List<WeatherInfoRequest> retrieveBatchRequests(CrudEvent<?, ?> crudEvent) {
+        try {
+            return objectMapper.convertValue(crudEvent.getData(), BATCH_REQUEST_TYPE);
+        } catch (IllegalArgumentException e) {
+            log.error("Unexpected event parameters, expected a CrudEvent<String, List<WeatherInfoRequest>>");
+            return null;
+        }
+    }
+
     private void processMessage(Message<Event<?, ?>> message) {
         log.info("Processing message created at {}", message.getPayload().getEventCreatedAt());
+        if (message.getPayload() instanceof CrudEvent<?, ?> batchEvent && batchEvent.getData() instanceof List<?>) {
+            processBatchMessage(batchEvent);
+            return;
+        }
         CrudEvent<String, WeatherInfoRequest> crudEvent = retrieveCrudEvent(message.getPayload());
         if (crudEvent == null) {
             handleIncorrectEventParametersError(message.getPayload());
@@ -86,6 +104,35 @@ public class MessageProcessorImpl implements MessageProcessor {
 
     }
 
+    private void processBatchMessage(CrudEvent<?, ?> crudEvent) {
+        List<WeatherInfoRequest> requests = retrieveBatchRequests(crudEvent);
+        if (requests == null) {
+            handleIncorrectEventParametersError(crudEvent);
+            return;
+        }
+        if (crudEvent.getEventType() != CrudEvent.Type.GET) {
+            handleIncorrectEventTypeError(crudEvent);
+            return;
+        }
+        log.info("Processing a batch of {} weather info requests", requests.size());
+        String key = String.valueOf(crudEvent.getKey());
+        weatherDataCollector.getWeatherInfoBatch(requests)
+                .collectList()
+                .onErrorResume(throwable -> {
+                    log.error("Constructed empty WeatherInfo batch due to error: {}", throwable.getMessage());
+                    return Mono.just(requests.stream()
+                            .map(request -> WeatherInfo.builder().address(request.getStationName()).time(request.getTime()).build())
+                            .toList());
+                })
+                .map(weatherInfos -> {
+                    ResponsePayload responsePayload = new ResponsePayload(serializeObjectToJson(weatherInfos), HttpStatus.OK);
+                    return new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, key, responsePayload);
+                })
+                .doOnNext(event -> responseSender.sendResponseMessage("weatherDataResponses-out-0", event))
+                .subscribeOn(messageProcessingScheduler)
+                .subscribe();
+    }
+
     private String serializeObjectToJson(Object object) {
         try {
             return objectMapper.writeValueAsString(object);
@@ -101,9 +148,9 @@ public class MessageProcessorImpl implements MessageProcessor {
         responseSender.sendResponseMessage("railDataResponses-out-0", errorEvent);
     }
 
-    private void handleIncorrectEventTypeError(CrudEvent<String, WeatherInfoRequest> crudEvent) {
+    private void handleIncorrectEventTypeError(CrudEvent<?, ?> crudEvent) {
         ResponsePayload responsePayload = new ResponsePayload(serializeObjectToJson(new MessageFormatException("The received event had an unsupported event type")), HttpStatus.METHOD_NOT_ALLOWED);
-        HttpResponseEvent errorEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, crudEvent.getKey(), responsePayload);
+        HttpResponseEvent errorEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, String.valueOf(crudEvent.getKey()), responsePayload);
         responseSender.sendResponseMessage("railDataResponses-out-0", errorEvent);
     }
 }
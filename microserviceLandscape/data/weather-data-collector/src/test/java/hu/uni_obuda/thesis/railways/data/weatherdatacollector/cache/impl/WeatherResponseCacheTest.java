@@ -0,0 +1,163 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseCacheKey;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseStore;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherResponseCacheTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 10, 10);
+
+    @Mock
+    private ObjectProvider<WeatherResponseStore> remoteStoreProvider;
+
+    @Mock
+    private WeatherResponseStore remoteStore;
+
+    private AsyncCache<WeatherResponseCacheKey, WeatherResponse> localCache;
+
+    @BeforeEach
+    void setUp() {
+        localCache = Caffeine.newBuilder().recordStats().buildAsync();
+    }
+
+    private WeatherResponseCacheImpl createTested(WeatherResponseStore store) {
+        when(remoteStoreProvider.getIfAvailable()).thenReturn(store);
+        WeatherResponseCacheImpl tested = new WeatherResponseCacheImpl(localCache, remoteStoreProvider);
+        ReflectionTestUtils.setField(tested, "coordinatePrecision", 2);
+        return tested;
+    }
+
+    private WeatherResponse presentResponse() {
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly();
+        hourly.getTime().add("2024-10-10T10:00");
+        hourly.getTemperature2m().add(12.0);
+        return WeatherResponse.builder().isPresent(true).latitude(47.5).longitude(19.1).hourly(hourly).build();
+    }
+
+    @Test
+    void getOrLoad_sameRoundedCoordinatesAndDay_loadsUpstreamOnce() {
+        WeatherResponseCacheImpl tested = createTested(null);
+        WeatherResponse response = presentResponse();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        StepVerifier.create(tested.getOrLoad(47.4979, 19.0402, DAY, () -> Mono.fromCallable(() -> {
+                    upstreamCalls.incrementAndGet();
+                    return response;
+                })))
+                .expectNext(response)
+                .verifyComplete();
+        StepVerifier.create(tested.getOrLoad(47.4981, 19.0398, DAY, () -> Mono.error(new IllegalStateException("should be cached"))))
+                .expectNext(response)
+                .verifyComplete();
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(localCache.synchronous().stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getOrLoad_concurrentMisses_shareOneUpstreamCall() {
+        WeatherResponseCacheImpl tested = createTested(null);
+        WeatherResponse response = presentResponse();
+        Sinks.One<WeatherResponse> upstream = Sinks.one();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        Mono<WeatherResponse> first = tested.getOrLoad(47.5, 19.1, DAY, () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<WeatherResponse> second = tested.getOrLoad(47.5, 19.1, DAY, () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitValue(response))
+                .assertNext(tuple -> {
+                    assertThat(tuple.getT1()).isSameAs(response);
+                    assertThat(tuple.getT2()).isSameAs(response);
+                })
+                .verifyComplete();
+
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void getOrLoad_responseNotPresent_isNotCached() {
+        WeatherResponseCacheImpl tested = createTested(null);
+        WeatherResponse missing = WeatherResponse.builder().isPresent(false).build();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(tested.getOrLoad(47.5, 19.1, DAY, () -> Mono.fromCallable(() -> {
+                        upstreamCalls.incrementAndGet();
+                        return missing;
+                    })))
+                    .expectNext(missing)
+                    .verifyComplete();
+        }
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(localCache.synchronous().estimatedSize()).isZero();
+    }
+
+    @Test
+    void getOrLoad_upstreamError_isPropagatedAndNotCached() {
+        WeatherResponseCacheImpl tested = createTested(null);
+
+        StepVerifier.create(tested.getOrLoad(47.5, 19.1, DAY, () -> Mono.error(new RuntimeException("boom"))))
+                .expectErrorMessage("boom")
+                .verify();
+
+        assertThat(localCache.synchronous().estimatedSize()).isZero();
+    }
+
+    @Test
+    void getOrLoad_withRemoteStoreHit_skipsUpstream() {
+        WeatherResponseCacheImpl tested = createTested(remoteStore);
+        WeatherResponse response = presentResponse();
+        when(remoteStore.get(WeatherResponseCacheKey.of(47.5, 19.1, DAY, 2))).thenReturn(Mono.just(response));
+
+        StepVerifier.create(tested.getOrLoad(47.5, 19.1, DAY, () -> Mono.error(new IllegalStateException("should come from redis"))))
+                .expectNext(response)
+                .verifyComplete();
+
+        verify(remoteStore, never()).put(any(), any());
+    }
+
+    @Test
+    void getOrLoad_withRemoteStoreMiss_loadsUpstreamAndStoresRemotely() {
+        WeatherResponseCacheImpl tested = createTested(remoteStore);
+        WeatherResponse response = presentResponse();
+        WeatherResponseCacheKey key = WeatherResponseCacheKey.of(47.5, 19.1, DAY, 2);
+        when(remoteStore.get(key)).thenReturn(Mono.empty());
+        when(remoteStore.put(key, response)).thenReturn(Mono.error(new RuntimeException("redis down")));
+
+        StepVerifier.create(tested.getOrLoad(47.5, 19.1, DAY, () -> Mono.just(response)))
+                .expectNext(response)
+                .verifyComplete();
+
+        verify(remoteStore).put(key, response);
+        assertThat(localCache.synchronous().estimatedSize()).isEqualTo(1);
+    }
+}
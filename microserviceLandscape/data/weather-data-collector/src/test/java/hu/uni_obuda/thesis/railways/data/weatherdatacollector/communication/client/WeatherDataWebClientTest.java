@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.http.*;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.ClientRequest;
@@ -50,6 +51,7 @@ class WeatherDataWebClientTest {
         ReflectionTestUtils.setField(testedObject, "weatherBaseUrl", BASE_URL);
         ReflectionTestUtils.setField(testedObject, "forecastUri", "/v1/forecast");
         ReflectionTestUtils.setField(testedObject, "timeZone", "Europe/Budapest");
+        ReflectionTestUtils.setField(testedObject, "maxBodySize", 1024 * 1024);
     }
 
     @Test
@@ -126,6 +128,36 @@ class WeatherDataWebClientTest {
                 .verify();
     }
 
+    @Test
+    void getWeatherByCoordinates_whenBodyExceedsMaxSize_thenEmitsExternalApiFormatMismatchException() {
+        ReflectionTestUtils.setField(testedObject, "maxBodySize", 16);
+        String jsonBody = """
+            {"latitude": 47.49801, "longitude": 19.03991, "timezone": "Europe/Budapest"}
+            """;
+
+        when(exchangeFunction.exchange(any(ClientRequest.class)))
+                .thenReturn(Mono.just(buildClientResponse(HttpStatus.OK, jsonBody)));
+
+        Mono<WeatherResponse> result =
+                testedObject.getWeatherByCoordinates(47.49801, 19.03991, LocalDate.of(2025, 2, 10));
+
+        StepVerifier.create(result)
+                .expectErrorSatisfies(ex -> {
+                    assertThat(ex).isInstanceOf(ExternalApiFormatMismatchException.class);
+                    assertThat(ex.getCause()).isInstanceOf(DataBufferLimitException.class);
+                })
+                .verify();
+    }
+
+    @Test
+    void getWeatherByCoordinates_whenBodyIsEmpty_thenCompletesEmpty() {
+        when(exchangeFunction.exchange(any(ClientRequest.class)))
+                .thenReturn(Mono.just(buildClientResponse(HttpStatus.OK, "")));
+
+        StepVerifier.create(testedObject.getWeatherByCoordinates(47.49801, 19.03991, LocalDate.of(2025, 2, 10)))
+                .verifyComplete();
+    }
+
     @Test
     void getWeatherByCoordinates_whenApiReturnsNon2xxStatus_thenEmitsExternalApiException() {
         when(exchangeFunction.exchange(any(ClientRequest.class)))
@@ -0,0 +1,70 @@
+package hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HourlyWeatherTest {
+
+    @Test
+    void indexOf_contiguousHours_resolvesByEpochHour() {
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly();
+        hourly.getTime().addAll(Arrays.asList("2024-10-10T00:00", "2024-10-10T01:00", "2024-10-10T02:00"));
+
+        HourlyWeather columns = HourlyWeather.from(hourly);
+
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.indexOf(LocalDateTime.of(2024, 10, 10, 0, 0))).isZero();
+        assertThat(columns.indexOf(LocalDateTime.of(2024, 10, 10, 2, 59))).isEqualTo(2);
+        assertThat(columns.indexOf(LocalDateTime.of(2024, 10, 10, 3, 0))).isEqualTo(-1);
+        assertThat(columns.indexOf(LocalDateTime.of(2024, 10, 9, 23, 0))).isEqualTo(-1);
+    }
+
+    @Test
+    void indexOf_gapsAndUnparseableTimes_fallBackToScan() {
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly();
+        hourly.getTime().addAll(Arrays.asList("2024-10-10T08:00", "garbage", "2024-10-10T12:00"));
+
+        HourlyWeather columns = HourlyWeather.from(hourly);
+
+        assertThat(columns.indexOf(LocalDateTime.of(2024, 10, 10, 8, 30))).isZero();
+        assertThat(columns.indexOf(LocalDateTime.of(2024, 10, 10, 12, 0))).isEqualTo(2);
+        assertThat(columns.indexOf(LocalDateTime.of(2024, 10, 10, 9, 0))).isEqualTo(-1);
+    }
+
+    @Test
+    void accessors_missingValuesAndOutOfRangeIndexes_returnNull() {
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly();
+        hourly.getTime().addAll(Arrays.asList("2024-10-10T00:00", "2024-10-10T01:00"));
+        hourly.getTemperature2m().addAll(Arrays.asList(1.5, null));
+        hourly.getVisibility().addAll(Arrays.asList(null, 2000));
+        hourly.getRain().addAll(Arrays.asList(0.0, null));
+
+        HourlyWeather columns = HourlyWeather.from(hourly);
+
+        assertThat(columns.temperature(0)).isEqualTo(1.5);
+        assertThat(columns.temperature(1)).isNull();
+        assertThat(columns.visibility(0)).isNull();
+        assertThat(columns.visibility(1)).isEqualTo(2000);
+        assertThat(columns.rain(0)).isNull();
+        assertThat(columns.temperature(-1)).isNull();
+        assertThat(columns.cloudCover(0)).isNull();
+    }
+
+    @Test
+    void columns_areBuiltOnceAndExcludedFromEquality() {
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly();
+        hourly.getTime().add("2024-10-10T00:00");
+
+        WeatherResponse.Hourly untouched = new WeatherResponse.Hourly();
+        untouched.getTime().add("2024-10-10T00:00");
+
+        HourlyWeather first = hourly.columns();
+
+        assertThat(hourly.columns()).isSameAs(first);
+        assertThat(hourly).isEqualTo(untouched);
+    }
+}
@@ -1,8 +1,11 @@
 package hu.uni_obuda.thesis.railways.data.weatherdatacollector.service;
 
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.cache.WeatherResponseCache;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.gateway.WeatherDataGateway;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.communication.response.WeatherResponse;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfoRequest;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -11,9 +14,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,9 +29,18 @@ class WeatherDataServiceTest {
     @Mock
     private WeatherDataGateway weatherGateway;
 
+    @Mock
+    private WeatherResponseCache weatherResponseCache;
+
     @InjectMocks
     private WeatherDataServiceImpl testedObject;
 
+    @BeforeEach
+    void setUp() {
+        when(weatherResponseCache.getOrLoad(anyDouble(), anyDouble(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Mono<WeatherResponse>>>getArgument(3).get());
+    }
+
     @Test
     void getWeatherInfoByAddress_whenWeatherResponsePresent_weatherInfoBuilt() {
         String address = "Budapest-Nyugati";
@@ -137,4 +153,43 @@ class WeatherDataServiceTest {
                 .getWeatherByCoordinates(requestLat, requestLon, dateTime.toLocalDate());
         verifyNoMoreInteractions(weatherGateway);
     }
+
+    @Test
+    void getWeatherInfoBatch_groupsByCoordinatesAndDay_singleGatewayCallPerGroup() {
+        LocalDate day = LocalDate.of(2024, 10, 10);
+        WeatherInfoRequest nyugatiMorning = new WeatherInfoRequest("Budapest-Nyugati", 47.5, 19.1, day.atTime(8, 0));
+        WeatherInfoRequest nyugatiNoon = new WeatherInfoRequest("Budapest-Nyugati", 47.5, 19.1, day.atTime(12, 0));
+        WeatherInfoRequest szeged = new WeatherInfoRequest("Szeged", 46.3, 20.1, day.atTime(10, 0));
+
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly();
+        hourly.getTime().addAll(List.of("2024-10-10T08:00", "2024-10-10T12:00"));
+        hourly.getTemperature2m().addAll(List.of(8.0, 14.0));
+        WeatherResponse nyugatiResponse = WeatherResponse.builder()
+                .isPresent(true)
+                .latitude(47.5)
+                .longitude(19.1)
+                .hourly(hourly)
+                .build();
+
+        when(weatherGateway.getWeatherByCoordinates(47.5, 19.1, day)).thenReturn(Mono.just(nyugatiResponse));
+        when(weatherGateway.getWeatherByCoordinates(46.3, 20.1, day)).thenReturn(Mono.error(new RuntimeException("boom")));
+
+        StepVerifier.create(testedObject.getWeatherInfoBatch(List.of(nyugatiMorning, szeged, nyugatiNoon)).collectList())
+                .assertNext(infos -> {
+                    assertThat(infos).hasSize(3);
+                    assertThat(infos)
+                            .filteredOn(info -> info.getAddress().equals("Budapest-Nyugati"))
+                            .extracting(WeatherInfo::getTemperature)
+                            .containsExactly(8.0, 14.0);
+                    assertThat(infos)
+                            .filteredOn(info -> info.getAddress().equals("Szeged"))
+                            .singleElement()
+                            .satisfies(info -> assertThat(info.getTemperature()).isNull());
+                })
+                .verifyComplete();
+
+        verify(weatherGateway, times(1)).getWeatherByCoordinates(47.5, 19.1, day);
+        verify(weatherGateway, times(1)).getWeatherByCoordinates(46.3, 20.1, day);
+        verifyNoMoreInteractions(weatherGateway);
+    }
 }
@@ -1,6 +1,7 @@
 package hu.uni_obuda.thesis.railways.data.weatherdatacollector.workers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.event.CrudEvent;
 import hu.uni_obuda.thesis.railways.data.event.Event;
@@ -15,10 +16,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -189,4 +192,68 @@ class MessageProcessorTest {
         assertThat(sentEvent).isNotNull();
         verifyNoMoreInteractions(responseSender);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void accept_batchGet_sendsOneResponseForWholeBatch() throws Exception {
+        WeatherInfoRequest first = buildRequest(LocalDateTime.of(2024, 10, 10, 10, 0));
+        WeatherInfoRequest second = buildRequest(LocalDateTime.of(2024, 10, 10, 11, 0));
+        List<WeatherInfoRequest> requests = List.of(first, second);
+
+        CrudEvent<String, Object> crudEvent =
+                new CrudEvent<>(CrudEvent.Type.GET, "Budapest-Nyugati:2024-10-10", requests);
+
+        when(objectMapper.convertValue(any(), any(TypeReference.class)))
+                .thenReturn(requests);
+        when(weatherDataCollector.getWeatherInfoBatch(requests))
+                .thenReturn(Flux.just(
+                        WeatherInfo.builder().address(first.getStationName()).time(first.getTime()).build(),
+                        WeatherInfo.builder().address(second.getStationName()).time(second.getTime()).build()));
+        when(objectMapper.writeValueAsString(any()))
+                .thenReturn("[{\"dummy\":\"json\"}]");
+
+        Message<Event<?, ?>> message = (Message) MessageBuilder.withPayload(crudEvent).build();
+
+        createTested().accept(message);
+
+        ArgumentCaptor<HttpResponseEvent> eventCaptor = ArgumentCaptor.forClass(HttpResponseEvent.class);
+        verify(responseSender, times(1))
+                .sendResponseMessage(eq("weatherDataResponses-out-0"), eventCaptor.capture());
+        verifyNoMoreInteractions(responseSender);
+
+        HttpResponseEvent sentEvent = eventCaptor.getValue();
+        assertThat(sentEvent.getEventType()).isEqualTo(HttpResponseEvent.Type.SUCCESS);
+        assertThat(sentEvent.getKey()).isEqualTo("Budapest-Nyugati:2024-10-10");
+        verify(weatherDataCollector, never()).getWeatherInfo(any(), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void accept_batchGetFails_sendsEmptyWeatherInfoForEveryRequest() throws Exception {
+        WeatherInfoRequest first = buildRequest(LocalDateTime.of(2024, 10, 10, 10, 0));
+        WeatherInfoRequest second = buildRequest(LocalDateTime.of(2024, 10, 10, 11, 0));
+        List<WeatherInfoRequest> requests = List.of(first, second);
+
+        CrudEvent<String, Object> crudEvent =
+                new CrudEvent<>(CrudEvent.Type.GET, "Budapest-Nyugati:2024-10-10", requests);
+
+        when(objectMapper.convertValue(any(), any(TypeReference.class)))
+                .thenReturn(requests);
+        when(weatherDataCollector.getWeatherInfoBatch(requests))
+                .thenReturn(Flux.error(new RuntimeException("upstream down")));
+        when(objectMapper.writeValueAsString(any()))
+                .thenReturn("[]");
+
+        Message<Event<?, ?>> message = (Message) MessageBuilder.withPayload(crudEvent).build();
+
+        createTested().accept(message);
+
+        ArgumentCaptor<Object> serialized = ArgumentCaptor.forClass(Object.class);
+        verify(objectMapper).writeValueAsString(serialized.capture());
+        assertThat((List<WeatherInfo>) serialized.getValue())
+                .extracting(WeatherInfo::getTime)
+                .containsExactly(first.getTime(), second.getTime());
+        verify(responseSender, times(1))
+                .sendResponseMessage(eq("weatherDataResponses-out-0"), any(HttpResponseEvent.class));
+    }
 }
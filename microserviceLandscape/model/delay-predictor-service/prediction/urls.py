@@ -1,8 +1,11 @@
 from django.urls import path
 
-from prediction.views import ArrivalDelayPredictorView, DepartureDelayPredictorView
+from prediction.views import ArrivalDelayPredictorView, DepartureDelayPredictorView, ArrivalDelayBatchPredictorView, \
+    DepartureDelayBatchPredictorView
 
 urlpatterns = [
     path("delay/arrival", ArrivalDelayPredictorView.as_view(), name="predict_arrival_delay"),
     path("delay/departure", DepartureDelayPredictorView.as_view(), name="predict_departure_delay"),
-]
\ No newline at end of file
+    path("delay/arrival/batch", ArrivalDelayBatchPredictorView.as_view(), name="predict_arrival_delay_batch"),
+    path("delay/departure/batch", DepartureDelayBatchPredictorView.as_view(), name="predict_departure_delay_batch"),
+]
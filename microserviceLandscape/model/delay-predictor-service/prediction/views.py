@@ -50,4 +50,53 @@ class DepartureDelayPredictorView(APIView):
             return Response({'trainNumber': data['train_number'], 'stationCode': data['station_code'],
                              'predictedDelay': departure_delay}, status=status.HTTP_200_OK)
         else:
-            raise BadRequest(serializer.errors)
\ No newline at end of file
+            raise BadRequest(serializer.errors)
+
+class ArrivalDelayBatchPredictorView(APIView):
+    http_method_names = ['post']
+
+    def post(self, request, *args, **kwargs):
+        print("Got arrival delay batch prediction request for " + str(len(request.data)) + " stops")
+        serializer = DelayPredictionRequestSerializer(data=request.data, many=True)
+        if serializer.is_valid():
+            data = serializer.validated_data
+            if not data:
+                return Response([], status=status.HTTP_200_OK)
+            arrival_model = model_cache.arrival_model
+            if arrival_model is None:
+                print("Arrival model not found")
+                return Response({'message': 'No available ML model'}, status=status.HTTP_500_INTERNAL_SERVER_ERROR)
+
+            df = pd.DataFrame(data)
+            arrival_delays = arrival_model.predict(df)
+            print("Predicted " + str(len(arrival_delays)) + " arrival delays")
+            return Response([{'trainNumber': item['train_number'], 'stationCode': item['station_code'],
+                              'predictedDelay': int(round(delay))} for item, delay in zip(data, arrival_delays)],
+                            status=status.HTTP_200_OK)
+        else:
+            raise BadRequest(serializer.errors)
+
+
+class DepartureDelayBatchPredictorView(APIView):
+    http_method_names = ['post']
+
+    def post(self, request, *args, **kwargs):
+        print("Got departure delay batch prediction request for " + str(len(request.data)) + " stops")
+        serializer = DelayPredictionRequestSerializer(data=request.data, many=True)
+        if serializer.is_valid():
+            data = serializer.validated_data
+            if not data:
+                return Response([], status=status.HTTP_200_OK)
+            departure_model = model_cache.departure_model
+            if departure_model is None:
+                print("Departure model not found")
+                return Response({'message': 'No available ML model'}, status=status.HTTP_500_INTERNAL_SERVER_ERROR)
+
+            df = pd.DataFrame(data)
+            departure_delays = departure_model.predict(df)
+            print("Predicted " + str(len(departure_delays)) + " departure delays")
+            return Response([{'trainNumber': item['train_number'], 'stationCode': item['station_code'],
+                              'predictedDelay': int(round(delay))} for item, delay in zip(data, departure_delays)],
+                            status=status.HTTP_200_OK)
+        else:
+            raise BadRequest(serializer.errors)
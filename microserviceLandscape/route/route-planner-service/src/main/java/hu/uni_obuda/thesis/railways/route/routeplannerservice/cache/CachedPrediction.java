@@ -0,0 +1,21 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.cache;
+
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A delay prediction together with the time it was made, so a copy shared through Redis keeps its
+ * original age.
+ */
+public record CachedPrediction(DelayPredictionResponse response, Instant cachedAt) {
+
+    public static CachedPrediction of(DelayPredictionResponse response) {
+        return new CachedPrediction(response, Instant.now());
+    }
+
+    public boolean isFresh(Duration freshFor) {
+        return cachedAt.plus(freshFor).isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,20 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.cache;
+
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+public interface PredictionCache {
+
+    String CACHE_PREFIX = "predictionCache";
+
+    /**
+     * Returns the cached prediction of {@code direction} for the train, station, scheduled time and quantized
+     * weather of {@code request}, calling {@code predictor} on a miss. A prediction older than the fresh duration
+     * is still served, while {@code predictor} refreshes it in the background. Fallback predictions are not cached.
+     */
+    Mono<DelayPredictionResponse> get(String direction, DelayPredictionRequest request,
+                                      Supplier<Mono<DelayPredictionResponse>> predictor);
+}
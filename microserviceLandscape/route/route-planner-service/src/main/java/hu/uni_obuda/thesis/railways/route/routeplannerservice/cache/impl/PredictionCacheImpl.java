@@ -0,0 +1,196 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import hu.uni_obuda.thesis.railways.model.dto.WeatherInfoSnakeCase;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.CachedPrediction;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.PredictionCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches delay predictions in Caffeine and, when {@code caching.prediction.redis.enabled} is set, shares
+ * them with the other instances through Redis.
+ * <p>
+ * Weather features are rounded to the configured steps before they become part of the key, so weather
+ * that changed too little to move the prediction keeps hitting the same entry. Lookups are counted in
+ * {@code prediction.cache.lookups}, tagged with {@code outcome} ({@code hit}, {@code shared_hit},
+ * {@code stale} or {@code miss}), and {@code prediction.cache.hit.ratio} reports the share served from cache.
+ */
+@Slf4j
+@Component
+public class PredictionCacheImpl implements PredictionCache {
+
+    private static final String LOOKUPS_METRIC_NAME = "prediction.cache.lookups";
+
+    private final Cache<String, CachedPrediction> localPredictionCache;
+    private final ReactiveRedisTemplate<String, CachedPrediction> predictionRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+
+    @Value("${caching.prediction.cache-duration-in-minutes:60}")
+    private Integer cacheDuration;
+    @Value("${caching.prediction.fresh-duration-in-minutes:15}")
+    private Integer freshDuration;
+    @Value("${caching.prediction.quantization.temperature:1.0}")
+    private Double temperatureStep;
+    @Value("${caching.prediction.quantization.percentage:10.0}")
+    private Double percentageStep;
+    @Value("${caching.prediction.quantization.wind-speed:5.0}")
+    private Double windSpeedStep;
+    @Value("${caching.prediction.quantization.precipitation:0.5}")
+    private Double precipitationStep;
+    @Value("${caching.prediction.quantization.snow-depth:0.05}")
+    private Double snowDepthStep;
+    @Value("${caching.prediction.quantization.visibility:1000.0}")
+    private Double visibilityStep;
+
+    public PredictionCacheImpl(Cache<String, CachedPrediction> localPredictionCache,
+                               @Qualifier("predictionRedisTemplate") Optional<ReactiveRedisTemplate<String, CachedPrediction>> predictionRedisTemplate,
+                               MeterRegistry meterRegistry) {
+        this.localPredictionCache = localPredictionCache;
+        this.predictionRedisTemplate = predictionRedisTemplate.orElse(null);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("prediction.cache.hit.ratio", this, PredictionCacheImpl::hitRatio)
+                .description("Share of delay prediction lookups served from cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<DelayPredictionResponse> get(String direction, DelayPredictionRequest request,
+                                             Supplier<Mono<DelayPredictionResponse>> predictor) {
+        return Mono.defer(() -> {
+            String key = toKey(direction, request);
+            CachedPrediction cached = localPredictionCache.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(serve(key, cached, "hit", predictor));
+            }
+            return readShared(key)
+                    .map(shared -> {
+                        localPredictionCache.put(key, shared);
+                        return serve(key, shared, "shared_hit", predictor);
+                    })
+                    .switchIfEmpty(Mono.defer(() -> {
+                        record("miss");
+                        log.debug("Prediction cache miss for {}", key);
+                        return predict(key, predictor);
+                    }));
+        });
+    }
+
+    private DelayPredictionResponse serve(String key, CachedPrediction cached, String outcome,
+                                          Supplier<Mono<DelayPredictionResponse>> predictor) {
+        if (cached.isFresh(Duration.ofMinutes(freshDuration))) {
+            record(outcome);
+            return cached.response();
+        }
+        record("stale");
+        if (refreshing.add(key)) {
+            log.debug("Serving stale prediction for {} while refreshing it", key);
+            predict(key, predictor)
+                    .doFinally(_ -> refreshing.remove(key))
+                    .subscribe(null, throwable -> log.warn("Failed to refresh cached prediction for {}", key, throwable));
+        }
+        return cached.response();
+    }
+
+    private Mono<DelayPredictionResponse> predict(String key, Supplier<Mono<DelayPredictionResponse>> predictor) {
+        return predictor.get()
+                .flatMap(response -> response.isFallback()
+                        ? Mono.just(response)
+                        : store(key, CachedPrediction.of(response)).thenReturn(response));
+    }
+
+    private Mono<CachedPrediction> readShared(String key) {
+        if (predictionRedisTemplate == null) {
+            return Mono.empty();
+        }
+        return predictionRedisTemplate.opsForValue().get(key)
+                .onErrorResume(throwable -> {
+                    log.warn("Failed to read shared prediction for {}", key, throwable);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> store(String key, CachedPrediction prediction) {
+        localPredictionCache.put(key, prediction);
+        if (predictionRedisTemplate == null) {
+            return Mono.empty();
+        }
+        return predictionRedisTemplate.opsForValue()
+                .set(key, prediction, Duration.ofMinutes(cacheDuration))
+                .onErrorResume(throwable -> {
+                    log.warn("Failed to share prediction for {}", key, throwable);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private String toKey(String direction, DelayPredictionRequest request) {
+        StringJoiner key = new StringJoiner(":")
+                .add(CACHE_PREFIX)
+                .add(direction)
+                .add(Objects.toString(request.getTrainNumber()))
+                .add(Objects.toString(request.getStationCode()))
+                .add(Objects.toString(request.getScheduledDeparture()))
+                .add(Objects.toString(request.getScheduledArrival()))
+                .add(Objects.toString(request.getDate()));
+        WeatherInfoSnakeCase weather = request.getWeatherWrapper();
+        if (weather == null) {
+            return key.add("-").toString();
+        }
+        return key.add(quantize(weather.getTemperature(), temperatureStep))
+                .add(quantize(weather.getRelativeHumidity(), percentageStep))
+                .add(quantize(weather.getWindSpeedAt10m(), windSpeedStep))
+                .add(quantize(weather.getWindSpeedAt80m(), windSpeedStep))
+                .add(Objects.toString(weather.getIsSnowing()))
+                .add(quantize(weather.getSnowFall(), precipitationStep))
+                .add(quantize(weather.getSnowDepth(), snowDepthStep))
+                .add(Objects.toString(weather.getIsRaining()))
+                .add(quantize(weather.getPrecipitation(), precipitationStep))
+                .add(quantize(weather.getRain(), precipitationStep))
+                .add(quantize(weather.getShowers(), precipitationStep))
+                .add(quantize(weather.getVisibilityInMeters(), visibilityStep))
+                .add(quantize(weather.getCloudCoverPercentage(), percentageStep))
+                .toString();
+    }
+
+    private static String quantize(Number value, double step) {
+        return value == null ? "-" : Long.toString(Math.round(value.doubleValue() / step));
+    }
+
+    private void record(String outcome) {
+        lookups.incrementAndGet();
+        if (!"miss".equals(outcome)) {
+            served.incrementAndGet();
+        }
+        Counter.builder(LOOKUPS_METRIC_NAME)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private double hitRatio() {
+        long total = lookups.get();
+        return total == 0 ? 0 : (double) served.get() / total;
+    }
+}
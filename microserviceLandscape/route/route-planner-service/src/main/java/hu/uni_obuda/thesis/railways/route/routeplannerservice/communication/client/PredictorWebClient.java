@@ -2,9 +2,14 @@ package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.cli
 
 import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
 import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface PredictorWebClient {
     Mono<DelayPredictionResponse> makeArrivalPredictionRequest(DelayPredictionRequest delayPredictionRequest);
     Mono<DelayPredictionResponse> makeDeparturePredictionRequest(DelayPredictionRequest delayPredictionRequest);
+    Flux<DelayPredictionResponse> makeArrivalPredictionsRequest(List<DelayPredictionRequest> delayPredictionRequests);
+    Flux<DelayPredictionResponse> makeDeparturePredictionsRequest(List<DelayPredictionRequest> delayPredictionRequests);
 }
@@ -8,8 +8,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Slf4j
 @RequiredArgsConstructor
 @Primary
@@ -24,6 +27,8 @@ public class ReactivePredictorWebClient implements PredictorWebClient {
     private String departureUri;
     @Value("${app.delay-predictor-service-arrival-uri}")
     private String arrivalUri;
+    @Value("${app.delay-predictor-service-batch-suffix:/batch}")
+    private String batchSuffix;
 
     @Override
     public Mono<DelayPredictionResponse> makeArrivalPredictionRequest(DelayPredictionRequest delayPredictionRequest) {
@@ -42,4 +47,22 @@ public class ReactivePredictorWebClient implements PredictorWebClient {
                 .retrieve()
                 .bodyToMono(DelayPredictionResponse.class);
     }
+
+    @Override
+    public Flux<DelayPredictionResponse> makeArrivalPredictionsRequest(List<DelayPredictionRequest> delayPredictionRequests) {
+        return webClient.post()
+                .uri(baseUrl + arrivalUri + batchSuffix)
+                .bodyValue(delayPredictionRequests)
+                .retrieve()
+                .bodyToFlux(DelayPredictionResponse.class);
+    }
+
+    @Override
+    public Flux<DelayPredictionResponse> makeDeparturePredictionsRequest(List<DelayPredictionRequest> delayPredictionRequests) {
+        return webClient.post()
+                .uri(baseUrl + departureUri + batchSuffix)
+                .bodyValue(delayPredictionRequests)
+                .retrieve()
+                .bodyToFlux(DelayPredictionResponse.class);
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.cli
 import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainRouteResponse;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResponse;
+import hu.uni_obuda.thesis.railways.util.codec.JsonBodyDecoder;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.EntityNotFoundException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiException;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.ExternalApiFormatMismatchException;
@@ -16,12 +17,13 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.util.Collection;
 import java.util.List;
 
 @Slf4j
@@ -39,6 +41,8 @@ public class ReactiveStationWebClient implements StationWebClient {
     private String trainRouteUri;
     @Value("${app.delay-data-collector-train-station-uri}")
     private String trainStationUri;
+    @Value("${app.delay-data-collector-max-body-size:4194304}")
+    private int maxBodySize;
 
 
     @Override
@@ -53,22 +57,14 @@ public class ReactiveStationWebClient implements StationWebClient {
                 .uri(stationUri.toString())
                 .exchangeToMono(apiResponse -> {
                     if (apiResponse.statusCode().is2xxSuccessful()) {
-                        return apiResponse.bodyToMono(String.class)
-                                .flatMap(response -> {
-                                    try {
-                                        List<TrainStationResponse> parsedList = objectMapper.readValue(
-                                                response,
-                                                objectMapper.getTypeFactory().constructCollectionType(List.class, TrainStationResponse.class)
-                                        );
-
-                                        if (parsedList.isEmpty()) {
-                                            return Mono.error(new EntityNotFoundException(stationCode, TrainStationResponse.class));
-                                        } else {
-                                            return Mono.just(parsedList.getFirst());
-                                        }
-
-                                    } catch (IOException ioException) {
-                                        return Mono.error(mapMappingExceptionToException(ioException, stationUri.toString()));
+                        return JsonBodyDecoder.<List<TrainStationResponse>>decode(apiResponse, objectMapper,
+                                        objectMapper.getTypeFactory().constructCollectionType(List.class, TrainStationResponse.class), maxBodySize)
+                                .onErrorMap(JsonBodyDecoder::isDecodingError, mappingException -> mapMappingExceptionToException(mappingException, stationUri.toString()))
+                                .flatMap(parsedList -> {
+                                    if (parsedList.isEmpty()) {
+                                        return Mono.error(new EntityNotFoundException(stationCode, TrainStationResponse.class));
+                                    } else {
+                                        return Mono.just(parsedList.getFirst());
                                     }
                                 });
                     } else {
@@ -88,22 +84,14 @@ public class ReactiveStationWebClient implements StationWebClient {
                 .uri(routeUri.toString())
                 .exchangeToMono(apiResponse -> {
                     if (apiResponse.statusCode().is2xxSuccessful()) {
-                        return apiResponse.bodyToMono(String.class)
-                                .flatMap(response -> {
-                                    try {
-                                        List<TrainRouteResponse> parsedList = objectMapper.readValue(
-                                                response,
-                                                objectMapper.getTypeFactory().constructCollectionType(List.class, TrainRouteResponse.class)
-                                        );
-
-                                        if (parsedList.isEmpty()) {
-                                            return Mono.error(new EntityNotFoundException(trainNumber, TrainRouteResponse.class));
-                                        } else {
-                                            return Mono.just(parsedList.getFirst());
-                                        }
-
-                                    } catch (IOException ioException) {
-                                        return Mono.error(mapMappingExceptionToException(ioException, routeUri.toString()));
+                        return JsonBodyDecoder.<List<TrainRouteResponse>>decode(apiResponse, objectMapper,
+                                        objectMapper.getTypeFactory().constructCollectionType(List.class, TrainRouteResponse.class), maxBodySize)
+                                .onErrorMap(JsonBodyDecoder::isDecodingError, mappingException -> mapMappingExceptionToException(mappingException, routeUri.toString()))
+                                .flatMap(parsedList -> {
+                                    if (parsedList.isEmpty()) {
+                                        return Mono.error(new EntityNotFoundException(trainNumber, TrainRouteResponse.class));
+                                    } else {
+                                        return Mono.just(parsedList.getFirst());
                                     }
                                 });
                     } else {
@@ -112,6 +100,38 @@ public class ReactiveStationWebClient implements StationWebClient {
                 });
     }
 
+    @Override
+    public Flux<TrainStationResponse> makeStationsRequest(Collection<String> stationCodes) {
+        return makeBulkRequest(trainStationUri, "stationCodes", stationCodes, TrainStationResponse.class);
+    }
+
+    @Override
+    public Flux<TrainRouteResponse> makeTrainRoutesRequest(Collection<String> trainNumbers) {
+        return makeBulkRequest(trainRouteUri, "trainNumbers", trainNumbers, TrainRouteResponse.class);
+    }
+
+    private <T> Flux<T> makeBulkRequest(String uri, String parameterName, Collection<String> keys, Class<T> responseType) {
+        URI bulkUri = UriComponentsBuilder.fromUriString(baseUrl)
+                .path(uri)
+                .pathSegment("bulk")
+                .queryParam(parameterName, keys)
+                .build(false)
+                .toUri();
+
+        return webClient.get()
+                .uri(bulkUri.toString())
+                .exchangeToFlux(apiResponse -> {
+                    if (apiResponse.statusCode().is2xxSuccessful()) {
+                        return JsonBodyDecoder.<List<T>>decode(apiResponse, objectMapper,
+                                        objectMapper.getTypeFactory().constructCollectionType(List.class, responseType), maxBodySize)
+                                .onErrorMap(JsonBodyDecoder::isDecodingError, mappingException -> mapMappingExceptionToException(mappingException, bulkUri.toString()))
+                                .flatMapMany(Flux::fromIterable);
+                    } else {
+                        return Flux.error(mapApiResponseToException(apiResponse));
+                    }
+                });
+    }
+
     private RuntimeException mapApiResponseToException(ClientResponse clientResponse) {
         if (clientResponse.statusCode().equals(HttpStatusCode.valueOf(404))) {
             return new EntityNotFoundException("", Object.class);
@@ -119,8 +139,8 @@ public class ReactiveStationWebClient implements StationWebClient {
         return new ExternalApiException(clientResponse.statusCode(), getUrlFromString(clientResponse.request().getURI().toString()));
     }
 
-    private RuntimeException mapMappingExceptionToException(IOException ioException, String uri) {
-        return new ExternalApiFormatMismatchException(ioException.getMessage(), ioException, getUrlFromUriString(uri));
+    private RuntimeException mapMappingExceptionToException(Throwable mappingException, String uri) {
+        return new ExternalApiFormatMismatchException(mappingException.getMessage(), mappingException, getUrlFromUriString(uri));
     }
 
     private URL getUrlFromUriString(String uri) {
@@ -2,9 +2,14 @@ package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.cli
 
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainRouteResponse;
 import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface StationWebClient {
     Mono<TrainStationResponse> makeStationRequest(String stationCode);
     Mono<TrainRouteResponse> makeTrainRouteRequest(String trainNumber);
+    Flux<TrainStationResponse> makeStationsRequest(Collection<String> stationCodes);
+    Flux<TrainRouteResponse> makeTrainRoutesRequest(Collection<String> trainNumbers);
 }
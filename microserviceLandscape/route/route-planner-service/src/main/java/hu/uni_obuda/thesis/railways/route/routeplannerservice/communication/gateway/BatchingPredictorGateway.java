@@ -0,0 +1,113 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway;
+
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.client.PredictorWebClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Gathers the delay predictions requested within a short window and sends each group to the batch
+ * endpoints of the delay predictor, so the model scores them in one pass, using a {@link KeyedBatcher}
+ * per direction.
+ * <p>
+ * The predictor answers a batch in request order, so responses are matched to callers by position.
+ * The rate limiter, retry and circuit breaker of {@code getArrivalDelay} and {@code getDepartureDelay}
+ * wrap the batch calls. A failed batch, a prediction pending at shutdown and one requested after it
+ * are answered with the zero delay fallback of {@link ReactivePredictorGateway}. Batch sizes are
+ * recorded in the {@code prediction.batch.size} histogram, tagged with {@code direction}.
+ */
+@Slf4j
+@Primary
+@ConditionalOnProperty(name = "app.delay-predictor-batch.enabled", havingValue = "true", matchIfMissing = true)
+@Component
+public class BatchingPredictorGateway implements PredictorGateway {
+
+    private final PredictorWebClient webClient;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RetryRegistry retryRegistry;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.delay-predictor-batch.max-size:64}")
+    private Integer maxBatchSize;
+    @Value("${app.delay-predictor-batch.max-wait-millis:10}")
+    private Integer maxWaitMillis;
+
+    private KeyedBatcher<DelayPredictionRequest, DelayPredictionResponse> arrivals;
+    private KeyedBatcher<DelayPredictionRequest, DelayPredictionResponse> departures;
+
+    public BatchingPredictorGateway(@Qualifier("reactivePredictorWebClient") PredictorWebClient webClient,
+                                    CircuitBreakerRegistry circuitBreakerRegistry, RetryRegistry retryRegistry,
+                                    RateLimiterRegistry rateLimiterRegistry, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.retryRegistry = retryRegistry;
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        arrivals = new KeyedBatcher<>("getArrivalDelay", webClient::makeArrivalPredictionsRequest, KeyedBatcher.byPosition(),
+                batchSizes("arrival"), maxBatchSize, Duration.ofMillis(maxWaitMillis),
+                circuitBreakerRegistry, retryRegistry, rateLimiterRegistry);
+        departures = new KeyedBatcher<>("getDepartureDelay", webClient::makeDeparturePredictionsRequest, KeyedBatcher.byPosition(),
+                batchSizes("departure"), maxBatchSize, Duration.ofMillis(maxWaitMillis),
+                circuitBreakerRegistry, retryRegistry, rateLimiterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        arrivals.shutdown();
+        departures.shutdown();
+    }
+
+    @Override
+    public Mono<DelayPredictionResponse> getArrivalDelay(DelayPredictionRequest request) {
+        return arrivals.lookup(request)
+                .onErrorResume(throwable -> {
+                    log.warn("Returning default arrival delay prediction response because of exception", throwable);
+                    return Mono.just(defaultResponse(request));
+                });
+    }
+
+    @Override
+    public Mono<DelayPredictionResponse> getDepartureDelay(DelayPredictionRequest request) {
+        return departures.lookup(request)
+                .onErrorResume(throwable -> {
+                    log.warn("Returning default departure delay prediction response because of exception", throwable);
+                    return Mono.just(defaultResponse(request));
+                });
+    }
+
+    private static DelayPredictionResponse defaultResponse(DelayPredictionRequest request) {
+        return DelayPredictionResponse.builder()
+                .stationCode(request.getStationCode())
+                .trainNumber(request.getTrainNumber())
+                .predictedDelay(0d)
+                .fallback(true).build();
+    }
+
+    private DistributionSummary batchSizes(String direction) {
+        return DistributionSummary.builder("prediction.batch.size")
+                .description("Predictions made by one batch call to the delay predictor")
+                .tag("direction", direction)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,110 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainRouteResponse;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.client.StationWebClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Gathers the station and train route lookups issued within a short window and resolves each group
+ * with one call to the bulk endpoints of the delay data collector, using a {@link KeyedBatcher} per lookup.
+ * <p>
+ * The rate limiter, retry and circuit breaker of {@code getTrainStation} and {@code getTrainRoute}
+ * wrap the bulk calls, so one batch takes one permit. Results are matched by train number and station
+ * code. Keys missing from a bulk response and failed
+ * batches are answered like the single lookups of {@link ReactiveStationDataGateway} were: routes
+ * complete empty, stations fall back to a response without coordinates. Batch sizes are recorded in
+ * the {@code station.lookup.batch.size} histogram, tagged with {@code lookup}. Lookups still pending at
+ * shutdown, and lookups issued after it, get the same fallbacks.
+ */
+@Slf4j
+@Primary
+@ConditionalOnProperty(name = "app.delay-data-collector-batch.enabled", havingValue = "true", matchIfMissing = true)
+@Component
+public class BatchingStationDataGateway implements StationDataGateway {
+
+    private final StationWebClient webClient;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RetryRegistry retryRegistry;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.delay-data-collector-batch.max-size:50}")
+    private Integer maxBatchSize;
+    @Value("${app.delay-data-collector-batch.max-wait-millis:10}")
+    private Integer maxWaitMillis;
+
+    private KeyedBatcher<String, TrainRouteResponse> routes;
+    private KeyedBatcher<String, TrainStationResponse> stations;
+
+    public BatchingStationDataGateway(@Qualifier("reactiveStationWebClient") StationWebClient webClient,
+                                      CircuitBreakerRegistry circuitBreakerRegistry, RetryRegistry retryRegistry,
+                                      RateLimiterRegistry rateLimiterRegistry, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.retryRegistry = retryRegistry;
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        routes = new KeyedBatcher<>("getTrainRoute", webClient::makeTrainRoutesRequest, KeyedBatcher.byKey(TrainRouteResponse::getTrainNumber),
+                batchSizes("getTrainRoute"), maxBatchSize, Duration.ofMillis(maxWaitMillis),
+                circuitBreakerRegistry, retryRegistry, rateLimiterRegistry);
+        stations = new KeyedBatcher<>("getTrainStation", webClient::makeStationsRequest, KeyedBatcher.byKey(TrainStationResponse::getStationCode),
+                batchSizes("getTrainStation"), maxBatchSize, Duration.ofMillis(maxWaitMillis),
+                circuitBreakerRegistry, retryRegistry, rateLimiterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        routes.shutdown();
+        stations.shutdown();
+    }
+
+    @Override
+    public Mono<TrainRouteResponse> getTrainRoute(String trainNumber) {
+        return routes.lookup(trainNumber)
+                .onErrorResume(throwable -> {
+                    log.warn("Returning empty train route response because of exception", throwable);
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<TrainStationResponse> getTrainStation(String stationCode) {
+        return stations.lookup(stationCode)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Train station {} was not found, returning default train station response", stationCode);
+                    return TrainStationResponse.builder().stationCode(stationCode).build();
+                }))
+                .onErrorResume(throwable -> {
+                    log.warn("Returning default train station response because of exception", throwable);
+                    return Mono.just(TrainStationResponse.builder().stationCode(stationCode).build());
+                });
+    }
+
+    private DistributionSummary batchSizes(String lookup) {
+        return DistributionSummary.builder("station.lookup.batch.size")
+                .description("Keys resolved by one bulk call to the delay data collector")
+                .tag("lookup", lookup)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
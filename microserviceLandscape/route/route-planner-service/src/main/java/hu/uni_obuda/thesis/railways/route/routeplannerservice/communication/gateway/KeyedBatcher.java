@@ -0,0 +1,182 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Gathers the keys requested within a short window and resolves each group with one bulk call.
+ * <p>
+ * Identical keys within a window are sent once. The rate limiter, retry and circuit breaker registered
+ * under the batcher's name wrap the bulk call, so one batch takes one permit. A {@link ResultMatcher}
+ * assigns the results to the keys; keys without a result complete empty, and a failed batch fails every
+ * caller in it. Shutting the batcher down fails the lookups still pending and every later lookup, so
+ * callers always get an answer and can fall back.
+ */
+@Slf4j
+public final class KeyedBatcher<K, V> {
+
+    private final String name;
+    private final Function<List<K>, Flux<V>> bulkCall;
+    private final ResultMatcher<K, V> resultMatcher;
+    private final DistributionSummary batchSizes;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RetryRegistry retryRegistry;
+    private final RateLimiterRegistry rateLimiterRegistry;
+
+    private final Set<PendingLookup<K, V>> outstandingLookups = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Disposable subscription;
+    private FluxSink<PendingLookup<K, V>> pendingLookups;
+    private volatile boolean shutDown;
+
+    public KeyedBatcher(String name, Function<List<K>, Flux<V>> bulkCall, ResultMatcher<K, V> resultMatcher,
+                        DistributionSummary batchSizes, int maxBatchSize, Duration maxWait,
+                        CircuitBreakerRegistry circuitBreakerRegistry, RetryRegistry retryRegistry,
+                        RateLimiterRegistry rateLimiterRegistry) {
+        this.name = name;
+        this.bulkCall = bulkCall;
+        this.resultMatcher = resultMatcher;
+        this.batchSizes = batchSizes;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.retryRegistry = retryRegistry;
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.subscription = Flux.<PendingLookup<K, V>>create(sink -> this.pendingLookups = sink)
+                .bufferTimeout(maxBatchSize, maxWait, true)
+                .flatMap(this::send)
+                .subscribe(null, throwable -> log.error("Batching of {} lookups stopped unexpectedly", name, throwable));
+    }
+
+    /**
+     * Matches results to keys by a key extracted from each result. Keys without a result are left out.
+     */
+    public static <K, V> ResultMatcher<K, V> byKey(Function<V, K> keyOf) {
+        return (_, results) -> {
+            Map<K, V> matched = new HashMap<>();
+            results.forEach(result -> matched.put(keyOf.apply(result), result));
+            return matched;
+        };
+    }
+
+    /**
+     * Matches the n-th result to the n-th key, failing the batch unless there is exactly one result per key.
+     */
+    public static <K, V> ResultMatcher<K, V> byPosition() {
+        return (keys, results) -> {
+            if (results.size() != keys.size()) {
+                throw new IllegalStateException("Bulk call answered " + results.size() + " of " + keys.size() + " keys");
+            }
+            Map<K, V> matched = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                matched.put(keys.get(i), results.get(i));
+            }
+            return matched;
+        };
+    }
+
+    public Mono<V> lookup(K key) {
+        return Mono.defer(() -> {
+            if (shutDown) {
+                return Mono.error(shutDownException());
+            }
+            PendingLookup<K, V> lookup = new PendingLookup<>(key, Sinks.one());
+            outstandingLookups.add(lookup);
+            pendingLookups.next(lookup);
+            if (shutDown) {
+                failOutstandingLookups();
+            }
+            return lookup.result().asMono();
+        });
+    }
+
+    public void shutdown() {
+        shutDown = true;
+        failOutstandingLookups();
+        subscription.dispose();
+    }
+
+    private Mono<Void> send(List<PendingLookup<K, V>> batch) {
+        Map<K, List<PendingLookup<K, V>>> callersByKey = new LinkedHashMap<>();
+        for (PendingLookup<K, V> lookup : batch) {
+            callersByKey.computeIfAbsent(lookup.key(), _ -> new ArrayList<>()).add(lookup);
+        }
+        List<K> keys = List.copyOf(callersByKey.keySet());
+        batchSizes.record(keys.size());
+        log.debug("Sending {} {} lookups for {} callers in one request", keys.size(), name, batch.size());
+
+        return Flux.defer(() -> bulkCall.apply(keys))
+                .collectList()
+                .map(results -> resultMatcher.match(keys, results))
+                .transformDeferred(RateLimiterOperator.of(rateLimiterRegistry.rateLimiter(name)))
+                .transformDeferred(RetryOperator.of(retryRegistry.retry(name)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(name)))
+                .doOnNext(found -> callersByKey.forEach((key, callers) -> {
+                    V value = found.get(key);
+                    callers.forEach(lookup -> {
+                        if (value != null) {
+                            lookup.result().tryEmitValue(value);
+                        } else {
+                            lookup.result().tryEmitEmpty();
+                        }
+                    });
+                }))
+                .doOnError(throwable -> {
+                    if (throwable instanceof CallNotPermittedException callNotPermittedException) {
+                        log.error("Circuit breaker is open", callNotPermittedException);
+                    }
+                    if (throwable instanceof RequestNotPermitted requestNotPermittedException) {
+                        log.error("Rate limit is exceeded", requestNotPermittedException);
+                    }
+                    batch.forEach(lookup -> lookup.result().tryEmitError(throwable));
+                })
+                .onErrorComplete()
+                .doFinally(_ -> batch.forEach(outstandingLookups::remove))
+                .then();
+    }
+
+    private void failOutstandingLookups() {
+        IllegalStateException exception = shutDownException();
+        outstandingLookups.removeIf(lookup -> {
+            lookup.result().tryEmitError(exception);
+            return true;
+        });
+    }
+
+    private IllegalStateException shutDownException() {
+        return new IllegalStateException("Batching of " + name + " lookups is shut down");
+    }
+
+    /**
+     * Assigns the results of one bulk call to the keys it was made for.
+     */
+    @FunctionalInterface
+    public interface ResultMatcher<K, V> {
+
+        Map<K, V> match(List<K> keys, List<V> results);
+    }
+
+    private record PendingLookup<K, V>(K key, Sinks.One<V> result) {
+    }
+}
@@ -16,12 +16,10 @@ import io.github.resilience4j.retry.annotation.Retry;
 import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 @Slf4j
-@Primary
 @Component
 public class ReactivePredictorGateway implements PredictorGateway {
 
@@ -56,7 +54,8 @@ public class ReactivePredictorGateway implements PredictorGateway {
                     return Mono.just(DelayPredictionResponse.builder()
                             .stationCode(request.getStationCode())
                             .trainNumber(request.getTrainNumber())
-                            .predictedDelay(0d).build());
+                            .predictedDelay(0d)
+                            .fallback(true).build());
                 });
     }
 
@@ -74,7 +73,8 @@ public class ReactivePredictorGateway implements PredictorGateway {
                     return Mono.just(DelayPredictionResponse.builder()
                             .stationCode(request.getStationCode())
                             .trainNumber(request.getTrainNumber())
-                            .predictedDelay(0d).build());
+                            .predictedDelay(0d)
+                            .fallback(true).build());
                 });
     }
 }
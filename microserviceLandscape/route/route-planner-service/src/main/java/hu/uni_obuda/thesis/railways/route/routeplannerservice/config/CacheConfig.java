@@ -5,6 +5,7 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
 import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.CachedPrediction;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,6 +28,10 @@ public class CacheConfig {
     private int routeCacheDuration;
     @Value("${caching.route.cache-size:100}")
     private int routeCacheSize;
+    @Value("${caching.prediction.cache-duration-in-minutes:60}")
+    private int predictionCacheDuration;
+    @Value("${caching.prediction.cache-size:5000}")
+    private int predictionCacheSize;
 
 
 
@@ -54,4 +59,12 @@ public class CacheConfig {
                 .expireAfterWrite(Duration.ofSeconds(routeCacheDuration))
                 .build();
     }
+
+    @Bean
+    public Cache<String, CachedPrediction> localPredictionCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(predictionCacheSize)
+                .expireAfterWrite(Duration.ofMinutes(predictionCacheDuration))
+                .build();
+    }
 }
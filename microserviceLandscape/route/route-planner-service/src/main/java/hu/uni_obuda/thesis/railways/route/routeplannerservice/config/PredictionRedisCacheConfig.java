@@ -0,0 +1,29 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.CachedPrediction;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+@ConditionalOnProperty(name = "caching.prediction.redis.enabled", havingValue = "true")
+@Configuration
+public class PredictionRedisCacheConfig {
+
+    @Bean
+    public ReactiveRedisTemplate<String, CachedPrediction> predictionRedisTemplate(ReactiveRedisConnectionFactory factory, ObjectMapper objectMapper) {
+        Jackson2JsonRedisSerializer<CachedPrediction> jacksonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, CachedPrediction.class);
+
+        RedisSerializationContext<String, CachedPrediction> context = RedisSerializationContext
+                .<String, CachedPrediction>newSerializationContext(new StringRedisSerializer())
+                .value(jacksonSerializer)
+                .build();
+
+        return new ReactiveRedisTemplate<>(factory, context);
+    }
+}
@@ -0,0 +1,62 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+
+/**
+ * Deadline shared by every call made while planning one route, carried in the Reactor context
+ * under the {@link LatencyBudget} class key.
+ * <p>
+ * Publishers subscribed without a budget in their context see {@link #unlimited()}.
+ */
+public final class LatencyBudget {
+
+    private static final LatencyBudget UNLIMITED = new LatencyBudget(0, true);
+
+    private final long deadlineNanos;
+    private final boolean unlimited;
+
+    private LatencyBudget(long deadlineNanos, boolean unlimited) {
+        this.deadlineNanos = deadlineNanos;
+        this.unlimited = unlimited;
+    }
+
+    public static LatencyBudget startingNow(Duration budget) {
+        return new LatencyBudget(System.nanoTime() + budget.toNanos(), false);
+    }
+
+    public static LatencyBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    public static LatencyBudget from(ContextView context) {
+        return context.getOrDefault(LatencyBudget.class, UNLIMITED);
+    }
+
+    /**
+     * Starts a budget of {@code budget} unless the context already carries one that ends earlier, so a
+     * caller further downstream can impose a tighter deadline but never extend it.
+     */
+    public static Context startOrTighten(Context context, Duration budget) {
+        LatencyBudget current = from(context);
+        LatencyBudget started = startingNow(budget);
+        return !current.unlimited && current.deadlineNanos - started.deadlineNanos <= 0 ? context : context.put(LatencyBudget.class, started);
+    }
+
+    public boolean isUnlimited() {
+        return unlimited;
+    }
+
+    public boolean isExhausted() {
+        return !unlimited && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Time left until the deadline, never negative. Meaningless for an {@linkplain #isUnlimited() unlimited} budget.
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+}
@@ -0,0 +1,60 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes the lookups made while planning one route, carried in the Reactor context under the
+ * {@link RequestLookups} class key.
+ * <p>
+ * The first lookup of a key subscribes to its loader, every later lookup of the same key within the
+ * request shares that result, whether it has already arrived or is still in flight. Results are kept
+ * for the lifetime of the request only, so they never outlive the data they were built from.
+ */
+public final class RequestLookups {
+
+    private final Map<String, Mono<?>> lookups = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requested = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> fetched = new ConcurrentHashMap<>();
+
+    public static RequestLookups from(ContextView context) {
+        return context.getOrDefault(RequestLookups.class, new RequestLookups());
+    }
+
+    public static Context startIfAbsent(Context context) {
+        return context.hasKey(RequestLookups.class) ? context : context.put(RequestLookups.class, new RequestLookups());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> load(String lookup, String key, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            counter(requested, lookup).incrementAndGet();
+            return (Mono<T>) lookups.computeIfAbsent(lookup + ":" + key, _ -> {
+                counter(fetched, lookup).incrementAndGet();
+                return loader.get().cache();
+            });
+        });
+    }
+
+    public int requested(String lookup) {
+        return counter(requested, lookup).get();
+    }
+
+    public int fetched(String lookup) {
+        return counter(fetched, lookup).get();
+    }
+
+    public int saved(String lookup) {
+        return requested(lookup) - fetched(lookup);
+    }
+
+    private static AtomicInteger counter(Map<String, AtomicInteger> counters, String lookup) {
+        return counters.computeIfAbsent(lookup, _ -> new AtomicInteger());
+    }
+}
@@ -0,0 +1,24 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment;
+
+import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
+import hu.uni_obuda.thesis.railways.route.dto.RouteResponse;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
+
+import java.util.function.UnaryOperator;
+
+public interface TrainEnrichmentEngine {
+
+    /**
+     * Adds delay predictions to the trains of {@code routes}, keeping the order of the trains within each route.
+     * Trains that could not be enriched within the {@link LatencyBudget} of the subscriber are returned with their
+     * scheduled times and {@code predictionsUnavailable} set.
+     */
+    Flux<RouteResponse> enrich(Flux<TrainRouteResponse> routes, UnaryOperator<String> shortTrainNumber);
+
+    /**
+     * Starts the configured {@link LatencyBudget} and the {@link RequestLookups} of a request in {@code context},
+     * keeping the lookups and any earlier deadline the context already carries.
+     */
+    Context startRequest(Context context);
+}
@@ -0,0 +1,381 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.impl;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import hu.uni_obuda.thesis.railways.model.dto.WeatherInfoSnakeCase;
+import hu.uni_obuda.thesis.railways.route.dto.RouteResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.LatencyBudget;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.RequestLookups;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.TrainEnrichmentEngine;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.PredictionService;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.StationService;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.WeatherService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Enriches trains in three stages, stations, weather and predictions, each running with its own
+ * concurrency limit so a long timetable cannot flood a single downstream service.
+ * <p>
+ * Every stage call is bounded by what is left of the subscriber's {@link LatencyBudget}. Once it is
+ * spent, the remaining trains skip the outstanding stages and are returned with their scheduled times
+ * and {@code predictionsUnavailable} set. Stage calls are timed in {@code route.enrichment.stage},
+ * tagged with {@code stage} and {@code outcome} ({@code completed}, {@code empty}, {@code error} or
+ * {@code budget_exceeded}).
+ * <p>
+ * Station, route and weather lookups go through the {@link RequestLookups} of the request, so trains
+ * sharing a train number or a station reuse the lookup already made for it. When a request completes,
+ * {@code route.enrichment.lookups} counts the lookups by {@code lookup} and {@code outcome}
+ * ({@code fetched} or {@code memoized}) and {@code route.enrichment.lookups.saved} records how many
+ * calls the request saved.
+ */
+@Slf4j
+@Component
+public class TrainEnrichmentEngineImpl implements TrainEnrichmentEngine {
+
+    private static final String METRIC_NAME = "route.enrichment.stage";
+    private static final String LOOKUPS_METRIC_NAME = "route.enrichment.lookups";
+    private static final List<String> LOOKUPS = List.of("route", "station", "weather");
+    private static final BudgetExceededException BUDGET_EXCEEDED = new BudgetExceededException();
+
+    private final StationService stationService;
+    private final WeatherService weatherService;
+    private final PredictionService predictionService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${route-planning.latency-budget-in-ms:5000}")
+    private Integer latencyBudgetInMs;
+
+    @Value("${route-planning.enrichment.concurrency.stations:8}")
+    private Integer stationConcurrency;
+
+    @Value("${route-planning.enrichment.concurrency.weather:4}")
+    private Integer weatherConcurrency;
+
+    @Value("${route-planning.enrichment.concurrency.predictions:8}")
+    private Integer predictionConcurrency;
+
+    public TrainEnrichmentEngineImpl(@Qualifier("reactiveHttpStationService") StationService stationService,
+                                     @Qualifier("reactiveHttpWeatherService") WeatherService weatherService,
+                                     @Qualifier("reactiveHttpPredictionService") PredictionService predictionService,
+                                     MeterRegistry meterRegistry) {
+        this.stationService = stationService;
+        this.weatherService = weatherService;
+        this.predictionService = predictionService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Context startRequest(Context context) {
+        return RequestLookups.startIfAbsent(LatencyBudget.startOrTighten(context, Duration.ofMillis(latencyBudgetInMs)));
+    }
+
+    @Override
+    public Flux<RouteResponse> enrich(Flux<TrainRouteResponse> routes, UnaryOperator<String> shortTrainNumber) {
+        return Flux.deferContextual(context -> {
+            LatencyBudget budget = LatencyBudget.from(context);
+            RequestLookups lookups = RequestLookups.from(context);
+            return routes.index()
+                    .concatMapIterable(route -> TrainEnrichment.of(route.getT1(), route.getT2(), shortTrainNumber))
+                    .flatMap(enrichment -> resolveStations(enrichment, budget, lookups), stationConcurrency)
+                    .flatMap(enrichment -> fetchWeather(enrichment, budget, lookups), weatherConcurrency)
+                    .flatMap(enrichment -> predictDelays(enrichment, budget), predictionConcurrency)
+                    .groupBy(TrainEnrichment::route)
+                    .flatMap(TrainEnrichmentEngineImpl::assemble, Integer.MAX_VALUE)
+                    .doOnTerminate(() -> recordLookups(lookups))
+                    .doOnCancel(() -> recordLookups(lookups));
+        });
+    }
+
+    private Mono<TrainEnrichment> resolveStations(TrainEnrichment enrichment, LatencyBudget budget, RequestLookups lookups) {
+        if (enrichment.isDone()) {
+            return Mono.just(enrichment);
+        }
+        return runStage("stations", budget, () -> lookups.load("route", enrichment.shortTrainNumber, () -> stationService.getRoute(enrichment.shortTrainNumber))
+                        .flatMap(routeInfo -> Mono.zip(
+                                station(routeInfo.getStartStation(), lookups),
+                                station(routeInfo.getEndStation(), lookups)))
+                        .filter(tuple -> tuple.getT1().getLatitude() != null && tuple.getT2().getLatitude() != null))
+                .map(tuple -> {
+                    log.info("Retrieved coordinates for station {}: ({}, {})", tuple.getT1().getStationCode(), tuple.getT1().getLatitude(), tuple.getT1().getLongitude());
+                    log.info("Retrieved coordinates for station {}: ({}, {})", tuple.getT2().getStationCode(), tuple.getT2().getLatitude(), tuple.getT2().getLongitude());
+                    return enrichment.withStations(tuple.getT1(), tuple.getT2());
+                })
+                .switchIfEmpty(Mono.fromCallable(() -> {
+                    log.warn("Train {} is not en route, but not found in database, not attempting to make predictions", enrichment.train.getTrainNumber());
+                    return enrichment.scheduledOnly();
+                }))
+                .onErrorResume(BudgetExceededException.class, _ -> Mono.just(enrichment.budgetExceeded()));
+    }
+
+    private Mono<TrainEnrichment> fetchWeather(TrainEnrichment enrichment, LatencyBudget budget, RequestLookups lookups) {
+        if (enrichment.isDone()) {
+            return Mono.just(enrichment);
+        }
+        TrainStationResponse from = enrichment.fromStation;
+        TrainStationResponse to = enrichment.toStation;
+        log.info("Attempting to get weatherInfos for stations {} and {}", from.getStationCode(), to.getStationCode());
+        return runStage("weather", budget, () -> Mono.zip(
+                        weather(from, enrichment.scheduledDeparture(), lookups),
+                        weather(to, enrichment.scheduledArrival(), lookups)))
+                .map(tuple -> enrichment.withWeather(tuple.getT1(), tuple.getT2()))
+                .switchIfEmpty(Mono.fromCallable(() -> {
+                    log.warn("No weather found for train {}, not attempting to make predictions", enrichment.train.getTrainNumber());
+                    return enrichment.scheduledOnly();
+                }))
+                .onErrorResume(BudgetExceededException.class, _ -> Mono.just(enrichment.budgetExceeded()));
+    }
+
+    private Mono<TrainEnrichment> predictDelays(TrainEnrichment enrichment, LatencyBudget budget) {
+        if (enrichment.isDone()) {
+            return Mono.just(enrichment);
+        }
+        log.info("Attempting to make predictions for train {}", enrichment.train.getTrainNumber());
+        return runStage("predictions", budget, () -> Mono.zip(
+                        predictionService.predictDepartureDelay(enrichment.departureRequest()),
+                        predictionService.predictArrivalDelay(enrichment.arrivalRequest())))
+                .map(delays -> enrichment.withDelays(delays.getT1(), delays.getT2()))
+                .switchIfEmpty(Mono.fromCallable(enrichment::scheduledOnly))
+                .onErrorResume(BudgetExceededException.class, _ -> Mono.just(enrichment.budgetExceeded()));
+    }
+
+    private Mono<TrainStationResponse> station(String stationCode, RequestLookups lookups) {
+        return lookups.load("station", stationCode, () -> stationService.getStation(stationCode));
+    }
+
+    // weather is resolved per hour, so trains passing a station within the same hour share the lookup
+    private Mono<WeatherInfo> weather(TrainStationResponse station, LocalDateTime dateTime, RequestLookups lookups) {
+        String key = station.getStationCode() + ":" + station.getLatitude() + ":" + station.getLongitude() + ":" + dateTime.truncatedTo(ChronoUnit.HOURS);
+        return lookups.load("weather", key, () -> weatherService.getWeather(station.getStationCode(), station.getLatitude(), station.getLongitude(), dateTime));
+    }
+
+    private <T> Mono<T> runStage(String stage, LatencyBudget budget, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (budget.isExhausted()) {
+                stageTimer(stage, "budget_exceeded").record(Duration.ZERO);
+                return Mono.error(BUDGET_EXCEEDED);
+            }
+            long start = System.nanoTime();
+            Mono<T> bounded = budget.isUnlimited()
+                    ? call.get()
+                    : call.get().timeout(budget.remaining(), Mono.error(BUDGET_EXCEEDED));
+            return bounded
+                    .doOnSuccess(value -> record(stage, value != null ? "completed" : "empty", start))
+                    .doOnError(throwable -> record(stage, throwable == BUDGET_EXCEEDED ? "budget_exceeded" : "error", start));
+        });
+    }
+
+    private void record(String stage, String outcome, long startNanos) {
+        stageTimer(stage, outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer stageTimer(String stage, String outcome) {
+        return Timer.builder(METRIC_NAME)
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void recordLookups(RequestLookups lookups) {
+        int saved = 0;
+        for (String lookup : LOOKUPS) {
+            lookupCounter(lookup, "fetched").increment(lookups.fetched(lookup));
+            lookupCounter(lookup, "memoized").increment(lookups.saved(lookup));
+            saved += lookups.saved(lookup);
+        }
+        DistributionSummary.builder(LOOKUPS_METRIC_NAME + ".saved")
+                .register(meterRegistry)
+                .record(saved);
+        log.info("Route planning made {} route, {} station and {} weather lookups, saving {} calls",
+                lookups.fetched("route"), lookups.fetched("station"), lookups.fetched("weather"), saved);
+    }
+
+    private Counter lookupCounter(String lookup, String outcome) {
+        return Counter.builder(LOOKUPS_METRIC_NAME)
+                .tag("lookup", lookup)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Mono<RouteResponse> assemble(GroupedFlux<Long, TrainEnrichment> route) {
+        return route.index()
+                .takeUntil(indexed -> indexed.getT1() + 1 == indexed.getT2().routeSize)
+                .map(Tuple2::getT2)
+                .filter(enrichment -> enrichment.train != null)
+                .sort(Comparator.comparingInt(enrichment -> enrichment.position))
+                .map(enrichment -> enrichment.result)
+                .collectList()
+                .map(trains -> RouteResponse.builder().trains(trains).build());
+    }
+
+    /**
+     * State of one train while it passes through the stages. A route without trains is represented by
+     * a single instance without a train, so it still yields an (empty) route.
+     */
+    private static final class TrainEnrichment {
+
+        private final long route;
+        private final int position;
+        private final int routeSize;
+        private final TrainRouteResponse.Train train;
+        private final String shortTrainNumber;
+
+        private TrainStationResponse fromStation;
+        private TrainStationResponse toStation;
+        private WeatherInfo fromWeather;
+        private WeatherInfo toWeather;
+        private RouteResponse.Train result;
+
+        private TrainEnrichment(long route, int position, int routeSize, TrainRouteResponse.Train train, String shortTrainNumber) {
+            this.route = route;
+            this.position = position;
+            this.routeSize = routeSize;
+            this.train = train;
+            this.shortTrainNumber = shortTrainNumber;
+        }
+
+        private static List<TrainEnrichment> of(long route, TrainRouteResponse response, UnaryOperator<String> shortTrainNumber) {
+            List<TrainRouteResponse.Train> trains = response.getTrains() != null ? response.getTrains() : List.of();
+            if (trains.isEmpty()) {
+                return List.of(new TrainEnrichment(route, 0, 1, null, null));
+            }
+            List<TrainEnrichment> enrichments = new ArrayList<>(trains.size());
+            for (int i = 0; i < trains.size(); i++) {
+                TrainRouteResponse.Train train = trains.get(i);
+                TrainEnrichment enrichment = new TrainEnrichment(route, i, trains.size(), train, shortTrainNumber.apply(train.getTrainNumber()));
+                if (hasActuals(train)) {
+                    log.info("Train {} is already en route, not attempting to make predictions", train.getTrainNumber());
+                    enrichment.result = scheduled(train)
+                            .fromTimeActual(train.getFromTimeActual())
+                            .toTimeActual(train.getToTimeActual())
+                            .build();
+                }
+                enrichments.add(enrichment);
+            }
+            return enrichments;
+        }
+
+        private long route() {
+            return route;
+        }
+
+        private boolean isDone() {
+            return train == null || result != null;
+        }
+
+        private TrainEnrichment withStations(TrainStationResponse fromStation, TrainStationResponse toStation) {
+            this.fromStation = fromStation;
+            this.toStation = toStation;
+            return this;
+        }
+
+        private TrainEnrichment withWeather(WeatherInfo fromWeather, WeatherInfo toWeather) {
+            this.fromWeather = fromWeather;
+            this.toWeather = toWeather;
+            return this;
+        }
+
+        private TrainEnrichment withDelays(DelayPredictionResponse departureDelay, DelayPredictionResponse arrivalDelay) {
+            this.result = scheduled(train)
+                    .fromTimePredicted(addDelay(train.getFromTimeScheduled(), departureDelay.getPredictedDelay()))
+                    .toTimePredicted(addDelay(train.getToTimeScheduled(), arrivalDelay.getPredictedDelay()))
+                    .build();
+            return this;
+        }
+
+        private TrainEnrichment scheduledOnly() {
+            this.result = scheduled(train).build();
+            return this;
+        }
+
+        private TrainEnrichment budgetExceeded() {
+            log.warn("Latency budget exhausted, returning train {} without predictions", train.getTrainNumber());
+            this.result = scheduled(train).predictionsUnavailable(true).build();
+            return this;
+        }
+
+        private LocalDateTime scheduledDeparture() {
+            return LocalDateTime.parse(train.getFromTimeScheduled());
+        }
+
+        private LocalDateTime scheduledArrival() {
+            return LocalDateTime.parse(train.getToTimeScheduled());
+        }
+
+        private DelayPredictionRequest departureRequest() {
+            return DelayPredictionRequest.builder()
+                    .stationCode(fromStation.getStationCode())
+                    .trainNumber(shortTrainNumber)
+                    .lineNumber(train.getLineNumber())
+                    .stationLatitude(fromStation.getLatitude())
+                    .stationLongitude(fromStation.getLongitude())
+                    .scheduledDeparture(scheduledDeparture())
+                    .date(scheduledDeparture().toLocalDate())
+                    .weatherWrapper(new WeatherInfoSnakeCase(fromWeather))
+                    .build();
+        }
+
+        private DelayPredictionRequest arrivalRequest() {
+            return DelayPredictionRequest.builder()
+                    .stationCode(toStation.getStationCode())
+                    .trainNumber(shortTrainNumber)
+                    .lineNumber(train.getLineNumber())
+                    .stationLatitude(toStation.getLatitude())
+                    .stationLongitude(toStation.getLongitude())
+                    .scheduledArrival(scheduledArrival())
+                    .date(scheduledArrival().toLocalDate())
+                    .weatherWrapper(new WeatherInfoSnakeCase(toWeather))
+                    .build();
+        }
+
+        private static boolean hasActuals(TrainRouteResponse.Train train) {
+            return train.getFromTimeActual() != null && !train.getFromTimeActual().isBlank()
+                    && train.getToTimeActual() != null && !train.getToTimeActual().isBlank();
+        }
+
+        private static RouteResponse.Train.TrainBuilder scheduled(TrainRouteResponse.Train train) {
+            return RouteResponse.Train.builder()
+                    .trainNumber(train.getTrainNumber())
+                    .lineNumber(train.getLineNumber())
+                    .fromStation(train.getFromStation())
+                    .toStation(train.getToStation())
+                    .fromTimeScheduled(train.getFromTimeScheduled())
+                    .toTimeScheduled(train.getToTimeScheduled());
+        }
+
+        private static String addDelay(String timeStr, Double delayMinutes) {
+            return LocalDateTime.parse(timeStr).plusMinutes(delayMinutes.longValue()).toString();
+        }
+    }
+
+    private static final class BudgetExceededException extends RuntimeException {
+
+        private BudgetExceededException() {
+            super("Latency budget exceeded", null, false, false);
+        }
+    }
+}
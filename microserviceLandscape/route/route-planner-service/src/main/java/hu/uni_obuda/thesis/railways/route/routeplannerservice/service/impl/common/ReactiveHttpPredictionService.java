@@ -2,10 +2,10 @@ package hu.uni_obuda.thesis.railways.route.routeplannerservice.service.impl.comm
 
 import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
 import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.PredictionCache;
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway.PredictorGateway;
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.PredictionService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
@@ -16,18 +16,20 @@ import reactor.core.publisher.Mono;
 public class ReactiveHttpPredictionService implements PredictionService {
 
     private final PredictorGateway predictorGateway;
+    private final PredictionCache predictionCache;
 
-    public ReactiveHttpPredictionService(@Qualifier("reactivePredictorGateway") PredictorGateway predictorGateway) {
+    public ReactiveHttpPredictionService(PredictorGateway predictorGateway, PredictionCache predictionCache) {
         this.predictorGateway = predictorGateway;
+        this.predictionCache = predictionCache;
     }
 
     @Override
     public Mono<DelayPredictionResponse> predictArrivalDelay(DelayPredictionRequest request) {
-        return predictorGateway.getArrivalDelay(request);
+        return predictionCache.get("arrival", request, () -> predictorGateway.getArrivalDelay(request));
     }
 
     @Override
     public Mono<DelayPredictionResponse> predictDepartureDelay(DelayPredictionRequest request) {
-        return predictorGateway.getDepartureDelay(request);
+        return predictionCache.get("departure", request, () -> predictorGateway.getDepartureDelay(request));
     }
 }
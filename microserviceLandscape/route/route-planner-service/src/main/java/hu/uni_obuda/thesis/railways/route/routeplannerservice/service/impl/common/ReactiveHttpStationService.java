@@ -5,7 +5,6 @@ import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResp
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway.StationDataGateway;
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.StationService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
@@ -17,7 +16,7 @@ public class ReactiveHttpStationService implements StationService {
 
     private final StationDataGateway gateway;
 
-    public ReactiveHttpStationService(@Qualifier("reactiveStationDataGateway") StationDataGateway gateway) {
+    public ReactiveHttpStationService(StationDataGateway gateway) {
         this.gateway = gateway;
     }
 
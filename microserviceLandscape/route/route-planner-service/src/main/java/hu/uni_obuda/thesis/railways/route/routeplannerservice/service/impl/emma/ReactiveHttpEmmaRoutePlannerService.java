@@ -1,14 +1,10 @@
 package hu.uni_obuda.thesis.railways.route.routeplannerservice.service.impl.emma;
 
 import com.github.benmanes.caffeine.cache.Cache;
-import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResponse;
 import hu.uni_obuda.thesis.railways.data.geocodingservice.dto.GeocodingResponse;
 import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
-import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
-import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
-import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
-import hu.uni_obuda.thesis.railways.model.dto.WeatherInfoSnakeCase;
 import hu.uni_obuda.thesis.railways.route.dto.RouteResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.TrainEnrichmentEngine;
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.helper.TimetableProcessingHelper;
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.*;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.InvalidInputDataException;
@@ -24,7 +20,6 @@ import reactor.core.publisher.Mono;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Objects;
 
 import static hu.uni_obuda.thesis.railways.route.routeplannerservice.util.constant.Constants.STATION_CODE_MAPPING;
 
@@ -36,23 +31,17 @@ public class ReactiveHttpEmmaRoutePlannerService implements RoutePlannerService
 
     private final EmmaTimetableService timetableService;
     private final GeocodingService geocodingService;
-    private final StationService stationService;
-    private final WeatherService weatherService;
-    private final PredictionService predictionService;
+    private final TrainEnrichmentEngine enrichmentEngine;
     private final TimetableProcessingHelper helper;
     private final Cache<String, List<TrainRouteResponse>> routeCache;
 
     public ReactiveHttpEmmaRoutePlannerService(@Qualifier("reactiveHttpEmmaTimetableService") EmmaTimetableService timetableService,
                                                @Qualifier("reactiveHttpGeocodingService") GeocodingService geocodingService,
-                                               @Qualifier("reactiveHttpStationService") StationService stationService,
-                                               @Qualifier("reactiveHttpWeatherService") WeatherService weatherService,
-                                               @Qualifier("reactiveHttpPredictionService") PredictionService predictionService,
+                                               TrainEnrichmentEngine enrichmentEngine,
                                                TimetableProcessingHelper helper, Cache<String, List<TrainRouteResponse>> routeCache) {
         this.timetableService = timetableService;
         this.geocodingService = geocodingService;
-        this.stationService = stationService;
-        this.weatherService = weatherService;
-        this.predictionService = predictionService;
+        this.enrichmentEngine = enrichmentEngine;
         this.helper = helper;
         this.routeCache = routeCache;
     }
@@ -115,108 +104,8 @@ public class ReactiveHttpEmmaRoutePlannerService implements RoutePlannerService
                             return flux;
                         })
                 )
-                .flatMap(route -> Flux.fromIterable(route.getTrains())
-                        .flatMap(train -> {
-                            boolean hasActuals = train.getFromTimeActual() != null && !train.getFromTimeActual().isBlank() && train.getToTimeActual() != null && !train.getToTimeActual().isBlank();
-                            if (hasActuals) {
-                                log.info("Train {} is already en route, not attempting to make predictions", train.getTrainNumber());
-                                return Mono.just(RouteResponse.Train.builder()
-                                        .trainNumber(train.getTrainNumber())
-                                        .lineNumber(train.getLineNumber())
-                                        .fromStation(train.getFromStation())
-                                        .toStation(train.getToStation())
-                                        .fromTimeScheduled(train.getFromTimeScheduled())
-                                        .toTimeScheduled(train.getToTimeScheduled())
-                                        .fromTimeActual(train.getFromTimeActual())
-                                        .toTimeActual(train.getToTimeActual())
-                                        .build());
-                            }
-                            return stationService.getRoute(extreactShortTrainNumber(train.getTrainNumber()))
-                                    .filter(Objects::nonNull)
-                                    .flatMapMany(routeInfo -> Flux.zip(
-                                            stationService.getStation(routeInfo.getStartStation()),
-                                            stationService.getStation(routeInfo.getEndStation())
-                                    ))
-                                    .filter(tuple -> tuple.getT1() != null && tuple.getT2() != null &&
-                                            tuple.getT1().getLatitude() != null && tuple.getT2().getLatitude() != null)
-                                    .flatMap(tuple -> {
-                                        TrainStationResponse fromStation = tuple.getT1();
-                                        TrainStationResponse toStation = tuple.getT2();
-                                        log.info("Retrieved coordinates for station {}: ({}, {})", fromStation.getStationCode(), fromStation.getLatitude(), fromStation.getLongitude());
-                                        log.info("Retrieved coordinates for station {}: ({}, {})", toStation.getStationCode(), toStation.getLatitude(), toStation.getLongitude());
-
-                                        log.info("Attempting to get weatherInfos for stations {} and {}", fromStation.getStationCode(), toStation.getStationCode());
-                                        Mono<WeatherInfo> fromWeather = weatherService.getWeather(fromStation.getStationCode(), fromStation.getLatitude(), fromStation.getLongitude(), parseTime(train.getFromTimeScheduled()));
-                                        Mono<WeatherInfo> toWeather = weatherService.getWeather(toStation.getStationCode(), toStation.getLatitude(), toStation.getLongitude(), parseTime(train.getToTimeScheduled()));
-                                        log.info("Got weatherInfos for stations {} and {}", fromStation.getStationCode(), toStation.getStationCode());
-
-                                        log.info("Attempting to make predictions...");
-                                        Mono<DelayPredictionResponse> fromDelay = fromWeather.flatMap(weather -> predictionService.predictDepartureDelay(
-                                                DelayPredictionRequest.builder()
-                                                        .stationCode(fromStation.getStationCode())
-                                                        .trainNumber(extreactShortTrainNumber(train.getTrainNumber()))
-                                                        .lineNumber(train.getLineNumber())
-                                                        .stationLatitude(fromStation.getLatitude())
-                                                        .stationLongitude(fromStation.getLongitude())
-                                                        .scheduledDeparture(parseTime(train.getFromTimeScheduled()))
-                                                        .date(parseTime(train.getFromTimeScheduled()).toLocalDate())
-                                                        .weatherWrapper(new WeatherInfoSnakeCase(weather))
-                                                        .build()
-                                        ));
-
-                                        Mono<DelayPredictionResponse> toDelay = toWeather.flatMap(weather -> predictionService.predictArrivalDelay(
-                                                DelayPredictionRequest.builder()
-                                                        .stationCode(toStation.getStationCode())
-                                                        .trainNumber(extreactShortTrainNumber(train.getTrainNumber()))
-                                                        .lineNumber(train.getLineNumber())
-                                                        .stationLatitude(toStation.getLatitude())
-                                                        .stationLongitude(toStation.getLongitude())
-                                                        .scheduledArrival(parseTime(train.getToTimeScheduled()))
-                                                        .date(parseTime(train.getToTimeScheduled()).toLocalDate())
-                                                        .weatherWrapper(new WeatherInfoSnakeCase(weather))
-                                                        .build()
-                                        ));
-
-                                        return Mono.zip(fromDelay, toDelay).map(delays -> RouteResponse.Train.builder()
-                                                .trainNumber(train.getTrainNumber())
-                                                .lineNumber(train.getLineNumber())
-                                                .fromStation(train.getFromStation())
-                                                .toStation(train.getToStation())
-                                                .fromTimeScheduled(train.getFromTimeScheduled())
-                                                .toTimeScheduled(train.getToTimeScheduled())
-                                                .fromTimePredicted(addDelay(train.getFromTimeScheduled(), delays.getT1().getPredictedDelay()))
-                                                .toTimePredicted(addDelay(train.getToTimeScheduled(), delays.getT2().getPredictedDelay()))
-                                                .build());
-                                    })
-                                    .switchIfEmpty(Mono.fromCallable(() -> {
-                                        if (hasActuals) {
-                                            log.warn("Train {} is already enroute, but not found in database, not attempting to make predictions", train.getTrainNumber());
-                                            return RouteResponse.Train.builder()
-                                                    .trainNumber(train.getTrainNumber())
-                                                    .lineNumber(train.getLineNumber())
-                                                    .fromStation(train.getFromStation())
-                                                    .toStation(train.getToStation())
-                                                    .fromTimeScheduled(train.getFromTimeScheduled())
-                                                    .toTimeScheduled(train.getToTimeScheduled())
-                                                    .fromTimeActual(train.getFromTimeActual())
-                                                    .toTimeActual(train.getToTimeActual())
-                                                    .build();
-                                        } else {
-                                            log.warn("Train {} is not en route, but not found in database, not attempting to make predictions", train.getTrainNumber());
-                                            return RouteResponse.Train.builder()
-                                                    .trainNumber(train.getTrainNumber())
-                                                    .lineNumber(train.getLineNumber())
-                                                    .fromStation(train.getFromStation())
-                                                    .toStation(train.getToStation())
-                                                    .fromTimeScheduled(train.getFromTimeScheduled())
-                                                    .toTimeScheduled(train.getToTimeScheduled())
-                                                    .build();
-                                        }
-                                    }));
-                        })
-                        .collectList()
-                        .map(trains -> RouteResponse.builder().trains(trains).build())
-                );
+                .transform(routes -> enrichmentEngine.enrich(routes, this::extreactShortTrainNumber))
+                .contextWrite(enrichmentEngine::startRequest);
     }
 
     public Flux<TrainRouteResponse> getTimetable(String from, double fromLatitude, double fromLongitude, String to, double toLatitude, double toLongitude, LocalDate date) {
@@ -250,14 +139,6 @@ public class ReactiveHttpEmmaRoutePlannerService implements RoutePlannerService
         return stationCode;
     }
 
-    private LocalDateTime parseTime(String timeStr) {
-        return LocalDateTime.parse(timeStr);
-    }
-
-    private String addDelay(String timeStr, Double delayMinutes) {
-        return parseTime(timeStr).plusMinutes(delayMinutes.longValue()).toString();
-    }
-
     private String extreactShortTrainNumber(String trainNumber) {
         String[] parts = trainNumber.split("\\s+");
         for (var part : parts) {
@@ -299,16 +299,10 @@ class RoutePlannerServiceApplicationTests {
         String trainRouteJson = """
             [
               {
-                "trains": [
-                  {
-                    "trainNumber": "IC 123",
-                    "lineNumber": "70",
-                    "fromStation": "FROM_STATION",
-                    "toStation": "TO_STATION",
-                    "fromTimeScheduled": "2025-01-01T10:00",
-                    "toTimeScheduled": "2025-01-01T11:00"
-                  }
-                ]
+                "trainNumber": "123",
+                "lineNumber": "70",
+                "startStation": "FROM_STATION",
+                "endStation": "TO_STATION"
               }
             ]
             """;
@@ -320,11 +314,7 @@ class RoutePlannerServiceApplicationTests {
                 "stationCode": "FROM_STATION",
                 "latitude": 47.5000,
                 "longitude": 19.0500
-              }
-            ]
-            """;
-        String stationJson2 = """
-            [
+              },
               {
                 "stationCode": "TO_STATION",
                 "latitude": 47.2000,
@@ -333,7 +323,6 @@ class RoutePlannerServiceApplicationTests {
             ]
             """;
         STATION_SERVER.enqueue(jsonResponse(200, stationJson));
-        STATION_SERVER.enqueue(jsonResponse(200, stationJson2));
 
         String weatherJson = """
             {
@@ -357,18 +346,22 @@ class RoutePlannerServiceApplicationTests {
         WEATHER_SERVER.enqueue(jsonResponse(200, weatherJson2));
 
         String predictionJson = """
-            {
-              "trainNumber": "123",
-              "stationCode": "FROM_STATION",
-              "predictedDelay": 5.0
-            }
+            [
+              {
+                "trainNumber": "123",
+                "stationCode": "FROM_STATION",
+                "predictedDelay": 5.0
+              }
+            ]
             """;
         String predictionJson2 = """
-            {
-              "trainNumber": "123",
-              "stationCode": "TO_STATION",
-              "predictedDelay": 5.0
-            }
+            [
+              {
+                "trainNumber": "123",
+                "stationCode": "TO_STATION",
+                "predictedDelay": 5.0
+              }
+            ]
             """;
         PREDICTOR_SERVER.enqueue(jsonResponse(200, predictionJson));
         PREDICTOR_SERVER.enqueue(jsonResponse(200, predictionJson2));
@@ -433,16 +426,10 @@ class RoutePlannerServiceApplicationTests {
         String trainRouteJson = """
             [
               {
-                "trains": [
-                  {
-                    "trainNumber": "IC 123",
-                    "lineNumber": "70",
-                    "fromStation": "FROM_STATION",
-                    "toStation": "TO_STATION",
-                    "fromTimeScheduled": "2025-01-01T10:00",
-                    "toTimeScheduled": "2025-01-01T11:00"
-                  }
-                ]
+                "trainNumber": "123",
+                "lineNumber": "70",
+                "startStation": "FROM_STATION",
+                "endStation": "TO_STATION"
               }
             ]
             """;
@@ -454,11 +441,7 @@ class RoutePlannerServiceApplicationTests {
                 "stationCode": "FROM_STATION",
                 "latitude": null,
                 "longitude": null
-              }
-            ]
-            """;
-        String stationNullCoordsJson2 = """
-            [
+              },
               {
                 "stationCode": "TO_STATION",
                 "latitude": null,
@@ -467,7 +450,6 @@ class RoutePlannerServiceApplicationTests {
             ]
             """;
         STATION_SERVER.enqueue(jsonResponse(200, stationNullCoordsJson));
-        STATION_SERVER.enqueue(jsonResponse(200, stationNullCoordsJson2));
 
         List<RouteResponse> routes = webTestClient.get()
                 .uri(uriBuilder -> uriBuilder
@@ -0,0 +1,187 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import hu.uni_obuda.thesis.railways.model.dto.WeatherInfoSnakeCase;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.CachedPrediction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PredictionCacheImplTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, CachedPrediction> redisTemplate;
+    @Mock
+    private ReactiveValueOperations<String, CachedPrediction> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger predictions;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        predictions = new AtomicInteger();
+    }
+
+    private PredictionCacheImpl cache(Optional<ReactiveRedisTemplate<String, CachedPrediction>> redis) {
+        PredictionCacheImpl cache = new PredictionCacheImpl(Caffeine.newBuilder().<String, CachedPrediction>build(), redis, meterRegistry);
+        ReflectionTestUtils.setField(cache, "cacheDuration", 60);
+        ReflectionTestUtils.setField(cache, "freshDuration", 15);
+        ReflectionTestUtils.setField(cache, "temperatureStep", 1.0);
+        ReflectionTestUtils.setField(cache, "percentageStep", 10.0);
+        ReflectionTestUtils.setField(cache, "windSpeedStep", 5.0);
+        ReflectionTestUtils.setField(cache, "precipitationStep", 0.5);
+        ReflectionTestUtils.setField(cache, "snowDepthStep", 0.05);
+        ReflectionTestUtils.setField(cache, "visibilityStep", 1000.0);
+        return cache;
+    }
+
+    private static DelayPredictionRequest request(double temperature) {
+        WeatherInfoSnakeCase weather = new WeatherInfoSnakeCase();
+        weather.setTemperature(temperature);
+        weather.setPrecipitation(0.0);
+        return DelayPredictionRequest.builder()
+                .trainNumber("123")
+                .stationCode("BPK")
+                .scheduledDeparture(LocalDateTime.of(2025, 1, 1, 8, 0))
+                .date(LocalDate.of(2025, 1, 1))
+                .weatherWrapper(weather)
+                .build();
+    }
+
+    private Supplier<Mono<DelayPredictionResponse>> predictor(boolean fallback) {
+        return () -> Mono.fromSupplier(() -> DelayPredictionResponse.builder()
+                .trainNumber("123")
+                .stationCode("BPK")
+                .predictedDelay((double) predictions.incrementAndGet())
+                .fallback(fallback)
+                .build());
+    }
+
+    private double lookups(String outcome) {
+        return meterRegistry.get("prediction.cache.lookups").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void get_sameInputs_predictsOnce() {
+        PredictionCacheImpl testedObject = cache(Optional.empty());
+
+        StepVerifier.create(testedObject.get("arrival", request(10.2), predictor(false)))
+                .assertNext(response -> assertThat(response.getPredictedDelay()).isEqualTo(1d))
+                .verifyComplete();
+        StepVerifier.create(testedObject.get("arrival", request(10.2), predictor(false)))
+                .assertNext(response -> assertThat(response.getPredictedDelay()).isEqualTo(1d))
+                .verifyComplete();
+
+        assertThat(predictions).hasValue(1);
+        assertThat(lookups("miss")).isEqualTo(1);
+        assertThat(lookups("hit")).isEqualTo(1);
+        assertThat(meterRegistry.get("prediction.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void get_weatherWithinQuantizationStep_sharesEntry() {
+        PredictionCacheImpl testedObject = cache(Optional.empty());
+
+        testedObject.get("arrival", request(10.1), predictor(false)).block();
+        testedObject.get("arrival", request(10.4), predictor(false)).block();
+        testedObject.get("arrival", request(12.0), predictor(false)).block();
+        testedObject.get("departure", request(12.0), predictor(false)).block();
+
+        assertThat(predictions).hasValue(3);
+    }
+
+    @Test
+    void get_fallbackPrediction_isNotCached() {
+        PredictionCacheImpl testedObject = cache(Optional.empty());
+
+        testedObject.get("arrival", request(10.0), predictor(true)).block();
+        testedObject.get("arrival", request(10.0), predictor(true)).block();
+
+        assertThat(predictions).hasValue(2);
+    }
+
+    @Test
+    void get_stalePrediction_isServedAndRefreshed() {
+        PredictionCacheImpl testedObject = cache(Optional.empty());
+        ReflectionTestUtils.setField(testedObject, "freshDuration", 0);
+
+        testedObject.get("arrival", request(10.0), predictor(false)).block();
+
+        StepVerifier.create(testedObject.get("arrival", request(10.0), predictor(false)))
+                .assertNext(response -> assertThat(response.getPredictedDelay()).isEqualTo(1d))
+                .verifyComplete();
+        StepVerifier.create(testedObject.get("arrival", request(10.0), predictor(false)))
+                .assertNext(response -> assertThat(response.getPredictedDelay()).isEqualTo(2d))
+                .verifyComplete();
+
+        assertThat(lookups("stale")).isEqualTo(2);
+    }
+
+    @Test
+    void get_predictionSharedThroughRedis_isServedWithoutPredicting() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        DelayPredictionResponse shared = DelayPredictionResponse.builder().predictedDelay(7d).build();
+        when(valueOperations.get(anyString())).thenReturn(Mono.just(CachedPrediction.of(shared)));
+        PredictionCacheImpl testedObject = cache(Optional.of(redisTemplate));
+
+        StepVerifier.create(testedObject.get("arrival", request(10.0), predictor(false)))
+                .expectNext(shared)
+                .verifyComplete();
+        StepVerifier.create(testedObject.get("arrival", request(10.0), predictor(false)))
+                .expectNext(shared)
+                .verifyComplete();
+
+        assertThat(predictions).hasValue(0);
+        verify(valueOperations, times(1)).get(anyString());
+        assertThat(lookups("shared_hit")).isEqualTo(1);
+        assertThat(lookups("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void get_miss_sharesPredictionThroughRedis() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenReturn(Mono.empty());
+        when(valueOperations.set(anyString(), any(CachedPrediction.class), any(Duration.class))).thenReturn(Mono.just(true));
+        PredictionCacheImpl testedObject = cache(Optional.of(redisTemplate));
+
+        testedObject.get("arrival", request(10.0), predictor(false)).block();
+
+        verify(valueOperations).set(startsWith("predictionCache:arrival:123:BPK:"), any(CachedPrediction.class), eq(Duration.ofMinutes(60)));
+    }
+
+    @Test
+    void get_redisUnavailable_fallsBackToPredictor() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenReturn(Mono.error(new RuntimeException("connection refused")));
+        when(valueOperations.set(anyString(), any(CachedPrediction.class), any(Duration.class)))
+                .thenReturn(Mono.error(new RuntimeException("connection refused")));
+        PredictionCacheImpl testedObject = cache(Optional.of(redisTemplate));
+
+        StepVerifier.create(testedObject.get("arrival", request(10.0), predictor(false)))
+                .assertNext(response -> assertThat(response.getPredictedDelay()).isEqualTo(1d))
+                .verifyComplete();
+    }
+}
@@ -12,9 +12,12 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -45,6 +48,7 @@ class ReactivePredictorWebClientTest {
         ReflectionTestUtils.setField(testedObject, "baseUrl", "http://predictor-host");
         ReflectionTestUtils.setField(testedObject, "arrivalUri", "/api/arrival");
         ReflectionTestUtils.setField(testedObject, "departureUri", "/api/departure");
+        ReflectionTestUtils.setField(testedObject, "batchSuffix", "/batch");
 
         when(webClient.post()).thenReturn(requestBodyUriSpec);
         when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodyUriSpec);
@@ -163,4 +167,46 @@ class ReactivePredictorWebClientTest {
         verify(requestHeadersSpec).retrieve();
         verify(responseSpec).bodyToMono(DelayPredictionResponse.class);
     }
+
+    @Test
+    void makeArrivalPredictionsRequest_success_returnsFluxInRequestOrder() {
+        List<DelayPredictionRequest> requests = List.of(
+                DelayPredictionRequest.builder().trainNumber("IC123").stationCode("BPK").build(),
+                DelayPredictionRequest.builder().trainNumber("IC123").stationCode("DEB").build());
+
+        DelayPredictionResponse first = DelayPredictionResponse.builder()
+                .trainNumber("IC123").stationCode("BPK").predictedDelay(3d).build();
+        DelayPredictionResponse second = DelayPredictionResponse.builder()
+                .trainNumber("IC123").stationCode("DEB").predictedDelay(9d).build();
+
+        when(responseSpec.bodyToFlux(DelayPredictionResponse.class))
+                .thenReturn(Flux.just(first, second));
+
+        StepVerifier.create(testedObject.makeArrivalPredictionsRequest(requests))
+                .expectNext(first, second)
+                .verifyComplete();
+
+        verify(requestBodyUriSpec).uri("http://predictor-host/api/arrival/batch");
+        verify(requestBodyUriSpec).bodyValue(requests);
+        verify(responseSpec).bodyToFlux(DelayPredictionResponse.class);
+    }
+
+    @Test
+    void makeDeparturePredictionsRequest_success_postsToDepartureBatchUri() {
+        List<DelayPredictionRequest> requests = List.of(
+                DelayPredictionRequest.builder().trainNumber("IC456").stationCode("DEB").build());
+
+        DelayPredictionResponse response = DelayPredictionResponse.builder()
+                .trainNumber("IC456").stationCode("DEB").predictedDelay(7d).build();
+
+        when(responseSpec.bodyToFlux(DelayPredictionResponse.class))
+                .thenReturn(Flux.just(response));
+
+        StepVerifier.create(testedObject.makeDeparturePredictionsRequest(requests))
+                .expectNext(response)
+                .verifyComplete();
+
+        verify(requestBodyUriSpec).uri("http://predictor-host/api/departure/batch");
+        verify(requestBodyUriSpec).bodyValue(requests);
+    }
 }
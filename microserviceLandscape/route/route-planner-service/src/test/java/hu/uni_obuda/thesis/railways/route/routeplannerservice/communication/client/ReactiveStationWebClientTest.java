@@ -14,16 +14,24 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -53,6 +61,7 @@ class ReactiveStationWebClientTest {
         ReflectionTestUtils.setField(testedObject, "baseUrl", "http://delay-host");
         ReflectionTestUtils.setField(testedObject, "trainRouteUri", "/api/route");
         ReflectionTestUtils.setField(testedObject, "trainStationUri", "/api/station");
+        ReflectionTestUtils.setField(testedObject, "maxBodySize", 4096);
 
         when(webClient.get()).thenReturn(requestHeadersUriSpec);
         when(requestHeadersUriSpec.uri(anyString())).thenReturn(requestHeadersSpec);
@@ -77,7 +86,7 @@ class ReactiveStationWebClientTest {
 
                     ClientResponse clientResponse = mock(ClientResponse.class);
                     when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
-                    when(clientResponse.bodyToMono(String.class)).thenReturn(Mono.just(json));
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(json));
 
                     return mapper.apply(clientResponse);
                 });
@@ -103,6 +112,72 @@ class ReactiveStationWebClientTest {
         verify(webClient).get();
     }
 
+    private static Flux<DataBuffer> body(String json, int chunkSize) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> chunks = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, bytes.length - offset);
+            chunks.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, offset, offset + length)));
+        }
+        return Flux.fromIterable(chunks);
+    }
+
+    private static Flux<DataBuffer> body(String json) {
+        return body(json, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void makeStationRequest_bodySplitAcrossBuffers_decodesFirstElement() {
+        String json = """
+                [{"stationCode":"BPK","latitude":47.0,"longitude":19.0}]
+                """;
+
+        when(requestHeadersSpec.exchangeToMono(any()))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    Function<ClientResponse, Mono<TrainStationResponse>> mapper =
+                            (Function<ClientResponse, Mono<TrainStationResponse>>) invocation.getArgument(0);
+
+                    ClientResponse clientResponse = mock(ClientResponse.class);
+                    when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(json, 3));
+
+                    return mapper.apply(clientResponse);
+                });
+
+        StepVerifier.create(testedObject.makeStationRequest("BPK"))
+                .expectNext(TrainStationResponse.builder().stationCode("BPK").latitude(47.0).longitude(19.0).build())
+                .verifyComplete();
+    }
+
+    @Test
+    void makeStationRequest_bodyLargerThanLimit_returnsExternalApiFormatMismatchException() {
+        ReflectionTestUtils.setField(testedObject, "maxBodySize", 16);
+        String json = """
+                [{"stationCode":"BPK","latitude":47.0,"longitude":19.0}]
+                """;
+
+        when(requestHeadersSpec.exchangeToMono(any()))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    Function<ClientResponse, Mono<TrainStationResponse>> mapper =
+                            (Function<ClientResponse, Mono<TrainStationResponse>>) invocation.getArgument(0);
+
+                    ClientResponse clientResponse = mock(ClientResponse.class);
+                    when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(json, 8));
+
+                    return mapper.apply(clientResponse);
+                });
+
+        StepVerifier.create(testedObject.makeStationRequest("BPK"))
+                .expectErrorSatisfies(ex -> {
+                    assertInstanceOf(ExternalApiFormatMismatchException.class, ex);
+                    assertInstanceOf(DataBufferLimitException.class, ex.getCause());
+                })
+                .verify();
+    }
+
     @Test
     void makeStationRequest_emptyList_returnsEntityNotFound() {
         String stationCode = "BPK";
@@ -117,7 +192,7 @@ class ReactiveStationWebClientTest {
 
                     ClientResponse clientResponse = mock(ClientResponse.class);
                     when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
-                    when(clientResponse.bodyToMono(String.class)).thenReturn(Mono.just(json));
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(json));
 
                     return mapper.apply(clientResponse);
                 });
@@ -143,7 +218,7 @@ class ReactiveStationWebClientTest {
 
                     ClientResponse clientResponse = mock(ClientResponse.class);
                     when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
-                    when(clientResponse.bodyToMono(String.class)).thenReturn(Mono.just(invalidJson));
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(invalidJson));
 
                     return mapper.apply(clientResponse);
                 });
@@ -224,7 +299,7 @@ class ReactiveStationWebClientTest {
 
                     ClientResponse clientResponse = mock(ClientResponse.class);
                     when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
-                    when(clientResponse.bodyToMono(String.class)).thenReturn(Mono.just(json));
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(json));
 
                     return mapper.apply(clientResponse);
                 });
@@ -265,7 +340,7 @@ class ReactiveStationWebClientTest {
 
                     ClientResponse clientResponse = mock(ClientResponse.class);
                     when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
-                    when(clientResponse.bodyToMono(String.class)).thenReturn(Mono.just(json));
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(json));
 
                     return mapper.apply(clientResponse);
                 });
@@ -291,7 +366,7 @@ class ReactiveStationWebClientTest {
 
                     ClientResponse clientResponse = mock(ClientResponse.class);
                     when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
-                    when(clientResponse.bodyToMono(String.class)).thenReturn(Mono.just(invalidJson));
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(invalidJson));
 
                     return mapper.apply(clientResponse);
                 });
@@ -352,4 +427,83 @@ class ReactiveStationWebClientTest {
                 .expectErrorSatisfies(ex -> assertInstanceOf(ExternalApiException.class, ex))
                 .verify();
     }
+
+    @Test
+    void makeStationsRequest_success_streamsAllStations() {
+        String json = """
+                [
+                  {"stationCode":"BPK","latitude":47.0,"longitude":19.0},
+                  {"stationCode":"MT","latitude":48.0,"longitude":20.0}
+                ]
+                """;
+
+        when(requestHeadersSpec.exchangeToFlux(any()))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    Function<ClientResponse, Flux<TrainStationResponse>> mapper =
+                            (Function<ClientResponse, Flux<TrainStationResponse>>) invocation.getArgument(0);
+
+                    ClientResponse clientResponse = mock(ClientResponse.class);
+                    when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body(json));
+
+                    return mapper.apply(clientResponse);
+                });
+
+        StepVerifier.create(testedObject.makeStationsRequest(List.of("BPK", "MT")))
+                .assertNext(station -> assertEquals("BPK", station.getStationCode()))
+                .assertNext(station -> assertEquals("MT", station.getStationCode()))
+                .verifyComplete();
+
+        ArgumentCaptor<String> uriCaptor = ArgumentCaptor.forClass(String.class);
+        verify(requestHeadersUriSpec).uri(uriCaptor.capture());
+        String uri = uriCaptor.getValue();
+
+        assertTrue(uri.startsWith("http://delay-host/api/station/bulk"));
+        assertTrue(uri.contains("stationCodes=BPK"));
+        assertTrue(uri.contains("stationCodes=MT"));
+    }
+
+    @Test
+    void makeTrainRoutesRequest_invalidJson_returnsExternalApiFormatMismatchException() {
+        when(requestHeadersSpec.exchangeToFlux(any()))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    Function<ClientResponse, Flux<TrainRouteResponse>> mapper =
+                            (Function<ClientResponse, Flux<TrainRouteResponse>>) invocation.getArgument(0);
+
+                    ClientResponse clientResponse = mock(ClientResponse.class);
+                    when(clientResponse.statusCode()).thenReturn(HttpStatus.OK);
+                    when(clientResponse.bodyToFlux(DataBuffer.class)).thenReturn(body("[{\"trainNumber\":"));
+
+                    return mapper.apply(clientResponse);
+                });
+
+        StepVerifier.create(testedObject.makeTrainRoutesRequest(List.of("IC123")))
+                .expectErrorSatisfies(ex -> assertInstanceOf(ExternalApiFormatMismatchException.class, ex))
+                .verify();
+    }
+
+    @Test
+    void makeTrainRoutesRequest_non2xx_returnsExternalApiException() {
+        when(requestHeadersSpec.exchangeToFlux(any()))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    Function<ClientResponse, Flux<TrainRouteResponse>> mapper =
+                            (Function<ClientResponse, Flux<TrainRouteResponse>>) invocation.getArgument(0);
+
+                    ClientResponse clientResponse = mock(ClientResponse.class);
+                    when(clientResponse.statusCode()).thenReturn(HttpStatus.INTERNAL_SERVER_ERROR);
+
+                    HttpRequest httpRequest = mock(HttpRequest.class);
+                    when(httpRequest.getURI()).thenReturn(URI.create("http://delay-host/api/route/bulk?trainNumbers=IC123"));
+                    when(clientResponse.request()).thenReturn(httpRequest);
+
+                    return mapper.apply(clientResponse);
+                });
+
+        StepVerifier.create(testedObject.makeTrainRoutesRequest(List.of("IC123")))
+                .expectErrorSatisfies(ex -> assertInstanceOf(ExternalApiException.class, ex))
+                .verify();
+    }
 }
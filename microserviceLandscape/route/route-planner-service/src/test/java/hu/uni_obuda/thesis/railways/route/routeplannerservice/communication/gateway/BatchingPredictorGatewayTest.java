@@ -0,0 +1,118 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway;
+
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.client.PredictorWebClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingPredictorGatewayTest {
+
+    @Mock
+    private PredictorWebClient webClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BatchingPredictorGateway testedObject;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        testedObject = new BatchingPredictorGateway(webClient, CircuitBreakerRegistry.ofDefaults(),
+                RetryRegistry.of(RetryConfig.custom().maxAttempts(1).build()), RateLimiterRegistry.ofDefaults(), meterRegistry);
+        ReflectionTestUtils.setField(testedObject, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(testedObject, "maxWaitMillis", 50);
+        testedObject.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testedObject.shutdown();
+    }
+
+    private static DelayPredictionRequest request(String stationCode) {
+        return DelayPredictionRequest.builder().trainNumber("123").stationCode(stationCode).build();
+    }
+
+    private static DelayPredictionResponse response(String stationCode, double delay) {
+        return DelayPredictionResponse.builder().trainNumber("123").stationCode(stationCode).predictedDelay(delay).build();
+    }
+
+    @Test
+    void getArrivalDelay_matchesBatchResponsesToCallersByPosition() {
+        when(webClient.makeArrivalPredictionsRequest(anyList()))
+                .thenReturn(Flux.just(response("first", 3d), response("second", 7d)));
+
+        StepVerifier.create(Mono.zip(testedObject.getArrivalDelay(request("A")), testedObject.getArrivalDelay(request("B"))))
+                .assertNext(predictions -> {
+                    assertThat(predictions.getT1().getStationCode()).isEqualTo("first");
+                    assertThat(predictions.getT2().getStationCode()).isEqualTo("second");
+                })
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DelayPredictionRequest>> requests = ArgumentCaptor.forClass(List.class);
+        verify(webClient, times(1)).makeArrivalPredictionsRequest(requests.capture());
+        assertThat(requests.getValue()).extracting(DelayPredictionRequest::getStationCode).containsExactly("A", "B");
+        verify(webClient, never()).makeArrivalPredictionRequest(any());
+        assertThat(meterRegistry.get("prediction.batch.size").tag("direction", "arrival").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void getDepartureDelay_usesDepartureBatchEndpoint() {
+        when(webClient.makeDeparturePredictionsRequest(anyList())).thenReturn(Flux.just(response("A", 4d)));
+
+        StepVerifier.create(testedObject.getDepartureDelay(request("A")))
+                .assertNext(prediction -> assertThat(prediction.getPredictedDelay()).isEqualTo(4d))
+                .verifyComplete();
+
+        verify(webClient, never()).makeArrivalPredictionsRequest(anyList());
+        assertThat(meterRegistry.get("prediction.batch.size").tag("direction", "departure").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getArrivalDelay_incompleteBatchResponse_returnsZeroDelay() {
+        when(webClient.makeArrivalPredictionsRequest(anyList())).thenReturn(Flux.empty());
+
+        StepVerifier.create(testedObject.getArrivalDelay(request("A")))
+                .assertNext(prediction -> {
+                    assertThat(prediction.getStationCode()).isEqualTo("A");
+                    assertThat(prediction.getTrainNumber()).isEqualTo("123");
+                    assertThat(prediction.getPredictedDelay()).isZero();
+                    assertThat(prediction.isFallback()).isTrue();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getDepartureDelay_afterShutdown_returnsZeroDelay() {
+        testedObject.shutdown();
+
+        StepVerifier.create(testedObject.getDepartureDelay(request("A")))
+                .assertNext(prediction -> assertThat(prediction.getPredictedDelay()).isZero())
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        verifyNoInteractions(webClient);
+    }
+}
@@ -0,0 +1,151 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainRouteResponse;
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.client.StationWebClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingStationDataGatewayTest {
+
+    @Mock
+    private StationWebClient webClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BatchingStationDataGateway testedObject;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        testedObject = new BatchingStationDataGateway(webClient, CircuitBreakerRegistry.ofDefaults(),
+                RetryRegistry.of(RetryConfig.custom().maxAttempts(1).build()), RateLimiterRegistry.ofDefaults(), meterRegistry);
+        ReflectionTestUtils.setField(testedObject, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(testedObject, "maxWaitMillis", 50);
+        testedObject.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testedObject.shutdown();
+    }
+
+    private static TrainStationResponse station(String code) {
+        return TrainStationResponse.builder().stationCode(code).latitude(47.0).longitude(19.0).build();
+    }
+
+    @Test
+    void getTrainStation_lookupsWithinWindow_shareOneBulkCall() {
+        when(webClient.makeStationsRequest(anyCollection())).thenReturn(Flux.just(station("A"), station("B")));
+
+        StepVerifier.create(Mono.zip(testedObject.getTrainStation("A"), testedObject.getTrainStation("B"), testedObject.getTrainStation("A")))
+                .assertNext(stations -> {
+                    assertThat(stations.getT1().getStationCode()).isEqualTo("A");
+                    assertThat(stations.getT2().getStationCode()).isEqualTo("B");
+                    assertThat(stations.getT3().getLatitude()).isEqualTo(47.0);
+                })
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> keys = ArgumentCaptor.forClass(Collection.class);
+        verify(webClient, times(1)).makeStationsRequest(keys.capture());
+        assertThat(keys.getValue()).containsExactly("A", "B");
+        assertThat(meterRegistry.get("station.lookup.batch.size").tag("lookup", "getTrainStation").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void getTrainStation_missingFromBulkResponse_returnsStationWithoutCoordinates() {
+        when(webClient.makeStationsRequest(anyCollection())).thenReturn(Flux.empty());
+
+        StepVerifier.create(testedObject.getTrainStation("A"))
+                .assertNext(station -> {
+                    assertThat(station.getStationCode()).isEqualTo("A");
+                    assertThat(station.getLatitude()).isNull();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getTrainStation_bulkCallFails_returnsStationWithoutCoordinates() {
+        when(webClient.makeStationsRequest(anyCollection())).thenReturn(Flux.error(new RuntimeException("boom")));
+
+        StepVerifier.create(testedObject.getTrainStation("A"))
+                .assertNext(station -> assertThat(station.getLatitude()).isNull())
+                .verifyComplete();
+    }
+
+    @Test
+    void getTrainRoute_resolvesFoundRoutesAndCompletesMissingOnesEmpty() {
+        TrainRouteResponse route = new TrainRouteResponse("123", "80", "A", "B");
+        when(webClient.makeTrainRoutesRequest(anyCollection())).thenReturn(Flux.just(route));
+
+        StepVerifier.create(testedObject.getTrainRoute("123"))
+                .expectNext(route)
+                .verifyComplete();
+        StepVerifier.create(testedObject.getTrainRoute("456"))
+                .verifyComplete();
+
+        verify(webClient, times(2)).makeTrainRoutesRequest(anyCollection());
+        verify(webClient, never()).makeTrainRouteRequest(anyString());
+    }
+
+    @Test
+    void getTrainRoute_bulkCallFails_returnsEmpty() {
+        when(webClient.makeTrainRoutesRequest(anyCollection())).thenReturn(Flux.error(new RuntimeException("boom")));
+
+        StepVerifier.create(testedObject.getTrainRoute("123"))
+                .verifyComplete();
+    }
+
+    @Test
+    void getTrainStation_pendingAtShutdown_returnsStationWithoutCoordinates() {
+        when(webClient.makeStationsRequest(anyCollection())).thenReturn(Flux.never());
+
+        Mono<TrainStationResponse> pending = testedObject.getTrainStation("A").cache();
+        pending.subscribe();
+        verify(webClient, timeout(1000)).makeStationsRequest(anyCollection());
+        testedObject.shutdown();
+
+        StepVerifier.create(pending)
+                .assertNext(station -> {
+                    assertThat(station.getStationCode()).isEqualTo("A");
+                    assertThat(station.getLatitude()).isNull();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void lookups_afterShutdown_fallBackWithoutCallingTheCollector() {
+        testedObject.shutdown();
+
+        StepVerifier.create(testedObject.getTrainStation("A"))
+                .assertNext(station -> assertThat(station.getLatitude()).isNull())
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        StepVerifier.create(testedObject.getTrainRoute("123"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        verifyNoInteractions(webClient);
+    }
+}
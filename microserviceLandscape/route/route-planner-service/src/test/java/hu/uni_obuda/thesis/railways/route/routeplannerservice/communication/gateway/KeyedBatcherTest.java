@@ -0,0 +1,161 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedBatcherTest {
+
+    private final List<List<String>> bulkCalls = new CopyOnWriteArrayList<>();
+    private DistributionSummary batchSizes;
+    private KeyedBatcher<String, String> testedObject;
+
+    @BeforeEach
+    void setUp() {
+        batchSizes = DistributionSummary.builder("test.batch.size").register(new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testedObject.shutdown();
+    }
+
+    private KeyedBatcher<String, String> batcher(Function<List<String>, Flux<String>> bulkCall, KeyedBatcher.ResultMatcher<String, String> resultMatcher) {
+        return new KeyedBatcher<>("lookup", keys -> {
+            bulkCalls.add(keys);
+            return bulkCall.apply(keys);
+        }, resultMatcher, batchSizes, 10, Duration.ofMillis(50), CircuitBreakerRegistry.ofDefaults(),
+                RetryRegistry.of(RetryConfig.custom().maxAttempts(1).build()), RateLimiterRegistry.ofDefaults());
+    }
+
+    private static Flux<String> echo(List<String> keys) {
+        return Flux.fromIterable(keys).map(key -> key + "-value");
+    }
+
+    @Test
+    void lookup_keysWithinWindow_shareOneDeduplicatedBulkCall() {
+        testedObject = batcher(KeyedBatcherTest::echo, KeyedBatcher.byKey(value -> value.substring(0, 1)));
+
+        StepVerifier.create(Mono.zip(testedObject.lookup("A"), testedObject.lookup("B"), testedObject.lookup("A")))
+                .assertNext(values -> {
+                    assertThat(values.getT1()).isEqualTo("A-value");
+                    assertThat(values.getT2()).isEqualTo("B-value");
+                    assertThat(values.getT3()).isEqualTo("A-value");
+                })
+                .verifyComplete();
+
+        assertThat(bulkCalls).containsExactly(List.of("A", "B"));
+        assertThat(batchSizes.count()).isEqualTo(1);
+        assertThat(batchSizes.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void lookup_byKey_keyMissingFromResults_completesEmpty() {
+        testedObject = batcher(_ -> Flux.just("A-value"), KeyedBatcher.byKey(value -> value.substring(0, 1)));
+
+        Mono<String> missing = testedObject.lookup("B").cache();
+        missing.subscribe();
+
+        StepVerifier.create(testedObject.lookup("A"))
+                .expectNext("A-value")
+                .verifyComplete();
+        StepVerifier.create(missing)
+                .verifyComplete();
+    }
+
+    @Test
+    void lookup_byPosition_matchesResultsInKeyOrder() {
+        testedObject = batcher(keys -> Flux.range(0, keys.size()).map(i -> "result-" + i), KeyedBatcher.byPosition());
+
+        StepVerifier.create(Mono.zip(testedObject.lookup("A"), testedObject.lookup("B")))
+                .assertNext(values -> {
+                    assertThat(values.getT1()).isEqualTo("result-0");
+                    assertThat(values.getT2()).isEqualTo("result-1");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void lookup_byPosition_resultCountMismatch_failsEveryCaller() {
+        testedObject = batcher(_ -> Flux.just("only-one"), KeyedBatcher.byPosition());
+
+        StepVerifier.create(Mono.zipDelayError(testedObject.lookup("A"), testedObject.lookup("B")))
+                .expectError()
+                .verify();
+        assertThat(bulkCalls).hasSize(1);
+    }
+
+    @Test
+    void lookup_bulkCallFails_failsEveryCaller() {
+        RuntimeException failure = new RuntimeException("boom");
+        testedObject = batcher(_ -> Flux.error(failure), KeyedBatcher.byKey(Function.identity()));
+
+        Mono<String> first = testedObject.lookup("A").cache();
+        first.subscribe(_ -> {}, _ -> {});
+
+        StepVerifier.create(testedObject.lookup("B")).expectErrorMatches(ex -> ex == failure).verify();
+        StepVerifier.create(first).expectErrorMatches(ex -> ex == failure).verify();
+    }
+
+    @Test
+    void shutdown_lookupInFlight_failsCaller() throws InterruptedException {
+        CountDownLatch bulkCallStarted = new CountDownLatch(1);
+        testedObject = batcher(_ -> Flux.<String>never().doOnSubscribe(_ -> bulkCallStarted.countDown()), KeyedBatcher.byKey(Function.identity()));
+
+        Mono<String> pending = testedObject.lookup("A").cache();
+        pending.subscribe(_ -> {}, _ -> {});
+        assertThat(bulkCallStarted.await(1, TimeUnit.SECONDS)).isTrue();
+        testedObject.shutdown();
+
+        StepVerifier.create(pending)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void shutdown_lookupStillBuffered_failsCallerWithoutBulkCall() {
+        testedObject = new KeyedBatcher<>("lookup", keys -> {
+            bulkCalls.add(keys);
+            return echo(keys);
+        }, KeyedBatcher.byKey(Function.identity()), batchSizes, 10, Duration.ofMinutes(1), CircuitBreakerRegistry.ofDefaults(),
+                RetryRegistry.ofDefaults(), RateLimiterRegistry.ofDefaults());
+
+        Mono<String> pending = testedObject.lookup("A").cache();
+        pending.subscribe(_ -> {}, _ -> {});
+        testedObject.shutdown();
+
+        StepVerifier.create(pending)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+        assertThat(bulkCalls).isEmpty();
+    }
+
+    @Test
+    void lookup_afterShutdown_isRejected() {
+        testedObject = batcher(KeyedBatcherTest::echo, KeyedBatcher.byKey(Function.identity()));
+        testedObject.shutdown();
+
+        StepVerifier.create(testedObject.lookup("A"))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+        assertThat(bulkCalls).isEmpty();
+    }
+}
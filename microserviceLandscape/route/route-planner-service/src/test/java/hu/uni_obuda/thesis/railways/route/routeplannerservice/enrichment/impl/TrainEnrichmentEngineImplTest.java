@@ -0,0 +1,262 @@
+package hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.impl;
+
+import hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainStationResponse;
+import hu.uni_obuda.thesis.railways.data.raildatacollector.dto.TrainRouteResponse;
+import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
+import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import hu.uni_obuda.thesis.railways.route.dto.RouteResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.LatencyBudget;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.RequestLookups;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.PredictionService;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.StationService;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.WeatherService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrainEnrichmentEngineImplTest {
+
+    private static final UnaryOperator<String> SHORT_NUMBER = trainNumber -> trainNumber.split(" ")[1];
+
+    @Mock
+    private StationService stationService;
+    @Mock
+    private WeatherService weatherService;
+    @Mock
+    private PredictionService predictionService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TrainEnrichmentEngineImpl testedObject;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        testedObject = new TrainEnrichmentEngineImpl(stationService, weatherService, predictionService, meterRegistry);
+        ReflectionTestUtils.setField(testedObject, "latencyBudgetInMs", 5000);
+        ReflectionTestUtils.setField(testedObject, "stationConcurrency", 8);
+        ReflectionTestUtils.setField(testedObject, "weatherConcurrency", 4);
+        ReflectionTestUtils.setField(testedObject, "predictionConcurrency", 8);
+    }
+
+    private static TrainRouteResponse.Train train(String trainNumber) {
+        return TrainRouteResponse.Train.builder()
+                .trainNumber(trainNumber)
+                .lineNumber("L1")
+                .fromStation("FS")
+                .toStation("TS")
+                .fromTimeScheduled("2025-01-01T08:00:00")
+                .toTimeScheduled("2025-01-01T10:00:00")
+                .build();
+    }
+
+    private static TrainRouteResponse route(TrainRouteResponse.Train... trains) {
+        return TrainRouteResponse.builder().trains(List.of(trains)).build();
+    }
+
+    private void stubStations(String trainNumber, Duration delay) {
+        when(stationService.getRoute(trainNumber)).thenReturn(Mono.just(
+                new hu.uni_obuda.thesis.railways.data.delaydatacollector.dto.TrainRouteResponse(trainNumber, "L1", "START", "END"))
+                .delayElement(delay));
+        when(stationService.getStation("START")).thenReturn(Mono.just(TrainStationResponse.builder()
+                .stationCode("START").latitude(47.0).longitude(19.0).build()));
+        when(stationService.getStation("END")).thenReturn(Mono.just(TrainStationResponse.builder()
+                .stationCode("END").latitude(48.0).longitude(20.0).build()));
+    }
+
+    private void stubWeather() {
+        when(weatherService.getWeather(anyString(), anyDouble(), anyDouble(), any(LocalDateTime.class)))
+                .thenReturn(Mono.just(WeatherInfo.builder().build()));
+    }
+
+    private void stubPredictions() {
+        when(predictionService.predictDepartureDelay(any(DelayPredictionRequest.class)))
+                .thenReturn(Mono.just(DelayPredictionResponse.builder().predictedDelay(5.0).build()));
+        when(predictionService.predictArrivalDelay(any(DelayPredictionRequest.class)))
+                .thenReturn(Mono.just(DelayPredictionResponse.builder().predictedDelay(10.0).build()));
+    }
+
+    private long stageCount(String stage, String outcome) {
+        return meterRegistry.get("route.enrichment.stage").tag("stage", stage).tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void enrich_keepsTrainOrderWithinRoute_andAddsPredictions() {
+        stubStations("1", Duration.ofMillis(100));
+        stubStations("2", Duration.ZERO);
+        stubWeather();
+        stubPredictions();
+
+        StepVerifier.create(testedObject.enrich(Flux.just(route(train("IC 1"), train("IC 2"))), SHORT_NUMBER))
+                .assertNext(route -> {
+                    assertThat(route.getTrains()).extracting(RouteResponse.Train::getTrainNumber).containsExactly("IC 1", "IC 2");
+                    assertThat(route.getTrains()).allSatisfy(train -> {
+                        assertThat(train.getFromTimePredicted()).isEqualTo("2025-01-01T08:05");
+                        assertThat(train.getToTimePredicted()).isEqualTo("2025-01-01T10:10");
+                        assertThat(train.getPredictionsUnavailable()).isNull();
+                    });
+                })
+                .verifyComplete();
+
+        assertThat(stageCount("stations", "completed")).isEqualTo(2);
+        assertThat(stageCount("weather", "completed")).isEqualTo(2);
+        assertThat(stageCount("predictions", "completed")).isEqualTo(2);
+    }
+
+    @Test
+    void enrich_budgetRunsOut_returnsScheduledTimesFlaggedAsUnavailable() {
+        stubStations("1", Duration.ZERO);
+        when(weatherService.getWeather(anyString(), anyDouble(), anyDouble(), any(LocalDateTime.class)))
+                .thenReturn(Mono.never());
+
+        StepVerifier.create(testedObject.enrich(Flux.just(route(train("IC 1"))), SHORT_NUMBER)
+                        .contextWrite(Context.of(LatencyBudget.class, LatencyBudget.startingNow(Duration.ofMillis(200)))))
+                .assertNext(route -> {
+                    RouteResponse.Train train = route.getTrains().getFirst();
+                    assertThat(train.getFromTimeScheduled()).isEqualTo("2025-01-01T08:00:00");
+                    assertThat(train.getFromTimePredicted()).isNull();
+                    assertThat(train.getToTimePredicted()).isNull();
+                    assertThat(train.getPredictionsUnavailable()).isTrue();
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(predictionService);
+        assertThat(stageCount("weather", "budget_exceeded")).isEqualTo(1);
+    }
+
+    @Test
+    void enrich_exhaustedBudget_skipsDownstreamCalls() {
+        StepVerifier.create(testedObject.enrich(Flux.just(route(train("IC 1"))), SHORT_NUMBER)
+                        .contextWrite(Context.of(LatencyBudget.class, LatencyBudget.startingNow(Duration.ZERO))))
+                .assertNext(route -> assertThat(route.getTrains().getFirst().getPredictionsUnavailable()).isTrue())
+                .verifyComplete();
+
+        verifyNoInteractions(stationService, weatherService, predictionService);
+        assertThat(stageCount("stations", "budget_exceeded")).isEqualTo(1);
+    }
+
+    @Test
+    void enrich_trainWithActuals_skipsAllStages() {
+        TrainRouteResponse.Train train = train("IC 1");
+        train.setFromTimeActual("2025-01-01T08:02:00");
+        train.setToTimeActual("2025-01-01T10:03:00");
+
+        StepVerifier.create(testedObject.enrich(Flux.just(route(train)), SHORT_NUMBER))
+                .assertNext(route -> {
+                    RouteResponse.Train enriched = route.getTrains().getFirst();
+                    assertThat(enriched.getFromTimeActual()).isEqualTo("2025-01-01T08:02:00");
+                    assertThat(enriched.getToTimeActual()).isEqualTo("2025-01-01T10:03:00");
+                    assertThat(enriched.getPredictionsUnavailable()).isNull();
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(stationService, weatherService, predictionService);
+    }
+
+    @Test
+    void enrich_routeWithoutTrains_isStillEmitted() {
+        StepVerifier.create(testedObject.enrich(Flux.just(route()), SHORT_NUMBER))
+                .assertNext(route -> assertThat(route.getTrains()).isEmpty())
+                .verifyComplete();
+    }
+
+    @Test
+    void enrich_stageError_isPropagated() {
+        RuntimeException failure = new RuntimeException("boom");
+        when(stationService.getRoute("1")).thenReturn(Mono.error(failure));
+
+        StepVerifier.create(testedObject.enrich(Flux.just(route(train("IC 1"))), SHORT_NUMBER))
+                .expectErrorMatches(ex -> ex == failure)
+                .verify();
+
+        assertThat(stageCount("stations", "error")).isEqualTo(1);
+    }
+
+    @Test
+    void enrich_repeatedTrainsAndStations_areLookedUpOncePerRequest() {
+        stubStations("1", Duration.ofMillis(50));
+        stubWeather();
+        stubPredictions();
+
+        StepVerifier.create(testedObject.enrich(Flux.just(route(train("IC 1"), train("IC 1")), route(train("IC 1"))), SHORT_NUMBER))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        verify(stationService, times(1)).getRoute("1");
+        verify(stationService, times(1)).getStation("START");
+        verify(stationService, times(1)).getStation("END");
+        verify(weatherService, times(2)).getWeather(anyString(), anyDouble(), anyDouble(), any(LocalDateTime.class));
+        verify(predictionService, times(3)).predictDepartureDelay(any(DelayPredictionRequest.class));
+
+        assertThat(meterRegistry.get("route.enrichment.lookups").tag("lookup", "route").tag("outcome", "memoized").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("route.enrichment.lookups").tag("lookup", "station").tag("outcome", "memoized").counter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("route.enrichment.lookups").tag("lookup", "weather").tag("outcome", "memoized").counter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("route.enrichment.lookups.saved").summary().totalAmount()).isEqualTo(10);
+    }
+
+    @Test
+    void enrich_separateRequests_doNotShareLookups() {
+        stubStations("1", Duration.ZERO);
+        stubWeather();
+        stubPredictions();
+
+        StepVerifier.create(testedObject.enrich(Flux.just(route(train("IC 1"))), SHORT_NUMBER)
+                        .contextWrite(testedObject::startRequest))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(testedObject.enrich(Flux.just(route(train("IC 1"))), SHORT_NUMBER)
+                        .contextWrite(testedObject::startRequest))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(stationService, times(2)).getRoute("1");
+    }
+
+    @Test
+    void startRequest_keepsTighterBudgetAlreadyInContext() {
+        LatencyBudget tighter = LatencyBudget.startingNow(Duration.ofMillis(10));
+
+        Context context = testedObject.startRequest(Context.of(LatencyBudget.class, tighter));
+        Context started = testedObject.startRequest(Context.empty());
+
+        assertThat(LatencyBudget.from(context)).isSameAs(tighter);
+        assertThat(LatencyBudget.from(started).isUnlimited()).isFalse();
+        assertThat(LatencyBudget.from(started).remaining()).isLessThanOrEqualTo(Duration.ofMillis(5000));
+        assertThat(started.hasKey(RequestLookups.class)).isTrue();
+    }
+
+    @Test
+    void startRequest_replacesLooserBudgetInContext() {
+        LatencyBudget looser = LatencyBudget.startingNow(Duration.ofHours(1));
+
+        Context context = testedObject.startRequest(Context.of(LatencyBudget.class, looser));
+
+        assertThat(LatencyBudget.from(context)).isNotSameAs(looser);
+        assertThat(LatencyBudget.from(context).remaining()).isLessThanOrEqualTo(Duration.ofMillis(5000));
+    }
+
+    @Test
+    void startRequest_replacesUnlimitedBudgetInContext() {
+        Context context = testedObject.startRequest(Context.of(LatencyBudget.class, LatencyBudget.unlimited()));
+
+        assertThat(LatencyBudget.from(context).isUnlimited()).isFalse();
+    }
+}
@@ -2,7 +2,9 @@ package hu.uni_obuda.thesis.railways.route.routeplannerservice.service.impl.comm
 
 import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
 import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.cache.PredictionCache;
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.communication.gateway.PredictorGateway;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -11,6 +13,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -19,9 +24,18 @@ class ReactiveHttpPredictionServiceTest {
     @Mock
     private PredictorGateway predictorGateway;
 
+    @Mock
+    private PredictionCache predictionCache;
+
     @InjectMocks
     private ReactiveHttpPredictionService testedObject;
 
+    @BeforeEach
+    void setUp() {
+        when(predictionCache.get(anyString(), any(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<Mono<DelayPredictionResponse>>>getArgument(2).get());
+    }
+
     @Test
     void predictArrivalDelay_callsGatewayGetArrivalDelay() {
         DelayPredictionRequest request = mock(DelayPredictionRequest.class);
@@ -33,6 +47,7 @@ class ReactiveHttpPredictionServiceTest {
                 .expectNext(response)
                 .verifyComplete();
 
+        verify(predictionCache).get(eq("arrival"), eq(request), any());
         verify(predictorGateway).getArrivalDelay(request);
         verify(predictorGateway, never()).getDepartureDelay(any());
         verifyNoMoreInteractions(predictorGateway);
@@ -49,6 +64,7 @@ class ReactiveHttpPredictionServiceTest {
                 .expectNext(response)
                 .verifyComplete();
 
+        verify(predictionCache).get(eq("departure"), eq(request), any());
         verify(predictorGateway).getDepartureDelay(request);
         verify(predictorGateway, never()).getArrivalDelay(any());
         verifyNoMoreInteractions(predictorGateway);
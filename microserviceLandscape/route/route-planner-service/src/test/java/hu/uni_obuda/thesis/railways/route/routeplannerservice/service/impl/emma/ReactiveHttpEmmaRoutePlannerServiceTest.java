@@ -7,16 +7,19 @@ import hu.uni_obuda.thesis.railways.data.weatherdatacollector.dto.WeatherInfo;
 import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionRequest;
 import hu.uni_obuda.thesis.railways.model.dto.DelayPredictionResponse;
 import hu.uni_obuda.thesis.railways.route.dto.RouteResponse;
+import hu.uni_obuda.thesis.railways.route.routeplannerservice.enrichment.impl.TrainEnrichmentEngineImpl;
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.helper.TimetableProcessingHelper;
 import hu.uni_obuda.thesis.railways.route.routeplannerservice.service.*;
 import hu.uni_obuda.thesis.railways.util.exception.datacollectors.InvalidInputDataException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -47,9 +50,18 @@ class ReactiveHttpEmmaRoutePlannerServiceTest {
     @Mock
     private TimetableProcessingHelper helper;
 
-    @InjectMocks
     private ReactiveHttpEmmaRoutePlannerService testedObject;
 
+    @BeforeEach
+    void setUp() {
+        TrainEnrichmentEngineImpl enrichmentEngine = new TrainEnrichmentEngineImpl(stationService, weatherService, predictionService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(enrichmentEngine, "latencyBudgetInMs", 5000);
+        ReflectionTestUtils.setField(enrichmentEngine, "stationConcurrency", 8);
+        ReflectionTestUtils.setField(enrichmentEngine, "weatherConcurrency", 4);
+        ReflectionTestUtils.setField(enrichmentEngine, "predictionConcurrency", 8);
+        testedObject = new ReactiveHttpEmmaRoutePlannerService(timetableService, geocodingService, enrichmentEngine, helper, routeCache);
+    }
+
     @Test
     void planRoute_fromBlank_returnsError_andNoDeps() {
         StepVerifier.create(testedObject.planRoute("  ", "TO", LocalDateTime.now(), null, null))
@@ -0,0 +1,276 @@
+package hu.uni_obuda.thesis.railways.util.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link RedisSerializer} that stores values in a binary Jackson format (Smile or CBOR) and
+ * compresses them with LZ4 or Zstd once they reach a size threshold.
+ * <p>
+ * Every value starts with a small header: a magic byte, the header version, the format, the
+ * compression and, for compressed values, the uncompressed length. Reads are driven by the header
+ * rather than by the current configuration, so the format or compression can be changed without
+ * flushing the cache. Values without the header are read as plain JSON, which keeps entries written
+ * by {@code Jackson2JsonRedisSerializer} readable.
+ * <p>
+ * Encoded values may not exceed the configured maximum value size. On reads, an uncompressed length
+ * outside of that limit marks the value as corrupt, so a damaged header cannot trigger a huge allocation.
+ * <p>
+ * Metrics are tagged with {@code cache=<name>}: {@code redis.serializer.bytes} counts the bytes
+ * written and read, tagged with {@code operation} ({@code write} or {@code read}) and {@code form}
+ * ({@code uncompressed} for the encoded value, {@code stored} for what Redis holds).
+ */
+public final class CompactRedisSerializer<T> implements RedisSerializer<T> {
+
+    public enum Format {
+        SMILE, CBOR
+    }
+
+    public enum Compression {
+        NONE, LZ4, ZSTD
+    }
+
+    private static final String METRIC_NAME = "redis.serializer.bytes";
+
+    private static final byte MAGIC = (byte) 0xB7;
+    private static final byte HEADER_VERSION = 1;
+    private static final int HEADER_SIZE = 4;
+    private static final int LENGTH_SIZE = Integer.BYTES;
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final JavaType type;
+    private final ObjectMapper jsonMapper;
+    private final Map<Format, ObjectMapper> binaryMappers = new EnumMap<>(Format.class);
+    private final Format format;
+    private final Compression compression;
+    private final int compressionThreshold;
+    private final int zstdLevel;
+    private final int maxValueSize;
+
+    private final Counter uncompressedBytesWritten;
+    private final Counter storedBytesWritten;
+    private final Counter uncompressedBytesRead;
+    private final Counter storedBytesRead;
+
+    private CompactRedisSerializer(Builder<T> builder) {
+        this.jsonMapper = builder.objectMapper;
+        this.type = jsonMapper.constructType(builder.type);
+        this.format = builder.format;
+        this.compression = builder.compression;
+        this.compressionThreshold = builder.compressionThreshold;
+        this.zstdLevel = builder.zstdLevel;
+        this.maxValueSize = builder.maxValueSize;
+        binaryMappers.put(Format.SMILE, jsonMapper.copyWith(new SmileFactory()));
+        binaryMappers.put(Format.CBOR, jsonMapper.copyWith(new CBORFactory()));
+
+        this.uncompressedBytesWritten = byteCounter(builder, "write", "uncompressed");
+        this.storedBytesWritten = byteCounter(builder, "write", "stored");
+        this.uncompressedBytesRead = byteCounter(builder, "read", "uncompressed");
+        this.storedBytesRead = byteCounter(builder, "read", "stored");
+    }
+
+    public static <T> Builder<T> builder(ObjectMapper objectMapper, Class<T> type) {
+        return new Builder<>(objectMapper, type);
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+        byte[] encoded;
+        try {
+            encoded = binaryMappers.get(format).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + format + " value: " + e.getMessage(), e);
+        }
+        if (encoded.length > maxValueSize) {
+            throw new SerializationException("Encoded value of " + encoded.length + " bytes exceeds the maximum value size of " + maxValueSize);
+        }
+        Compression applied = encoded.length >= compressionThreshold ? compression : Compression.NONE;
+        byte[] compressed = compress(encoded, applied);
+        if (applied != Compression.NONE && compressed.length + LENGTH_SIZE >= encoded.length) {
+            applied = Compression.NONE;
+            compressed = encoded;
+        }
+
+        ByteBuffer stored = ByteBuffer.allocate(HEADER_SIZE + (applied == Compression.NONE ? 0 : LENGTH_SIZE) + compressed.length);
+        stored.put(MAGIC).put(HEADER_VERSION).put((byte) format.ordinal()).put((byte) applied.ordinal());
+        if (applied != Compression.NONE) {
+            stored.putInt(encoded.length);
+        }
+        stored.put(compressed);
+
+        uncompressedBytesWritten.increment(encoded.length);
+        storedBytesWritten.increment(stored.capacity());
+        return stored.array();
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] != MAGIC) {
+                storedBytesRead.increment(bytes.length);
+                uncompressedBytesRead.increment(bytes.length);
+                return jsonMapper.readValue(bytes, type);
+            }
+            ByteBuffer stored = ByteBuffer.wrap(bytes);
+            stored.get();
+            byte version = stored.get();
+            if (version != HEADER_VERSION) {
+                throw new SerializationException("Unsupported header version " + version);
+            }
+            Format storedFormat = valueOf(Format.values(), stored.get());
+            Compression storedCompression = valueOf(Compression.values(), stored.get());
+            byte[] encoded = storedCompression == Compression.NONE
+                    ? readRemaining(stored)
+                    : decompress(stored, storedCompression);
+
+            storedBytesRead.increment(bytes.length);
+            uncompressedBytesRead.increment(encoded.length);
+            return binaryMappers.get(storedFormat).readValue(encoded, type);
+        } catch (IOException | BufferUnderflowException | LZ4Exception | ZstdException e) {
+            throw new SerializationException("Could not read cached value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return type.getRawClass();
+    }
+
+    private byte[] compress(byte[] encoded, Compression applied) {
+        return switch (applied) {
+            case NONE -> encoded;
+            case LZ4 -> LZ4.fastCompressor().compress(encoded);
+            case ZSTD -> Zstd.compress(encoded, zstdLevel);
+        };
+    }
+
+    private byte[] decompress(ByteBuffer stored, Compression storedCompression) {
+        int length = stored.getInt();
+        if (length <= 0 || length > maxValueSize) {
+            throw new SerializationException("Corrupt cached value: uncompressed length " + length + " is outside of 1.." + maxValueSize);
+        }
+        byte[] compressed = readRemaining(stored);
+        return switch (storedCompression) {
+            case LZ4 -> LZ4.fastDecompressor().decompress(compressed, length);
+            case ZSTD -> Zstd.decompress(compressed, length);
+            case NONE -> compressed;
+        };
+    }
+
+    private static byte[] readRemaining(ByteBuffer buffer) {
+        byte[] remaining = new byte[buffer.remaining()];
+        buffer.get(remaining);
+        return remaining;
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, byte id) {
+        if (id < 0 || id >= values.length) {
+            throw new SerializationException("Unknown " + values[0].getDeclaringClass().getSimpleName() + " id " + id);
+        }
+        return values[id];
+    }
+
+    private static Counter byteCounter(Builder<?> builder, String operation, String form) {
+        return Counter.builder(METRIC_NAME)
+                .baseUnit("bytes")
+                .tag("cache", builder.cacheName)
+                .tag("operation", operation)
+                .tag("form", form)
+                .register(builder.meterRegistry);
+    }
+
+    public static final class Builder<T> {
+        private final ObjectMapper objectMapper;
+        private final Class<T> type;
+        private Format format = Format.SMILE;
+        private Compression compression = Compression.LZ4;
+        private int compressionThreshold = 1024;
+        private int zstdLevel = 3;
+        private int maxValueSize = 16 * 1024 * 1024;
+        private String cacheName;
+        private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+        private Builder(ObjectMapper objectMapper, Class<T> type) {
+            this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper");
+            this.type = Objects.requireNonNull(type, "type");
+            this.cacheName = type.getSimpleName();
+        }
+
+        public Builder<T> format(Format format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder<T> format(String format) {
+            return format(Format.valueOf(format.trim().toUpperCase(Locale.ROOT)));
+        }
+
+        public Builder<T> compression(Compression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        public Builder<T> compression(String compression) {
+            return compression(Compression.valueOf(compression.trim().toUpperCase(Locale.ROOT)));
+        }
+
+        public Builder<T> compressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        public Builder<T> zstdLevel(int zstdLevel) {
+            this.zstdLevel = zstdLevel;
+            return this;
+        }
+
+        public Builder<T> maxValueSize(int maxValueSize) {
+            if (maxValueSize <= 0) {
+                throw new IllegalArgumentException("maxValueSize must be positive");
+            }
+            this.maxValueSize = maxValueSize;
+            return this;
+        }
+
+        public Builder<T> cacheName(String cacheName) {
+            this.cacheName = cacheName;
+            return this;
+        }
+
+        public Builder<T> meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public CompactRedisSerializer<T> build() {
+            return new CompactRedisSerializer<>(this);
+        }
+    }
+}
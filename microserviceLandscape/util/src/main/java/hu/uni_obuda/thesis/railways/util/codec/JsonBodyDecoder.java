@@ -0,0 +1,134 @@
+package hu.uni_obuda.thesis.railways.util.codec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes JSON response bodies straight from the {@link DataBuffer}s delivered by the HTTP client.
+ * <p>
+ * Every buffer is fed to Jackson's non-blocking parser and released as soon as its tokens have been
+ * copied, so the body is never aggregated into a {@code String} or a single byte array. Bodies are
+ * expected to be UTF-8 encoded.
+ * <p>
+ * Malformed JSON is signalled as the {@link IOException} Jackson raised, and bodies larger than
+ * {@code maxBodySize} bytes as a {@link DataBufferLimitException}, so callers can keep mapping them
+ * to their own exceptions. An empty body completes the returned {@link Mono} without a value.
+ * <p>
+ * The number of bytes read is passed to the deserializers as the {@link #BODY_SIZE_ATTRIBUTE}
+ * attribute, since the buffered tokens no longer carry byte offsets.
+ */
+public final class JsonBodyDecoder {
+
+    public static final String BODY_SIZE_ATTRIBUTE = JsonBodyDecoder.class.getName() + ".bodySize";
+
+    private JsonBodyDecoder() {
+
+    }
+
+    public static <T> Mono<T> decode(ClientResponse response, ObjectMapper objectMapper, Class<T> type, int maxBodySize) {
+        return decode(response.bodyToFlux(DataBuffer.class), objectMapper, objectMapper.constructType(type), maxBodySize);
+    }
+
+    public static <T> Mono<T> decode(ClientResponse response, ObjectMapper objectMapper, JavaType type, int maxBodySize) {
+        return decode(response.bodyToFlux(DataBuffer.class), objectMapper, type, maxBodySize);
+    }
+
+    public static <T> Mono<T> decode(Flux<DataBuffer> body, ObjectMapper objectMapper, JavaType type, int maxBodySize) {
+        return Mono.using(
+                () -> new Tokenizer(objectMapper, maxBodySize),
+                tokenizer -> body
+                        .<Void>handle((buffer, sink) -> {
+                            try {
+                                tokenizer.feed(buffer);
+                            } catch (IOException | DataBufferLimitException e) {
+                                sink.error(e);
+                            } finally {
+                                DataBufferUtils.release(buffer);
+                            }
+                        })
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                        .then(Mono.fromCallable(() -> tokenizer.<T>finish(type))),
+                Tokenizer::close);
+    }
+
+    /**
+     * Tells whether {@code throwable} was raised by decoding the body rather than by the exchange itself.
+     */
+    public static boolean isDecodingError(Throwable throwable) {
+        return throwable instanceof IOException || throwable instanceof DataBufferLimitException;
+    }
+
+    private static final class Tokenizer {
+
+        private final ObjectMapper objectMapper;
+        private final int maxBodySize;
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final TokenBuffer tokens;
+        private long bytesRead;
+
+        private Tokenizer(ObjectMapper objectMapper, int maxBodySize) throws IOException {
+            this.objectMapper = objectMapper;
+            this.maxBodySize = maxBodySize;
+            this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+            this.tokens = new TokenBuffer(parser);
+        }
+
+        private void feed(DataBuffer buffer) throws IOException {
+            bytesRead += buffer.readableByteCount();
+            if (bytesRead > maxBodySize) {
+                throw new DataBufferLimitException("Response body exceeded the limit of " + maxBodySize + " bytes");
+            }
+            try (DataBuffer.ByteBufferIterator byteBuffers = buffer.readableByteBuffers()) {
+                while (byteBuffers.hasNext()) {
+                    ByteBuffer byteBuffer = byteBuffers.next();
+                    feeder.feedInput(byteBuffer);
+                    drain();
+                }
+            }
+        }
+
+        private <T> T finish(JavaType type) throws IOException {
+            feeder.endOfInput();
+            drain();
+            if (tokens.firstToken() == null) {
+                return null;
+            }
+            try (JsonParser buffered = tokens.asParser(objectMapper)) {
+                return objectMapper.readerFor(type)
+                        .withAttribute(BODY_SIZE_ATTRIBUTE, bytesRead)
+                        .readValue(buffered);
+            }
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                tokens.copyCurrentEvent(parser);
+            }
+        }
+
+        private void close() {
+            try {
+                parser.close();
+                tokens.close();
+            } catch (IOException _) {
+                // nothing left to release
+            }
+        }
+    }
+}
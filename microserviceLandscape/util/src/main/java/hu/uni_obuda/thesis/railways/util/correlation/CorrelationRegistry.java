@@ -0,0 +1,314 @@
+package hu.uni_obuda.thesis.railways.util.correlation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Correlates asynchronous responses with the callers waiting for them.
+ * <p>
+ * Concurrent waits for the same key share one pending entry, so only the first caller needs to
+ * send a request. Responses that arrive before anyone waits for them are kept for a short time
+ * and handed to the next waiter. Every entry expires through a single hashed-wheel timer
+ * rather than a Reactor timeout per key.
+ * <p>
+ * Metrics are tagged with {@code registry=<name>}:
+ * {@code correlation.requests} (outcome {@code hit}, {@code miss} or {@code early}),
+ * {@code correlation.timeouts}, {@code correlation.rejected}, {@code correlation.responses}
+ * (outcome {@code matched}, {@code buffered}, {@code unclaimed} or {@code dropped}) and the
+ * {@code correlation.pending} gauge.
+ */
+@Slf4j
+public class CorrelationRegistry<K, V> implements AutoCloseable {
+
+    private static final String METRIC_PREFIX = "correlation";
+
+    private final String name;
+    private final Duration timeout;
+    private final Duration earlyResponseTtl;
+    private final int maxPending;
+    private final Scheduler emissionScheduler;
+    private final HashedWheelTimer timer;
+    private final Map<K, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter earlyHits;
+    private final Counter timeouts;
+    private final Counter rejected;
+    private final Counter matched;
+    private final Counter buffered;
+    private final Counter unclaimed;
+    private final Counter dropped;
+
+    private CorrelationRegistry(Builder<K, V> builder) {
+        this.name = builder.name;
+        this.timeout = builder.timeout;
+        this.earlyResponseTtl = builder.earlyResponseTtl;
+        this.maxPending = builder.maxPending;
+        this.emissionScheduler = builder.emissionScheduler;
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory(METRIC_PREFIX + "-" + name, true),
+                builder.tickDuration.toMillis(), TimeUnit.MILLISECONDS, builder.ticksPerWheel);
+
+        MeterRegistry meterRegistry = builder.meterRegistry;
+        this.hits = requestCounter(meterRegistry, "hit");
+        this.misses = requestCounter(meterRegistry, "miss");
+        this.earlyHits = requestCounter(meterRegistry, "early");
+        this.timeouts = Counter.builder(METRIC_PREFIX + ".timeouts")
+                .tag("registry", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder(METRIC_PREFIX + ".rejected")
+                .tag("registry", name)
+                .register(meterRegistry);
+        this.matched = responseCounter(meterRegistry, "matched");
+        this.buffered = responseCounter(meterRegistry, "buffered");
+        this.unclaimed = responseCounter(meterRegistry, "unclaimed");
+        this.dropped = responseCounter(meterRegistry, "dropped");
+        Gauge.builder(METRIC_PREFIX + ".pending", entries, Map::size)
+                .tag("registry", name)
+                .register(meterRegistry);
+    }
+
+    public static <K, V> Builder<K, V> builder(String name) {
+        return new Builder<>(name);
+    }
+
+    /**
+     * Waits for the response correlated with {@code key}.
+     */
+    public Mono<V> await(K key) {
+        return await(key, () -> {});
+    }
+
+    /**
+     * Waits for the response correlated with {@code key}, running {@code onFirstWait} only if no
+     * other caller is already waiting for it. A failure thrown by {@code onFirstWait} is delivered
+     * to every waiter of the key.
+     */
+    public Mono<V> await(K key, Runnable onFirstWait) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxPending) {
+                rejected.increment();
+                return Mono.error(new PendingLimitExceededException(name, maxPending));
+            }
+            Entry created = new Entry(key, false);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                created.expireAfter(timeout);
+                misses.increment();
+                try {
+                    onFirstWait.run();
+                } catch (RuntimeException e) {
+                    fail(key, e);
+                }
+                return created.mono;
+            }
+        }
+        if (entry.early && entry.claimed.compareAndSet(false, true)) {
+            earlyHits.increment();
+        } else {
+            hits.increment();
+        }
+        return entry.mono;
+    }
+
+    /**
+     * Completes every waiter of {@code key} with {@code value}. When nobody is waiting yet, the
+     * value is buffered for the early response TTL.
+     *
+     * @return {@code true} if the value was handed to a pending wait
+     */
+    public boolean complete(K key, V value) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxPending) {
+                dropped.increment();
+                return false;
+            }
+            Entry early = new Entry(key, true);
+            entry = entries.putIfAbsent(key, early);
+            if (entry == null) {
+                early.settled.set(true);
+                early.sink.tryEmitValue(value);
+                early.expireAfter(earlyResponseTtl);
+                buffered.increment();
+                return false;
+            }
+        }
+        if (!entry.settled.compareAndSet(false, true)) {
+            dropped.increment();
+            return false;
+        }
+        entries.remove(key, entry);
+        entry.cancelExpiry();
+        entry.sink.tryEmitValue(value);
+        matched.increment();
+        return true;
+    }
+
+    /**
+     * Fails every waiter of {@code key} with {@code error}. Buffered early responses are left
+     * untouched.
+     *
+     * @return {@code true} if a pending wait was failed
+     */
+    public boolean fail(K key, Throwable error) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.settled.compareAndSet(false, true)) {
+            return false;
+        }
+        entries.remove(key, entry);
+        entry.cancelExpiry();
+        entry.sink.tryEmitError(error);
+        return true;
+    }
+
+    public boolean isPending(K key) {
+        Entry entry = entries.get(key);
+        return entry != null && !entry.early;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        timer.stop();
+        entries.forEach((key, entry) -> {
+            if (entries.remove(key, entry) && entry.settled.compareAndSet(false, true)) {
+                entry.sink.tryEmitError(new IllegalStateException("Correlation registry " + name + " has been closed"));
+            }
+        });
+    }
+
+    private void onExpired(Entry entry) {
+        if (entry.early) {
+            if (entries.remove(entry.key, entry) && !entry.claimed.get()) {
+                unclaimed.increment();
+            }
+            return;
+        }
+        if (!entry.settled.compareAndSet(false, true)) {
+            return;
+        }
+        entries.remove(entry.key, entry);
+        timeouts.increment();
+        log.debug("Correlation registry {} timed out waiting for key {}", name, entry.key);
+        emissionScheduler.schedule(() -> entry.sink.tryEmitError(
+                new TimeoutException("Did not receive a response for " + entry.key + " within " + timeout)));
+    }
+
+    private Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METRIC_PREFIX + ".requests")
+                .tag("registry", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter responseCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METRIC_PREFIX + ".responses")
+                .tag("registry", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private final class Entry {
+        private final K key;
+        private final boolean early;
+        // every emission is guarded by the settled flag, so the sink never sees concurrent signals
+        private final Sinks.One<V> sink = Sinks.unsafe().one();
+        private final Mono<V> mono = sink.asMono();
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile Timeout expiry;
+
+        private Entry(K key, boolean early) {
+            this.key = key;
+            this.early = early;
+        }
+
+        private void expireAfter(Duration duration) {
+            expiry = timer.newTimeout(_ -> onExpired(this), duration.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void cancelExpiry() {
+            Timeout scheduled = expiry;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+    }
+
+    public static final class Builder<K, V> {
+        private final String name;
+        private Duration timeout = Duration.ofSeconds(30);
+        private Duration earlyResponseTtl = Duration.ofSeconds(5);
+        private int maxPending = 10_000;
+        private Duration tickDuration = Duration.ofMillis(100);
+        private int ticksPerWheel = 512;
+        private MeterRegistry meterRegistry = Metrics.globalRegistry;
+        private Scheduler emissionScheduler = Schedulers.parallel();
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name, "name");
+        }
+
+        public Builder<K, V> timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder<K, V> earlyResponseTtl(Duration earlyResponseTtl) {
+            this.earlyResponseTtl = earlyResponseTtl;
+            return this;
+        }
+
+        public Builder<K, V> maxPending(int maxPending) {
+            this.maxPending = maxPending;
+            return this;
+        }
+
+        public Builder<K, V> tickDuration(Duration tickDuration) {
+            this.tickDuration = tickDuration;
+            return this;
+        }
+
+        public Builder<K, V> ticksPerWheel(int ticksPerWheel) {
+            this.ticksPerWheel = ticksPerWheel;
+            return this;
+        }
+
+        public Builder<K, V> meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public Builder<K, V> emissionScheduler(Scheduler emissionScheduler) {
+            this.emissionScheduler = emissionScheduler;
+            return this;
+        }
+
+        public CorrelationRegistry<K, V> build() {
+            return new CorrelationRegistry<>(this);
+        }
+    }
+}
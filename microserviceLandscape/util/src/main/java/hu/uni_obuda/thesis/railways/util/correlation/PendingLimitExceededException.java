@@ -0,0 +1,8 @@
+package hu.uni_obuda.thesis.railways.util.correlation;
+
+public class PendingLimitExceededException extends RuntimeException {
+
+    public PendingLimitExceededException(String registryName, int maxPending) {
+        super("Correlation registry " + registryName + " already has " + maxPending + " pending entries");
+    }
+}
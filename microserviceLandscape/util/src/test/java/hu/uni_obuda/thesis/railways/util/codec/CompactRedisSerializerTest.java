@@ -0,0 +1,187 @@
+package hu.uni_obuda.thesis.railways.util.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.uni_obuda.thesis.railways.util.codec.CompactRedisSerializer.Compression;
+import hu.uni_obuda.thesis.railways.util.codec.CompactRedisSerializer.Format;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactRedisSerializerTest {
+
+    private static final int THRESHOLD = 256;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    record Sample(String name, List<String> stops) {
+    }
+
+    private static Sample small() {
+        return new Sample("IC 123", List.of("BPK", "SZG"));
+    }
+
+    private static Sample large() {
+        return new Sample("IC 123", IntStream.range(0, 200).mapToObj(i -> "Station " + i).toList());
+    }
+
+    private CompactRedisSerializer<Sample> serializer(Format format, Compression compression) {
+        return CompactRedisSerializer.builder(objectMapper, Sample.class)
+                .format(format)
+                .compression(compression)
+                .compressionThreshold(THRESHOLD)
+                .maxValueSize(64 * 1024)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    static Stream<Arguments> formatsAndCompressions() {
+        return Arrays.stream(Format.values())
+                .flatMap(format -> Arrays.stream(Compression.values()).map(compression -> Arguments.of(format, compression)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("formatsAndCompressions")
+    void roundTrip_belowThreshold_isStoredUncompressed(Format format, Compression compression) {
+        CompactRedisSerializer<Sample> testedObject = serializer(format, compression);
+
+        byte[] stored = testedObject.serialize(small());
+
+        assertThat(stored[2]).isEqualTo((byte) format.ordinal());
+        assertThat(stored[3]).isEqualTo((byte) Compression.NONE.ordinal());
+        assertThat(testedObject.deserialize(stored)).isEqualTo(small());
+    }
+
+    @ParameterizedTest
+    @MethodSource("formatsAndCompressions")
+    void roundTrip_aboveThreshold_isStoredWithConfiguredCompression(Format format, Compression compression) {
+        CompactRedisSerializer<Sample> testedObject = serializer(format, compression);
+
+        byte[] stored = testedObject.serialize(large());
+
+        assertThat(stored[2]).isEqualTo((byte) format.ordinal());
+        assertThat(stored[3]).isEqualTo((byte) compression.ordinal());
+        assertThat(testedObject.deserialize(stored)).isEqualTo(large());
+    }
+
+    @Test
+    void deserialize_followsHeaderRatherThanConfiguration() {
+        byte[] stored = serializer(Format.CBOR, Compression.ZSTD).serialize(large());
+
+        assertThat(serializer(Format.SMILE, Compression.LZ4).deserialize(stored)).isEqualTo(large());
+    }
+
+    @Test
+    void deserialize_legacyJson_isReadAsJson() throws Exception {
+        byte[] legacy = objectMapper.writeValueAsBytes(large());
+
+        assertThat(serializer(Format.SMILE, Compression.LZ4).deserialize(legacy)).isEqualTo(large());
+    }
+
+    @Test
+    void nullAndEmptyValues_areHandled() {
+        CompactRedisSerializer<Sample> testedObject = serializer(Format.SMILE, Compression.LZ4);
+
+        assertThat(testedObject.serialize(null)).isEmpty();
+        assertThat(testedObject.deserialize(null)).isNull();
+        assertThat(testedObject.deserialize(new byte[0])).isNull();
+    }
+
+    @Test
+    void serialize_recordsUncompressedAndStoredBytes() {
+        byte[] stored = serializer(Format.SMILE, Compression.LZ4).serialize(large());
+
+        double storedBytes = meterRegistry.get("redis.serializer.bytes").tag("operation", "write").tag("form", "stored").counter().count();
+        double uncompressedBytes = meterRegistry.get("redis.serializer.bytes").tag("operation", "write").tag("form", "uncompressed").counter().count();
+        assertThat(storedBytes).isEqualTo(stored.length);
+        assertThat(uncompressedBytes).isGreaterThan(storedBytes);
+    }
+
+    @Test
+    void serialize_valueAboveMaxValueSize_isRejected() {
+        CompactRedisSerializer<Sample> testedObject = CompactRedisSerializer.builder(objectMapper, Sample.class)
+                .maxValueSize(THRESHOLD)
+                .meterRegistry(meterRegistry)
+                .build();
+
+        assertThatThrownBy(() -> testedObject.serialize(large())).isInstanceOf(SerializationException.class);
+    }
+
+    @ParameterizedTest
+    @MethodSource("compressions")
+    void deserialize_negativeUncompressedLength_isCorrupt(Compression compression) {
+        byte[] stored = withUncompressedLength(serializer(Format.SMILE, compression).serialize(large()), -1);
+
+        assertThatThrownBy(() -> serializer(Format.SMILE, compression).deserialize(stored))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("Corrupt");
+    }
+
+    @ParameterizedTest
+    @MethodSource("compressions")
+    void deserialize_uncompressedLengthAboveMaxValueSize_isCorrupt(Compression compression) {
+        byte[] stored = withUncompressedLength(serializer(Format.SMILE, compression).serialize(large()), Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> serializer(Format.SMILE, compression).deserialize(stored))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("Corrupt");
+    }
+
+    @ParameterizedTest
+    @MethodSource("compressions")
+    void deserialize_truncatedCompressedPayload_isRejected(Compression compression) {
+        byte[] stored = serializer(Format.SMILE, compression).serialize(large());
+
+        assertThatThrownBy(() -> serializer(Format.SMILE, compression).deserialize(Arrays.copyOf(stored, stored.length / 2)))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void deserialize_truncatedHeader_isRejected() {
+        byte[] stored = serializer(Format.SMILE, Compression.LZ4).serialize(large());
+
+        assertThatThrownBy(() -> serializer(Format.SMILE, Compression.LZ4).deserialize(Arrays.copyOf(stored, 2)))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer(Format.SMILE, Compression.LZ4).deserialize(Arrays.copyOf(stored, 6)))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void deserialize_unknownHeaderVersionOrIds_isRejected() {
+        CompactRedisSerializer<Sample> testedObject = serializer(Format.SMILE, Compression.LZ4);
+        byte[] stored = testedObject.serialize(small());
+
+        byte[] unknownVersion = stored.clone();
+        unknownVersion[1] = 9;
+        byte[] unknownFormat = stored.clone();
+        unknownFormat[2] = 9;
+        byte[] unknownCompression = stored.clone();
+        unknownCompression[3] = -1;
+
+        assertThatThrownBy(() -> testedObject.deserialize(unknownVersion)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> testedObject.deserialize(unknownFormat)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> testedObject.deserialize(unknownCompression)).isInstanceOf(SerializationException.class);
+    }
+
+    static Stream<Compression> compressions() {
+        return Stream.of(Compression.LZ4, Compression.ZSTD);
+    }
+
+    private static byte[] withUncompressedLength(byte[] stored, int length) {
+        byte[] corrupt = stored.clone();
+        ByteBuffer.wrap(corrupt).putInt(4, length);
+        return corrupt;
+    }
+}